@@ -18,6 +18,7 @@
 import org.openrewrite.jgit.api.errors.JGitInternalException;
 import org.openrewrite.jgit.blame.BlameGenerator;
 import org.openrewrite.jgit.blame.BlameResult;
+import org.openrewrite.jgit.blame.cache.BlameCache;
 import org.openrewrite.jgit.diff.DiffAlgorithm;
 import org.openrewrite.jgit.diff.RawTextComparator;
 import org.openrewrite.jgit.lib.AnyObjectId;
@@ -42,6 +43,8 @@ public class BlameCommand extends GitCommand<BlameResult> {
 
 	private Boolean followFileRenames;
 
+	private BlameCache blameCache;
+
 	/**
 	 * Constructor for BlameCommand
 	 *
@@ -117,6 +120,20 @@ public BlameCommand setFollowFileRenames(boolean follow) {
 		return this;
 	}
 
+	/**
+	 * Set the cache of blame results to reuse and update.
+	 *
+	 * @param cache
+	 *            the cache; null to not use a cache.
+	 * @return {@code this}
+	 * @see BlameGenerator#setBlameCache(BlameCache)
+	 * @since 5.14
+	 */
+	public BlameCommand setBlameCache(BlameCache cache) {
+		blameCache = cache;
+		return this;
+	}
+
 	/**
 	 * Configure the command to compute reverse blame (history of deletes).
 	 *
@@ -171,6 +188,8 @@ public BlameResult call() throws GitAPIException {
 				gen.setTextComparator(textComparator);
 			if (followFileRenames != null)
 				gen.setFollowFileRenames(followFileRenames.booleanValue());
+			if (blameCache != null)
+				gen.setBlameCache(blameCache);
 
 			if (reverseEndCommits != null)
 				gen.reverse(startCommit, reverseEndCommits);
@@ -61,6 +61,8 @@ public class DiffCommand extends GitCommand<List<DiffEntry>> {
 
 	private ProgressMonitor monitor = NullProgressMonitor.INSTANCE;
 
+	private int threads = 1;
+
 	/**
 	 * Constructor for DiffCommand
 	 *
@@ -90,6 +92,7 @@ public List<DiffEntry> call() throws GitAPIException {
 		try (DiffFormatter diffFmt = getDiffFormatter()) {
 			diffFmt.setRepository(repo);
 			diffFmt.setProgressMonitor(monitor);
+			diffFmt.setThreads(threads);
 			if (cached) {
 				if (oldTree == null) {
 					ObjectId head = repo.resolve(HEAD + "^{tree}"); //$NON-NLS-1$
@@ -258,4 +261,22 @@ public DiffCommand setProgressMonitor(ProgressMonitor monitor) {
 		this.monitor = monitor;
 		return this;
 	}
+
+	/**
+	 * Set the number of threads comparing two trees.
+	 * <p>
+	 * Only trees of commits are compared in parallel, not the index or the
+	 * working tree, see
+	 * {@link org.openrewrite.jgit.diff.DiffFormatter#setThreads(int)}.
+	 *
+	 * @param threads
+	 *            number of threads; 0 means the number of processors, 1 (the
+	 *            default) disables the use of other threads.
+	 * @return this instance
+	 * @since 5.14
+	 */
+	public DiffCommand setThreads(int threads) {
+		this.threads = threads;
+		return this;
+	}
 }
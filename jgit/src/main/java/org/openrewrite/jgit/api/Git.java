@@ -385,6 +385,19 @@ public RevertCommand revert() {
 		return new RevertCommand(repo);
 	}
 
+	/**
+	 * Return a command object to rebase or cherry-pick commits without a
+	 * working tree or index
+	 *
+	 * @return a {@link org.openrewrite.jgit.api.InCoreRebaseCommand} used to
+	 *         collect all optional parameters and to finally execute the
+	 *         rebase
+	 * @since 5.14
+	 */
+	public InCoreRebaseCommand inCoreRebase() {
+		return new InCoreRebaseCommand(repo);
+	}
+
 	/**
 	 * Return a command object to execute a {@code Rebase} command
 	 *
@@ -0,0 +1,316 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.api;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openrewrite.jgit.api.errors.GitAPIException;
+import org.openrewrite.jgit.api.errors.JGitInternalException;
+import org.openrewrite.jgit.api.errors.MultipleParentsNotAllowedException;
+import org.openrewrite.jgit.internal.JGitText;
+import org.openrewrite.jgit.lib.AnyObjectId;
+import org.openrewrite.jgit.lib.CommitBuilder;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectInserter;
+import org.openrewrite.jgit.lib.ObjectReader;
+import org.openrewrite.jgit.lib.PersonIdent;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.merge.ContentMergeStrategy;
+import org.openrewrite.jgit.merge.MergeStrategy;
+import org.openrewrite.jgit.merge.Merger;
+import org.openrewrite.jgit.merge.ResolveMerger;
+import org.openrewrite.jgit.merge.ThreeWayMerger;
+import org.openrewrite.jgit.revwalk.RevCommit;
+import org.openrewrite.jgit.revwalk.RevSort;
+import org.openrewrite.jgit.revwalk.RevWalk;
+
+/**
+ * A class used to rebase or cherry-pick commits without a working tree or
+ * index. It has setters for all supported options and arguments of this
+ * command and a {@link #call()} method to finally execute the command. Each
+ * instance of this class should only be used for one invocation of the
+ * command (means: one call to {@link #call()})
+ * <p>
+ * The commits are merged in-core, one by one, on top of
+ * {@link #setOnto(AnyObjectId) onto}, and new commits are created for them
+ * through one {@link ObjectInserter}. Neither refs nor the index, the working
+ * tree or any rebase state are written, so the command can be used on bare
+ * repositories and repositories without a file system, and several rebases
+ * can run on the same repository at once. Callers update refs to the
+ * {@link InCoreRebaseResult#getNewHead() new head} themselves.
+ * <p>
+ * The commits to rebase are those reachable from
+ * {@link #setBranch(AnyObjectId) branch} but not from
+ * {@link #setUpstream(AnyObjectId) upstream}, except merge commits, followed
+ * by the commits {@link #include(AnyObjectId) included} explicitly. The
+ * rebase stops at the first commit which cannot be merged without
+ * conflicts.
+ *
+ * @see <a href=
+ *      "http://www.kernel.org/pub/software/scm/git/docs/git-rebase.html"
+ *      >Git documentation about rebase</a>
+ * @since 5.14
+ */
+public class InCoreRebaseCommand extends GitCommand<InCoreRebaseResult> {
+	private ObjectId onto;
+
+	private ObjectId upstream;
+
+	private ObjectId branch;
+
+	private List<ObjectId> commits = new ArrayList<>();
+
+	private MergeStrategy strategy = MergeStrategy.RECURSIVE;
+
+	private ContentMergeStrategy contentStrategy;
+
+	private PersonIdent committer;
+
+	/**
+	 * Constructor for InCoreRebaseCommand
+	 *
+	 * @param repo
+	 *            the {@link org.openrewrite.jgit.lib.Repository}
+	 */
+	protected InCoreRebaseCommand(Repository repo) {
+		super(repo);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Executes the rebase with all the options and parameters collected by
+	 * the setter methods of this class. The objects created are flushed to
+	 * the repository, also if the rebase stops because of conflicts.
+	 */
+	@Override
+	public InCoreRebaseResult call()
+			throws GitAPIException, MultipleParentsNotAllowedException {
+		checkCallable();
+		setCallable(false);
+		if (onto == null)
+			throw new JGitInternalException(MessageFormat.format(
+					JGitText.get().missingRequiredParameter, "onto")); //$NON-NLS-1$
+
+		try (ObjectInserter inserter = repo.newObjectInserter();
+				ObjectReader reader = inserter.newReader();
+				RevWalk walk = new RevWalk(reader)) {
+			RevCommit head = walk.parseCommit(onto);
+			PersonIdent ident = committer != null ? committer
+					: new PersonIdent(repo);
+			Map<ObjectId, ObjectId> rewritten = new LinkedHashMap<>();
+
+			for (RevCommit commit : calculatePickList(walk)) {
+				if (commit.getParentCount() != 1)
+					throw new MultipleParentsNotAllowedException(
+							MessageFormat.format(
+									JGitText.get().canOnlyCherryPickCommitsWithOneParent,
+									commit.name(), Integer.valueOf(
+											commit.getParentCount())));
+				RevCommit parent = walk.parseCommit(commit.getParent(0));
+				if (AnyObjectId.isEqual(parent, head)) {
+					// The commit applies as it is, keep it.
+					rewritten.put(commit.copy(), commit.copy());
+					head = commit;
+					continue;
+				}
+
+				Merger merger = strategy.newMerger(inserter,
+						repo.getConfig());
+				if (merger instanceof ThreeWayMerger)
+					((ThreeWayMerger) merger).setBase(parent.getTree());
+				ResolveMerger resolveMerger = null;
+				if (merger instanceof ResolveMerger) {
+					resolveMerger = (ResolveMerger) merger;
+					resolveMerger.setContentMergeStrategy(contentStrategy);
+					resolveMerger.setCommitNames(new String[] { "BASE", //$NON-NLS-1$
+							describe(walk, head), describe(walk, commit) });
+				}
+				if (!merger.merge(false, head, commit)) {
+					inserter.flush();
+					if (resolveMerger != null)
+						return new InCoreRebaseResult(head.copy(), rewritten,
+								commit.copy(),
+								resolveMerger.getUnmergedPaths(),
+								resolveMerger.getMergeResults());
+					return new InCoreRebaseResult(head.copy(), rewritten,
+							commit.copy(), Collections.emptyList(),
+							Collections.emptyMap());
+				}
+
+				ObjectId tree = merger.getResultTreeId();
+				if (AnyObjectId.isEqual(tree, head.getTree())
+						&& !AnyObjectId.isEqual(commit.getTree(),
+								parent.getTree())) {
+					// The changes are already present, drop the commit.
+					// Commits which were empty from the start are kept.
+					continue;
+				}
+
+				CommitBuilder cb = new CommitBuilder();
+				cb.setTreeId(tree);
+				cb.setParentId(head);
+				walk.parseBody(commit);
+				cb.setAuthor(commit.getAuthorIdent());
+				cb.setCommitter(ident);
+				cb.setMessage(commit.getFullMessage());
+				ObjectId id = inserter.insert(cb);
+				rewritten.put(commit.copy(), id);
+				head = walk.parseCommit(id);
+			}
+			inserter.flush();
+			return new InCoreRebaseResult(head.copy(), rewritten);
+		} catch (IOException ioe) {
+			throw new JGitInternalException(ioe.getMessage(), ioe);
+		}
+	}
+
+	private List<RevCommit> calculatePickList(RevWalk walk)
+			throws IOException {
+		List<RevCommit> pickList = new ArrayList<>();
+		if (branch != null) {
+			walk.sort(RevSort.TOPO_KEEP_BRANCH_TOGETHER, true);
+			walk.sort(RevSort.COMMIT_TIME_DESC, true);
+			walk.markUninteresting(walk.parseCommit(
+					upstream != null ? upstream : onto));
+			walk.markStart(walk.parseCommit(branch));
+			for (RevCommit commit : walk) {
+				if (commit.getParentCount() == 1)
+					pickList.add(commit);
+			}
+			Collections.reverse(pickList);
+			walk.reset();
+		}
+		for (ObjectId id : commits)
+			pickList.add(walk.parseCommit(id));
+		return pickList;
+	}
+
+	private static String describe(RevWalk walk, RevCommit commit)
+			throws IOException {
+		// Commits reached as uninteresting may have lost their body.
+		walk.parseBody(commit);
+		return commit.abbreviate(7).name() + " " //$NON-NLS-1$
+				+ commit.getShortMessage();
+	}
+
+	/**
+	 * Set the commit to rebase onto
+	 *
+	 * @param onto
+	 *            the commit the first rebased commit gets as parent
+	 * @return {@code this}
+	 */
+	public InCoreRebaseCommand setOnto(AnyObjectId onto) {
+		checkCallable();
+		this.onto = onto.copy();
+		return this;
+	}
+
+	/**
+	 * Set the upstream commit
+	 *
+	 * @param upstream
+	 *            commits reachable from this commit are not rebased. Defaults
+	 *            to {@link #setOnto(AnyObjectId) onto}.
+	 * @return {@code this}
+	 */
+	public InCoreRebaseCommand setUpstream(AnyObjectId upstream) {
+		checkCallable();
+		this.upstream = upstream.copy();
+		return this;
+	}
+
+	/**
+	 * Set the branch to rebase
+	 *
+	 * @param branch
+	 *            the tip of the commits to rebase
+	 * @return {@code this}
+	 */
+	public InCoreRebaseCommand setBranch(AnyObjectId branch) {
+		checkCallable();
+		this.branch = branch.copy();
+		return this;
+	}
+
+	/**
+	 * Include a commit to cherry-pick
+	 *
+	 * @param commit
+	 *            a commit with one parent, which is cherry-picked after the
+	 *            commits of the {@link #setBranch(AnyObjectId) branch} and
+	 *            the commits included before
+	 * @return {@code this}
+	 */
+	public InCoreRebaseCommand include(AnyObjectId commit) {
+		checkCallable();
+		commits.add(commit.copy());
+		return this;
+	}
+
+	/**
+	 * Set the {@code MergeStrategy}
+	 *
+	 * @param strategy
+	 *            The merge strategy to use during this rebase.
+	 * @return {@code this}
+	 */
+	public InCoreRebaseCommand setStrategy(MergeStrategy strategy) {
+		checkCallable();
+		this.strategy = strategy;
+		return this;
+	}
+
+	/**
+	 * Sets the content merge strategy to use if the
+	 * {@link #setStrategy(MergeStrategy) merge strategy} is "resolve" or
+	 * "recursive".
+	 *
+	 * @param strategy
+	 *            the {@link ContentMergeStrategy} to be used
+	 * @return {@code this}
+	 */
+	public InCoreRebaseCommand setContentMergeStrategy(
+			ContentMergeStrategy strategy) {
+		checkCallable();
+		this.contentStrategy = strategy;
+		return this;
+	}
+
+	/**
+	 * Set the committer of the rebased commits
+	 *
+	 * @param committer
+	 *            the committer; defaults to the user configured in the
+	 *            repository. The authors of the commits are kept.
+	 * @return {@code this}
+	 */
+	public InCoreRebaseCommand setCommitter(PersonIdent committer) {
+		checkCallable();
+		this.committer = committer;
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@SuppressWarnings("nls")
+	@Override
+	public String toString() {
+		return "InCoreRebaseCommand [repo=" + repo + ",\nonto=" + onto
+				+ ", upstream=" + upstream + ", branch=" + branch
+				+ ",\ncommits=" + commits + ", strategy=" + strategy + "]";
+	}
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openrewrite.jgit.diff.Sequence;
+import org.openrewrite.jgit.lib.ObjectId;
+
+/**
+ * Encapsulates the result of an {@link InCoreRebaseCommand}.
+ *
+ * @since 5.14
+ */
+public class InCoreRebaseResult {
+	/**
+	 * The status of the rebase
+	 */
+	public enum Status {
+		/** All commits were rebased */
+		OK,
+		/** A commit could not be rebased because of conflicts */
+		CONFLICTS
+	}
+
+	private final Status status;
+
+	private final ObjectId newHead;
+
+	private final Map<ObjectId, ObjectId> rewrittenCommits;
+
+	private final ObjectId conflictingCommit;
+
+	private final List<String> conflicts;
+
+	private final Map<String, org.openrewrite.jgit.merge.MergeResult<? extends Sequence>> mergeResults;
+
+	/**
+	 * Create the result of a successful rebase.
+	 *
+	 * @param newHead
+	 *            the last rebased commit
+	 * @param rewrittenCommits
+	 *            the rebased commits, by the commits they were created from
+	 */
+	InCoreRebaseResult(ObjectId newHead,
+			Map<ObjectId, ObjectId> rewrittenCommits) {
+		this.status = Status.OK;
+		this.newHead = newHead;
+		this.rewrittenCommits = rewrittenCommits;
+		this.conflictingCommit = null;
+		this.conflicts = Collections.emptyList();
+		this.mergeResults = Collections.emptyMap();
+	}
+
+	/**
+	 * Create the result of a rebase stopped by conflicts.
+	 *
+	 * @param newHead
+	 *            the last commit rebased before the conflicts
+	 * @param rewrittenCommits
+	 *            the commits rebased before the conflicts, by the commits
+	 *            they were created from
+	 * @param conflictingCommit
+	 *            the commit which could not be rebased
+	 * @param conflicts
+	 *            the paths with conflicts
+	 * @param mergeResults
+	 *            the results of merging the contents of paths
+	 */
+	InCoreRebaseResult(ObjectId newHead,
+			Map<ObjectId, ObjectId> rewrittenCommits,
+			ObjectId conflictingCommit, List<String> conflicts,
+			Map<String, org.openrewrite.jgit.merge.MergeResult<? extends Sequence>> mergeResults) {
+		this.status = Status.CONFLICTS;
+		this.newHead = newHead;
+		this.rewrittenCommits = rewrittenCommits;
+		this.conflictingCommit = conflictingCommit;
+		this.conflicts = conflicts;
+		this.mergeResults = mergeResults;
+	}
+
+	/**
+	 * Get the status
+	 *
+	 * @return the status
+	 */
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * Get the new head
+	 *
+	 * @return the last rebased commit, or the commit the commits were rebased
+	 *         onto if none was. If the rebase stopped because of conflicts
+	 *         this is the commit the conflicting commit was to be applied to.
+	 */
+	public ObjectId getNewHead() {
+		return newHead;
+	}
+
+	/**
+	 * Get the rebased commits
+	 *
+	 * @return the commits created by the rebase, by the commits they were
+	 *         created from, in the order they were rebased. Commits which
+	 *         already applied to their new parent are mapped to themselves.
+	 *         Commits whose changes were already present are dropped, and not
+	 *         contained.
+	 */
+	public Map<ObjectId, ObjectId> getRewrittenCommits() {
+		return rewrittenCommits;
+	}
+
+	/**
+	 * Get the commit which could not be rebased
+	 *
+	 * @return the commit which could not be rebased because of conflicts;
+	 *         null if the status is {@link Status#OK}.
+	 */
+	public ObjectId getConflictingCommit() {
+		return conflictingCommit;
+	}
+
+	/**
+	 * Get the conflicts
+	 *
+	 * @return the paths with conflicts when rebasing
+	 *         {@link #getConflictingCommit()}; empty if the status is
+	 *         {@link Status#OK}.
+	 */
+	public List<String> getConflicts() {
+		return conflicts;
+	}
+
+	/**
+	 * Get the merge results
+	 *
+	 * @return the results of merging the contents of the paths with
+	 *         conflicts, when rebasing
+	 *         {@link #getConflictingCommit()}; empty if the status is
+	 *         {@link Status#OK}, or if the merge strategy does not report
+	 *         them.
+	 */
+	public Map<String, org.openrewrite.jgit.merge.MergeResult<? extends Sequence>> getMergeResults() {
+		return mergeResults;
+	}
+}
@@ -42,6 +42,10 @@ public class StatusCommand extends GitCommand<Status> {
 
 	private IgnoreSubmoduleMode ignoreSubmoduleMode = null;
 
+	private int parallelism = 1;
+
+	private boolean collectIgnored = true;
+
 	/**
 	 * Constructor for StatusCommand.
 	 *
@@ -109,11 +113,15 @@ public List<String> getPaths() {
 	 */
 	@Override
 	public Status call() throws GitAPIException, NoWorkTreeException {
-		if (workingTreeIt == null)
+		boolean defaultWorkingTreeIt = workingTreeIt == null;
+		if (defaultWorkingTreeIt)
 			workingTreeIt = new FileTreeIterator(repo);
 
 		try {
 			IndexDiff diff = new IndexDiff(repo, Constants.HEAD, workingTreeIt);
+			if (defaultWorkingTreeIt)
+				diff.setParallelism(parallelism);
+			diff.setCollectIgnored(collectIgnored);
 			if (ignoreSubmoduleMode != null)
 				diff.setIgnoreSubmoduleMode(ignoreSubmoduleMode);
 			if (paths != null)
@@ -156,4 +164,41 @@ public StatusCommand setProgressMonitor(ProgressMonitor progressMonitor) {
 		this.progressMonitor = progressMonitor;
 		return this;
 	}
+
+	/**
+	 * Set the number of threads used to compare the index with the working
+	 * tree.
+	 * <p>
+	 * With more than one thread the top level directories of the repository
+	 * are compared concurrently, see
+	 * {@link org.openrewrite.jgit.lib.IndexDiff#setParallelism(int)}. This
+	 * setting is ignored if a working tree iterator was set with
+	 * {@link #setWorkingTreeIt(WorkingTreeIterator)}.
+	 *
+	 * @param threads
+	 *            number of threads to use, 1 by default.
+	 * @return {@code this}
+	 * @since 5.14
+	 */
+	public StatusCommand setParallelism(int threads) {
+		this.parallelism = threads;
+		return this;
+	}
+
+	/**
+	 * Set whether the ignored files are listed in
+	 * {@link Status#getIgnoredNotInIndex()}.
+	 * <p>
+	 * Not listing them allows the untracked cache of the index to be used,
+	 * see {@link org.openrewrite.jgit.lib.IndexDiff#setCollectIgnored(boolean)}.
+	 *
+	 * @param collect
+	 *            whether to list the ignored files, true by default.
+	 * @return {@code this}
+	 * @since 5.14
+	 */
+	public StatusCommand setCollectIgnored(boolean collect) {
+		this.collectIgnored = collect;
+		return this;
+	}
 }
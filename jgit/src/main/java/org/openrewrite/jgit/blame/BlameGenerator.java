@@ -20,7 +20,10 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.openrewrite.jgit.annotations.Nullable;
 import org.openrewrite.jgit.api.errors.NoHeadException;
@@ -28,6 +31,8 @@
 import org.openrewrite.jgit.blame.Candidate.HeadCandidate;
 import org.openrewrite.jgit.blame.Candidate.ReverseCandidate;
 import org.openrewrite.jgit.blame.ReverseWalk.ReverseCommit;
+import org.openrewrite.jgit.blame.cache.BlameCache;
+import org.openrewrite.jgit.blame.cache.CacheRegion;
 import org.openrewrite.jgit.diff.DiffAlgorithm;
 import org.openrewrite.jgit.diff.DiffEntry;
 import org.openrewrite.jgit.diff.DiffEntry.ChangeType;
@@ -36,6 +41,7 @@
 import org.openrewrite.jgit.diff.RawText;
 import org.openrewrite.jgit.diff.RawTextComparator;
 import org.openrewrite.jgit.diff.RenameDetector;
+import org.openrewrite.jgit.diff.SimilarityIndexCache;
 import org.openrewrite.jgit.dircache.DirCache;
 import org.openrewrite.jgit.dircache.DirCacheEntry;
 import org.openrewrite.jgit.dircache.DirCacheIterator;
@@ -120,6 +126,8 @@ public class BlameGenerator implements AutoCloseable {
 
 	private RenameDetector renameDetector;
 
+	private BlameCache blameCache;
+
 	/** Potential candidates, sorted by commit time descending. */
 	private Candidate queue;
 
@@ -224,10 +232,13 @@ public BlameGenerator setTextComparator(RawTextComparator comparator) {
 	 * @return {@code this}
 	 */
 	public BlameGenerator setFollowFileRenames(boolean follow) {
-		if (follow)
+		if (follow) {
 			renameDetector = new RenameDetector(getRepository());
-		else
+			renameDetector.setSimilarityIndexCache(new SimilarityIndexCache(
+					SimilarityIndexCache.DEFAULT_LIMIT));
+		} else {
 			renameDetector = null;
+		}
 		return this;
 	}
 
@@ -243,6 +254,29 @@ public RenameDetector getRenameDetector() {
 		return renameDetector;
 	}
 
+	/**
+	 * Set the cache of blame results to reuse.
+	 * <p>
+	 * When the traversal reaches a commit whose blame of the file being
+	 * followed is in the cache, the lines still to be blamed on that commit
+	 * are taken from the cached result instead of digging further into
+	 * history. {@link #computeBlameResult()} stores its result in the cache if
+	 * the blame was started from a single commit. Reverse blames do not use
+	 * the cache.
+	 * <p>
+	 * The cache must only hold results computed with the same diff algorithm,
+	 * text comparator and rename settings as used by this generator.
+	 *
+	 * @param cache
+	 *            the cache; null to not use a cache.
+	 * @return {@code this}
+	 * @since 5.14
+	 */
+	public BlameGenerator setBlameCache(@Nullable BlameCache cache) {
+		blameCache = cache;
+		return this;
+	}
+
 	/**
 	 * Push a candidate blob onto the generator's traversal stack.
 	 * <p>
@@ -545,15 +579,52 @@ public RevFlag newFlag(String name) {
 	 */
 	public BlameResult computeBlameResult() throws IOException {
 		try {
+			// The start candidate is modified while blame is passed on to
+			// its ancestors. Remember what the result will be the blame of.
+			ObjectId startCommit = null;
+			Candidate q = queue;
+			if (blameCache != null && q != null && q.queueNext == null
+					&& q.sourceCommit != null
+					&& !(q instanceof ReverseCandidate))
+				startCommit = q.sourceCommit.copy();
+
 			BlameResult r = BlameResult.create(this);
-			if (r != null)
+			if (r != null) {
 				r.computeAll();
+				if (startCommit != null) {
+					List<CacheRegion> regions = toCacheRegions(r);
+					if (regions != null)
+						blameCache.put(getRepository(), startCommit,
+								r.getResultPath(), regions);
+				}
+			}
 			return r;
 		} finally {
 			close();
 		}
 	}
 
+	private static List<CacheRegion> toCacheRegions(BlameResult r) {
+		int cnt = r.getResultContents().size();
+		List<CacheRegion> regions = new ArrayList<>();
+		for (int i = 0; i < cnt;) {
+			RevCommit c = r.getSourceCommit(i);
+			if (!r.hasSourceData(i) || c == null)
+				return null;
+			String path = r.getSourcePath(i);
+			int line = r.getSourceLine(i);
+			int end = i + 1;
+			while (end < cnt && r.hasSourceData(end)
+					&& r.getSourceCommit(end) == c
+					&& r.getSourceLine(end) == line + (end - i)
+					&& r.getSourcePath(end).equals(path))
+				end++;
+			regions.add(new CacheRegion(path, c.copy(), i, end, line));
+			i = end;
+		}
+		return Collections.unmodifiableList(regions);
+	}
+
 	/**
 	 * Step the blame algorithm one iteration.
 	 *
@@ -591,6 +662,15 @@ public boolean next() throws IOException {
 			if (n == null)
 				return done();
 
+			if (blameCache != null) {
+				Candidate cached = fromCache(n);
+				if (cached != null) {
+					if (result(cached))
+						return true;
+					continue;
+				}
+			}
+
 			int pCnt = n.getParentCount();
 			if (pCnt == 1) {
 				if (processOne(n))
@@ -612,6 +692,103 @@ public boolean next() throws IOException {
 		}
 	}
 
+	/**
+	 * Blame the regions of a candidate using the cached blame of its commit.
+	 *
+	 * @return the chain of candidates the regions are blamed on, linked by
+	 *         {@link Candidate#queueNext}; null if the blame is not cached.
+	 */
+	private Candidate fromCache(Candidate n) throws IOException {
+		if (n.sourceCommit == null || n instanceof ReverseCandidate
+				|| n.regionList == null)
+			return null;
+		List<CacheRegion> cached = blameCache.get(getRepository(),
+				n.sourceCommit, n.sourcePath.getPath());
+		if (cached == null)
+			return null;
+		for (Region r = n.regionList; r != null; r = r.next) {
+			if (!covers(cached, r.sourceStart, r.sourceStart + r.length))
+				return null;
+		}
+
+		Map<String, Candidate> sources = new LinkedHashMap<>();
+		Map<String, Region> tails = new HashMap<>();
+		for (Region r = n.regionList; r != null; r = r.next) {
+			int line = r.sourceStart;
+			int end = line + r.length;
+			for (int i = findRegion(cached, line); line < end; i++) {
+				CacheRegion c = cached.get(i);
+				int len = Math.min(end, c.getEnd()) - line;
+				int resultStart = r.resultStart + line - r.sourceStart;
+				int sourceStart = c.getSourceStart() + line - c.getStart();
+				line += len;
+
+				String key = c.getSourceCommit().name() + c.getSourcePath();
+				Region tail = tails.get(key);
+				if (tail == null) {
+					Candidate s = new Candidate(getRepository(),
+							revPool.parseCommit(c.getSourceCommit()),
+							PathFilter.create(c.getSourcePath()));
+					s.regionList = new Region(resultStart, sourceStart, len);
+					sources.put(key, s);
+					tails.put(key, s.regionList);
+				} else if (tail.resultStart + tail.length == resultStart
+						&& tail.sourceStart + tail.length == sourceStart) {
+					tail.length += len;
+				} else {
+					tail.next = new Region(resultStart, sourceStart, len);
+					tails.put(key, tail.next);
+				}
+			}
+		}
+
+		Candidate head = null;
+		Candidate prev = null;
+		for (Candidate s : sources.values()) {
+			if (prev == null)
+				head = s;
+			else
+				prev.queueNext = s;
+			prev = s;
+		}
+		return head;
+	}
+
+	/**
+	 * Find the cached region containing a line.
+	 *
+	 * @return index of the region; -1 if no region contains the line.
+	 */
+	private static int findRegion(List<CacheRegion> cached, int line) {
+		int lo = 0;
+		int hi = cached.size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			CacheRegion c = cached.get(mid);
+			if (line < c.getStart())
+				hi = mid;
+			else if (line >= c.getEnd())
+				lo = mid + 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
+	private static boolean covers(List<CacheRegion> cached, int start,
+			int end) {
+		int i = findRegion(cached, start);
+		if (i < 0)
+			return false;
+		for (;;) {
+			int regionEnd = cached.get(i).getEnd();
+			if (end <= regionEnd)
+				return true;
+			if (++i == cached.size() || cached.get(i).getStart() != regionEnd)
+				return false;
+		}
+	}
+
 	private boolean done() {
 		close();
 		return false;
@@ -1052,6 +1229,7 @@ public int getRegionLength() {
 	 *         within {@link #getSourceCommit()}. The source contents is
 	 *         temporarily available as an artifact of the blame algorithm. Most
 	 *         applications will want the result contents for display to users.
+	 *         Null if the region was taken from a cached blame result.
 	 */
 	public RawText getSourceContents() {
 		return outCandidate.sourceText;
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.blame.cache;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.openrewrite.jgit.annotations.Nullable;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.Repository;
+
+/**
+ * Storage of complete blame results, keyed by commit and path.
+ * <p>
+ * A {@link org.openrewrite.jgit.blame.BlameGenerator} given a cache stops
+ * digging into the history of a file as soon as it reaches a commit whose
+ * blame of the file is cached, and takes the remaining lines from the cached
+ * result. Blaming a file again after a few new commits then only diffs the
+ * new revisions.
+ * <p>
+ * A cached result is only valid for the diff algorithm, text comparator and
+ * rename settings it was computed with. Applications using several settings
+ * need a cache for each of them. Implementations may be called by several
+ * threads at once if they are shared by several generators.
+ *
+ * @since 5.14
+ */
+public interface BlameCache {
+	/**
+	 * Get the cached blame of a file.
+	 *
+	 * @param repo
+	 *            repository the blame is computed in.
+	 * @param commitId
+	 *            commit the file is blamed at.
+	 * @param path
+	 *            path of the file.
+	 * @return regions covering all lines of the file, sorted by
+	 *         {@link CacheRegion#getStart()}; null if the blame is not cached.
+	 * @throws IOException
+	 *             the cache could not be read.
+	 */
+	@Nullable
+	List<CacheRegion> get(Repository repo, ObjectId commitId, String path)
+			throws IOException;
+
+	/**
+	 * Store the blame of a file.
+	 *
+	 * @param repo
+	 *            repository the blame was computed in.
+	 * @param commitId
+	 *            commit the file was blamed at.
+	 * @param path
+	 *            path of the file.
+	 * @param regions
+	 *            regions covering all lines of the file, sorted by
+	 *            {@link CacheRegion#getStart()}.
+	 * @throws IOException
+	 *             the cache could not be written.
+	 */
+	void put(Repository repo, ObjectId commitId, String path,
+			List<CacheRegion> regions) throws IOException;
+}
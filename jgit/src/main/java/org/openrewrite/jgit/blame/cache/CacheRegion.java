@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.blame.cache;
+
+import org.openrewrite.jgit.lib.ObjectId;
+
+/**
+ * Lines of a cached blame result that were supplied by one source.
+ * <p>
+ * The lines {@link #getStart()} through {@link #getEnd()}-1 of the blamed
+ * file are lines {@link #getSourceStart()} onwards of the file
+ * {@link #getSourcePath()} in commit {@link #getSourceCommit()}, which added
+ * them.
+ *
+ * @since 5.14
+ */
+public class CacheRegion {
+	private final String sourcePath;
+
+	private final ObjectId sourceCommit;
+
+	private final int start;
+
+	private final int end;
+
+	private final int sourceStart;
+
+	/**
+	 * Create a region.
+	 *
+	 * @param sourcePath
+	 *            path of the file in the source commit.
+	 * @param sourceCommit
+	 *            commit blamed for the lines.
+	 * @param start
+	 *            first line of the blamed file, 0 based.
+	 * @param end
+	 *            one past the last line of the blamed file.
+	 * @param sourceStart
+	 *            first line in the source file, 0 based.
+	 */
+	public CacheRegion(String sourcePath, ObjectId sourceCommit, int start,
+			int end, int sourceStart) {
+		this.sourcePath = sourcePath;
+		this.sourceCommit = sourceCommit;
+		this.start = start;
+		this.end = end;
+		this.sourceStart = sourceStart;
+	}
+
+	/**
+	 * Get the path of the file in the source commit.
+	 *
+	 * @return path of the source file.
+	 */
+	public String getSourcePath() {
+		return sourcePath;
+	}
+
+	/**
+	 * Get the commit blamed for the lines.
+	 *
+	 * @return id of the source commit.
+	 */
+	public ObjectId getSourceCommit() {
+		return sourceCommit;
+	}
+
+	/**
+	 * Get the first line of the region.
+	 *
+	 * @return first line of the blamed file, 0 based.
+	 */
+	public int getStart() {
+		return start;
+	}
+
+	/**
+	 * Get one past the last line of the region.
+	 *
+	 * @return one past the last line of the blamed file.
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * Get the first line of the region in the source file.
+	 *
+	 * @return first line in the source file, 0 based.
+	 */
+	public int getSourceStart() {
+		return sourceStart;
+	}
+
+	/** {@inheritDoc} */
+	@SuppressWarnings("nls")
+	@Override
+	public String toString() {
+		return "CacheRegion[" + start + '-' + end + " <- " + sourcePath + ':'
+				+ sourceStart + " @ " + sourceCommit.name() + ']';
+	}
+}
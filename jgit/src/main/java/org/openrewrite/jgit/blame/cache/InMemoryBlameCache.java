@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.blame.cache;
+
+import java.util.List;
+import java.util.Map;
+
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.util.LRUMap;
+
+/**
+ * A {@link BlameCache} keeping the least recently used blame results in
+ * memory.
+ * <p>
+ * The repository is not part of the key; an instance must only be used for
+ * one repository.
+ *
+ * @since 5.14
+ */
+public class InMemoryBlameCache implements BlameCache {
+	private final Map<Key, List<CacheRegion>> map;
+
+	/**
+	 * Create an empty cache.
+	 *
+	 * @param limit
+	 *            maximum number of blamed files to keep.
+	 */
+	public InMemoryBlameCache(int limit) {
+		map = new LRUMap<>(16, limit);
+	}
+
+	@Override
+	public synchronized List<CacheRegion> get(Repository repo,
+			ObjectId commitId, String path) {
+		return map.get(new Key(commitId, path));
+	}
+
+	@Override
+	public synchronized void put(Repository repo, ObjectId commitId,
+			String path, List<CacheRegion> regions) {
+		map.put(new Key(commitId.copy(), path), regions);
+	}
+
+	/** Remove all results from the cache. */
+	public synchronized void clear() {
+		map.clear();
+	}
+
+	private static final class Key {
+		private final ObjectId commitId;
+
+		private final String path;
+
+		Key(ObjectId commitId, String path) {
+			this.commitId = commitId;
+			this.path = path;
+		}
+
+		@Override
+		public int hashCode() {
+			return commitId.hashCode() * 31 + path.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key k = (Key) obj;
+			return commitId.equals(k.commitId) && path.equals(k.path);
+		}
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Storage of computed blame results, reused by later blame computations.
+ */
+package org.openrewrite.jgit.blame.cache;
@@ -153,51 +153,68 @@ public static List<DiffEntry> scan(TreeWalk walk, boolean includeTrees,
 		List<DiffEntry> r = new ArrayList<>();
 		MutableObjectId idBuf = new MutableObjectId();
 		while (walk.next()) {
-			DiffEntry entry = new DiffEntry();
+			scanEntry(walk, idBuf, treeFilterMarker, r);
+			if (includeTrees && walk.isSubtree())
+				walk.enterSubtree();
+		}
+		return r;
+	}
+
+	/**
+	 * Add the changes of the current entry of a walk over two trees.
+	 *
+	 * @param walk
+	 *            the walk, positioned on an entry.
+	 * @param idBuf
+	 *            buffer for the object ids of the entry.
+	 * @param treeFilterMarker
+	 *            marker of the entry; null if no marks are needed.
+	 * @param r
+	 *            list to add the changes to.
+	 */
+	static void scanEntry(TreeWalk walk, MutableObjectId idBuf,
+			TreeFilterMarker treeFilterMarker, List<DiffEntry> r)
+			throws IOException {
+		DiffEntry entry = new DiffEntry();
 
-			walk.getObjectId(idBuf, 0);
-			entry.oldId = AbbreviatedObjectId.fromObjectId(idBuf);
+		walk.getObjectId(idBuf, 0);
+		entry.oldId = AbbreviatedObjectId.fromObjectId(idBuf);
 
-			walk.getObjectId(idBuf, 1);
-			entry.newId = AbbreviatedObjectId.fromObjectId(idBuf);
+		walk.getObjectId(idBuf, 1);
+		entry.newId = AbbreviatedObjectId.fromObjectId(idBuf);
 
-			entry.oldMode = walk.getFileMode(0);
-			entry.newMode = walk.getFileMode(1);
-			entry.newPath = entry.oldPath = walk.getPathString();
+		entry.oldMode = walk.getFileMode(0);
+		entry.newMode = walk.getFileMode(1);
+		entry.newPath = entry.oldPath = walk.getPathString();
 
-			if (walk.getAttributesNodeProvider() != null) {
-				entry.diffAttribute = walk.getAttributes()
-						.get(Constants.ATTR_DIFF);
-			}
+		if (walk.getAttributesNodeProvider() != null) {
+			entry.diffAttribute = walk.getAttributes()
+					.get(Constants.ATTR_DIFF);
+		}
 
-			if (treeFilterMarker != null)
-				entry.treeFilterMarks = treeFilterMarker.getMarks(walk);
+		if (treeFilterMarker != null)
+			entry.treeFilterMarks = treeFilterMarker.getMarks(walk);
 
-			if (entry.oldMode == FileMode.MISSING) {
-				entry.oldPath = DiffEntry.DEV_NULL;
-				entry.changeType = ChangeType.ADD;
-				r.add(entry);
+		if (entry.oldMode == FileMode.MISSING) {
+			entry.oldPath = DiffEntry.DEV_NULL;
+			entry.changeType = ChangeType.ADD;
+			r.add(entry);
 
-			} else if (entry.newMode == FileMode.MISSING) {
-				entry.newPath = DiffEntry.DEV_NULL;
-				entry.changeType = ChangeType.DELETE;
-				r.add(entry);
+		} else if (entry.newMode == FileMode.MISSING) {
+			entry.newPath = DiffEntry.DEV_NULL;
+			entry.changeType = ChangeType.DELETE;
+			r.add(entry);
 
-			} else if (!entry.oldId.equals(entry.newId)) {
-				entry.changeType = ChangeType.MODIFY;
-				if (RenameDetector.sameType(entry.oldMode, entry.newMode))
-					r.add(entry);
-				else
-					r.addAll(breakModify(entry));
-			} else if (entry.oldMode != entry.newMode) {
-				entry.changeType = ChangeType.MODIFY;
+		} else if (!entry.oldId.equals(entry.newId)) {
+			entry.changeType = ChangeType.MODIFY;
+			if (RenameDetector.sameType(entry.oldMode, entry.newMode))
 				r.add(entry);
-			}
-
-			if (includeTrees && walk.isSubtree())
-				walk.enterSubtree();
+			else
+				r.addAll(breakModify(entry));
+		} else if (entry.oldMode != entry.newMode) {
+			entry.changeType = ChangeType.MODIFY;
+			r.add(entry);
 		}
-		return r;
 	}
 
 	static DiffEntry add(String path, AnyObjectId id) {
@@ -31,6 +31,7 @@
 
 import org.openrewrite.jgit.diff.DiffAlgorithm.SupportedAlgorithm;
 import org.openrewrite.jgit.diff.DiffEntry.ChangeType;
+import org.openrewrite.jgit.diff.StreamedText.LineReader;
 import org.openrewrite.jgit.dircache.DirCacheIterator;
 import org.openrewrite.jgit.errors.AmbiguousObjectException;
 import org.openrewrite.jgit.errors.BinaryBlobException;
@@ -98,6 +99,8 @@ public class DiffFormatter implements AutoCloseable {
 
 	private int binaryFileThreshold = DEFAULT_BINARY_FILE_THRESHOLD;
 
+	private boolean streamLargeFiles;
+
 	private String oldPrefix = "a/"; //$NON-NLS-1$
 
 	private String newPrefix = "b/"; //$NON-NLS-1$
@@ -106,6 +109,8 @@ public class DiffFormatter implements AutoCloseable {
 
 	private RenameDetector renameDetector;
 
+	private int threads = 1;
+
 	private ProgressMonitor progressMonitor;
 
 	private ContentSource.Pair source;
@@ -259,6 +264,40 @@ public void setBinaryFileThreshold(int threshold) {
 		this.binaryFileThreshold = threshold;
 	}
 
+	/**
+	 * Whether text files larger than the binary file threshold are compared.
+	 *
+	 * @return true if large files are compared as streams.
+	 * @since 5.14
+	 */
+	public boolean isStreamLargeFiles() {
+		return streamLargeFiles;
+	}
+
+	/**
+	 * Compare text files larger than the binary file threshold as streams.
+	 * <p>
+	 * By default files larger than the threshold set by
+	 * {@link #setBinaryFileThreshold(int)} are reported as binary, as they
+	 * would have to be loaded into memory to be compared. If enabled, such
+	 * files are instead read as streams and only the hashes of their lines are
+	 * kept in memory while differences are computed. The files are then read
+	 * again to confirm the lines found equal, and once more to write the
+	 * hunks. Files with a NUL byte are still reported as binary. Files are
+	 * only streamed with {@link RawTextComparator#DEFAULT}; with other
+	 * comparators they are reported as binary as before.
+	 * <p>
+	 * Lines of streamed files are passed to {@link #writeLine} and the other
+	 * {@code write*Line} methods as the only line of a text of one line.
+	 *
+	 * @param on
+	 *            whether to compare large files as streams.
+	 * @since 5.14
+	 */
+	public void setStreamLargeFiles(boolean on) {
+		streamLargeFiles = on;
+	}
+
 	/**
 	 * Set the prefix applied in front of old file paths.
 	 *
@@ -342,6 +381,35 @@ public RenameDetector getRenameDetector() {
 		return renameDetector;
 	}
 
+	/**
+	 * Get the number of threads comparing trees in {@code scan}.
+	 *
+	 * @return number of threads; 0 means the number of processors.
+	 * @since 5.14
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads comparing trees in {@code scan}.
+	 * <p>
+	 * With more than one thread the subtrees of two commits are compared in
+	 * parallel, and the paths are returned in the same order. Entries found
+	 * this way have no {@link DiffEntry#getDiffAttribute() diff attribute}, so
+	 * trees are always compared by the calling thread when LFS is available,
+	 * as well as for working trees, the index, and
+	 * {@link org.openrewrite.jgit.revwalk.FollowFilter}s.
+	 *
+	 * @param threads
+	 *            number of threads; 0 means the number of processors, 1 (the
+	 *            default) disables the use of other threads.
+	 * @since 5.14
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
 	/**
 	 * Set the progress monitor for long running rename detection.
 	 *
@@ -502,6 +570,15 @@ public List<DiffEntry> scan(AbstractTreeIterator a, AbstractTreeIterator b)
 			throws IOException {
 		assertHaveReader();
 
+		int n = threads > 0 ? threads
+				: Runtime.getRuntime().availableProcessors();
+		if (n > 1 && isParallelScan(a, b)) {
+			source = new ContentSource.Pair(source(a), source(b));
+			List<DiffEntry> files = new ParallelTreeScan(reader, pathFilter, n)
+					.scan(a, b);
+			return renameDetector != null ? detectRenames(files) : files;
+		}
+
 		TreeWalk walk = new TreeWalk(repository, reader);
 		int aIndex = walk.addTree(a);
 		int bIndex = walk.addTree(b);
@@ -550,6 +627,19 @@ public List<DiffEntry> scan(AbstractTreeIterator a, AbstractTreeIterator b)
 		return files;
 	}
 
+	private boolean isParallelScan(AbstractTreeIterator a,
+			AbstractTreeIterator b) {
+		return isCommitTree(a) && isCommitTree(b)
+				&& !(pathFilter instanceof FollowFilter)
+				&& !(repository != null
+						&& LfsFactory.getInstance().isAvailable());
+	}
+
+	private static boolean isCommitTree(AbstractTreeIterator i) {
+		return i instanceof CanonicalTreeParser
+				|| i instanceof EmptyTreeIterator;
+	}
+
 	private static TreeFilter getDiffTreeFilterFor(AbstractTreeIterator a,
 			AbstractTreeIterator b) {
 		if (a instanceof DirCacheIterator && b instanceof WorkingTreeIterator)
@@ -702,7 +792,15 @@ public void format(List<? extends DiffEntry> entries) throws IOException {
 	 */
 	public void format(DiffEntry ent) throws IOException {
 		FormatResult res = createFormatResult(ent);
-		format(res.header, res.a, res.b);
+		if (res.streamedA != null) {
+			FileHeader head = res.header;
+			out.write(head.getBuffer(), head.getStartOffset(),
+					head.getHunks().get(0).getStartOffset()
+							- head.getStartOffset());
+			format(head.toEditList(), res.streamedA, res.streamedB);
+		} else {
+			format(res.header, res.a, res.b);
+		}
 	}
 
 	private static byte[] writeGitLinkText(AbbreviatedObjectId id) {
@@ -816,6 +914,65 @@ public void format(EditList edits, RawText a, RawText b)
 		}
 	}
 
+	private void format(EditList edits, StreamedText a, StreamedText b)
+			throws IOException {
+		try (LineReader ra = a.open(); LineReader rb = b.open()) {
+			int aRead = 0;
+			int bRead = 0;
+			for (int curIdx = 0; curIdx < edits.size();) {
+				Edit curEdit = edits.get(curIdx);
+				final int endIdx = findCombinedEnd(edits, curIdx);
+				final Edit endEdit = edits.get(endIdx);
+
+				int aCur = (int) Math.max(0, (long) curEdit.getBeginA() - context);
+				int bCur = (int) Math.max(0, (long) curEdit.getBeginB() - context);
+				final int aEnd = (int) Math.min(a.size(), (long) endEdit.getEndA() + context);
+				final int bEnd = (int) Math.min(b.size(), (long) endEdit.getEndB() + context);
+
+				writeHunkHeader(aCur, aEnd, bCur, bEnd);
+
+				// Lines are only read forwards. Skip over the lines before
+				// the hunk, which were not part of the previous hunk.
+				for (; aRead < aCur; aRead++)
+					ra.next();
+				for (; bRead < bCur; bRead++)
+					rb.next();
+
+				while (aCur < aEnd || bCur < bEnd) {
+					if (aCur < curEdit.getBeginA() || endIdx + 1 < curIdx) {
+						ra.next();
+						rb.next();
+						RawText line = ra.line();
+						writeContextLine(line, 0);
+						if (isEndOfLineMissing(line, 0))
+							out.write(noNewLine);
+						aCur++;
+						bCur++;
+					} else if (aCur < curEdit.getEndA()) {
+						ra.next();
+						RawText line = ra.line();
+						writeRemovedLine(line, 0);
+						if (isEndOfLineMissing(line, 0))
+							out.write(noNewLine);
+						aCur++;
+					} else if (bCur < curEdit.getEndB()) {
+						rb.next();
+						RawText line = rb.line();
+						writeAddedLine(line, 0);
+						if (isEndOfLineMissing(line, 0))
+							out.write(noNewLine);
+						bCur++;
+					}
+
+					if (end(curEdit, aCur, bCur) && ++curIdx < edits.size())
+						curEdit = edits.get(curIdx);
+				}
+				aRead = aEnd;
+				bRead = bEnd;
+			}
+		}
+	}
+
 	/**
 	 * Output a line of context (unmodified line).
 	 *
@@ -970,6 +1127,10 @@ private static class FormatResult {
 		RawText a;
 
 		RawText b;
+
+		StreamedText streamedA;
+
+		StreamedText streamedB;
 	}
 
 	private FormatResult createFormatResult(DiffEntry ent) throws IOException,
@@ -998,22 +1159,35 @@ private FormatResult createFormatResult(DiffEntry ent) throws IOException,
 			bRaw = new RawText(writeGitLinkText(ent.getNewId()));
 		} else {
 			try {
-				aRaw = open(OLD, ent);
-				bRaw = open(NEW, ent);
+				ObjectLoader aLdr = open(OLD, ent);
+				ObjectLoader bLdr = open(NEW, ent);
+				if (isStreamed(aLdr) || isStreamed(bLdr)) {
+					res.streamedA = openStreamed(aLdr);
+					res.streamedB = openStreamed(bLdr);
+				} else {
+					aRaw = openText(aLdr);
+					bRaw = openText(bLdr);
+				}
 			} catch (BinaryBlobException e) {
-				// Do nothing; we check for null below.
-				formatOldNewPaths(buf, ent);
-				buf.write(encodeASCII("Binary files differ\n")); //$NON-NLS-1$
-				editList = new EditList();
-				type = PatchType.BINARY;
-				res.header = new FileHeader(buf.toByteArray(), editList, type);
-				return res;
+				return binaryResult(res, buf, ent);
 			}
 		}
 
-		res.a = aRaw;
-		res.b = bRaw;
-		editList = diff(res.a, res.b);
+		if (res.streamedA != null) {
+			editList = diffAlgorithm.diff(StreamedText.COMPARATOR,
+					res.streamedA, res.streamedB);
+			if (!isCommonEqual(editList, res.streamedA, res.streamedB)) {
+				// Different lines have the same hash. Rather than a patch
+				// that does not apply report the file like before.
+				res.streamedA = null;
+				res.streamedB = null;
+				return binaryResult(res, buf, ent);
+			}
+		} else {
+			res.a = aRaw;
+			res.b = bRaw;
+			editList = diff(res.a, res.b);
+		}
 		type = PatchType.UNIFIED;
 
 		switch (ent.getChangeType()) {
@@ -1033,23 +1207,86 @@ private FormatResult createFormatResult(DiffEntry ent) throws IOException,
 		return res;
 	}
 
+	private FormatResult binaryResult(FormatResult res,
+			ByteArrayOutputStream buf, DiffEntry ent) throws IOException {
+		formatOldNewPaths(buf, ent);
+		buf.write(encodeASCII("Binary files differ\n")); //$NON-NLS-1$
+		res.header = new FileHeader(buf.toByteArray(), new EditList(),
+				PatchType.BINARY);
+		return res;
+	}
+
 	private EditList diff(RawText a, RawText b) {
 		return diffAlgorithm.diff(comparator, a, b);
 	}
 
+	/**
+	 * Check that the lines outside of the edits, taken as common because
+	 * their hashes are equal, are really equal.
+	 */
+	private static boolean isCommonEqual(EditList edits, StreamedText a,
+			StreamedText b) throws IOException {
+		try (LineReader ra = a.open(); LineReader rb = b.open()) {
+			int aCur = 0;
+			int bCur = 0;
+			for (int i = 0; i <= edits.size(); i++) {
+				int aEnd = i < edits.size() ? edits.get(i).getBeginA()
+						: a.size();
+				for (; aCur < aEnd; aCur++, bCur++) {
+					ra.next();
+					rb.next();
+					if (!ra.lineEquals(rb))
+						return false;
+				}
+				if (i < edits.size()) {
+					Edit e = edits.get(i);
+					for (; aCur < e.getEndA(); aCur++)
+						ra.next();
+					for (; bCur < e.getEndB(); bCur++)
+						rb.next();
+				}
+			}
+		}
+		return true;
+	}
+
 	private void assertHaveReader() {
 		if (reader == null) {
 			throw new IllegalStateException(JGitText.get().readerIsRequired);
 		}
 	}
 
-	private RawText open(DiffEntry.Side side, DiffEntry entry)
+	private boolean isStreamed(ObjectLoader ldr) {
+		return streamLargeFiles && comparator == RawTextComparator.DEFAULT
+				&& ldr != null && ldr.getSize() > binaryFileThreshold;
+	}
+
+	private RawText openText(ObjectLoader ldr)
 			throws IOException, BinaryBlobException {
-		if (entry.getMode(side) == FileMode.MISSING)
+		if (ldr == null)
 			return RawText.EMPTY_TEXT;
+		return RawText.load(ldr, binaryFileThreshold);
+	}
+
+	private static StreamedText openStreamed(ObjectLoader ldr)
+			throws IOException, BinaryBlobException {
+		if (ldr == null)
+			return StreamedText.EMPTY;
+		return StreamedText.load(ldr);
+	}
+
+	/**
+	 * Open the content of one side of an entry.
+	 *
+	 * @return the loader of the content; null if the side is not a blob.
+	 */
+	private ObjectLoader open(DiffEntry.Side side, DiffEntry entry)
+			throws IOException {
+		if (entry.getMode(side) == FileMode.MISSING)
+			return null;
 
 		if (entry.getMode(side).getObjectType() != Constants.OBJ_BLOB)
-			return RawText.EMPTY_TEXT;
+			return null;
 
 		AbbreviatedObjectId id = entry.getId(side);
 		if (!id.isComplete()) {
@@ -1070,9 +1307,8 @@ private RawText open(DiffEntry.Side side, DiffEntry entry)
 				throw new AmbiguousObjectException(id, ids);
 		}
 
-		ObjectLoader ldr = LfsFactory.getInstance().applySmudgeFilter(repository,
+		return LfsFactory.getInstance().applySmudgeFilter(repository,
 				source.open(side, entry), entry.getDiffAttribute());
-		return RawText.load(ldr, binaryFileThreshold);
 	}
 
 	/**
@@ -81,15 +81,95 @@
 public class MyersDiff<S extends Sequence> {
 	/** Singleton instance of MyersDiff. */
 	public static final DiffAlgorithm INSTANCE = new LowLevelDiffAlgorithm() {
-		@SuppressWarnings("unused")
 		@Override
 		public <S extends Sequence> void diffNonCommon(EditList edits,
 				HashedSequenceComparator<S> cmp, HashedSequence<S> a,
 				HashedSequence<S> b, Edit region) {
-			new MyersDiff<>(edits, cmp, a, b, region);
+			compute(edits, cmp, a, b, region, Integer.MAX_VALUE);
 		}
 	};
 
+	/**
+	 * Default minimum cost for {@link #withCostLimit(int)}, the minimum used by
+	 * C Git.
+	 *
+	 * @since 5.14
+	 */
+	public static final int DEFAULT_MIN_COST = 256;
+
+	/**
+	 * Edit paths longer than this are not kept for the next diff computed by
+	 * the thread.
+	 */
+	private static final int MAX_RETAINED_PATHS = 1 << 14;
+
+	private static final ThreadLocal<Buffers> BUFFERS = new ThreadLocal<>();
+
+	/**
+	 * Create a diff algorithm limiting the cost of the search, like C Git
+	 * does for large inputs.
+	 * <p>
+	 * The time spent by Myers' algorithm grows with the product of the length
+	 * of the sequences and the number of differences, which makes sequences
+	 * with many differences, such as generated files, very expensive to
+	 * compare. The returned algorithm stops searching for the middle of the
+	 * shortest edit path of a region after {@code maxCost} differences, and
+	 * instead splits the region at the point the search has reached furthest.
+	 * The result is still a correct edit list, but not necessarily the
+	 * shortest one. Inputs with fewer differences than the limit are compared
+	 * exactly as by {@link #INSTANCE}.
+	 *
+	 * @param minCost
+	 *            minimum number of differences searched per region. The limit
+	 *            is the larger of this and the square root of the number of
+	 *            elements compared.
+	 * @return the algorithm.
+	 * @since 5.14
+	 */
+	public static DiffAlgorithm withCostLimit(int minCost) {
+		return new LowLevelDiffAlgorithm() {
+			@Override
+			public <S extends Sequence> void diffNonCommon(EditList edits,
+					HashedSequenceComparator<S> cmp, HashedSequence<S> a,
+					HashedSequence<S> b, Edit region) {
+				int sqrt = (int) Math.sqrt(
+						region.getLengthA() + region.getLengthB() + 3.0);
+				compute(edits, cmp, a, b, region, Math.max(minCost, sqrt));
+			}
+		};
+	}
+
+	@SuppressWarnings("unused")
+	private static <S extends Sequence> void compute(EditList edits,
+			HashedSequenceComparator<S> cmp, HashedSequence<S> a,
+			HashedSequence<S> b, Edit region, int maxCost) {
+		Buffers buffers = BUFFERS.get();
+		if (buffers == null) {
+			buffers = new Buffers();
+			BUFFERS.set(buffers);
+		}
+		new MyersDiff<>(edits, cmp, a, b, region, buffers, maxCost);
+		if (buffers.peak > MAX_RETAINED_PATHS)
+			BUFFERS.remove();
+	}
+
+	/**
+	 * The edit path lists used by the diffs a thread computes, so they are
+	 * only allocated again if a diff needs more space than the previous ones.
+	 */
+	private static final class Buffers {
+		final IntList forwardX = new IntList();
+
+		final LongList forwardSnake = new LongList();
+
+		final IntList backwardX = new IntList();
+
+		final LongList backwardSnake = new LongList();
+
+		/** Largest number of differences searched so far. */
+		int peak;
+	}
+
 	/**
 	 * The list of edits found during the last call to
 	 * {@link #calculateEdits(Edit)}
@@ -109,17 +189,22 @@ public <S extends Sequence> void diffNonCommon(EditList edits,
 	 */
 	protected HashedSequence<S> b;
 
+	/** Number of differences after which the search for a middle stops. */
+	private final int maxCost;
+
 	private MyersDiff(EditList edits, HashedSequenceComparator<S> cmp,
-			HashedSequence<S> a, HashedSequence<S> b, Edit region) {
+			HashedSequence<S> a, HashedSequence<S> b, Edit region,
+			Buffers buffers, int maxCost) {
 		this.edits = edits;
 		this.cmp = cmp;
 		this.a = a;
 		this.b = b;
+		this.maxCost = maxCost;
+		middle = new MiddleEdit(buffers);
 		calculateEdits(region);
 	}
 
-	// TODO: use ThreadLocal for future multi-threaded operations
-	MiddleEdit middle = new MiddleEdit();
+	MiddleEdit middle;
 
 	/**
 	 * Entrypoint into the algorithm this class is all about. This method triggers that the
@@ -184,6 +269,16 @@ protected void calculateEdits(int beginA, int endA,
 	 * The entry function is the calculate() method.
 	 */
 	class MiddleEdit {
+		private final Buffers buffers;
+
+		MiddleEdit(Buffers buffers) {
+			this.buffers = buffers;
+			forward = new ForwardEditPaths(buffers.forwardX,
+					buffers.forwardSnake);
+			backward = new BackwardEditPaths(buffers.backwardX,
+					buffers.backwardSnake);
+		}
+
 		void initialize(int beginA, int endA, int beginB, int endB) {
 			this.beginA = beginA; this.endA = endA;
 			this.beginB = beginB; this.endB = endB;
@@ -226,10 +321,63 @@ Edit calculate(int beginA, int endA, int beginB, int endB) {
 			forward.initialize(beginB - beginA, beginA, minK, maxK);
 			backward.initialize(endB - endA, endA, minK, maxK);
 
-			for (int d = 1; ; d++)
+			for (int d = 1; ; d++) {
 				if (forward.calculate(d) ||
-						backward.calculate(d))
+						backward.calculate(d)) {
+					record(d);
 					return edit;
+				}
+				if (d >= maxCost) {
+					record(d);
+					return split(d);
+				}
+			}
+		}
+
+		private void record(int d) {
+			if (d > buffers.peak)
+				buffers.peak = d;
+		}
+
+		/*
+		 * Give up searching for the middle of the shortest edit path
+		 * after d differences. Return an empty edit at the end of the
+		 * forward or backward d-path that got furthest instead, making
+		 * the caller split the region there. Any point on a path is a
+		 * valid place to split, the edits found for the two halves are
+		 * only not guaranteed to be minimal.
+		 */
+		private Edit split(int d) {
+			int bestX = -1, bestY = -1;
+			long best = 0;
+			for (int k = forward.beginK; k <= forward.endK; k += 2) {
+				int x = forward.snake(k, forward.getX(d, k));
+				int y = k + x;
+				if (x > endA || y < beginB || y > endB)
+					continue;
+				long progress = (long) x - beginA + y - beginB;
+				if (progress > best) {
+					best = progress;
+					bestX = x;
+					bestY = y;
+				}
+			}
+			for (int k = backward.beginK; k <= backward.endK; k += 2) {
+				int x = backward.snake(k, backward.getX(d, k));
+				int y = k + x;
+				if (x < beginA || y < beginB || y > endB)
+					continue;
+				long progress = (long) endA - x + endB - y;
+				if (progress > best) {
+					best = progress;
+					bestX = x;
+					bestY = y;
+				}
+			}
+			if (bestX < 0 || (bestX == beginA && bestY == beginB)
+					|| (bestX == endA && bestY == endB))
+				return new Edit(beginA, endA, beginB, endB);
+			return new Edit(bestX, bestX, bestY, bestY);
 		}
 
 		/*
@@ -267,21 +415,26 @@ Edit calculate(int beginA, int endA, int beginB, int endB) {
 		 * (substitute backwardK for forwardK if you want to get the
 		 * y position for an entry in the "backward" array.
 		 */
-		EditPaths forward = new ForwardEditPaths();
-		EditPaths backward = new BackwardEditPaths();
+		final EditPaths forward;
+		final EditPaths backward;
 
 		/* Some variables which are shared between methods */
 		protected int beginA, endA, beginB, endB;
 		protected Edit edit;
 
 		abstract class EditPaths {
-			private IntList x = new IntList();
-			private LongList snake = new LongList();
+			private final IntList x;
+			private final LongList snake;
 			int beginK, endK, middleK;
 			int prevBeginK, prevEndK;
 			/* if we hit one end early, no need to look further */
 			int minK, maxK; // TODO: better explanation
 
+			EditPaths(IntList x, LongList snake) {
+				this.x = x;
+				this.snake = snake;
+			}
+
 			final int getIndex(int d, int k) {
 // TODO: remove
 if (((d + k - middleK) % 2) != 0)
@@ -427,6 +580,10 @@ boolean calculate(int d) {
 		}
 
 		class ForwardEditPaths extends EditPaths {
+			ForwardEditPaths(IntList x, LongList snake) {
+				super(x, snake);
+			}
+
 			@Override
 			final int snake(int k, int x) {
 				for (; x < endA && k + x < endB; x++)
@@ -475,6 +632,10 @@ final boolean meets(int d, int k, int x, long snake) {
 		}
 
 		class BackwardEditPaths extends EditPaths {
+			BackwardEditPaths(IntList x, LongList snake) {
+				super(x, snake);
+			}
+
 			@Override
 			final int snake(int k, int x) {
 				for (; x > beginA && k + x > beginB; x--)
@@ -0,0 +1,230 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.diff;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.openrewrite.jgit.lib.FileMode;
+import org.openrewrite.jgit.lib.MutableObjectId;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectReader;
+import org.openrewrite.jgit.lib.internal.ObjectReaderPool;
+import org.openrewrite.jgit.lib.internal.ParallelTasks;
+import org.openrewrite.jgit.treewalk.AbstractTreeIterator;
+import org.openrewrite.jgit.treewalk.CanonicalTreeParser;
+import org.openrewrite.jgit.treewalk.EmptyTreeIterator;
+import org.openrewrite.jgit.treewalk.TreeWalk;
+import org.openrewrite.jgit.treewalk.filter.AndTreeFilter;
+import org.openrewrite.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * Finds the differences between two trees, comparing subtrees in parallel.
+ * <p>
+ * Each pair of subtrees with different ids is compared by its own task, which
+ * submits a task for each pair of differing subtrees it finds in turn.
+ * Subtrees with equal ids are skipped without being read. The changes are
+ * returned in the order of a recursive {@link TreeWalk} over the trees, as
+ * {@link DiffEntry#scan(TreeWalk)} would return them, except that no
+ * attributes are looked up for them.
+ * <p>
+ * The tasks read the trees with readers created from the reader of the scan,
+ * which may not see all of its objects, like those of an inserter not yet
+ * flushed. A subtree a task failed to read is compared again by the calling
+ * thread with the reader of the scan.
+ */
+final class ParallelTreeScan {
+	/** A pair of subtrees compared by a task. */
+	private static class Subtree {
+		final byte[] path;
+
+		final ObjectId a;
+
+		final ObjectId b;
+
+		Future<List<Object>> result;
+
+		Subtree(byte[] path, ObjectId a, ObjectId b) {
+			this.path = path;
+			this.a = a;
+			this.b = b;
+		}
+	}
+
+	private final ObjectReader reader;
+
+	private final TreeFilter pathFilter;
+
+	private final int threads;
+
+	private Executor pool;
+
+	private ObjectReaderPool readers;
+
+	/** Set when the scan failed, tasks not yet started then do nothing. */
+	private volatile boolean cancelled;
+
+	/**
+	 * Create a scan.
+	 *
+	 * @param reader
+	 *            reader to read the top level trees with, and to create the
+	 *            readers of the tasks from.
+	 * @param pathFilter
+	 *            filter selecting the paths to compare; cloned for each task.
+	 * @param threads
+	 *            number of tasks running at the same time.
+	 */
+	ParallelTreeScan(ObjectReader reader, TreeFilter pathFilter,
+			int threads) {
+		this.reader = reader;
+		this.pathFilter = pathFilter;
+		this.threads = threads;
+	}
+
+	/**
+	 * Find the differences between two trees.
+	 *
+	 * @param a
+	 *            the old side, a {@link CanonicalTreeParser} or an
+	 *            {@link EmptyTreeIterator}.
+	 * @param b
+	 *            the new side, a {@link CanonicalTreeParser} or an
+	 *            {@link EmptyTreeIterator}.
+	 * @return the paths that are different.
+	 * @throws IOException
+	 *             a tree cannot be read.
+	 */
+	List<DiffEntry> scan(AbstractTreeIterator a, AbstractTreeIterator b)
+			throws IOException {
+		pool = ParallelTasks.limit(ParallelTasks.getExecutor(), threads);
+		boolean done = false;
+		try (ObjectReaderPool r = new ObjectReaderPool(reader)) {
+			readers = r;
+			TreeWalk walk = new TreeWalk(reader);
+			walk.addTree(a);
+			walk.addTree(b);
+			List<Object> segments = scan(walk);
+			List<DiffEntry> result = new ArrayList<>();
+			collect(segments, result);
+			done = true;
+			return result;
+		} finally {
+			if (!done)
+				cancelled = true;
+		}
+	}
+
+	/**
+	 * Compare one level of the trees of a walk.
+	 *
+	 * @return the changes of files as lists of {@link DiffEntry}, and the
+	 *         subtrees compared by other tasks as {@link Subtree}s, in path
+	 *         order.
+	 */
+	private List<Object> scan(TreeWalk walk) throws IOException {
+		walk.setFilter(AndTreeFilter.create(pathFilter.clone(),
+				TreeFilter.ANY_DIFF));
+		List<Object> segments = new ArrayList<>();
+		List<DiffEntry> files = null;
+		MutableObjectId idBuf = new MutableObjectId();
+		while (walk.next()) {
+			if (walk.isSubtree()) {
+				Subtree s = new Subtree(walk.getRawPath(), treeId(walk, 0),
+						treeId(walk, 1));
+				s.result = ParallelTasks.submit(pool, () -> scanSubtree(s));
+				segments.add(s);
+				files = null;
+			} else {
+				if (files == null) {
+					files = new ArrayList<>();
+					segments.add(files);
+				}
+				DiffEntry.scanEntry(walk, idBuf, null, files);
+			}
+		}
+		return segments;
+	}
+
+	private static ObjectId treeId(TreeWalk walk, int nth) {
+		if (walk.getFileMode(nth) != FileMode.TREE)
+			return null;
+		return walk.getObjectId(nth);
+	}
+
+	private List<Object> scanSubtree(Subtree s) throws IOException {
+		if (cancelled)
+			return Collections.emptyList();
+		ObjectReader or = readers.acquire();
+		try {
+			return scan(newWalk(s, or));
+		} finally {
+			readers.release(or);
+		}
+	}
+
+	private static TreeWalk newWalk(Subtree s, ObjectReader or)
+			throws IOException {
+		TreeWalk walk = new TreeWalk(or);
+		walk.addTree(iterator(s.path, s.a, or));
+		walk.addTree(iterator(s.path, s.b, or));
+		return walk;
+	}
+
+	private static AbstractTreeIterator iterator(byte[] path, ObjectId id,
+			ObjectReader or) throws IOException {
+		if (id == null)
+			return new EmptyTreeIterator();
+		return new CanonicalTreeParser(path, or, id);
+	}
+
+	@SuppressWarnings("unchecked")
+	private void collect(List<Object> segments, List<DiffEntry> r)
+			throws IOException {
+		for (Object s : segments) {
+			if (s instanceof Subtree)
+				collect((Subtree) s, r);
+			else
+				r.addAll((List<DiffEntry>) s);
+		}
+	}
+
+	private void collect(Subtree s, List<DiffEntry> r) throws IOException {
+		List<Object> segments;
+		try {
+			segments = ParallelTasks.get(s.result);
+		} catch (InterruptedIOException e) {
+			throw e;
+		} catch (IOException e) {
+			// The reader of the task may not see objects the reader of the
+			// scan sees. Compare the whole subtree with the latter.
+			scanSerial(s, r);
+			return;
+		}
+		collect(segments, r);
+	}
+
+	private void scanSerial(Subtree s, List<DiffEntry> r)
+			throws IOException {
+		TreeWalk walk = newWalk(s, reader);
+		walk.setRecursive(true);
+		walk.setFilter(AndTreeFilter.create(pathFilter.clone(),
+				TreeFilter.ANY_DIFF));
+		MutableObjectId idBuf = new MutableObjectId();
+		while (walk.next())
+			DiffEntry.scanEntry(walk, idBuf, null, r);
+	}
+}
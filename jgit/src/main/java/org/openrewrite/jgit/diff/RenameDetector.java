@@ -22,6 +22,7 @@
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.openrewrite.jgit.diff.DiffEntry.ChangeType;
 import org.openrewrite.jgit.diff.SimilarityIndex.TableFullException;
@@ -30,6 +31,7 @@
 import org.openrewrite.jgit.lib.AbbreviatedObjectId;
 import org.openrewrite.jgit.lib.FileMode;
 import org.openrewrite.jgit.lib.NullProgressMonitor;
+import org.openrewrite.jgit.lib.ObjectId;
 import org.openrewrite.jgit.lib.ObjectReader;
 import org.openrewrite.jgit.lib.ProgressMonitor;
 import org.openrewrite.jgit.lib.Repository;
@@ -111,6 +113,12 @@ private int sortOf(ChangeType changeType) {
 	 */
 	private boolean skipContentRenamesForBinaryFiles = false;
 
+	private int threads = 1;
+
+	private Executor executor;
+
+	private SimilarityIndexCache similarityIndexCache;
+
 	/** Set if the number of adds or deletes was over the limit. */
 	private boolean overRenameLimit;
 
@@ -262,6 +270,87 @@ public void setSkipContentRenamesForBinaryFiles(boolean value) {
 		this.skipContentRenamesForBinaryFiles = value;
 	}
 
+	/**
+	 * Get the number of threads scoring pairs of files when detecting renames
+	 * by content.
+	 *
+	 * @return number of threads; 0 means the number of processors. The
+	 *         default is 1.
+	 * @since 5.14
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads scoring pairs of files when detecting renames
+	 * by content.
+	 * <p>
+	 * Files are read by the calling thread, only the comparison of their
+	 * similarity indexes is spread over the threads. Small sets of files are
+	 * always compared by the calling thread.
+	 *
+	 * @param threads
+	 *            number of threads; 0 means the number of processors, 1,
+	 *            the default, disables the use of other threads.
+	 * @since 5.14
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	/**
+	 * Get the executor running the threads scoring pairs of files.
+	 *
+	 * @return the executor; null if threads shared by JGit are used.
+	 * @since 5.14
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Set the executor running the threads scoring pairs of files.
+	 * <p>
+	 * Aside from setting the executor, the caller must set
+	 * {@link #setThreads(int)} to score pairs in parallel. At most that many
+	 * tasks are queued on the executor at the same time.
+	 *
+	 * @param executor
+	 *            the executor; null to use threads shared by JGit.
+	 * @since 5.14
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Get the cache of similarity indexes kept across calls of
+	 * {@link #compute()}.
+	 *
+	 * @return the cache; null if indexes are only kept during one call.
+	 * @since 5.14
+	 */
+	public SimilarityIndexCache getSimilarityIndexCache() {
+		return similarityIndexCache;
+	}
+
+	/**
+	 * Set the cache of similarity indexes kept across calls of
+	 * {@link #compute()}.
+	 * <p>
+	 * Detecting renames for many commits, as when following a file through
+	 * its history, then hashes each blob only once while its index stays in
+	 * the cache.
+	 *
+	 * @param cache
+	 *            the cache; null to keep indexes only during one call.
+	 * @since 5.14
+	 */
+	public void setSimilarityIndexCache(SimilarityIndexCache cache) {
+		similarityIndexCache = cache;
+	}
+
 	/**
 	 * Check if the detector is over the rename limit.
 	 * <p>
@@ -520,13 +609,8 @@ private void rejoinModifies(ProgressMonitor pm) throws CancelledException {
 	private int calculateModifyScore(ContentSource.Pair reader, DiffEntry d)
 			throws IOException {
 		try {
-			SimilarityIndex src = new SimilarityIndex();
-			src.hash(reader.open(OLD, d));
-			src.sort();
-
-			SimilarityIndex dst = new SimilarityIndex();
-			dst.hash(reader.open(NEW, d));
-			dst.sort();
+			SimilarityIndex src = index(reader, OLD, d);
+			SimilarityIndex dst = index(reader, NEW, d);
 			return src.score(dst, 100);
 		} catch (TableFullException tableFull) {
 			// If either table overflowed while being constructed, don't allow
@@ -538,6 +622,23 @@ private int calculateModifyScore(ContentSource.Pair reader, DiffEntry d)
 		}
 	}
 
+	private SimilarityIndex index(ContentSource.Pair reader,
+			DiffEntry.Side side, DiffEntry d)
+			throws IOException, TableFullException {
+		ObjectId id = similarityIndexCache != null
+				? SimilarityIndexCache.key(d.getId(side))
+				: null;
+		SimilarityIndex idx = id != null ? similarityIndexCache.get(id) : null;
+		if (idx == null) {
+			idx = new SimilarityIndex();
+			idx.hash(reader.open(side, d));
+			idx.sort();
+			if (id != null)
+				similarityIndexCache.put(id, idx);
+		}
+		return idx;
+	}
+
 	private void findContentRenames(ContentSource.Pair reader,
 			ProgressMonitor pm)
 			throws IOException, CancelledException {
@@ -549,6 +650,13 @@ private void findContentRenames(ContentSource.Pair reader,
 			d.setRenameScore(getRenameScore());
 			d.setBigFileThreshold(getBigFileThreshold());
 			d.setSkipBinaryFiles(getSkipContentRenamesForBinaryFiles());
+			d.setThreads(getThreads());
+			d.setExecutor(getExecutor());
+			SimilarityIndexCache cache = similarityIndexCache;
+			if (cache == null)
+				cache = new SimilarityIndexCache(
+						SimilarityIndexCache.DEFAULT_LIMIT);
+			d.setCache(cache);
 			d.compute(pm);
 			overRenameLimit |= d.isTableOverflow();
 			deleted = d.getLeftOverSources();
@@ -73,9 +73,15 @@ public class SimilarityIndex {
 	 */
 	private long[] idHash;
 
-	/** {@code idHash.length == 1 << idHashBits}. */
+	/**
+	 * {@code idHash.length == 1 << idHashBits} while hashing; {@link #sort()}
+	 * then drops the empty slots.
+	 */
 	private int idHashBits;
 
+	/** Whether the hashed content was detected to be binary. */
+	private boolean binary;
+
 	/**
 	 * Create a new similarity index for the given object
 	 *
@@ -133,6 +139,7 @@ private void hashLargeObject(ObjectLoader obj) throws IOException,
 
 	void hash(byte[] raw, int ptr, int end) throws TableFullException {
 		final boolean text = !RawText.isBinary(raw);
+		binary = !text;
 		hashedCnt = 0;
 		while (ptr < end) {
 			int hash = 5381;
@@ -160,6 +167,7 @@ void hash(InputStream in, long remaining, boolean text) throws IOException,
 		byte[] buf = new byte[4096];
 		int ptr = 0;
 		int cnt = 0;
+		binary = !text;
 
 		while (0 < remaining) {
 			int hash = 5381;
@@ -199,9 +207,31 @@ void hash(InputStream in, long remaining, boolean text) throws IOException,
 	void sort() {
 		// Sort the array. All of the empty space will wind up at the front,
 		// because we forced all of the keys to always be positive. Later
-		// we only work with the back half of the array.
+		// we only work with the back half of the array, so the empty space
+		// is dropped to keep indexes held for scoring small.
 		//
 		Arrays.sort(idHash);
+		if (idSize < idHash.length)
+			idHash = Arrays.copyOfRange(idHash, idHash.length - idSize,
+					idHash.length);
+	}
+
+	/**
+	 * Whether the content was detected to be binary while hashing it.
+	 *
+	 * @return true if the content is binary.
+	 */
+	boolean isBinary() {
+		return binary;
+	}
+
+	/**
+	 * Estimate the memory used by a sorted index.
+	 *
+	 * @return number of bytes.
+	 */
+	long getMemoryUsage() {
+		return 64 + 8L * idHash.length;
 	}
 
 	/**
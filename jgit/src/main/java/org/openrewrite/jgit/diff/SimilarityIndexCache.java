@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.diff;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openrewrite.jgit.lib.AbbreviatedObjectId;
+import org.openrewrite.jgit.lib.AnyObjectId;
+import org.openrewrite.jgit.lib.ObjectId;
+
+/**
+ * Least recently used {@link SimilarityIndex} instances, keyed by the id of
+ * the blob they were computed from.
+ * <p>
+ * A cache given to
+ * {@link RenameDetector#setSimilarityIndexCache(SimilarityIndexCache)} is
+ * kept across calls of {@link RenameDetector#compute()}, so detecting renames
+ * for many commits of a history does not hash the same blobs again. As an
+ * index only depends on the content of its blob, a cache can be shared by
+ * several detectors, also concurrently.
+ * <p>
+ * The cache is bounded by the memory estimated for the indexes it holds.
+ *
+ * @since 5.14
+ */
+public class SimilarityIndexCache {
+	/** Default limit of the memory used by the cached indexes, 32 MiB. */
+	public static final long DEFAULT_LIMIT = 32 << 20;
+
+	/**
+	 * Get the key of the content of one side of a change.
+	 *
+	 * @return the id of the blob; null if it is not known.
+	 */
+	static ObjectId key(AbbreviatedObjectId abbrev) {
+		if (!abbrev.isComplete())
+			return null;
+		ObjectId id = abbrev.toObjectId();
+		return ObjectId.zeroId().equals(id) ? null : id;
+	}
+
+	private final long limit;
+
+	private final LinkedHashMap<ObjectId, SimilarityIndex> map = new LinkedHashMap<>(
+			16, 0.75f, true);
+
+	private long size;
+
+	/**
+	 * Create an empty cache.
+	 *
+	 * @param limit
+	 *            maximum number of bytes used by the cached indexes.
+	 */
+	public SimilarityIndexCache(long limit) {
+		this.limit = limit;
+	}
+
+	/**
+	 * Get the maximum number of bytes used by the cached indexes.
+	 *
+	 * @return the limit given to the constructor.
+	 */
+	public long getLimit() {
+		return limit;
+	}
+
+	/** Remove all indexes from the cache. */
+	public synchronized void clear() {
+		map.clear();
+		size = 0;
+	}
+
+	/**
+	 * Get the index of a blob.
+	 *
+	 * @param id
+	 *            id of the blob.
+	 * @return the index; null if it is not cached.
+	 */
+	synchronized SimilarityIndex get(AnyObjectId id) {
+		return map.get(id);
+	}
+
+	/**
+	 * Cache the index of a blob, evicting the least recently used indexes if
+	 * the cache is full.
+	 *
+	 * @param id
+	 *            id of the blob.
+	 * @param idx
+	 *            the sorted index of the blob.
+	 */
+	synchronized void put(AnyObjectId id, SimilarityIndex idx) {
+		long n = idx.getMemoryUsage();
+		if (n > limit)
+			return;
+		SimilarityIndex old = map.put(id.copy(), idx);
+		if (old != null)
+			size -= old.getMemoryUsage();
+		size += n;
+		Iterator<Map.Entry<ObjectId, SimilarityIndex>> i = map.entrySet()
+				.iterator();
+		while (size > limit && i.hasNext()) {
+			size -= i.next().getValue().getMemoryUsage();
+			i.remove();
+		}
+	}
+}
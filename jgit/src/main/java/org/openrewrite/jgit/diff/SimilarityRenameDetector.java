@@ -19,6 +19,8 @@
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 import org.openrewrite.jgit.diff.DiffEntry.ChangeType;
 import org.openrewrite.jgit.diff.SimilarityIndex.TableFullException;
@@ -26,8 +28,10 @@
 import org.openrewrite.jgit.internal.JGitText;
 import org.openrewrite.jgit.lib.FileMode;
 import org.openrewrite.jgit.lib.NullProgressMonitor;
+import org.openrewrite.jgit.lib.ObjectId;
 import org.openrewrite.jgit.lib.ObjectLoader;
 import org.openrewrite.jgit.lib.ProgressMonitor;
+import org.openrewrite.jgit.lib.internal.ParallelTasks;
 
 class SimilarityRenameDetector {
 	/**
@@ -44,6 +48,22 @@ class SimilarityRenameDetector {
 
 	private static final int SCORE_SHIFT = 2 * BITS_PER_INDEX;
 
+	/**
+	 * Maximum number of pairs collected before they are scored. Only the
+	 * indexes of the collected pairs are held at the same time, the
+	 * {@link SimilarityIndexCache} bounds those kept for later pairs.
+	 */
+	private static final int CHUNK_PAIRS = 1 << 16;
+
+	/**
+	 * Memory used by the indexes of the collected pairs at which no further
+	 * index is computed before the pairs are scored.
+	 */
+	private static final long CHUNK_BYTES = 32 << 20;
+
+	/** Minimum number of pairs to score in parallel. */
+	private static final int PARALLEL_THRESHOLD = 1024;
+
 	private ContentSource.Pair reader;
 
 	/**
@@ -94,6 +114,43 @@ class SimilarityRenameDetector {
 	/** Set if any {@link SimilarityIndex.TableFullException} occurs. */
 	private boolean tableOverflow;
 
+	/** Number of threads scoring pairs; 0 for the number of processors. */
+	private int threads = 1;
+
+	/** Executor scoring pairs; null for the one shared by JGit. */
+	private Executor executor;
+
+	/** Indexes of blobs, shared between sources and destinations. */
+	private SimilarityIndexCache cache;
+
+	private long[] srcSizes;
+
+	private long[] dstSizes;
+
+	/** Indexes of the sources whose pairs are collected. */
+	private SimilarityIndex[] srcIndexes;
+
+	/** Indexes of the destinations of the collected pairs. */
+	private SimilarityIndex[] dstIndexes;
+
+	/** Destinations which are binary, or whose index overflowed. */
+	private BitSet dstSkipped;
+
+	/**
+	 * First destination to pair with the first source of the next chunk,
+	 * if the last chunk ended within the destinations of that source.
+	 */
+	private int nextDst;
+
+	/** Number of pairs collected in {@link #pairSrc} and {@link #pairDst}. */
+	private int pairCnt;
+
+	private int[] pairSrc;
+
+	private int[] pairDst;
+
+	private int[] pairScores;
+
 	private List<DiffEntry> out;
 
 	SimilarityRenameDetector(ContentSource.Pair reader, List<DiffEntry> srcs,
@@ -115,6 +172,18 @@ void setSkipBinaryFiles(boolean value) {
 		skipBinaryFiles = value;
 	}
 
+	void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	void setCache(SimilarityIndexCache cache) {
+		this.cache = cache;
+	}
+
 	void compute(ProgressMonitor pm) throws IOException, CancelledException {
 		if (pm == null)
 			pm = NullProgressMonitor.INSTANCE;
@@ -208,49 +277,88 @@ private int buildMatrix(ProgressMonitor pm)
 		//
 		matrix = new long[srcs.size() * dsts.size()];
 
-		long[] srcSizes = new long[srcs.size()];
-		long[] dstSizes = new long[dsts.size()];
-		BitSet dstTooLarge = null;
+		srcSizes = new long[srcs.size()];
+		dstSizes = new long[dsts.size()];
+		srcIndexes = new SimilarityIndex[srcs.size()];
+		dstIndexes = new SimilarityIndex[dsts.size()];
+		dstSkipped = new BitSet(dsts.size());
+		pairSrc = new int[Math.min(CHUNK_PAIRS, matrix.length)];
+		pairDst = new int[pairSrc.length];
+		pairScores = new int[pairSrc.length];
+
+		int n = threads > 0 ? threads
+				: Runtime.getRuntime().availableProcessors();
+		Executor pool = null;
+		if (n > 1 && matrix.length >= PARALLEL_THRESHOLD)
+			pool = ParallelTasks.limit(executor != null ? executor
+					: ParallelTasks.getExecutor(), n);
 
 		// Consider each pair of files, if the score is above the minimum
 		// threshold we need record that scoring in the matrix so we can
-		// later find the best matches.
+		// later find the best matches. Pairs are collected in chunks with
+		// the indexes they need, then scored, in parallel if possible.
 		//
 		int mNext = 0;
-		SRC: for (int srcIdx = 0; srcIdx < srcs.size(); srcIdx++) {
-			DiffEntry srcEnt = srcs.get(srcIdx);
-			if (!isFile(srcEnt.oldMode)) {
-				pm.update(dsts.size());
-				continue;
+		nextDst = 0;
+		try {
+			for (int srcIdx = 0; srcIdx < srcs.size();) {
+				int first = srcIdx;
+				srcIdx = collectPairs(srcIdx, pm);
+				mNext = scorePairs(pool, n, mNext);
+				pm.update((srcIdx - first) * dsts.size());
+				Arrays.fill(srcIndexes, first, srcIdx, null);
+				Arrays.fill(dstIndexes, null);
 			}
+		} finally {
+			srcIndexes = null;
+			dstIndexes = null;
+		}
 
-			SimilarityIndex s = null;
+		// Sort everything in the range we populated, which might be the
+		// entire matrix, or just a smaller slice if we had some bad low
+		// scoring pairs.
+		//
+		Arrays.sort(matrix, 0, mNext);
+		return mNext;
+	}
 
-			for (int dstIdx = 0; dstIdx < dsts.size(); dstIdx++) {
-				if (pm.isCancelled()) {
-					// TODO(ms): use
-					// org.openrewrite.jgit.api.errors.CanceledException in next
-					// major version
-					throw new CancelledException(
-							JGitText.get().renameCancelled);
-				}
+	/**
+	 * Collect the pairs of the next sources which may be similar enough,
+	 * computing the indexes needed to score them.
+	 *
+	 * @return index of the first source not yet considered completely; its
+	 *         pairs continue with the destination {@link #nextDst}.
+	 */
+	private int collectPairs(int srcIdx, ProgressMonitor pm)
+			throws IOException, CancelledException {
+		pairCnt = 0;
+		long indexBytes = 0;
+		if (srcIdx < srcs.size() && srcIndexes[srcIdx] != null)
+			indexBytes = srcIndexes[srcIdx].getMemoryUsage();
+		SRC: for (; srcIdx < srcs.size()
+				&& pairCnt < CHUNK_PAIRS; srcIdx++, nextDst = 0) {
+			if (pm.isCancelled()) {
+				// TODO(ms): use
+				// org.openrewrite.jgit.api.errors.CanceledException in next
+				// major version
+				throw new CancelledException(JGitText.get().renameCancelled);
+			}
 
+			DiffEntry srcEnt = srcs.get(srcIdx);
+			if (!isFile(srcEnt.oldMode))
+				continue;
+
+			for (int dstIdx = nextDst; dstIdx < dsts.size(); dstIdx++) {
 				DiffEntry dstEnt = dsts.get(dstIdx);
 
-				if (!isFile(dstEnt.newMode)) {
-					pm.update(1);
+				if (!isFile(dstEnt.newMode))
 					continue;
-				}
 
-				if (!RenameDetector.sameType(srcEnt.oldMode, dstEnt.newMode)) {
-					pm.update(1);
+				if (!RenameDetector.sameType(srcEnt.oldMode, dstEnt.newMode))
 					continue;
-				}
 
-				if (dstTooLarge != null && dstTooLarge.get(dstIdx)) {
-					pm.update(1);
+				if (dstSkipped.get(dstIdx))
 					continue;
-				}
 
 				long srcSize = srcSizes[srcIdx];
 				if (srcSize == 0) {
@@ -268,73 +376,137 @@ private int buildMatrix(ProgressMonitor pm)
 				long min = Math.min(srcSize, dstSize);
 				if (min * 100 / max < renameScore) {
 					// Cannot possibly match, as the file sizes are so different
-					pm.update(1);
 					continue;
 				}
 
-				if (max > bigFileThreshold) {
-					pm.update(1);
+				if (max > bigFileThreshold)
 					continue;
+
+				// Score what was collected before holding more indexes,
+				// continuing with this pair in the next chunk.
+				if ((srcIndexes[srcIdx] == null || dstIndexes[dstIdx] == null)
+						&& 0 < pairCnt && CHUNK_BYTES <= indexBytes) {
+					nextDst = dstIdx;
+					return srcIdx;
 				}
 
-				if (s == null) {
-					try {
-						ObjectLoader loader = reader.open(OLD, srcEnt);
-						if (skipBinaryFiles && SimilarityIndex.isBinary(loader)) {
-							pm.update(1);
-							continue SRC;
-						}
-						s = hash(loader);
-					} catch (TableFullException tableFull) {
-						tableOverflow = true;
+				if (srcIndexes[srcIdx] == null) {
+					SimilarityIndex s = index(OLD, srcEnt);
+					if (s == null)
 						continue SRC;
-					}
+					srcIndexes[srcIdx] = s;
+					indexBytes += s.getMemoryUsage();
 				}
 
-				SimilarityIndex d;
-				try {
-					ObjectLoader loader = reader.open(NEW, dstEnt);
-					if (skipBinaryFiles && SimilarityIndex.isBinary(loader)) {
-						pm.update(1);
+				if (dstIndexes[dstIdx] == null) {
+					SimilarityIndex d = index(NEW, dstEnt);
+					if (d == null) {
+						dstSkipped.set(dstIdx);
 						continue;
 					}
-					d = hash(loader);
-				} catch (TableFullException tableFull) {
-					if (dstTooLarge == null)
-						dstTooLarge = new BitSet(dsts.size());
-					dstTooLarge.set(dstIdx);
-					tableOverflow = true;
-					pm.update(1);
-					continue;
+					dstIndexes[dstIdx] = d;
+					indexBytes += d.getMemoryUsage();
 				}
 
-				int contentScore = s.score(d, 10000);
-
-				// nameScore returns a value between 0 and 100, but we want it
-				// to be in the same range as the content score. This allows it
-				// to be dropped into the pretty formula for the final score.
-				int nameScore = nameScore(srcEnt.oldPath, dstEnt.newPath) * 100;
+				if (pairCnt == pairSrc.length) {
+					int len = 2 * pairCnt;
+					pairSrc = Arrays.copyOf(pairSrc, len);
+					pairDst = Arrays.copyOf(pairDst, len);
+					pairScores = Arrays.copyOf(pairScores, len);
+				}
+				pairSrc[pairCnt] = srcIdx;
+				pairDst[pairCnt] = dstIdx;
+				pairCnt++;
+			}
+		}
+		return srcIdx;
+	}
 
-				int score = (contentScore * 99 + nameScore * 1) / 10000;
+	/**
+	 * Get the index of a file, from the cache if possible.
+	 *
+	 * @return the index; null if the file is binary and binary files are
+	 *         skipped, or if its index overflowed.
+	 */
+	private SimilarityIndex index(DiffEntry.Side side, DiffEntry ent)
+			throws IOException {
+		ObjectId id = cache != null ? SimilarityIndexCache.key(ent.getId(side))
+				: null;
+		SimilarityIndex idx = id != null ? cache.get(id) : null;
+		if (idx != null)
+			return skipBinaryFiles && idx.isBinary() ? null : idx;
+		try {
+			ObjectLoader loader = reader.open(side, ent);
+			if (skipBinaryFiles && SimilarityIndex.isBinary(loader))
+				return null;
+			idx = hash(loader);
+		} catch (TableFullException tableFull) {
+			tableOverflow = true;
+			return null;
+		}
+		if (id != null)
+			cache.put(id, idx);
+		return idx;
+	}
 
-				if (score < renameScore) {
-					pm.update(1);
-					continue;
+	/**
+	 * Score the pairs collected by {@link #collectPairs(int, ProgressMonitor)}
+	 * and add those reaching the rename score to the matrix.
+	 *
+	 * @return the new number of entries in the matrix.
+	 */
+	private int scorePairs(Executor pool, int n, int mNext)
+			throws IOException {
+		if (pool == null || pairCnt < PARALLEL_THRESHOLD) {
+			scorePairs(0, pairCnt);
+		} else {
+			// Split into more tasks than threads, as the cost of a pair
+			// depends on the sizes of its files.
+			int tasks = 4 * n;
+			int per = (pairCnt + tasks - 1) / tasks;
+			List<Future<?>> futures = new ArrayList<>(tasks);
+			boolean ok = false;
+			try {
+				for (int from = 0; from < pairCnt; from += per) {
+					int start = from;
+					int end = Math.min(from + per, pairCnt);
+					futures.add(ParallelTasks.submit(pool, () -> {
+						scorePairs(start, end);
+						return null;
+					}));
 				}
-
-				matrix[mNext++] = encode(score, srcIdx, dstIdx);
-				pm.update(1);
+				ParallelTasks.getAll(futures);
+				ok = true;
+			} finally {
+				if (!ok)
+					ParallelTasks.cancel(futures);
 			}
 		}
 
-		// Sort everything in the range we populated, which might be the
-		// entire matrix, or just a smaller slice if we had some bad low
-		// scoring pairs.
-		//
-		Arrays.sort(matrix, 0, mNext);
+		for (int i = 0; i < pairCnt; i++) {
+			if (pairScores[i] >= renameScore)
+				matrix[mNext++] = encode(pairScores[i], pairSrc[i], pairDst[i]);
+		}
 		return mNext;
 	}
 
+	private void scorePairs(int from, int to) {
+		for (int i = from; i < to; i++) {
+			int srcIdx = pairSrc[i];
+			int dstIdx = pairDst[i];
+			int contentScore = srcIndexes[srcIdx].score(dstIndexes[dstIdx],
+					10000);
+
+			// nameScore returns a value between 0 and 100, but we want it
+			// to be in the same range as the content score. This allows it
+			// to be dropped into the pretty formula for the final score.
+			int nameScore = nameScore(srcs.get(srcIdx).oldPath,
+					dsts.get(dstIdx).newPath) * 100;
+
+			pairScores[i] = (contentScore * 99 + nameScore * 1) / 10000;
+		}
+	}
+
 	static int nameScore(String a, String b) {
 		int aDirLen = a.lastIndexOf('/') + 1;
 		int bDirLen = b.lastIndexOf('/') + 1;
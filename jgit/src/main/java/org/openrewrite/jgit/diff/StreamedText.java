@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.diff;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import org.openrewrite.jgit.errors.BinaryBlobException;
+import org.openrewrite.jgit.lib.ObjectLoader;
+
+/**
+ * A text too large to be held in memory, represented by hashes of its lines.
+ * <p>
+ * The content is read from its object as a stream, once to hash the lines and
+ * again by {@link LineReader} whenever lines are needed. Only 8 bytes per line
+ * are kept. Lines are equal for {@link #COMPARATOR} if their 64 bit hashes are
+ * equal, so callers must confirm lines they take as common by comparing their
+ * content.
+ */
+final class StreamedText extends Sequence {
+	/** Compares the lines of streamed texts by their hashes. */
+	static final SequenceComparator<StreamedText> COMPARATOR = new SequenceComparator<StreamedText>() {
+		@Override
+		public boolean equals(StreamedText a, int ai, StreamedText b,
+				int bi) {
+			return a.hashes[ai] == b.hashes[bi];
+		}
+
+		@Override
+		public int hash(StreamedText seq, int idx) {
+			long h = seq.hashes[idx];
+			return (int) (h ^ (h >>> 32));
+		}
+	};
+
+	/** An empty text. */
+	static final StreamedText EMPTY = new StreamedText(null, new long[0], 0,
+			false);
+
+	/**
+	 * Hash the lines of an object.
+	 *
+	 * @param ldr
+	 *            the object.
+	 * @return the text.
+	 * @throws BinaryBlobException
+	 *             the object contains a NUL byte, like binary files do.
+	 * @throws IOException
+	 *             the object cannot be read.
+	 */
+	static StreamedText load(ObjectLoader ldr)
+			throws IOException, BinaryBlobException {
+		// Like RawText guess 36 bytes per line, but grow larger arrays only
+		// as lines are found.
+		long[] hashes = new long[(int) Math.max(16,
+				Math.min(1 << 20, ldr.getSize() / 36))];
+		int size = 0;
+		boolean missingNewline = false;
+		try (LineReader r = new LineReader(ldr.openStream())) {
+			while (r.next()) {
+				long h = 0xcbf29ce484222325L;
+				for (int p = r.start; p < r.end; p++) {
+					byte b = r.buf[p];
+					if (b == '\0')
+						throw new BinaryBlobException();
+					h = (h ^ (b & 0xff)) * 0x100000001b3L;
+				}
+				if (size == hashes.length)
+					hashes = Arrays.copyOf(hashes, size + (size >> 1));
+				hashes[size++] = mix(h);
+				missingNewline = r.buf[r.end - 1] != '\n';
+			}
+		}
+		return new StreamedText(ldr, hashes, size, missingNewline);
+	}
+
+	/** Spread the bits of an FNV hash, as its low bits mix poorly. */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private final ObjectLoader loader;
+
+	private final long[] hashes;
+
+	private final int size;
+
+	private final boolean missingNewlineAtEnd;
+
+	private StreamedText(ObjectLoader loader, long[] hashes, int size,
+			boolean missingNewlineAtEnd) {
+		this.loader = loader;
+		this.hashes = hashes;
+		this.size = size;
+		this.missingNewlineAtEnd = missingNewlineAtEnd;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Whether the last line has no line feed.
+	 *
+	 * @return true if the text does not end with a line feed.
+	 */
+	boolean isMissingNewlineAtEnd() {
+		return missingNewlineAtEnd;
+	}
+
+	/**
+	 * Read the lines of the text again.
+	 *
+	 * @return a reader positioned before the first line.
+	 * @throws IOException
+	 *             the object cannot be read.
+	 */
+	LineReader open() throws IOException {
+		if (loader == null)
+			return new LineReader(null);
+		return new LineReader(loader.openStream());
+	}
+
+	/**
+	 * Splits a stream into lines, holding only the current line in memory.
+	 */
+	static final class LineReader implements AutoCloseable {
+		private final InputStream in;
+
+		/** Buffer holding the current line, and data read beyond it. */
+		byte[] buf = new byte[64 * 1024];
+
+		/** Start of the current line in {@link #buf}. */
+		int start;
+
+		/** End of the current line in {@link #buf}, after its line feed. */
+		int end;
+
+		/** End of the data read into {@link #buf}. */
+		private int fill;
+
+		private boolean eof;
+
+		LineReader(InputStream in) {
+			this.in = in;
+			eof = in == null;
+		}
+
+		/**
+		 * Advance to the next line.
+		 *
+		 * @return false if there are no more lines.
+		 * @throws IOException
+		 *             the stream cannot be read.
+		 */
+		boolean next() throws IOException {
+			start = end;
+			int p = start;
+			for (;;) {
+				for (; p < fill; p++) {
+					if (buf[p] == '\n') {
+						end = p + 1;
+						return true;
+					}
+				}
+				if (eof) {
+					end = fill;
+					return start < end;
+				}
+				p -= start;
+				compact();
+				read();
+			}
+		}
+
+		/**
+		 * Get the current line as a text of one line.
+		 *
+		 * @return the line, including its line feed if it has one.
+		 */
+		RawText line() {
+			return new RawText(Arrays.copyOfRange(buf, start, end));
+		}
+
+		/**
+		 * Whether the current line has the same content as the current line
+		 * of another reader.
+		 *
+		 * @param o
+		 *            the other reader.
+		 * @return true if the lines are equal.
+		 */
+		boolean lineEquals(LineReader o) {
+			if (end - start != o.end - o.start)
+				return false;
+			for (int i = start, j = o.start; i < end; i++, j++) {
+				if (buf[i] != o.buf[j])
+					return false;
+			}
+			return true;
+		}
+
+		/** Move the current line to the start of the buffer. */
+		private void compact() {
+			if (start > 0) {
+				System.arraycopy(buf, start, buf, 0, fill - start);
+				fill -= start;
+				end -= start;
+				start = 0;
+			}
+			if (fill == buf.length)
+				buf = Arrays.copyOf(buf, 2 * buf.length);
+		}
+
+		private void read() throws IOException {
+			int n = in.read(buf, fill, buf.length - fill);
+			if (n < 0)
+				eof = true;
+			else
+				fill += n;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (in != null)
+				in.close();
+		}
+	}
+}
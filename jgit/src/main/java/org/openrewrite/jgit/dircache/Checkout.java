@@ -161,16 +161,79 @@ public void checkoutGitlink(DirCacheEntry entry, String gitPath)
 	 */
 	public void checkout(DirCacheEntry entry, CheckoutMetadata metadata,
 			ObjectReader reader, String gitPath) throws IOException {
+		ObjectLoader ol = reader.open(entry.getObjectId());
+		String path = gitPath != null ? gitPath : entry.getPathString();
+		File f = new File(cache.getRepository().getWorkTree(), path);
+		CacheItem cachedParent = createParentDirectory(path, f);
+		FileMode written = write(entry, metadata, ol, path, f);
+		written(cachedParent, f, written);
+	}
+
+	/**
+	 * Ensure that the parent directory of a file to be written by
+	 * {@link #write(DirCacheEntry, CheckoutMetadata, ObjectLoader, String, File)}
+	 * exists, deleting a file in the way.
+	 *
+	 * @param path
+	 *            git path of the file
+	 * @param f
+	 *            the file
+	 * @return the cached parent directory
+	 * @throws IOException
+	 *             if the directory cannot be created
+	 */
+	CacheItem createParentDirectory(String path, File f) throws IOException {
+		return cache.safeCreateDirectory(path, f.getParentFile(), true);
+	}
+
+	/**
+	 * Record in the cache that a file was written.
+	 *
+	 * @param cachedParent
+	 *            the cached parent directory of the file
+	 * @param f
+	 *            the file
+	 * @param mode
+	 *            mode returned by
+	 *            {@link #write(DirCacheEntry, CheckoutMetadata, ObjectLoader, String, File)}
+	 */
+	static void written(CacheItem cachedParent, File f, FileMode mode) {
+		if (mode == FileMode.SYMLINK) {
+			cachedParent.insert(f.getName(), FileMode.SYMLINK);
+		} else {
+			cachedParent.remove(f.getName());
+		}
+	}
+
+	/**
+	 * Write the file of an entry into its existing parent directory.
+	 * <p>
+	 * Neither the cache nor any other state of this object is modified, so
+	 * different entries may be written concurrently, each thread reading the
+	 * objects with a reader of its own.
+	 *
+	 * @param entry
+	 *            entry to check out, its length and modification time are
+	 *            updated
+	 * @param metadata
+	 *            metadata to use for CR/LF handling and smudge filtering
+	 * @param ol
+	 *            loader of the entry's object
+	 * @param path
+	 *            git path of the entry
+	 * @param f
+	 *            the file to write
+	 * @return {@link FileMode#SYMLINK} if a symbolic link was created,
+	 *         {@link FileMode#REGULAR_FILE} otherwise
+	 * @throws IOException
+	 *             if the file cannot be written
+	 */
+	FileMode write(DirCacheEntry entry, CheckoutMetadata metadata,
+			ObjectLoader ol, String path, File f) throws IOException {
 		if (metadata == null) {
 			metadata = CheckoutMetadata.EMPTY;
 		}
 		FS fs = cache.getRepository().getFS();
-		ObjectLoader ol = reader.open(entry.getObjectId());
-		String path = gitPath != null ? gitPath : entry.getPathString();
-		File f = new File(cache.getRepository().getWorkTree(), path);
-		File parentDir = f.getParentFile();
-		CacheItem cachedParent = cache.safeCreateDirectory(path, parentDir,
-				true);
 		if (entry.getFileMode() == FileMode.SYMLINK
 				&& options.getSymLinks() == SymLinks.TRUE) {
 			byte[] bytes = ol.getBytes();
@@ -180,17 +243,17 @@ public void checkout(DirCacheEntry entry, CheckoutMetadata metadata,
 				FileUtils.delete(f, FileUtils.RECURSIVE);
 			}
 			fs.createSymLink(f, target);
-			cachedParent.insert(f.getName(), FileMode.SYMLINK);
 			entry.setLength(bytes.length);
 			entry.setLastModified(fs.lastModifiedInstant(f));
-			return;
+			return FileMode.SYMLINK;
 		}
 
 		String name = f.getName();
 		if (name.length() > 200) {
 			name = name.substring(0, 200);
 		}
-		File tmpFile = File.createTempFile("._" + name, null, parentDir); //$NON-NLS-1$
+		File tmpFile = File.createTempFile("._" + name, null, //$NON-NLS-1$
+				f.getParentFile());
 
 		DirCacheCheckout.getContent(cache.getRepository(), path, metadata, ol,
 				options,
@@ -222,7 +285,6 @@ public void checkout(DirCacheEntry entry, CheckoutMetadata metadata,
 				FileUtils.delete(f, FileUtils.RECURSIVE);
 			}
 			FileUtils.rename(tmpFile, f, StandardCopyOption.ATOMIC_MOVE);
-			cachedParent.remove(f.getName());
 		} catch (IOException e) {
 			throw new IOException(
 					MessageFormat.format(JGitText.get().renameFileFailed,
@@ -234,5 +296,6 @@ public void checkout(DirCacheEntry entry, CheckoutMetadata metadata,
 			}
 		}
 		entry.setLastModified(fs.lastModifiedInstant(f));
+		return FileMode.REGULAR_FILE;
 	}
-}
\ No newline at end of file
+}
@@ -13,23 +13,36 @@
 package org.openrewrite.jgit.dircache;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.StandardCopyOption;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.text.MessageFormat;
+import java.text.ParseException;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.Date;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 import org.openrewrite.jgit.errors.CorruptObjectException;
 import org.openrewrite.jgit.errors.IndexReadException;
@@ -45,21 +58,32 @@
 import org.openrewrite.jgit.lib.Config.ConfigEnum;
 import org.openrewrite.jgit.lib.ConfigConstants;
 import org.openrewrite.jgit.lib.Constants;
+import org.openrewrite.jgit.lib.FileSystemMonitor;
 import org.openrewrite.jgit.lib.ObjectId;
 import org.openrewrite.jgit.lib.ObjectInserter;
 import org.openrewrite.jgit.lib.ObjectReader;
 import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.lib.internal.ParallelTasks;
 import org.openrewrite.jgit.treewalk.FileTreeIterator;
 import org.openrewrite.jgit.treewalk.TreeWalk;
 import org.openrewrite.jgit.treewalk.TreeWalk.OperationType;
 import org.openrewrite.jgit.treewalk.filter.PathFilterGroup;
 import org.openrewrite.jgit.util.FS;
+import org.openrewrite.jgit.util.FileUtils;
+import org.openrewrite.jgit.util.GitDateParser;
 import org.openrewrite.jgit.util.IO;
 import org.openrewrite.jgit.util.MutableInteger;
 import org.openrewrite.jgit.util.NB;
+import org.openrewrite.jgit.util.RawParseUtils;
+import org.openrewrite.jgit.util.StringUtils;
+import org.openrewrite.jgit.util.SystemReader;
 import org.openrewrite.jgit.util.TemporaryBuffer;
+import org.openrewrite.jgit.util.io.CountingOutputStream;
 import org.openrewrite.jgit.util.io.SilentFileInputStream;
 
+import com.googlecode.javaewah.EWAHCompressedBitmap;
+import com.googlecode.javaewah.IntIterator;
+
 /**
  * Support for the Git dircache (aka index file).
  * <p>
@@ -78,6 +102,37 @@ public class DirCache {
 
 	private static final int EXT_TREE = 0x54524545 /* 'TREE' */;
 
+	private static final int EXT_UNTR = 0x554E5452 /* 'UNTR' */;
+
+	private static final int EXT_FSMN = 0x46534D4E /* 'FSMN' */;
+
+	private static final int FSMN_VERSION_1 = 1;
+
+	private static final int FSMN_VERSION_2 = 2;
+
+	private static final int EXT_LINK = 0x6C696E6B /* 'link' */;
+
+	private static final int EXT_EOIE = 0x454F4945 /* 'EOIE' */;
+
+	/** Size of the {@code EOIE} extension: an offset and a hash. */
+	private static final int EOIE_SIZE = 4 + Constants.OBJECT_ID_LENGTH;
+
+	private static final int EXT_IEOT = 0x49454F54 /* 'IEOT' */;
+
+	private static final int IEOT_VERSION = 1;
+
+	private static final int EXT_SDIR = 0x73646972 /* 'sdir' */;
+
+	/** Entries making a thread worth to load or write a block of entries. */
+	private static final int ENTRIES_PER_THREAD = 10000;
+
+	/** Prefix of the shared index files of split indexes. */
+	private static final String SHARED_INDEX_PREFIX = "sharedindex."; //$NON-NLS-1$
+
+	/** Age of the used shared index file refreshed by a write. */
+	private static final long SHARED_INDEX_FRESHEN_MILLIS = 24L * 60 * 60
+			* 1000;
+
 	private static final DirCacheEntry[] NO_ENTRIES = {};
 
 	private static final byte[] NO_CHECKSUM = {};
@@ -160,8 +215,11 @@ public static DirCache read(ObjectReader reader, AnyObjectId treeId)
 	 */
 	public static DirCache read(Repository repository)
 			throws CorruptObjectException, IOException {
-		final DirCache c = read(repository.getIndexFile(), repository.getFS());
+		final DirCache c = new DirCache(repository.getIndexFile(),
+				repository.getFS());
+		// Set first, the configuration of the repository applies to reading.
 		c.repository = repository;
+		c.read();
 		return c;
 	}
 
@@ -255,9 +313,19 @@ public static DirCache lock(File indexLocation, FS fs)
 	public static DirCache lock(final Repository repository,
 			final IndexChangedListener indexChangedListener)
 			throws CorruptObjectException, IOException {
-		DirCache c = lock(repository.getIndexFile(), repository.getFS(),
-				indexChangedListener);
+		DirCache c = new DirCache(repository.getIndexFile(),
+				repository.getFS());
 		c.repository = repository;
+		if (!c.lock())
+			throw new LockFailedException(repository.getIndexFile());
+
+		try {
+			c.read();
+		} catch (IOException | RuntimeException | Error e) {
+			c.unlock();
+			throw e;
+		}
+		c.registerIndexChangedListener(indexChangedListener);
 		return c;
 	}
 
@@ -306,6 +374,18 @@ public static DirCache lock(final File indexLocation, final FS fs,
 	/** Cache tree for this index; null if the cache tree is not available. */
 	private DirCacheTree tree;
 
+	/** Untracked cache; null if the index has none. */
+	private UntrackedCache untrackedCache;
+
+	/** Token of the file system monitor; null if the index has none. */
+	private String fsMonitorToken;
+
+	/**
+	 * Optional extensions not understood, with their headers, as read from
+	 * the index file. They are written back until the entries are replaced.
+	 */
+	private List<byte[]> unknownExtensions = Collections.emptyList();
+
 	/** Our active lock (if we hold it); null if we don't have it locked. */
 	private LockFile myLock;
 
@@ -327,6 +407,15 @@ public static DirCache lock(final File indexLocation, final FS fs,
 	/** If we read this index from disk, the original format. */
 	private DirCacheVersion version;
 
+	/** Entries of the shared index; null if this is not a split index. */
+	private DirCacheEntry[] sharedEntries;
+
+	/** Header information of {@link #sharedEntries} as stored on disk. */
+	private byte[] sharedInfo;
+
+	/** Checksum of the shared index, naming its file. */
+	private ObjectId sharedIndexId;
+
 	/**
 	 * Create a new in-core index representation.
 	 * <p>
@@ -375,9 +464,13 @@ DirCacheVersion getVersion() {
 	}
 
 	void replace(DirCacheEntry[] e, int cnt) {
+		if (untrackedCache != null)
+			untrackedCache.invalidate(sortedEntries, entryCnt, e, cnt);
 		sortedEntries = e;
 		entryCnt = cnt;
 		tree = null;
+		// Unknown extensions may describe the old entries.
+		unknownExtensions = Collections.emptyList();
 	}
 
 	/**
@@ -440,22 +533,37 @@ public void clear() {
 		sortedEntries = NO_ENTRIES;
 		entryCnt = 0;
 		tree = null;
+		untrackedCache = null;
+		fsMonitorToken = null;
+		unknownExtensions = Collections.emptyList();
+		sharedEntries = null;
+		sharedInfo = null;
+		sharedIndexId = null;
 		readIndexChecksum = NO_CHECKSUM;
 	}
 
 	private void readFrom(InputStream inStream) throws IOException,
 			CorruptObjectException {
-		final BufferedInputStream in = new BufferedInputStream(inStream);
-		final MessageDigest md = Constants.newMessageDigest();
+		snapshot = FileSnapshot.save(liveFile);
+		Instant smudge = snapshot.lastModifiedInstant();
+
+		// Entries are decoded from one buffer, which the checksum and the
+		// blocks of entries listed in the IEOT extension can be processed
+		// from in parallel.
+		//
+		ByteBuffer whole = IO.readWholeStream(inStream,
+				(int) Math.max(Math.min(snapshot.size(), Integer.MAX_VALUE - 8),
+						0));
+		final byte[] buf = whole.array();
+		final int end = whole.limit() - Constants.OBJECT_ID_LENGTH;
+		if (end < 12)
+			throw new EOFException(JGitText.get().shortReadOfBlock);
 
 		// Read the index header and verify we understand it.
 		//
-		final byte[] hdr = new byte[20];
-		IO.readFully(in, hdr, 0, 12);
-		md.update(hdr, 0, 12);
-		if (!is_DIRC(hdr))
+		if (!is_DIRC(buf))
 			throw new CorruptObjectException(JGitText.get().notADIRCFile);
-		int versionCode = NB.decodeInt32(hdr, 4);
+		int versionCode = NB.decodeInt32(buf, 4);
 		DirCacheVersion ver = DirCacheVersion.fromInt(versionCode);
 		if (ver == null) {
 			throw new CorruptObjectException(
@@ -475,97 +583,573 @@ private void readFrom(InputStream inStream) throws IOException,
 					.format(JGitText.get().unknownDIRCVersion, ver));
 		}
 		version = ver;
-		entryCnt = NB.decodeInt32(hdr, 8);
+		entryCnt = NB.decodeInt32(buf, 8);
 		if (entryCnt < 0)
 			throw new CorruptObjectException(JGitText.get().DIRCHasTooManyEntries);
 
-		snapshot = FileSnapshot.save(liveFile);
-		Instant smudge = snapshot.lastModifiedInstant();
+		// A null checksum is written by C Git if index.skipHash is set.
+		byte[] checksum = Arrays.copyOfRange(buf, end,
+				end + Constants.OBJECT_ID_LENGTH);
+		boolean verify = !ObjectId.zeroId().equals(ObjectId.fromRaw(checksum));
 
-		// Load the individual file entries.
-		//
+		int threads = getReadThreads();
+		Extensions ext;
+		if (threads > 1) {
+			ext = readParallel(buf, end, threads, extended, verify, smudge);
+		} else {
+			if (verify) {
+				MessageDigest md = Constants.newMessageDigest();
+				md.update(buf, 0, end);
+				readIndexChecksum = md.digest();
+			}
+			sortedEntries = new DirCacheEntry[entryCnt];
+			int ptr = readEntries(buf, 12, end, 0, entryCnt, extended,
+					smudge);
+			ext = readExtensions(buf, ptr, end, smudge);
+		}
+		if (!verify)
+			readIndexChecksum = checksum;
+		else if (!Arrays.equals(readIndexChecksum, checksum)) {
+			throw new CorruptObjectException(JGitText.get().DIRCChecksumMismatch);
+		}
+		tree = ext.tree;
+		untrackedCache = ext.untrackedCache;
+		unknownExtensions = ext.unknown;
+
+		if (ext.link != null)
+			readSharedIndex(ext.link, smudge);
+		for (int i = 0; i < entryCnt; i++) {
+			if (sortedEntries[i].path.length == 0) {
+				throw new CorruptObjectException(MessageFormat.format(
+						JGitText.get().invalidPath, "")); //$NON-NLS-1$
+			}
+		}
+		// Positions are those of the merged split index.
+		if (ext.fsMonitor != null)
+			readFsMonitor(ext.fsMonitor);
+		if (ext.sparse)
+			expandSparseDirectories();
+	}
+
+	/**
+	 * Replace the directories of a sparse index by the files of their trees,
+	 * which are not checked out. The entries of a sparse index are otherwise
+	 * not understood by JGit. Positions change, so the cache tree read with
+	 * the entries is dropped.
+	 */
+	private void expandSparseDirectories() throws IOException {
+		if (repository == null)
+			throw new CorruptObjectException(
+					JGitText.get().DIRCSparseIndexWithoutRepository);
+		List<DirCacheEntry> expanded = new ArrayList<>(entryCnt);
+		try (ObjectReader reader = repository.newObjectReader();
+				TreeWalk tw = new TreeWalk(reader)) {
+			tw.setRecursive(true);
+			for (int i = 0; i < entryCnt; i++) {
+				DirCacheEntry e = sortedEntries[i];
+				if (!e.isSparseDirectory()) {
+					expanded.add(e);
+					continue;
+				}
+				tw.reset(e.getObjectId());
+				while (tw.next()) {
+					byte[] name = tw.getRawPath();
+					byte[] path = Arrays.copyOf(e.path,
+							e.path.length + name.length);
+					System.arraycopy(name, 0, path, e.path.length, name.length);
+					DirCacheEntry f = new DirCacheEntry(path);
+					f.setFileMode(tw.getFileMode(0));
+					f.setObjectId(tw.getObjectId(0));
+					f.setSkipWorkTree(true);
+					expanded.add(f);
+				}
+			}
+		}
+		sortedEntries = expanded.toArray(new DirCacheEntry[0]);
+		entryCnt = sortedEntries.length;
+		tree = null;
+	}
+
+	/**
+	 * Number of threads to load the index with. Like C Git threads are only
+	 * used for large indexes, unless {@code index.threads} sets their number.
+	 */
+	private int getReadThreads() {
+		int threads = 0;
+		if (repository != null) {
+			threads = repository.getConfig().get(DirCacheConfig::new)
+					.getThreads();
+		}
+		if (threads == 0) {
+			threads = Math.min(Runtime.getRuntime().availableProcessors(),
+					entryCnt / ENTRIES_PER_THREAD);
+		}
+		return threads;
+	}
+
+	/**
+	 * Decode entries.
+	 *
+	 * @return the position after the last entry.
+	 */
+	private int readEntries(byte[] buf, int ptr, int end, int first, int cnt,
+			boolean extended, Instant smudge) throws IOException {
 		final int infoLength = DirCacheEntry.getMaximumInfoLength(extended);
-		final byte[] infos = new byte[infoLength * entryCnt];
+		final byte[] infos = new byte[infoLength * cnt];
+		final MutableInteger infoAt = new MutableInteger();
+		final MutableInteger bufAt = new MutableInteger();
+		bufAt.value = ptr;
+		DirCacheEntry previous = null;
+		for (int i = first; i < first + cnt; i++) {
+			previous = new DirCacheEntry(infos, infoAt, buf, bufAt, end,
+					smudge, version, previous);
+			sortedEntries[i] = previous;
+		}
+		return bufAt.value;
+	}
+
+	/**
+	 * Load the index on several threads.
+	 * <p>
+	 * The checksum is computed on a thread of its own. If the {@code EOIE}
+	 * extension locates the extensions they are read on another thread. If
+	 * the {@code IEOT} extension divides the entries into blocks, these are
+	 * decoded by the remaining threads. In version 4 of the index the name of
+	 * the first entry of each block is not compressed.
+	 */
+	private Extensions readParallel(byte[] buf, int end, int threads,
+			boolean extended, boolean verify, Instant smudge)
+			throws IOException {
+		int extAt = findExtensions(buf, end);
+		int[] blocks = extAt < 0 ? null : findEntryBlocks(buf, extAt, end);
 		sortedEntries = new DirCacheEntry[entryCnt];
 
-		final MutableInteger infoAt = new MutableInteger();
-		for (int i = 0; i < entryCnt; i++) {
-			sortedEntries[i] = new DirCacheEntry(infos, infoAt, in, md, smudge,
-					version, i == 0 ? null : sortedEntries[i - 1]);
+		Executor pool = ParallelTasks.limit(ParallelTasks.getExecutor(),
+				threads);
+		List<Future<?>> futures = new ArrayList<>();
+		boolean ok = false;
+		try {
+			Future<byte[]> digest = null;
+			if (verify) {
+				digest = ParallelTasks.submit(pool, () -> {
+					MessageDigest md = Constants.newMessageDigest();
+					md.update(buf, 0, end);
+					return md.digest();
+				});
+				futures.add(digest);
+			}
+			Future<Extensions> extensions = null;
+			if (extAt >= 0) {
+				extensions = ParallelTasks.submit(pool,
+						() -> readExtensions(buf, extAt, end, smudge));
+				futures.add(extensions);
+			}
+
+			Extensions ext = null;
+			if (blocks != null) {
+				int n = blocks.length / 2;
+				int perTask = (n + threads - 1) / threads;
+				List<Future<?>> tasks = new ArrayList<>();
+				for (int b = 0, first = 0; b < n; b += perTask) {
+					int from = b;
+					int to = Math.min(b + perTask, n);
+					int firstEntry = first;
+					tasks.add(ParallelTasks.submit(pool, () -> {
+						readBlocks(buf, extAt, blocks, from, to, firstEntry,
+								extended, smudge);
+						return null;
+					}));
+					for (int i = from; i < to; i++)
+						first += blocks[2 * i + 1];
+				}
+				futures.addAll(tasks);
+				ParallelTasks.getAll(tasks);
+			} else {
+				int ptr = readEntries(buf, 12, end, 0, entryCnt, extended,
+						smudge);
+				if (ptr != extAt) {
+					if (extensions != null)
+						extensions.cancel(true);
+					extensions = null;
+					ext = readExtensions(buf, ptr, end, smudge);
+				}
+			}
+			if (extensions != null)
+				ext = ParallelTasks.get(extensions);
+			if (digest != null)
+				readIndexChecksum = ParallelTasks.get(digest);
+			ok = true;
+			return ext;
+		} finally {
+			if (!ok)
+				ParallelTasks.cancel(futures);
 		}
+	}
 
-		// After the file entries are index extensions, and then a footer.
-		//
-		for (;;) {
-			in.mark(21);
-			IO.readFully(in, hdr, 0, 20);
-			if (in.read() < 0) {
-				// No extensions present; the file ended where we expected.
-				//
-				break;
+	private void readBlocks(byte[] buf, int extAt, int[] blocks, int from,
+			int to, int first, boolean extended, Instant smudge)
+			throws IOException {
+		for (int b = from; b < to; b++) {
+			int next = b + 1 < blocks.length / 2 ? blocks[2 * b + 2] : extAt;
+			int ptr = readEntries(buf, blocks[2 * b], next, first,
+					blocks[2 * b + 1], extended, smudge);
+			if (ptr != next) {
+				throw new CorruptObjectException(MessageFormat.format(
+						JGitText.get().DIRCCorruptEntryOffsetTable,
+						Integer.valueOf(blocks[2 * b])));
 			}
+			first += blocks[2 * b + 1];
+		}
+	}
+
+	/**
+	 * Find the extensions with the {@code EOIE} extension, which is written
+	 * last and records where the entries end.
+	 *
+	 * @return position of the first extension; -1 if the index has no valid
+	 *         {@code EOIE} extension.
+	 */
+	private static int findExtensions(byte[] buf, int end) {
+		int eoie = end - 8 - EOIE_SIZE;
+		if (eoie < 12 || NB.decodeInt32(buf, eoie) != EXT_EOIE
+				|| NB.decodeInt32(buf, eoie + 4) != EOIE_SIZE)
+			return -1;
+		long extAt = NB.decodeUInt32(buf, eoie + 8);
+		if (extAt < 12 || eoie < extAt)
+			return -1;
+
+		// The EOIE extension holds the hash of the headers of all other
+		// extensions, telling whether its offset is still valid.
+		MessageDigest md = Constants.newMessageDigest();
+		int ptr = (int) extAt;
+		while (ptr < eoie) {
+			if (eoie - ptr < 8)
+				return -1;
+			long sz = NB.decodeUInt32(buf, ptr + 4);
+			if (eoie - ptr - 8 < sz)
+				return -1;
+			md.update(buf, ptr, 8);
+			ptr += 8 + (int) sz;
+		}
+		byte[] hash = md.digest();
+		for (int i = 0; i < hash.length; i++) {
+			if (hash[i] != buf[eoie + 12 + i])
+				return -1;
+		}
+		return (int) extAt;
+	}
 
-			in.reset();
-			md.update(hdr, 0, 8);
-			IO.skipFully(in, 8);
-
-			long sz = NB.decodeUInt32(hdr, 4);
-			switch (NB.decodeInt32(hdr, 0)) {
-			case EXT_TREE: {
-				if (Integer.MAX_VALUE < sz) {
-					throw new CorruptObjectException(MessageFormat.format(
-							JGitText.get().DIRCExtensionIsTooLargeAt,
-							formatExtensionName(hdr), Long.valueOf(sz)));
+	/**
+	 * Find the blocks of entries recorded by the {@code IEOT} extension.
+	 *
+	 * @return offset and number of entries of each block; null if the index
+	 *         has no valid {@code IEOT} extension.
+	 */
+	private int[] findEntryBlocks(byte[] buf, int ptr, int end) {
+		while (end - ptr >= 8) {
+			int sig = NB.decodeInt32(buf, ptr);
+			long sz = NB.decodeUInt32(buf, ptr + 4);
+			if (end - ptr - 8 < sz)
+				return null;
+			if (sig == EXT_IEOT) {
+				if (sz < 4 || (sz - 4) % 8 != 0
+						|| NB.decodeInt32(buf, ptr + 8) != IEOT_VERSION)
+					return null;
+				int[] blocks = new int[(int) (sz - 4) / 4];
+				long cnt = 0;
+				for (int i = 0; i < blocks.length; i += 2) {
+					blocks[i] = NB.decodeInt32(buf, ptr + 12 + 4 * i);
+					blocks[i + 1] = NB.decodeInt32(buf, ptr + 16 + 4 * i);
+					if (blocks[i] < (i == 0 ? 12 : blocks[i - 2] + 1)
+							|| blocks[i + 1] < 0)
+						return null;
+					cnt += blocks[i + 1];
 				}
-				final byte[] raw = new byte[(int) sz];
-				IO.readFully(in, raw, 0, raw.length);
-				md.update(raw, 0, raw.length);
-				tree = new DirCacheTree(raw, new MutableInteger(), null);
-				break;
+				if (blocks.length == 0 || blocks[0] != 12 || cnt != entryCnt)
+					return null;
+				return blocks;
 			}
+			ptr += 8 + (int) sz;
+		}
+		return null;
+	}
+
+	/** Extensions read from the index file. */
+	private static class Extensions {
+		DirCacheTree tree;
+
+		UntrackedCache untrackedCache;
+
+		byte[] link;
+
+		byte[] fsMonitor;
+
+		boolean sparse;
+
+		List<byte[]> unknown = Collections.emptyList();
+	}
+
+	/**
+	 * Read the extensions after the file entries, up to the footer.
+	 */
+	private Extensions readExtensions(byte[] buf, int ptr, int end,
+			Instant smudge) throws IOException {
+		Extensions ext = new Extensions();
+		while (ptr < end) {
+			if (end - ptr < 8)
+				throw new EOFException(JGitText.get().shortReadOfBlock);
+			int sig = NB.decodeInt32(buf, ptr);
+			long sz = NB.decodeUInt32(buf, ptr + 4);
+			ptr += 8;
+			if (end - ptr < sz) {
+				if (sig == EXT_TREE || sig == EXT_UNTR || sig == EXT_FSMN
+						|| sig == EXT_LINK) {
+					if (Integer.MAX_VALUE < sz) {
+						throw new CorruptObjectException(MessageFormat.format(
+								JGitText.get().DIRCExtensionIsTooLargeAt,
+								formatExtensionName(sig), Long.valueOf(sz)));
+					}
+					throw new EOFException(JGitText.get().shortReadOfBlock);
+				}
+				if (isOptionalExtension(sig)) {
+					throw new EOFException(MessageFormat.format(
+							JGitText.get().shortReadOfOptionalDIRCExtensionExpectedAnotherBytes,
+							formatExtensionName(sig), Long.valueOf(sz)));
+				}
+			}
+			switch (sig) {
+			case EXT_TREE:
+				ext.tree = new DirCacheTree(
+						Arrays.copyOfRange(buf, ptr, ptr + (int) sz),
+						new MutableInteger(), null);
+				break;
+			case EXT_UNTR:
+				ext.untrackedCache = UntrackedCache.read(this,
+						Arrays.copyOfRange(buf, ptr, ptr + (int) sz), smudge);
+				break;
+			case EXT_FSMN:
+				ext.fsMonitor = Arrays.copyOfRange(buf, ptr, ptr + (int) sz);
+				break;
+			case EXT_LINK:
+				ext.link = Arrays.copyOfRange(buf, ptr, ptr + (int) sz);
+				break;
+			case EXT_SDIR:
+				ext.sparse = true;
+				break;
 			default:
-				if (hdr[0] >= 'A' && hdr[0] <= 'Z') {
+				if (isOptionalExtension(sig)) {
 					// The extension is optional and is here only as
 					// a performance optimization. Since we do not
-					// understand it, we can safely skip past it, after
-					// we include its data in our checksum.
-					//
-					skipOptionalExtension(in, md, hdr, sz);
-				} else {
-					// The extension is not an optimization and is
-					// _required_ to understand this index format.
-					// Since we did not trap it above we must abort.
+					// understand it, we can safely skip past it.
+					// It is part of the checksum all the same.
 					//
-					throw new CorruptObjectException(MessageFormat.format(JGitText.get().DIRCExtensionNotSupportedByThisVersion
-							, formatExtensionName(hdr)));
+					// Keep it to write it back, like C Git keeps for
+					// example the resolve-undo data. The offsets of the
+					// entries are recomputed on write.
+					if (sig != EXT_EOIE && sig != EXT_IEOT) {
+						if (ext.unknown.isEmpty())
+							ext.unknown = new ArrayList<>(2);
+						ext.unknown.add(Arrays.copyOfRange(buf, ptr - 8,
+								ptr + (int) sz));
+					}
+					break;
 				}
+				// The extension is not an optimization and is
+				// _required_ to understand this index format.
+				// Since we did not trap it above we must abort.
+				//
+				throw new CorruptObjectException(MessageFormat.format(JGitText.get().DIRCExtensionNotSupportedByThisVersion
+						, formatExtensionName(sig)));
 			}
+			ptr += (int) sz;
 		}
+		return ext;
+	}
 
-		readIndexChecksum = md.digest();
-		if (!Arrays.equals(readIndexChecksum, hdr)) {
-			throw new CorruptObjectException(JGitText.get().DIRCChecksumMismatch);
-		}
+	private static boolean isOptionalExtension(int sig) {
+		int c = sig >>> 24;
+		return c >= 'A' && c <= 'Z';
 	}
 
-	private void skipOptionalExtension(final InputStream in,
-			final MessageDigest md, final byte[] hdr, long sz)
+	/**
+	 * Merge the entries read from a split index with its shared index.
+	 * <p>
+	 * The {@code link} extension names the shared index and has two bitmaps
+	 * of its positions. Entries of the first are deleted. Entries of the
+	 * second are replaced by the first entries read, which have no name.
+	 * The remaining entries read are added.
+	 */
+	private void readSharedIndex(byte[] link, Instant smudge)
 			throws IOException {
-		final byte[] b = new byte[4096];
-		while (0 < sz) {
-			int n = in.read(b, 0, (int) Math.min(b.length, sz));
-			if (n < 0) {
-				throw new EOFException(
-						MessageFormat.format(
-								JGitText.get().shortReadOfOptionalDIRCExtensionExpectedAnotherBytes,
-								formatExtensionName(hdr), Long.valueOf(sz)));
+		if (link.length < Constants.OBJECT_ID_LENGTH)
+			throw corruptLink(0);
+		ObjectId id = ObjectId.fromRaw(link);
+		if (ObjectId.zeroId().equals(id)) {
+			// Written by C Git when the index stops being split.
+			return;
+		}
+		EWAHCompressedBitmap delete = new EWAHCompressedBitmap();
+		EWAHCompressedBitmap replace = new EWAHCompressedBitmap();
+		if (link.length > Constants.OBJECT_ID_LENGTH) {
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+					link, Constants.OBJECT_ID_LENGTH,
+					link.length - Constants.OBJECT_ID_LENGTH));
+			delete.deserialize(in);
+			replace.deserialize(in);
+		}
+
+		DirCache base = new DirCache(
+				sharedIndexFile(liveFile.getParentFile(), id), null);
+		try (SilentFileInputStream in = new SilentFileInputStream(
+				base.liveFile)) {
+			base.readFrom(in);
+		}
+		if (!id.equals(ObjectId.fromRaw(base.readIndexChecksum))) {
+			throw new CorruptObjectException(MessageFormat.format(
+					JGitText.get().DIRCSharedIndexChecksumMismatch,
+					base.liveFile, id.name()));
+		}
+		DirCacheEntry[] shared = base.sortedEntries;
+		int sharedCnt = base.entryCnt;
+
+		// The shared index is older than this index, its entries are
+		// racily clean if they are with respect to this index.
+		int infoLen = DirCacheEntry.getMaximumInfoLength(true);
+		byte[] info = new byte[sharedCnt * infoLen];
+		for (int i = 0; i < sharedCnt; i++) {
+			if (shared[i].mightBeRacilyClean(smudge))
+				shared[i].smudgeRacilyClean();
+			shared[i].copyInfo(info, i * infoLen);
+		}
+
+		DirCacheEntry[] merged = Arrays.copyOf(shared, sharedCnt);
+		int replaced = 0;
+		for (IntIterator i = replace.intIterator(); i.hasNext();) {
+			int pos = i.next();
+			if (sharedCnt <= pos || entryCnt <= replaced
+					|| sortedEntries[replaced].path.length != 0)
+				throw corruptLink(pos);
+			merged[pos] = new DirCacheEntry(shared[pos].path,
+					sortedEntries[replaced++]);
+		}
+		for (IntIterator i = delete.intIterator(); i.hasNext();) {
+			int pos = i.next();
+			if (sharedCnt <= pos || merged[pos] != shared[pos])
+				throw corruptLink(pos);
+			merged[pos] = null;
+		}
+
+		// Added entries are sorted, and take the place of a shared entry of
+		// the same path and stage.
+		DirCacheEntry[] entries = new DirCacheEntry[sharedCnt + entryCnt
+				- replaced];
+		int n = 0;
+		int added = replaced;
+		for (int i = 0; i < sharedCnt; i++) {
+			DirCacheEntry e = merged[i];
+			if (e == null)
+				continue;
+			while (added < entryCnt
+					&& ENT_CMP.compare(sortedEntries[added], e) < 0)
+				entries[n++] = sortedEntries[added++];
+			if (added < entryCnt
+					&& ENT_CMP.compare(sortedEntries[added], e) == 0)
+				continue;
+			entries[n++] = e;
+		}
+		while (added < entryCnt)
+			entries[n++] = sortedEntries[added++];
+
+		sortedEntries = entries;
+		entryCnt = n;
+		sharedEntries = shared;
+		sharedInfo = info;
+		sharedIndexId = id;
+	}
+
+	private static CorruptObjectException corruptLink(int pos) {
+		return new CorruptObjectException(MessageFormat.format(
+				JGitText.get().DIRCCorruptLinkExtension,
+				Integer.valueOf(pos)));
+	}
+
+	private static File sharedIndexFile(File dir, AnyObjectId id) {
+		return new File(dir, SHARED_INDEX_PREFIX + id.name());
+	}
+
+	/**
+	 * Parse the {@code FSMN} extension. Entries not listed as dirty are valid.
+	 * Like a damaged untracked cache a damaged extension is dropped, all
+	 * entries then have to be examined.
+	 */
+	private void readFsMonitor(byte[] raw) {
+		try {
+			int ptr = 4;
+			String token;
+			switch (NB.decodeInt32(raw, 0)) {
+			case FSMN_VERSION_1:
+				token = Long.toUnsignedString(NB.decodeInt64(raw, ptr));
+				ptr += 8;
+				break;
+			case FSMN_VERSION_2:
+				int end = RawParseUtils.next(raw, ptr, '\0');
+				if (raw[end - 1] != 0)
+					return;
+				token = RawParseUtils.decode(UTF_8, raw, ptr, end - 1);
+				ptr = end;
+				break;
+			default:
+				return;
 			}
-			md.update(b, 0, n);
-			sz -= n;
+			int len = NB.decodeInt32(raw, ptr);
+			ptr += 4;
+			if (len < 0 || raw.length - ptr < len)
+				return;
+			EWAHCompressedBitmap dirty = new EWAHCompressedBitmap();
+			dirty.deserialize(new DataInputStream(
+					new ByteArrayInputStream(raw, ptr, len)));
+			if (dirty.sizeInBits() > entryCnt)
+				return;
+			for (int i = 0; i < entryCnt; i++)
+				sortedEntries[i].setFsMonitorValid(true);
+			IntIterator i = dirty.intIterator();
+			while (i.hasNext())
+				sortedEntries[i.next()].setFsMonitorValid(false);
+			fsMonitorToken = token;
+		} catch (IOException | RuntimeException e) {
+			fsMonitorToken = null;
+			for (int i = 0; i < entryCnt; i++)
+				sortedEntries[i].setFsMonitorValid(false);
+		}
+	}
+
+	private byte[] fsMonitorExtension(DirCacheEntry[] entries, int cnt) {
+		EWAHCompressedBitmap dirty = new EWAHCompressedBitmap();
+		for (int i = 0; i < cnt; i++) {
+			if (!entries[i].isFsMonitorValid())
+				dirty.set(i);
+		}
+		ByteArrayOutputStream bitmap = new ByteArrayOutputStream();
+		try {
+			dirty.serialize(new DataOutputStream(bitmap));
+		} catch (IOException e) {
+			// Cannot happen writing to memory.
+			throw new IllegalStateException(e);
 		}
+		byte[] token = fsMonitorToken.getBytes(UTF_8);
+		byte[] raw = new byte[4 + token.length + 1 + 4 + bitmap.size()];
+		NB.encodeInt32(raw, 0, FSMN_VERSION_2);
+		System.arraycopy(token, 0, raw, 4, token.length);
+		int ptr = 4 + token.length + 1;
+		NB.encodeInt32(raw, ptr, bitmap.size());
+		System.arraycopy(bitmap.toByteArray(), 0, raw, ptr + 4,
+				bitmap.size());
+		return raw;
 	}
 
-	private static String formatExtensionName(byte[] hdr) {
+	private static String formatExtensionName(int sig) {
+		byte[] hdr = new byte[4];
+		NB.encodeInt32(hdr, 0, sig);
 		return "'" + new String(hdr, 0, 4, ISO_8859_1) + "'"; //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
@@ -627,14 +1211,22 @@ public void write() throws IOException {
 	}
 
 	void writeTo(File dir, OutputStream os) throws IOException {
+		DirCacheConfig config = null;
+		if (repository != null)
+			config = repository.getConfig().get(DirCacheConfig::new);
+		final boolean skipHash = config != null && config.isSkipHash();
 		final MessageDigest foot = Constants.newMessageDigest();
-		final DigestOutputStream dos = new DigestOutputStream(os, foot);
-
-		if (version == null && this.repository != null) {
-			// A new DirCache is being written.
-			DirCacheConfig config = repository.getConfig()
-					.get(DirCacheConfig::new);
-			version = config.getIndexVersion();
+		final CountingOutputStream cos = new CountingOutputStream(os);
+		final DigestOutputStream dos = new DigestOutputStream(cos, foot);
+		dos.on(!skipHash);
+		if (config != null) {
+			// Like C Git index.version only applies to new indexes, an
+			// existing one keeps its version. feature.manyFiles also
+			// upgrades existing indexes.
+			DirCacheVersion v = config.getIndexVersion();
+			if (version == null || (config.isManyFiles()
+					&& version.getVersionCode() < v.getVersionCode()))
+				version = v;
 		}
 		if (version == null
 				|| version == DirCacheVersion.DIRC_VERSION_MINIMUM) {
@@ -647,16 +1239,6 @@ void writeTo(File dir, OutputStream os) throws IOException {
 			}
 		}
 
-		// Write the header.
-		//
-		final byte[] tmp = new byte[128];
-		System.arraycopy(SIG_DIRC, 0, tmp, 0, SIG_DIRC.length);
-		NB.encodeInt32(tmp, 4, version.getVersionCode());
-		NB.encodeInt32(tmp, 8, entryCnt);
-		dos.write(tmp, 0, 12);
-
-		// Write the individual file entries.
-
 		Instant smudge;
 		if (myLock != null) {
 			// For new files we need to smudge the index entry
@@ -683,10 +1265,115 @@ void writeTo(File dir, OutputStream os) throws IOException {
 			if (e.mightBeRacilyClean(smudge)) {
 				e.smudgeRacilyClean();
 			}
-			e.write(dos, version, i == 0 ? null : sortedEntries[i - 1]);
 		}
 
-		if (writeTree) {
+		// A split index only stores the changes to its shared index. It
+		// stays split unless core.splitIndex says otherwise.
+		boolean split = sharedEntries != null;
+		if (config != null && config.getSplitIndex() != null)
+			split = config.getSplitIndex().booleanValue();
+		SplitIndexChanges changes = null;
+		if (split && dir != null) {
+			if (sharedEntries != null)
+				changes = new SplitIndexChanges();
+			int maxPercent = config != null ? config.getMaxPercentChange()
+					: DirCacheConfig.DEFAULT_MAX_PERCENT_CHANGE;
+			if (changes == null || (maxPercent < 100
+					&& (long) entryCnt * maxPercent < changes.count() * 100L)) {
+				writeSharedIndex(dir, config != null
+						? config.getSharedIndexExpire()
+						: DirCacheConfig.DEFAULT_SHARED_INDEX_EXPIRE);
+				changes = new SplitIndexChanges();
+			} else {
+				freshenSharedIndex(dir);
+			}
+		} else {
+			sharedEntries = null;
+			sharedInfo = null;
+			sharedIndexId = null;
+		}
+
+		DirCacheEntry[] entries = sortedEntries;
+		int cnt = entryCnt;
+		int stripped = 0;
+		boolean sparse = false;
+		if (changes != null) {
+			entries = changes.getEntries();
+			cnt = entries.length;
+			stripped = changes.getReplacedCount();
+		} else {
+			// Like C Git a split index is never sparse.
+			DirCacheEntry[] collapsed = collapseSparseDirectories();
+			if (collapsed != null) {
+				entries = collapsed;
+				cnt = collapsed.length;
+				sparse = true;
+			}
+		}
+
+		// Write the header.
+		//
+		final byte[] tmp = new byte[128];
+		System.arraycopy(SIG_DIRC, 0, tmp, 0, SIG_DIRC.length);
+		NB.encodeInt32(tmp, 4, version.getVersionCode());
+		NB.encodeInt32(tmp, 8, cnt);
+		dos.write(tmp, 0, 12);
+
+		// Write the individual file entries. If they are divided into blocks
+		// for readers loading them in parallel, the name of the first entry
+		// of a block is not compressed.
+		//
+		int perBlock = cnt;
+		int[] blocks = null;
+		if (config != null && config.isRecordOffsetTable()) {
+			int n = config.getThreads();
+			if (n == 0)
+				n = cnt / ENTRIES_PER_THREAD;
+			if (n > 1 && cnt > 1) {
+				perBlock = (cnt + n - 1) / n;
+				blocks = new int[2 * ((cnt + perBlock - 1) / perBlock)];
+			}
+		}
+		DirCacheEntry previous = null;
+		for (int i = 0; i < cnt; i++) {
+			boolean restart = false;
+			if (blocks != null && i % perBlock == 0) {
+				int b = 2 * (i / perBlock);
+				blocks[b] = (int) cos.getCount();
+				blocks[b + 1] = Math.min(perBlock, cnt - i);
+				restart = true;
+			}
+			if (i < stripped) {
+				entries[i].writeStripped(dos, version);
+			} else {
+				entries[i].write(dos, version, previous, restart);
+				previous = entries[i];
+			}
+		}
+
+		// Extensions follow, the EOIE extension last records where they
+		// start and hashes their headers.
+		//
+		final int extAt = (int) cos.getCount();
+		MessageDigest eoie = null;
+		if (config != null && config.isRecordEndOfIndexEntries())
+			eoie = Constants.newMessageDigest();
+		if (blocks != null) {
+			byte[] raw = new byte[4 + 4 * blocks.length];
+			NB.encodeInt32(raw, 0, IEOT_VERSION);
+			for (int i = 0; i < blocks.length; i++)
+				NB.encodeInt32(raw, 4 + 4 * i, blocks[i]);
+			writeExtensionHeader(dos, eoie, tmp, EXT_IEOT, raw.length);
+			dos.write(raw);
+		}
+		if (changes != null) {
+			byte[] raw = changes.toByteArray();
+			writeExtensionHeader(dos, eoie, tmp, EXT_LINK, raw.length);
+			dos.write(raw);
+		}
+		if (writeTree && !sparse) {
+			// The entry counts of the cache tree would be those of the
+			// entries in memory, omit it from a sparse index.
 			@SuppressWarnings("resource") // Explicitly closed in try block, and
 											// destroyed in finally
 			TemporaryBuffer bb = new TemporaryBuffer.LocalFile(dir, 5 << 20);
@@ -694,19 +1381,326 @@ void writeTo(File dir, OutputStream os) throws IOException {
 				tree.write(tmp, bb);
 				bb.close();
 
-				NB.encodeInt32(tmp, 0, EXT_TREE);
-				NB.encodeInt32(tmp, 4, (int) bb.length());
-				dos.write(tmp, 0, 8);
+				writeExtensionHeader(dos, eoie, tmp, EXT_TREE,
+						(int) bb.length());
 				bb.writeTo(dos, null);
 			} finally {
 				bb.destroy();
 			}
 		}
-		writeIndexChecksum = foot.digest();
-		os.write(writeIndexChecksum);
+		if (sparse)
+			writeExtensionHeader(dos, eoie, tmp, EXT_SDIR, 0);
+		if (untrackedCache != null) {
+			byte[] raw = untrackedCache.toByteArray();
+			writeExtensionHeader(dos, eoie, tmp, EXT_UNTR, raw.length);
+			dos.write(raw);
+		}
+		if (fsMonitorToken != null) {
+			byte[] raw = sparse ? fsMonitorExtension(entries, cnt)
+					: fsMonitorExtension(sortedEntries, entryCnt);
+			writeExtensionHeader(dos, eoie, tmp, EXT_FSMN, raw.length);
+			dos.write(raw);
+		}
+		for (byte[] raw : unknownExtensions) {
+			if (eoie != null)
+				eoie.update(raw, 0, 8);
+			dos.write(raw);
+		}
+		if (eoie != null) {
+			byte[] raw = new byte[EOIE_SIZE];
+			NB.encodeInt32(raw, 0, extAt);
+			System.arraycopy(eoie.digest(), 0, raw, 4,
+					Constants.OBJECT_ID_LENGTH);
+			writeExtensionHeader(dos, null, tmp, EXT_EOIE, raw.length);
+			dos.write(raw);
+		}
+		if (skipHash) {
+			// Like C Git write a null checksum, which readers do not verify.
+			// The index is then always reported as changed.
+			writeIndexChecksum = null;
+			os.write(new byte[Constants.OBJECT_ID_LENGTH]);
+		} else {
+			writeIndexChecksum = foot.digest();
+			os.write(writeIndexChecksum);
+		}
 		os.close();
 	}
 
+	/**
+	 * Collapse the directories of a cone mode sparse checkout which have no
+	 * file checked out into entries of their trees, like C Git writes a
+	 * sparse index if {@code index.sparse} is set. Only directories whose
+	 * trees are in the repository are collapsed, the trees are not written.
+	 *
+	 * @return the entries of the sparse index; null if no directory was
+	 *         collapsed.
+	 */
+	private DirCacheEntry[] collapseSparseDirectories() throws IOException {
+		if (repository == null || entryCnt == 0)
+			return null;
+		SparseCheckout sparse = SparseCheckout.load(repository);
+		if (sparse == null || !sparse.isSparseIndex())
+			return null;
+		// A tree of its own, the tree identities computed are not known to
+		// be in the repository.
+		DirCacheTree root = new DirCacheTree();
+		root.validate(sortedEntries, entryCnt, 0, 0);
+		List<DirCacheEntry> out = new ArrayList<>();
+		try (ObjectInserter fmt = new TreeIdFormatter();
+				ObjectReader reader = repository.newObjectReader()) {
+			collapse(root, 0, 0, sparse, fmt, reader, out);
+		}
+		if (out.size() == entryCnt)
+			return null;
+		return out.toArray(new DirCacheEntry[0]);
+	}
+
+	private void collapse(DirCacheTree t, int idx, int pathOff,
+			SparseCheckout sparse, ObjectInserter fmt, ObjectReader reader,
+			List<DirCacheEntry> out) throws IOException {
+		int end = idx + t.getEntrySpan();
+		int child = 0;
+		while (idx < end) {
+			DirCacheEntry e = sortedEntries[idx];
+			if (child < t.getChildCount()) {
+				DirCacheTree st = t.getChild(child);
+				if (st.contains(e.path, pathOff, e.path.length)) {
+					int stOff = pathOff + st.nameLength() + 1;
+					ObjectId id = null;
+					if (isSkipped(idx, st.getEntrySpan())
+							&& sparse.excludesDirectory(RawParseUtils
+									.decode(e.path, 0, stOff - 1))) {
+						id = st.writeTree(sortedEntries, idx, stOff, fmt);
+						if (!reader.has(id, Constants.OBJ_TREE))
+							id = null;
+					}
+					if (id != null)
+						out.add(new DirCacheEntry(Arrays.copyOf(e.path, stOff),
+								id));
+					else
+						collapse(st, idx, stOff, sparse, fmt, reader, out);
+					idx += st.getEntrySpan();
+					child++;
+					continue;
+				}
+			}
+			out.add(e);
+			idx++;
+		}
+	}
+
+	/** Computes the identities of trees without inserting them. */
+	private static class TreeIdFormatter extends ObjectInserter.Formatter {
+		@Override
+		public ObjectId insert(int objectType, byte[] data, int off, int len) {
+			return idFor(objectType, data, off, len);
+		}
+
+		@Override
+		public ObjectId insert(int objectType, long length, InputStream in)
+				throws IOException {
+			return idFor(objectType, length, in);
+		}
+	}
+
+	private boolean isSkipped(int idx, int cnt) {
+		for (int i = idx; i < idx + cnt; i++) {
+			DirCacheEntry e = sortedEntries[i];
+			if (!e.isSkipWorkTree() || e.getStage() != DirCacheEntry.STAGE_0
+					|| e.isIntentToAdd())
+				return false;
+		}
+		return true;
+	}
+
+	private static void writeExtensionHeader(OutputStream os,
+			MessageDigest eoie, byte[] tmp, int sig, int len)
+			throws IOException {
+		NB.encodeInt32(tmp, 0, sig);
+		NB.encodeInt32(tmp, 4, len);
+		os.write(tmp, 0, 8);
+		if (eoie != null)
+			eoie.update(tmp, 0, 8);
+	}
+
+	/**
+	 * Write all entries to a new shared index, and use it for the split
+	 * index. Like the ones of C Git, the shared index has no extensions and is
+	 * named by its checksum. Unused shared indexes last modified before
+	 * {@code expire} are deleted.
+	 */
+	private void writeSharedIndex(File dir, String expire)
+			throws IOException {
+		File tmpFile = File.createTempFile("sharedindex_", null, dir); //$NON-NLS-1$
+		ObjectId id;
+		try {
+			MessageDigest md = Constants.newMessageDigest();
+			try (OutputStream os = new BufferedOutputStream(
+					new FileOutputStream(tmpFile))) {
+				DigestOutputStream dos = new DigestOutputStream(os, md);
+				byte[] hdr = new byte[12];
+				System.arraycopy(SIG_DIRC, 0, hdr, 0, SIG_DIRC.length);
+				NB.encodeInt32(hdr, 4, version.getVersionCode());
+				NB.encodeInt32(hdr, 8, entryCnt);
+				dos.write(hdr);
+				for (int i = 0; i < entryCnt; i++) {
+					sortedEntries[i].write(dos, version,
+							i == 0 ? null : sortedEntries[i - 1]);
+				}
+				byte[] checksum = md.digest();
+				os.write(checksum);
+				id = ObjectId.fromRaw(checksum);
+			}
+			File shared = sharedIndexFile(dir, id);
+			FileUtils.rename(tmpFile, shared,
+					StandardCopyOption.ATOMIC_MOVE);
+			expireSharedIndexes(dir, shared, expire);
+		} finally {
+			FileUtils.delete(tmpFile,
+					FileUtils.SKIP_MISSING | FileUtils.IGNORE_ERRORS);
+		}
+
+		int infoLen = DirCacheEntry.getMaximumInfoLength(true);
+		sharedIndexId = id;
+		sharedEntries = Arrays.copyOf(sortedEntries, entryCnt);
+		sharedInfo = new byte[entryCnt * infoLen];
+		for (int i = 0; i < entryCnt; i++)
+			sharedEntries[i].copyInfo(sharedInfo, i * infoLen);
+	}
+
+	/** Keep the shared index in use from being expired. */
+	private void freshenSharedIndex(File dir) {
+		File shared = sharedIndexFile(dir, sharedIndexId);
+		long now = System.currentTimeMillis();
+		if (shared.lastModified() < now - SHARED_INDEX_FRESHEN_MILLIS)
+			shared.setLastModified(now);
+	}
+
+	/**
+	 * Delete shared indexes no split index used for a while.
+	 *
+	 * @param expire
+	 *            value of {@code splitIndex.sharedIndexExpire}; unused shared
+	 *            indexes last modified at or before this date are deleted.
+	 */
+	private static void expireSharedIndexes(File dir, File current,
+			String expire) {
+		long expireDate;
+		try {
+			Date date = GitDateParser.parse(expire, null,
+					SystemReader.getInstance().getLocale());
+			if (date.equals(GitDateParser.NEVER))
+				return;
+			expireDate = date.getTime();
+		} catch (ParseException e) {
+			// Like C Git keep all shared indexes.
+			return;
+		}
+		File[] files = dir.listFiles((d, name) -> name
+				.startsWith(SHARED_INDEX_PREFIX));
+		if (files == null)
+			return;
+		for (File f : files) {
+			if (!f.equals(current) && f.lastModified() <= expireDate) {
+				try {
+					FileUtils.delete(f, FileUtils.SKIP_MISSING);
+				} catch (IOException e) {
+					// Deleted again by the next shared index.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Changes of the entries with respect to the shared index of a split
+	 * index.
+	 */
+	private class SplitIndexChanges {
+		private final EWAHCompressedBitmap delete = new EWAHCompressedBitmap();
+
+		private final EWAHCompressedBitmap replace = new EWAHCompressedBitmap();
+
+		private final List<DirCacheEntry> replaced = new ArrayList<>();
+
+		private final List<DirCacheEntry> added = new ArrayList<>();
+
+		private int deleted;
+
+		SplitIndexChanges() {
+			// Both are sorted by path and stage, an entry stored exactly as
+			// the shared entry of the same path and stage is not written.
+			int infoLen = DirCacheEntry.getMaximumInfoLength(true);
+			int sharedCnt = sharedEntries.length;
+			int i = 0;
+			int j = 0;
+			while (i < entryCnt || j < sharedCnt) {
+				int cmp;
+				if (i == entryCnt)
+					cmp = 1;
+				else if (j == sharedCnt)
+					cmp = -1;
+				else {
+					cmp = DirCache.cmp(sortedEntries[i], sharedEntries[j]);
+					if (cmp == 0) {
+						cmp = sortedEntries[i].getStage() - DirCacheEntry
+								.getStage(sharedInfo, j * infoLen);
+					}
+				}
+				if (cmp < 0) {
+					added.add(sortedEntries[i++]);
+				} else if (cmp > 0) {
+					delete.set(j++);
+					deleted++;
+				} else {
+					DirCacheEntry e = sortedEntries[i++];
+					if (!e.hasInfo(sharedInfo, j * infoLen)) {
+						replace.set(j);
+						replaced.add(e);
+					}
+					j++;
+				}
+			}
+		}
+
+		int count() {
+			return replaced.size() + added.size() + deleted;
+		}
+
+		int getReplacedCount() {
+			return replaced.size();
+		}
+
+		/**
+		 * @return the entries to write, the replaced ones, which are written
+		 *         without name, followed by the added ones.
+		 */
+		DirCacheEntry[] getEntries() {
+			DirCacheEntry[] entries = new DirCacheEntry[replaced.size()
+					+ added.size()];
+			int n = 0;
+			for (DirCacheEntry e : replaced)
+				entries[n++] = e;
+			for (DirCacheEntry e : added)
+				entries[n++] = e;
+			return entries;
+		}
+
+		byte[] toByteArray() {
+			ByteArrayOutputStream buf = new ByteArrayOutputStream();
+			try {
+				sharedIndexId.copyRawTo(buf);
+				DataOutputStream out = new DataOutputStream(buf);
+				delete.serialize(out);
+				replace.serialize(out);
+				out.flush();
+			} catch (IOException e) {
+				// Cannot happen writing to memory.
+				throw new IllegalStateException(e);
+			}
+			return buf.toByteArray();
+		}
+	}
+
 	/**
 	 * Commit this change and release the lock.
 	 * <p>
@@ -936,6 +1930,120 @@ public DirCacheTree getCacheTree(boolean build) {
 		return tree;
 	}
 
+	/**
+	 * Obtain (or create) the untracked cache of this index.
+	 * <p>
+	 * A created cache is empty. It is stored in the index the next time the
+	 * index is written.
+	 *
+	 * @param create
+	 *            if true and the index has no untracked cache an empty one is
+	 *            created.
+	 * @return the untracked cache; null if the index has none and
+	 *         <code>create</code> was false.
+	 * @since 5.14
+	 */
+	public UntrackedCache getUntrackedCache(boolean create) {
+		if (create && untrackedCache == null)
+			untrackedCache = UntrackedCache.create(this,
+					snapshot != null ? snapshot.lastModifiedInstant() : null);
+		return untrackedCache;
+	}
+
+	/**
+	 * Remove the untracked cache from this index.
+	 *
+	 * @since 5.14
+	 */
+	public void removeUntrackedCache() {
+		untrackedCache = null;
+	}
+
+	/**
+	 * Get the token of the file system monitor stored in this index.
+	 *
+	 * @return the token; null if the index has no file system monitor data.
+	 * @since 5.14
+	 */
+	public String getFsMonitorToken() {
+		return fsMonitorToken;
+	}
+
+	/**
+	 * Bring the file system monitor data of this index up to date.
+	 * <p>
+	 * The monitor is asked for the paths modified since the stored token was
+	 * returned. Entries of these paths are no longer valid, and the
+	 * directories containing them are invalidated in the untracked cache.
+	 * Entries compared with the working tree after this call may be marked
+	 * valid with {@link DirCacheEntry#setFsMonitorValid(boolean)}. The new
+	 * token is stored in the index the next time it is written; if nothing
+	 * was modified the stored token is kept.
+	 *
+	 * @param repo
+	 *            the repository the index belongs to.
+	 * @param monitor
+	 *            the monitor of the working tree.
+	 * @return true if the monitor told which paths were modified, the valid
+	 *         entries need not be examined; false if everything may have
+	 *         been modified, no entry is valid.
+	 * @throws java.io.IOException
+	 *             the monitor could not be queried.
+	 * @since 5.14
+	 */
+	public boolean refreshFsMonitor(Repository repo, FileSystemMonitor monitor)
+			throws IOException {
+		FileSystemMonitor.Changes changes = monitor.query(repo,
+				fsMonitorToken);
+		Collection<String> paths = fsMonitorToken != null ? changes.getPaths()
+				: null;
+		if (paths != null && paths.isEmpty()) {
+			// Nothing was modified since the stored token. Keep it, the
+			// same paths are reported for it next time, and the index need
+			// not be written for a new token only.
+			return true;
+		}
+		fsMonitorToken = changes.getToken();
+		if (paths == null) {
+			for (int i = 0; i < entryCnt; i++)
+				sortedEntries[i].setFsMonitorValid(false);
+		} else {
+			for (String path : paths)
+				invalidateFsMonitor(Constants.encode(path));
+		}
+		if (untrackedCache != null)
+			untrackedCache.applyFsMonitor(paths);
+		return paths != null;
+	}
+
+	private void invalidateFsMonitor(byte[] path) {
+		// Entries of the path itself, then of everything below it.
+		int i = findEntry(path, path.length);
+		if (i < 0)
+			i = -(i + 1);
+		while (i < entryCnt && cmp(path, path.length, sortedEntries[i]) == 0)
+			sortedEntries[i++].setFsMonitorValid(false);
+		byte[] dir = Arrays.copyOf(path, path.length + 1);
+		dir[path.length] = '/';
+		i = findEntry(i, dir, dir.length);
+		if (i < 0)
+			i = -(i + 1);
+		while (i < entryCnt
+				&& DirCacheTree.peq(dir, sortedEntries[i].path, dir.length))
+			sortedEntries[i++].setFsMonitorValid(false);
+	}
+
+	/**
+	 * Remove the file system monitor data from this index.
+	 *
+	 * @since 5.14
+	 */
+	public void removeFsMonitor() {
+		fsMonitorToken = null;
+		for (int i = 0; i < entryCnt; i++)
+			sortedEntries[i].setFsMonitorValid(false);
+	}
+
 	/**
 	 * Write all index trees to the object store, returning the root tree.
 	 *
@@ -1069,22 +2177,136 @@ public static DirCacheVersion fromInt(int val) {
 
 	private static class DirCacheConfig {
 
+		static final int DEFAULT_MAX_PERCENT_CHANGE = 20;
+
+		static final String DEFAULT_SHARED_INDEX_EXPIRE = "2.weeks.ago"; //$NON-NLS-1$
+
 		private final DirCacheVersion indexVersion;
 
+		private final boolean manyFiles;
+
+		private final Boolean splitIndex;
+
+		private final int maxPercentChange;
+
+		private final String sharedIndexExpire;
+
+		private final int threads;
+
+		private final boolean recordEndOfIndexEntries;
+
+		private final boolean recordOffsetTable;
+
+		private final boolean skipHash;
+
 		public DirCacheConfig(Config cfg) {
-			boolean manyFiles = cfg.getBoolean(
-					ConfigConstants.CONFIG_FEATURE_SECTION,
+			manyFiles = cfg.getBoolean(ConfigConstants.CONFIG_FEATURE_SECTION,
 					ConfigConstants.CONFIG_KEY_MANYFILES, false);
 			indexVersion = cfg.getEnum(DirCacheVersion.values(),
 					ConfigConstants.CONFIG_INDEX_SECTION, null,
 					ConfigConstants.CONFIG_KEY_VERSION,
 					manyFiles ? DirCacheVersion.DIRC_VERSION_PATHCOMPRESS
 							: DirCacheVersion.DIRC_VERSION_EXTENDED);
+			if (cfg.getNames(ConfigConstants.CONFIG_CORE_SECTION)
+					.contains(ConfigConstants.CONFIG_KEY_SPLIT_INDEX)) {
+				splitIndex = Boolean.valueOf(cfg.getBoolean(
+						ConfigConstants.CONFIG_CORE_SECTION,
+						ConfigConstants.CONFIG_KEY_SPLIT_INDEX, false));
+			} else {
+				splitIndex = null;
+			}
+			int max = cfg.getInt(ConfigConstants.CONFIG_SPLIT_INDEX_SECTION,
+					ConfigConstants.CONFIG_KEY_MAX_PERCENT_CHANGE,
+					DEFAULT_MAX_PERCENT_CHANGE);
+			maxPercentChange = 0 <= max && max <= 100 ? max
+					: DEFAULT_MAX_PERCENT_CHANGE;
+			// Relative dates are resolved when a shared index is written.
+			String expire = cfg.getString(
+					ConfigConstants.CONFIG_SPLIT_INDEX_SECTION, null,
+					ConfigConstants.CONFIG_KEY_SHARED_INDEX_EXPIRE);
+			sharedIndexExpire = expire != null ? expire
+					: DEFAULT_SHARED_INDEX_EXPIRE;
+
+			// Like C Git the extensions for loading in parallel are written
+			// if index.threads is set.
+			String t = cfg.getString(ConfigConstants.CONFIG_INDEX_SECTION,
+					null, ConfigConstants.CONFIG_KEY_THREADS);
+			threads = parseThreads(t);
+			recordEndOfIndexEntries = cfg.getBoolean(
+					ConfigConstants.CONFIG_INDEX_SECTION,
+					ConfigConstants.CONFIG_KEY_RECORD_END_OF_INDEX_ENTRIES,
+					t != null);
+			recordOffsetTable = cfg.getBoolean(
+					ConfigConstants.CONFIG_INDEX_SECTION,
+					ConfigConstants.CONFIG_KEY_RECORD_OFFSET_TABLE, t != null);
+			skipHash = cfg.getBoolean(ConfigConstants.CONFIG_INDEX_SECTION,
+					ConfigConstants.CONFIG_KEY_SKIP_HASH, false);
+		}
+
+		private static int parseThreads(String t) {
+			if (t == null)
+				return 0;
+			Boolean b = StringUtils.toBooleanOrNull(t);
+			if (b != null)
+				return b.booleanValue() ? 0 : 1;
+			try {
+				return Math.max(Integer.parseInt(t.trim()), 0);
+			} catch (NumberFormatException e) {
+				return 0;
+			}
 		}
 
 		public DirCacheVersion getIndexVersion() {
 			return indexVersion;
 		}
 
+		/**
+		 * @return value of {@code feature.manyFiles}, which also upgrades
+		 *         existing indexes to the configured version
+		 */
+		public boolean isManyFiles() {
+			return manyFiles;
+		}
+
+		/**
+		 * @return value of {@code core.splitIndex}; null if not set, an
+		 *         existing split index then stays split
+		 */
+		public Boolean getSplitIndex() {
+			return splitIndex;
+		}
+
+		public int getMaxPercentChange() {
+			return maxPercentChange;
+		}
+
+		/**
+		 * @return value of {@code splitIndex.sharedIndexExpire}, like
+		 *         "2.weeks.ago", "now" or "never"
+		 */
+		public String getSharedIndexExpire() {
+			return sharedIndexExpire;
+		}
+
+		/**
+		 * @return value of {@code index.threads}, 0 to pick the number of
+		 *         threads by the size of the index
+		 */
+		public int getThreads() {
+			return threads;
+		}
+
+		public boolean isRecordEndOfIndexEntries() {
+			return recordEndOfIndexEntries;
+		}
+
+		public boolean isRecordOffsetTable() {
+			return recordOffsetTable;
+		}
+
+		public boolean isSkipHash() {
+			return skipHash;
+		}
+
 	}
 }
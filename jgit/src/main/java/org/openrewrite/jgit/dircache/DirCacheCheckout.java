@@ -20,16 +20,22 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.openrewrite.jgit.api.errors.CanceledException;
 import org.openrewrite.jgit.api.errors.FilterFailedException;
@@ -42,11 +48,15 @@
 import org.openrewrite.jgit.errors.MissingObjectException;
 import org.openrewrite.jgit.events.WorkingTreeModifiedEvent;
 import org.openrewrite.jgit.internal.JGitText;
+import org.openrewrite.jgit.lib.Config;
 import org.openrewrite.jgit.lib.ConfigConstants;
 import org.openrewrite.jgit.lib.Constants;
+import org.openrewrite.jgit.lib.CoreConfig;
 import org.openrewrite.jgit.lib.CoreConfig.AutoCRLF;
 import org.openrewrite.jgit.lib.CoreConfig.EolStreamType;
 import org.openrewrite.jgit.lib.FileMode;
+import org.openrewrite.jgit.lib.FileModeCache.CacheItem;
+import org.openrewrite.jgit.lib.FileSystemMonitor;
 import org.openrewrite.jgit.lib.NullProgressMonitor;
 import org.openrewrite.jgit.lib.ObjectChecker;
 import org.openrewrite.jgit.lib.ObjectId;
@@ -54,6 +64,8 @@
 import org.openrewrite.jgit.lib.ObjectReader;
 import org.openrewrite.jgit.lib.ProgressMonitor;
 import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.lib.ThreadSafeProgressMonitor;
+import org.openrewrite.jgit.lib.internal.ParallelTasks;
 import org.openrewrite.jgit.treewalk.AbstractTreeIterator;
 import org.openrewrite.jgit.treewalk.CanonicalTreeParser;
 import org.openrewrite.jgit.treewalk.EmptyTreeIterator;
@@ -80,6 +92,12 @@ public class DirCacheCheckout {
 
 	private static final int MAX_EXCEPTION_TEXT_SIZE = 10 * 1024;
 
+	/** Default of {@code checkout.thresholdForParallelism}. */
+	private static final int DEFAULT_THRESHOLD_FOR_PARALLELISM = 100;
+
+	/** Maximum number of files of a directory written by one worker at once. */
+	private static final int MAX_GROUP_SIZE = 64;
+
 	/**
 	 * Metadata used in checkout process
 	 *
@@ -128,6 +146,12 @@ public CheckoutMetadata(EolStreamType eolStreamType,
 
 	private WorkingTreeIterator workingTree;
 
+	/** Positions of the index and working tree in {@link #walk}. */
+	private int indexPos, workingTreePos;
+
+	/** Patterns of a sparse checkout; null if all files are checked out. */
+	private SparseCheckout sparse;
+
 	private boolean failOnConflict = true;
 
 	private boolean force = false;
@@ -296,12 +320,14 @@ public void preScanTwoTrees() throws CorruptObjectException, IOException {
 		conflicts.clear();
 		walk = new NameConflictTreeWalk(repo);
 		builder = dc.builder();
+		useFsMonitor();
+		sparse = SparseCheckout.load(repo);
 
 		addTree(walk, headCommitTree);
 		addTree(walk, mergeCommitTree);
-		int dciPos = walk.addTree(new DirCacheBuildIterator(builder));
-		walk.addTree(workingTree);
-		workingTree.setDirCacheIterator(walk, dciPos);
+		indexPos = walk.addTree(new DirCacheBuildIterator(builder));
+		workingTreePos = walk.addTree(workingTree);
+		workingTree.setDirCacheIterator(walk, indexPos);
 
 		while (walk.next()) {
 			processEntry(walk.getTree(0, CanonicalTreeParser.class),
@@ -313,6 +339,20 @@ public void preScanTwoTrees() throws CorruptObjectException, IOException {
 		}
 	}
 
+	/**
+	 * Query the file system monitor if {@code core.fsmonitor} is
+	 * {@code true}. Files it reports as unchanged since the index was written
+	 * are not examined by the default working tree iterator. The new token is
+	 * stored with the index.
+	 */
+	private void useFsMonitor() throws IOException {
+		if (workingTree.getClass() != FileTreeIterator.class
+				|| !repo.getConfig().get(CoreConfig.KEY).isFsMonitor())
+			return;
+		if (dc.refreshFsMonitor(repo, FileSystemMonitor.getDefault()))
+			((FileTreeIterator) workingTree).setFsMonitorIndex(dc);
+	}
+
 	private void addTree(TreeWalk tw, ObjectId id) throws MissingObjectException, IncorrectObjectTypeException, IOException {
 		if (id == null)
 			tw.addTree(new EmptyTreeIterator());
@@ -337,12 +377,14 @@ public void prescanOneTree()
 		conflicts.clear();
 
 		builder = dc.builder();
+		useFsMonitor();
+		sparse = SparseCheckout.load(repo);
 
 		walk = new NameConflictTreeWalk(repo);
 		addTree(walk, mergeCommitTree);
-		int dciPos = walk.addTree(new DirCacheBuildIterator(builder));
-		walk.addTree(workingTree);
-		workingTree.setDirCacheIterator(walk, dciPos);
+		indexPos = walk.addTree(new DirCacheBuildIterator(builder));
+		workingTreePos = walk.addTree(workingTree);
+		workingTree.setDirCacheIterator(walk, indexPos);
 
 		while (walk.next()) {
 			processEntry(walk.getTree(0, CanonicalTreeParser.class),
@@ -547,41 +589,11 @@ private boolean doCheckout() throws CorruptObjectException, IOException,
 			}
 			removed = filterOut(removed, nonDeleted);
 			nonDeleted = null;
-			Iterator<Map.Entry<String, CheckoutMetadata>> toUpdate = updated
-					.entrySet().iterator();
-			Map.Entry<String, CheckoutMetadata> e = null;
-			try {
-				while (toUpdate.hasNext()) {
-					e = toUpdate.next();
-					String path = e.getKey();
-					CheckoutMetadata meta = e.getValue();
-					DirCacheEntry entry = dc.getEntry(path);
-					if (FileMode.GITLINK.equals(entry.getRawMode())) {
-						checkout.checkoutGitlink(entry, path);
-					} else {
-						checkout.checkout(entry, meta, objectReader, path);
-					}
-					e = null;
-
-					monitor.update(1);
-					if (monitor.isCancelled()) {
-						throw new CanceledException(MessageFormat.format(
-								JGitText.get().operationCanceled,
-								JGitText.get().checkingOutFiles));
-					}
-				}
-			} catch (Exception ex) {
-				// We didn't actually modify the current entry nor any that
-				// might follow.
-				if (e != null) {
-					toUpdate.remove();
-				}
-				while (toUpdate.hasNext()) {
-					e = toUpdate.next();
-					toUpdate.remove();
-				}
-				throw ex;
-			}
+			int workers = getCheckoutWorkers();
+			if (workers > 1)
+				checkoutParallel(objectReader, workers);
+			else
+				checkoutSequential(objectReader);
 			for (String conflict : conflicts) {
 				// the conflicts are likely to have multiple entries in the
 				// dircache, we only want to check out the one for the "theirs"
@@ -618,6 +630,221 @@ private boolean doCheckout() throws CorruptObjectException, IOException,
 		return toBeDeleted.isEmpty();
 	}
 
+	private void checkoutSequential(ObjectReader objectReader)
+			throws IOException, CanceledException {
+		Iterator<Map.Entry<String, CheckoutMetadata>> toUpdate = updated
+				.entrySet().iterator();
+		Map.Entry<String, CheckoutMetadata> e = null;
+		try {
+			while (toUpdate.hasNext()) {
+				e = toUpdate.next();
+				String path = e.getKey();
+				CheckoutMetadata meta = e.getValue();
+				DirCacheEntry entry = dc.getEntry(path);
+				if (FileMode.GITLINK.equals(entry.getRawMode())) {
+					checkout.checkoutGitlink(entry, path);
+				} else {
+					checkout.checkout(entry, meta, objectReader, path);
+				}
+				e = null;
+
+				monitor.update(1);
+				if (monitor.isCancelled()) {
+					throw new CanceledException(MessageFormat.format(
+							JGitText.get().operationCanceled,
+							JGitText.get().checkingOutFiles));
+				}
+			}
+		} catch (Exception ex) {
+			// We didn't actually modify the current entry nor any that
+			// might follow.
+			if (e != null) {
+				toUpdate.remove();
+			}
+			while (toUpdate.hasNext()) {
+				e = toUpdate.next();
+				toUpdate.remove();
+			}
+			throw ex;
+		}
+	}
+
+	private int getCheckoutWorkers() {
+		Config cfg = repo.getConfig();
+		int workers = cfg.getInt(ConfigConstants.CONFIG_CHECKOUT_SECTION,
+				ConfigConstants.CONFIG_KEY_WORKERS, 1);
+		if (workers < 1)
+			workers = Runtime.getRuntime().availableProcessors();
+		int threshold = cfg.getInt(ConfigConstants.CONFIG_CHECKOUT_SECTION,
+				ConfigConstants.CONFIG_KEY_THRESHOLD_FOR_PARALLELISM,
+				DEFAULT_THRESHOLD_FOR_PARALLELISM);
+		if (updated.size() < threshold)
+			return 1;
+		return workers;
+	}
+
+	/**
+	 * Check out the updated entries on several threads.
+	 * <p>
+	 * Gitlinks, the parent directories of all files, and files needing a
+	 * smudge filter are checked out on this thread. The other files are
+	 * grouped by directory and the groups are written concurrently, each
+	 * worker reading objects with a reader of its own.
+	 */
+	private void checkoutParallel(ObjectReader objectReader, int workers)
+			throws IOException, CanceledException {
+		Set<String> done = ConcurrentHashMap.newKeySet();
+		try {
+			List<String> paths = new ArrayList<>(updated.keySet());
+			Collections.sort(paths);
+			List<List<ParallelFile>> groups = new ArrayList<>();
+			Map<String, List<ParallelFile>> byDir = new HashMap<>();
+			List<String> filtered = new ArrayList<>();
+			for (String path : paths) {
+				CheckoutMetadata meta = updated.get(path);
+				DirCacheEntry entry = dc.getEntry(path);
+				if (FileMode.GITLINK.equals(entry.getRawMode())) {
+					checkout.checkoutGitlink(entry, path);
+					done.add(path);
+					checkedOut();
+				} else if (meta != null && meta.smudgeFilterCommand != null) {
+					// Filters may run external processes, keep them serial.
+					filtered.add(path);
+				} else {
+					File f = new File(repo.getWorkTree(), path);
+					ParallelFile file = new ParallelFile(entry, meta, path, f,
+							checkout.createParentDirectory(path, f));
+					int slash = path.lastIndexOf('/');
+					String dir = slash < 0 ? "" : path.substring(0, slash); //$NON-NLS-1$
+					List<ParallelFile> group = byDir.get(dir);
+					if (group == null || group.size() == MAX_GROUP_SIZE) {
+						group = new ArrayList<>();
+						byDir.put(dir, group);
+						groups.add(group);
+					}
+					group.add(file);
+				}
+			}
+			writeParallel(objectReader, workers, groups, done);
+			for (List<ParallelFile> group : groups) {
+				for (ParallelFile file : group)
+					Checkout.written(file.parent, file.file, file.mode);
+			}
+			for (String path : filtered) {
+				checkout.checkout(dc.getEntry(path), updated.get(path),
+						objectReader, path);
+				done.add(path);
+				checkedOut();
+			}
+		} catch (Exception ex) {
+			// Entries not written were not modified.
+			updated.keySet().retainAll(done);
+			throw ex;
+		}
+	}
+
+	private void writeParallel(ObjectReader objectReader, int workers,
+			List<List<ParallelFile>> groups, Set<String> done)
+			throws IOException, CanceledException {
+		int n = Math.min(workers, groups.size());
+		if (n == 0)
+			return;
+		Iterator<List<ParallelFile>> next = groups.iterator();
+		ThreadSafeProgressMonitor pm = new ThreadSafeProgressMonitor(monitor);
+		AtomicBoolean failed = new AtomicBoolean();
+		Executor pool = ParallelTasks.limit(ParallelTasks.getExecutor(), n);
+		List<Future<?>> futures = new ArrayList<>(n);
+		boolean ok = false;
+		try {
+			pm.startWorkers(n);
+			for (int i = 0; i < n; i++) {
+				futures.add(ParallelTasks.submit(pool, () -> {
+					writeGroups(objectReader, next, pm, failed, done);
+					return null;
+				}));
+			}
+			ParallelTasks.help(futures);
+			pm.waitForCompletion();
+			ParallelTasks.getAll(futures);
+			ok = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			if (!ok) {
+				failed.set(true);
+				ParallelTasks.cancel(futures);
+			}
+		}
+		if (pm.isCancelled()) {
+			throw new CanceledException(MessageFormat.format(
+					JGitText.get().operationCanceled,
+					JGitText.get().checkingOutFiles));
+		}
+	}
+
+	private void writeGroups(ObjectReader objectReader,
+			Iterator<List<ParallelFile>> next, ThreadSafeProgressMonitor pm,
+			AtomicBoolean failed, Set<String> done) throws IOException {
+		try (ObjectReader reader = objectReader.newReader()) {
+			for (;;) {
+				List<ParallelFile> group;
+				synchronized (next) {
+					if (failed.get() || pm.isCancelled() || !next.hasNext())
+						return;
+					group = next.next();
+				}
+				for (ParallelFile file : group) {
+					if (failed.get() || pm.isCancelled())
+						return;
+					ObjectLoader ol = reader.open(file.entry.getObjectId());
+					file.mode = checkout.write(file.entry, file.meta, ol,
+							file.path, file.file);
+					done.add(file.path);
+					pm.update(1);
+				}
+			}
+		} catch (IOException | RuntimeException | Error e) {
+			failed.set(true);
+			throw e;
+		} finally {
+			pm.endWorker();
+		}
+	}
+
+	private void checkedOut() throws CanceledException {
+		monitor.update(1);
+		if (monitor.isCancelled()) {
+			throw new CanceledException(MessageFormat.format(
+					JGitText.get().operationCanceled,
+					JGitText.get().checkingOutFiles));
+		}
+	}
+
+	/** A file written by {@link #checkoutParallel(ObjectReader, int)}. */
+	private static final class ParallelFile {
+		final DirCacheEntry entry;
+
+		final CheckoutMetadata meta;
+
+		final String path;
+
+		final File file;
+
+		final CacheItem parent;
+
+		FileMode mode;
+
+		ParallelFile(DirCacheEntry entry, CheckoutMetadata meta, String path,
+				File file, CacheItem parent) {
+			this.entry = entry;
+			this.meta = meta;
+			this.path = path;
+			this.file = file;
+			this.parent = parent;
+		}
+	}
+
 	private static ArrayList<String> filterOut(ArrayList<String> strings,
 			IntList indicesToRemove) {
 		int n = indicesToRemove.size();
@@ -1213,6 +1440,29 @@ private void keep(String path, DirCacheEntry e, WorkingTreeIterator f)
 		if (!FileMode.TREE.equals(e.getFileMode())) {
 			builder.add(e);
 		}
+		if (sparse != null && e.getStage() == DirCacheEntry.STAGE_0
+				&& !FileMode.TREE.equals(e.getFileMode())) {
+			if (!sparse.includes(path)) {
+				// Like C Git dirty files stay checked out.
+				if (!e.isSkipWorkTree() && (f == null
+						|| !f.isModified(e, true, walk.getObjectReader()))) {
+					e.setSkipWorkTree(true);
+					if (f != null)
+						remove(path);
+				}
+				return;
+			}
+			if (e.isSkipWorkTree()) {
+				e.setSkipWorkTree(false);
+				if (f == null) {
+					updated.put(path, new CheckoutMetadata(
+							walk.getEolStreamType(CHECKOUT_OP),
+							walk.getFilterCommand(
+									Constants.ATTR_FILTER_TYPE_SMUDGE)));
+					return;
+				}
+			}
+		}
 		if (force) {
 			if (f == null || f.isModified(e, true, walk.getObjectReader())) {
 				kept.add(path);
@@ -1232,14 +1482,26 @@ private void remove(String path) {
 	private void update(String path, ObjectId mId, FileMode mode)
 			throws IOException {
 		if (!FileMode.TREE.equals(mode)) {
-			updated.put(path, new CheckoutMetadata(
-					walk.getEolStreamType(CHECKOUT_OP),
-					walk.getFilterCommand(Constants.ATTR_FILTER_TYPE_SMUDGE)));
-
 			DirCacheEntry entry = new DirCacheEntry(path, DirCacheEntry.STAGE_0);
 			entry.setObjectId(mId);
 			entry.setFileMode(mode);
 			builder.add(entry);
+
+			if (sparse != null && !sparse.includes(path)) {
+				// Not checked out. The file of a tracked path checked out
+				// before is deleted, others were not written by us.
+				entry.setSkipWorkTree(true);
+				DirCacheBuildIterator i = walk.getTree(indexPos,
+						DirCacheBuildIterator.class);
+				DirCacheEntry e = i != null ? i.getDirCacheEntry() : null;
+				if (e != null && !e.isSkipWorkTree() && walk.getTree(
+						workingTreePos, WorkingTreeIterator.class) != null)
+					remove(path);
+				return;
+			}
+			updated.put(path, new CheckoutMetadata(
+					walk.getEolStreamType(CHECKOUT_OP),
+					walk.getFilterCommand(Constants.ATTR_FILTER_TYPE_SMUDGE)));
 		}
 	}
 
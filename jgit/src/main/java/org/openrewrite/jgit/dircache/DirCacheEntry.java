@@ -15,13 +15,10 @@
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
-import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
-import java.security.MessageDigest;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.Arrays;
@@ -33,7 +30,6 @@
 import org.openrewrite.jgit.lib.Constants;
 import org.openrewrite.jgit.lib.FileMode;
 import org.openrewrite.jgit.lib.ObjectId;
-import org.openrewrite.jgit.util.IO;
 import org.openrewrite.jgit.util.MutableInteger;
 import org.openrewrite.jgit.util.NB;
 import org.openrewrite.jgit.util.SystemReader;
@@ -101,11 +97,20 @@ public class DirCacheEntry {
 	/** In-core flag signaling that the entry should be considered as modified. */
 	private static final int UPDATE_NEEDED = 0x1;
 
-	/** (Possibly shared) header information storage. */
-	private final byte[] info;
+	/**
+	 * In-core flag signaling that the file system monitor reported no change
+	 * of the working tree file. Stored in the {@code FSMN} index extension.
+	 */
+	private static final int FSMONITOR_VALID = 0x2;
+
+	/**
+	 * (Possibly shared) header information storage. Replaced by a buffer of
+	 * its own if extended flags are set on an entry stored without them.
+	 */
+	private byte[] info;
 
 	/** First location within {@link #info} where our header starts. */
-	private final int infoOffset;
+	private int infoOffset;
 
 	/** Our encoded path name, from the root of the repository. */
 	final byte[] path;
@@ -113,19 +118,24 @@ public class DirCacheEntry {
 	/** Flags which are never stored to disk. */
 	private byte inCoreFlags;
 
-	DirCacheEntry(byte[] sharedInfo, MutableInteger infoAt, InputStream in,
-			MessageDigest md, Instant smudge, DirCacheVersion version,
-			DirCacheEntry previous)
+	DirCacheEntry(byte[] sharedInfo, MutableInteger infoAt, byte[] buf,
+			MutableInteger bufAt, int bufEnd, Instant smudge,
+			DirCacheVersion version, DirCacheEntry previous)
 			throws IOException {
 		info = sharedInfo;
 		infoOffset = infoAt.value;
 
-		IO.readFully(in, info, infoOffset, INFO_LEN);
+		final int start = bufAt.value;
+		int ptr = start;
+		require(ptr + INFO_LEN, bufEnd);
+		System.arraycopy(buf, ptr, info, infoOffset, INFO_LEN);
 
 		int len;
 		if (isExtended()) {
 			len = INFO_LEN_EXTENDED;
-			IO.readFully(in, info, infoOffset + INFO_LEN, INFO_LEN_EXTENDED - INFO_LEN);
+			require(ptr + INFO_LEN_EXTENDED, bufEnd);
+			System.arraycopy(buf, ptr + INFO_LEN, info, infoOffset + INFO_LEN,
+					INFO_LEN_EXTENDED - INFO_LEN);
 
 			if ((getExtendedFlags() & ~EXTENDED_FLAGS) != 0)
 				throw new IOException(MessageFormat.format(JGitText.get()
@@ -134,18 +144,18 @@ public class DirCacheEntry {
 			len = INFO_LEN;
 
 		infoAt.value += len;
-		md.update(info, infoOffset, len);
+		ptr += len;
 
-		int toRemove = 0;
+		int pathLen = NB.decodeUInt16(info, infoOffset + P_FLAGS) & NAME_MASK;
 		if (version == DirCacheVersion.DIRC_VERSION_PATHCOMPRESS) {
-			// Read variable int and update digest
-			int b = in.read();
-			md.update((byte) b);
-			toRemove = b & 0x7F;
+			// Read variable int
+			require(ptr + 1, bufEnd);
+			int b = buf[ptr++] & 0xff;
+			int toRemove = b & 0x7F;
 			while ((b & 0x80) != 0) {
+				require(ptr + 1, bufEnd);
 				toRemove++;
-				b = in.read();
-				md.update((byte) b);
+				b = buf[ptr++] & 0xff;
 				toRemove = (toRemove << 7) | (b & 0x7F);
 			}
 			if (toRemove < 0
@@ -159,48 +169,51 @@ public class DirCacheEntry {
 						JGitText.get().DIRCCorruptLength,
 						Integer.valueOf(toRemove), previous.getPathString()));
 			}
-		}
-		int pathLen = NB.decodeUInt16(info, infoOffset + P_FLAGS) & NAME_MASK;
-		int skipped = 0;
-		if (pathLen < NAME_MASK) {
-			path = new byte[pathLen];
-			if (version == DirCacheVersion.DIRC_VERSION_PATHCOMPRESS
-					&& previous != null) {
-				System.arraycopy(previous.path, 0, path, 0,
-						previous.path.length - toRemove);
-				IO.readFully(in, path, previous.path.length - toRemove,
-						pathLen - (previous.path.length - toRemove));
-				md.update(path, previous.path.length - toRemove,
-						pathLen - (previous.path.length - toRemove));
-				pathLen = pathLen - (previous.path.length - toRemove);
+
+			int prefix = previous != null ? previous.path.length - toRemove
+					: 0;
+			int suffix;
+			if (pathLen < NAME_MASK) {
+				suffix = pathLen - prefix;
+				if (suffix < 0) {
+					throw new IOException(MessageFormat.format(
+							JGitText.get().DIRCCorruptLength,
+							Integer.valueOf(toRemove), previous.getPathString()));
+				}
+				require(ptr + suffix + 1, bufEnd);
 			} else {
-				IO.readFully(in, path, 0, pathLen);
-				md.update(path, 0, pathLen);
+				suffix = nul(buf, ptr, bufEnd) - ptr;
 			}
-		} else if (version != DirCacheVersion.DIRC_VERSION_PATHCOMPRESS
-				|| previous == null || toRemove == previous.path.length) {
-			ByteArrayOutputStream tmp = new ByteArrayOutputStream();
-			byte[] buf = new byte[NAME_MASK];
-			IO.readFully(in, buf, 0, NAME_MASK);
-			tmp.write(buf);
-			readNulTerminatedString(in, tmp);
-			path = tmp.toByteArray();
-			pathLen = path.length;
-			md.update(path, 0, pathLen);
-			skipped = 1; // we already skipped 1 '\0' in readNulTerminatedString
-			md.update((byte) 0);
+			path = new byte[prefix + suffix];
+			if (prefix > 0)
+				System.arraycopy(previous.path, 0, path, 0, prefix);
+			System.arraycopy(buf, ptr, path, prefix, suffix);
+			// Skip the name and its terminating NUL.
+			ptr += suffix + 1;
 		} else {
-			ByteArrayOutputStream tmp = new ByteArrayOutputStream();
-			tmp.write(previous.path, 0, previous.path.length - toRemove);
-			pathLen = readNulTerminatedString(in, tmp);
-			path = tmp.toByteArray();
-			md.update(path, previous.path.length - toRemove, pathLen);
-			skipped = 1; // we already skipped 1 '\0' in readNulTerminatedString
-			md.update((byte) 0);
+			if (pathLen < NAME_MASK) {
+				require(ptr + pathLen, bufEnd);
+				path = Arrays.copyOfRange(buf, ptr, ptr + pathLen);
+			} else {
+				path = Arrays.copyOfRange(buf, ptr, nul(buf, ptr, bufEnd));
+			}
+
+			// Index records are padded out to the next 8 byte alignment
+			// for historical reasons related to how C Git read the files.
+			//
+			ptr = start + ((len + path.length + 8) & ~7);
+			require(ptr, bufEnd);
 		}
+		bufAt.value = ptr;
 
 		try {
-			checkPath(path);
+			// Entries of a split index replacing an entry of the shared index
+			// have no name, they are checked by DirCache. Directories of a
+			// sparse index end with '/'.
+			if (isSparseDirectory())
+				checkPath(Arrays.copyOf(path, path.length - 1));
+			else if (path.length > 0)
+				checkPath(path);
 		} catch (InvalidPathException e) {
 			CorruptObjectException p =
 				new CorruptObjectException(e.getMessage());
@@ -209,31 +222,24 @@ public class DirCacheEntry {
 			throw p;
 		}
 
-		if (version == DirCacheVersion.DIRC_VERSION_PATHCOMPRESS) {
-			if (skipped == 0) {
-				int b = in.read();
-				if (b < 0) {
-					throw new EOFException(JGitText.get().shortReadOfBlock);
-				}
-				md.update((byte) b);
-			}
-		} else {
-			// Index records are padded out to the next 8 byte alignment
-			// for historical reasons related to how C Git read the files.
-			//
-			final int actLen = len + pathLen;
-			final int expLen = (actLen + 8) & ~7;
-			final int padLen = expLen - actLen - skipped;
-			if (padLen > 0) {
-				IO.skipFully(in, padLen);
-				md.update(nullpad, 0, padLen);
-			}
-		}
 		if (mightBeRacilyClean(smudge)) {
 			smudgeRacilyClean();
 		}
 	}
 
+	private static void require(int ptr, int end) throws EOFException {
+		if (ptr > end)
+			throw new EOFException(JGitText.get().shortReadOfBlock);
+	}
+
+	private static int nul(byte[] buf, int ptr, int end) throws EOFException {
+		for (; ptr < end; ptr++) {
+			if (buf[ptr] == 0)
+				return ptr;
+		}
+		throw new EOFException(JGitText.get().shortReadOfBlock);
+	}
+
 	/**
 	 * Create an empty entry at stage 0.
 	 *
@@ -324,30 +330,69 @@ public DirCacheEntry(byte[] path, int stage) {
 	 */
 	public DirCacheEntry(DirCacheEntry src) {
 		path = src.path;
-		info = new byte[INFO_LEN];
+		int len = src.isExtended() ? INFO_LEN_EXTENDED : INFO_LEN;
+		info = new byte[len];
 		infoOffset = 0;
-		System.arraycopy(src.info, src.infoOffset, info, 0, INFO_LEN);
+		System.arraycopy(src.info, src.infoOffset, info, 0, len);
 	}
 
-	private int readNulTerminatedString(InputStream in, OutputStream out)
-			throws IOException {
-		int n = 0;
-		for (;;) {
-			int c = in.read();
-			if (c < 0) {
-				throw new EOFException(JGitText.get().shortReadOfBlock);
-			}
-			if (c == 0) {
-				break;
-			}
-			out.write(c);
-			n++;
-		}
-		return n;
+	/**
+	 * Create the entry of a directory of a sparse index, standing for all
+	 * files of a tree which are not checked out.
+	 *
+	 * @param dir
+	 *            path of the directory, ending with '/'.
+	 * @param tree
+	 *            the tree.
+	 */
+	DirCacheEntry(byte[] dir, AnyObjectId tree) {
+		info = new byte[INFO_LEN_EXTENDED];
+		infoOffset = 0;
+		path = dir;
+		NB.encodeInt16(info, P_FLAGS, Math.min(dir.length, NAME_MASK));
+		info[P_FLAGS] |= (byte) EXTENDED;
+		NB.encodeInt16(info, P_FLAGS2, SKIP_WORKTREE >>> 16);
+		setFileMode(FileMode.TREE.getBits());
+		setObjectId(tree);
+	}
+
+	/**
+	 * Name an entry read without name from a split index.
+	 * <p>
+	 * The new entry shares the header information of the entry read.
+	 *
+	 * @param path
+	 *            name of the replaced entry of the shared index.
+	 * @param src
+	 *            entry read without name.
+	 */
+	DirCacheEntry(byte[] path, DirCacheEntry src) {
+		this.path = path;
+		info = src.info;
+		infoOffset = src.infoOffset;
+		inCoreFlags = src.inCoreFlags;
+		int flags = NB.decodeUInt16(info, infoOffset + P_FLAGS) & ~NAME_MASK;
+		NB.encodeInt16(info, infoOffset + P_FLAGS,
+				flags | Math.min(path.length, NAME_MASK));
 	}
 
 	void write(OutputStream os, DirCacheVersion version, DirCacheEntry previous)
 			throws IOException {
+		write(os, version, previous, false);
+	}
+
+	/**
+	 * Write this entry.
+	 *
+	 * @param restart
+	 *            whether the path compression of version 4 starts again with
+	 *            this entry, as at the start of a block of the index entry
+	 *            offset table. Like C Git the whole name of the previous entry
+	 *            is then removed, which readers decoding the entries one after
+	 *            another and readers starting at the block both understand.
+	 */
+	void write(OutputStream os, DirCacheVersion version, DirCacheEntry previous,
+			boolean restart) throws IOException {
 		final int len = isExtended() ? INFO_LEN_EXTENDED : INFO_LEN;
 		if (version != DirCacheVersion.DIRC_VERSION_PATHCOMPRESS) {
 			os.write(info, infoOffset, len);
@@ -362,7 +407,9 @@ void write(OutputStream os, DirCacheVersion version, DirCacheEntry previous)
 		} else {
 			int pathCommon = 0;
 			int toRemove;
-			if (previous != null) {
+			if (previous != null && restart) {
+				toRemove = previous.path.length;
+			} else if (previous != null) {
 				// Figure out common prefix
 				int pathLen = Math.min(path.length, previous.path.length);
 				while (pathCommon < pathLen
@@ -386,6 +433,76 @@ void write(OutputStream os, DirCacheVersion version, DirCacheEntry previous)
 		}
 	}
 
+	/**
+	 * Write this entry without its name, replacing the entry of the same name
+	 * in the shared index of a split index.
+	 * <p>
+	 * Like C Git the entries without name are written first, the name of the
+	 * next entry is compressed against an empty name.
+	 */
+	void writeStripped(OutputStream os, DirCacheVersion version)
+			throws IOException {
+		final int len = isExtended() ? INFO_LEN_EXTENDED : INFO_LEN;
+		final byte[] tmp = new byte[len];
+		System.arraycopy(info, infoOffset, tmp, 0, len);
+		int flags = NB.decodeUInt16(tmp, P_FLAGS) & ~NAME_MASK;
+		NB.encodeInt16(tmp, P_FLAGS, flags);
+		os.write(tmp);
+		if (version != DirCacheVersion.DIRC_VERSION_PATHCOMPRESS) {
+			os.write(nullpad, 0, ((len + 8) & ~7) - len);
+		} else {
+			// Nothing to remove, and an empty name.
+			os.write(0);
+			os.write(0);
+		}
+	}
+
+	/**
+	 * Copy the header information stored on disk.
+	 *
+	 * @param buf
+	 *            buffer to copy to, with {@link #INFO_LEN_EXTENDED} bytes
+	 *            available at {@code ptr}.
+	 * @param ptr
+	 *            position to copy to.
+	 */
+	void copyInfo(byte[] buf, int ptr) {
+		System.arraycopy(info, infoOffset, buf, ptr,
+				isExtended() ? INFO_LEN_EXTENDED : INFO_LEN);
+	}
+
+	/**
+	 * Whether the header information equals a copy made by
+	 * {@link #copyInfo(byte[], int)}.
+	 *
+	 * @param buf
+	 *            buffer holding the copy.
+	 * @param ptr
+	 *            position of the copy.
+	 * @return true if this entry would be stored exactly as the copy.
+	 */
+	boolean hasInfo(byte[] buf, int ptr) {
+		int len = isExtended() ? INFO_LEN_EXTENDED : INFO_LEN;
+		for (int i = 0; i < len; i++) {
+			if (info[infoOffset + i] != buf[ptr + i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the stage of a copy made by {@link #copyInfo(byte[], int)}.
+	 *
+	 * @param buf
+	 *            buffer holding the copy.
+	 * @param ptr
+	 *            position of the copy.
+	 * @return the stage of the copied entry.
+	 */
+	static int getStage(byte[] buf, int ptr) {
+		return (buf[ptr + P_FLAGS] >>> 4) & 0x3;
+	}
+
 	/**
 	 * Is it possible for this entry to be accidentally assumed clean?
 	 * <p>
@@ -530,6 +647,31 @@ public void setUpdateNeeded(boolean updateNeeded) {
 			inCoreFlags &= (byte) ~UPDATE_NEEDED;
 	}
 
+	/**
+	 * Whether the working tree file is known to match this entry because the
+	 * file system monitor reported no change since it was last compared.
+	 *
+	 * @return {@code true} if the working tree file need not be examined
+	 * @since 5.14
+	 */
+	public boolean isFsMonitorValid() {
+		return (inCoreFlags & FSMONITOR_VALID) != 0;
+	}
+
+	/**
+	 * Set whether the working tree file is known to match this entry
+	 *
+	 * @param valid
+	 *            whether the working tree file need not be examined
+	 * @since 5.14
+	 */
+	public void setFsMonitorValid(boolean valid) {
+		if (valid)
+			inCoreFlags |= (byte) FSMONITOR_VALID;
+		else
+			inCoreFlags &= (byte) ~FSMONITOR_VALID;
+	}
+
 	/**
 	 * Get the stage of this entry.
 	 * <p>
@@ -568,6 +710,49 @@ public boolean isSkipWorkTree() {
 		return (getExtendedFlags() & SKIP_WORKTREE) != 0;
 	}
 
+	/**
+	 * Set whether this entry should be skipped from the working tree.
+	 * <p>
+	 * Sparse checkouts set this flag on the entries of files not checked out.
+	 * Commands comparing the index with the working tree treat these entries
+	 * as unmodified.
+	 *
+	 * @param skip
+	 *            whether the working tree file is not checked out.
+	 * @since 5.14
+	 */
+	public void setSkipWorkTree(boolean skip) {
+		int flags = getExtendedFlags();
+		setExtendedFlags(skip ? flags | SKIP_WORKTREE : flags & ~SKIP_WORKTREE);
+	}
+
+	private void setExtendedFlags(int flags) {
+		if (flags == getExtendedFlags())
+			return;
+		if (!isExtended()) {
+			// Entries without extended flags are stored in shorter buffers.
+			byte[] n = new byte[INFO_LEN_EXTENDED];
+			System.arraycopy(info, infoOffset, n, 0, INFO_LEN);
+			info = n;
+			infoOffset = 0;
+		}
+		NB.encodeInt16(info, infoOffset + P_FLAGS2, flags >>> 16);
+		if (flags != 0)
+			info[infoOffset + P_FLAGS] |= (byte) EXTENDED;
+		else
+			info[infoOffset + P_FLAGS] &= (byte) ~EXTENDED;
+	}
+
+	/**
+	 * Whether this is the entry of a directory of a sparse index.
+	 *
+	 * @return true if this entry stands for a tree of files not checked out.
+	 */
+	boolean isSparseDirectory() {
+		return (getRawMode() & FileMode.TYPE_MASK) == FileMode.TYPE_TREE
+				&& path.length > 0 && path[path.length - 1] == '/';
+	}
+
 	/**
 	 * Returns whether this entry is intent to be added to the Index.
 	 *
@@ -860,7 +1045,8 @@ void copyMetaData(DirCacheEntry src, boolean keepStage) {
 		else
 			pStageShifted = newflags & SHIFTED_STAGE_MASK;
 		NB.encodeInt16(info, infoOffset + P_FLAGS, pStageShifted | pLen
-				| (newflags & ~NAME_MASK & ~SHIFTED_STAGE_MASK));
+				| (newflags & ~NAME_MASK & ~SHIFTED_STAGE_MASK & ~EXTENDED));
+		setExtendedFlags(src.getExtendedFlags());
 	}
 
 	/**
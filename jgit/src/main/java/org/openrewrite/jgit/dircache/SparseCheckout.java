@@ -0,0 +1,314 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.dircache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.openrewrite.jgit.errors.ConfigInvalidException;
+import org.openrewrite.jgit.ignore.IgnoreNode;
+import org.openrewrite.jgit.lib.Config;
+import org.openrewrite.jgit.lib.ConfigConstants;
+import org.openrewrite.jgit.lib.Constants;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.storage.file.FileBasedConfig;
+import org.openrewrite.jgit.util.IO;
+import org.openrewrite.jgit.util.RawParseUtils;
+
+/**
+ * The patterns of {@code info/sparse-checkout} selecting the paths checked
+ * out into the working tree.
+ * <p>
+ * Sparse checkouts are enabled by {@code core.sparseCheckout}. Index entries
+ * of paths not selected get the skip-worktree flag and are not written to the
+ * working tree.
+ * <p>
+ * If {@code core.sparseCheckoutCone} is set and the patterns have the
+ * restricted form written by {@code git sparse-checkout} in cone mode, they
+ * select directories: all files of the top directory, all files below the
+ * listed directories, and the files directly in the parents of the listed
+ * directories. Otherwise the patterns are matched like those of
+ * {@code .gitignore}, a file is selected if it or one of its parent
+ * directories is matched by a pattern which is not negated.
+ *
+ * @since 5.14
+ */
+public class SparseCheckout {
+	/**
+	 * Load the patterns of a repository.
+	 *
+	 * @param repo
+	 *            the repository
+	 * @return the patterns; null if {@code core.sparseCheckout} is not set,
+	 *         the repository has no working tree or has no
+	 *         {@code info/sparse-checkout} file.
+	 * @throws IOException
+	 *             the patterns could not be read
+	 */
+	public static SparseCheckout load(Repository repo) throws IOException {
+		if (repo.isBare())
+			return null;
+		Config cfg = getConfig(repo);
+		if (!cfg.getBoolean(ConfigConstants.CONFIG_CORE_SECTION,
+				ConfigConstants.CONFIG_KEY_SPARSE_CHECKOUT, false))
+			return null;
+		boolean cone = cfg.getBoolean(ConfigConstants.CONFIG_CORE_SECTION,
+				ConfigConstants.CONFIG_KEY_SPARSE_CHECKOUT_CONE, false);
+		File file = new File(repo.getDirectory(),
+				Constants.INFO_SPARSE_CHECKOUT);
+		byte[] raw;
+		try {
+			raw = IO.readFully(file);
+		} catch (FileNotFoundException e) {
+			// Like C Git ignore core.sparseCheckout if there are no
+			// patterns, instead of removing all files from the working
+			// tree.
+			return null;
+		}
+		SparseCheckout c = parse(raw, cone);
+		c.sparseIndex = c.isCone()
+				&& cfg.getBoolean(ConfigConstants.CONFIG_INDEX_SECTION,
+						ConfigConstants.CONFIG_KEY_SPARSE, false);
+		return c;
+	}
+
+	/**
+	 * Get the configuration of the working tree. C Git stores the keys of
+	 * sparse checkouts in {@code config.worktree} if
+	 * {@code extensions.worktreeConfig} is set.
+	 */
+	private static Config getConfig(Repository repo) throws IOException {
+		Config cfg = repo.getConfig();
+		if (!cfg.getBoolean(ConfigConstants.CONFIG_EXTENSIONS_SECTION,
+				ConfigConstants.CONFIG_KEY_WORKTREE_CONFIG, false))
+			return cfg;
+		FileBasedConfig wt = new FileBasedConfig(cfg,
+				new File(repo.getDirectory(), "config.worktree"), //$NON-NLS-1$
+				repo.getFS());
+		try {
+			wt.load();
+		} catch (ConfigInvalidException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		return wt;
+	}
+
+	/**
+	 * Parse patterns.
+	 *
+	 * @param raw
+	 *            content of a {@code sparse-checkout} file
+	 * @param cone
+	 *            whether patterns of the restricted form of cone mode
+	 *            select directories
+	 * @return the patterns
+	 * @throws IOException
+	 *             the patterns could not be parsed
+	 */
+	public static SparseCheckout parse(byte[] raw, boolean cone)
+			throws IOException {
+		if (cone) {
+			SparseCheckout c = parseCone(RawParseUtils.decode(UTF_8, raw));
+			if (c != null)
+				return c;
+		}
+		IgnoreNode patterns = new IgnoreNode();
+		patterns.parse(new ByteArrayInputStream(raw));
+		return new SparseCheckout(patterns, null, null);
+	}
+
+	/**
+	 * Parse the patterns of cone mode.
+	 *
+	 * @return the patterns; null if a pattern does not have the form of cone
+	 *         mode.
+	 */
+	private static SparseCheckout parseCone(String text) {
+		Set<String> recursive = new HashSet<>();
+		Set<String> parents = new HashSet<>();
+		boolean top = false;
+		boolean topDirs = false;
+		for (String line : text.split("\n")) { //$NON-NLS-1$
+			line = line.trim();
+			if (line.isEmpty() || line.charAt(0) == '#')
+				continue;
+			if (line.equals("/*")) { //$NON-NLS-1$
+				top = true;
+			} else if (line.equals("!/*/")) { //$NON-NLS-1$
+				topDirs = true;
+			} else if (line.startsWith("!/") && line.endsWith("/*/")) { //$NON-NLS-1$ //$NON-NLS-2$
+				String dir = unescape(line.substring(2, line.length() - 3));
+				if (dir == null || !recursive.remove(dir))
+					return null;
+				parents.add(dir);
+			} else if (line.startsWith("/") && line.endsWith("/") //$NON-NLS-1$ //$NON-NLS-2$
+					&& line.length() > 2) {
+				String dir = unescape(line.substring(1, line.length() - 1));
+				if (dir == null)
+					return null;
+				recursive.add(dir);
+			} else {
+				return null;
+			}
+		}
+		if (!top || !topDirs)
+			return null;
+		return new SparseCheckout(null, recursive, parents);
+	}
+
+	/**
+	 * Remove the backslashes escaping special characters of a directory
+	 * name of cone mode.
+	 *
+	 * @return the name; null if it has an unescaped special character.
+	 */
+	private static String unescape(String s) {
+		StringBuilder r = new StringBuilder(s.length());
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '\\' && i + 1 < s.length()) {
+				r.append(s.charAt(++i));
+			} else if (c == '*' || c == '?' || c == '[' || c == '\\') {
+				return null;
+			} else {
+				r.append(c);
+			}
+		}
+		if (r.length() == 0 || r.charAt(0) == '/'
+				|| r.charAt(r.length() - 1) == '/')
+			return null;
+		return r.toString();
+	}
+
+	private final IgnoreNode patterns;
+
+	/** Directories of cone mode, selected with everything below them. */
+	private final Set<String> recursive;
+
+	/** Directories of cone mode with their own files selected. */
+	private final Set<String> parents;
+
+	/** The parents of all directories of cone mode. */
+	private final Set<String> ancestors;
+
+	private boolean sparseIndex;
+
+	private SparseCheckout(IgnoreNode patterns, Set<String> recursive,
+			Set<String> parents) {
+		this.patterns = patterns;
+		this.recursive = recursive;
+		this.parents = parents;
+		if (recursive != null) {
+			ancestors = new HashSet<>();
+			addAncestors(recursive);
+			addAncestors(parents);
+		} else {
+			ancestors = null;
+		}
+	}
+
+	private void addAncestors(Set<String> dirs) {
+		for (String dir : dirs) {
+			for (int s = dir.lastIndexOf('/'); s > 0; s = dir.lastIndexOf('/',
+					s - 1))
+				ancestors.add(dir.substring(0, s));
+		}
+	}
+
+	/**
+	 * Whether the patterns are those of cone mode.
+	 *
+	 * @return true if the patterns select directories.
+	 */
+	public boolean isCone() {
+		return recursive != null;
+	}
+
+	/**
+	 * Whether the index is written as a sparse index.
+	 * <p>
+	 * The entries of files below a directory which is not checked out are
+	 * then replaced by an entry of the directory's tree if
+	 * {@code index.sparse} is set and the patterns are those of cone mode.
+	 * Sparse indexes are expanded when they are read.
+	 *
+	 * @return whether the index is written as a sparse index.
+	 */
+	public boolean isSparseIndex() {
+		return sparseIndex;
+	}
+
+	/**
+	 * Whether a file is checked out into the working tree.
+	 *
+	 * @param path
+	 *            path of the file, relative to the working tree.
+	 * @return true if the file is selected by the patterns.
+	 */
+	public boolean includes(String path) {
+		int slash = path.lastIndexOf('/');
+		if (recursive == null)
+			return includesByPattern(path, slash);
+		if (slash < 0)
+			return true;
+		String dir = path.substring(0, slash);
+		if (parents.contains(dir))
+			return true;
+		for (;;) {
+			if (recursive.contains(dir))
+				return true;
+			slash = dir.lastIndexOf('/');
+			if (slash < 0)
+				return false;
+			dir = dir.substring(0, slash);
+		}
+	}
+
+	private boolean includesByPattern(String path, int slash) {
+		Boolean r = patterns.checkIgnored(path, false);
+		// A file without a matching pattern takes the decision made for
+		// the closest parent directory.
+		while (r == null && slash > 0) {
+			path = path.substring(0, slash);
+			slash = path.lastIndexOf('/');
+			r = patterns.checkIgnored(path, true);
+		}
+		return r != null && r.booleanValue();
+	}
+
+	/**
+	 * Whether no file below a directory is checked out. Only known for the
+	 * patterns of cone mode.
+	 *
+	 * @param dir
+	 *            path of the directory, relative to the working tree.
+	 * @return true if the patterns are those of cone mode and do not select
+	 *         any file below the directory.
+	 */
+	public boolean excludesDirectory(String dir) {
+		if (recursive == null || dir.isEmpty() || parents.contains(dir)
+				|| ancestors.contains(dir))
+			return false;
+		for (;;) {
+			if (recursive.contains(dir))
+				return false;
+			int slash = dir.lastIndexOf('/');
+			if (slash < 0)
+				return true;
+			dir = dir.substring(0, slash);
+		}
+	}
+}
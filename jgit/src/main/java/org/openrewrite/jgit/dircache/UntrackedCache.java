@@ -0,0 +1,956 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.dircache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.openrewrite.jgit.lib.ConfigConstants;
+import org.openrewrite.jgit.lib.Constants;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectInserter;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.util.FS;
+import org.openrewrite.jgit.util.IO;
+import org.openrewrite.jgit.util.NB;
+import org.openrewrite.jgit.util.RawParseUtils;
+import org.openrewrite.jgit.util.StringUtils;
+import org.openrewrite.jgit.util.SystemReader;
+
+import com.googlecode.javaewah.EWAHCompressedBitmap;
+import com.googlecode.javaewah.IntIterator;
+
+/**
+ * The untracked cache of an index, stored in the {@code UNTR} extension.
+ * <p>
+ * For every directory of the working tree the cache remembers the stat data
+ * of the directory, the hash of its {@code .gitignore} file and the untracked
+ * files found in it when it was last read. As long as neither the directory
+ * nor its ignore rules changed, the directory holds exactly the tracked paths
+ * of the index, the remembered untracked files and the remembered
+ * subdirectories, and does not have to be read again.
+ * <p>
+ * The extension has the same layout as the one written by C Git. Directories
+ * are only recorded if the cache uses the layout C Git writes for
+ * {@code status.showUntrackedFiles=all}, listing every untracked file
+ * separately. Caches in other layouts are used as they are, directories found
+ * to be modified are invalidated but not recorded again.
+ * <p>
+ * Ignored files are not remembered. Working tree iterators listing a
+ * directory from the cache therefore do not return the ignored files in it,
+ * like C Git the cache must not be used when ignored files are wanted.
+ * <p>
+ * If the index has file system monitor data, directories containing modified
+ * paths are invalidated when the monitor is queried, and the directories
+ * still valid are used without looking at them.
+ *
+ * @since 5.14
+ */
+public class UntrackedCache {
+	/** Directory flags of the layout recorded by JGit. */
+	private static final int DIR_FLAGS_ALL = 0;
+
+	/** Size of the stat data of a file or directory. */
+	private static final int STAT_SIZE = 36;
+
+	private static final int[] NO_STAT = new int[STAT_SIZE / 4];
+
+	private static final String[] NO_NAMES = {};
+
+	private static final boolean UNIX_ATTRIBUTES = FileSystems.getDefault()
+			.supportedFileAttributeViews().contains("unix"); //$NON-NLS-1$
+
+	private static final String UNIX_STAT = "unix:ctime,lastModifiedTime,dev,ino,uid,gid,size"; //$NON-NLS-1$
+
+	private final DirCache cache;
+
+	private Instant indexTime;
+
+	private byte[] ident;
+
+	private int[] infoExcludeStat;
+
+	private int[] excludesFileStat;
+
+	private ObjectId infoExcludeId;
+
+	private ObjectId excludesFileId;
+
+	private int dirFlags;
+
+	private String excludePerDir;
+
+	private Directory root;
+
+	private boolean dirty;
+
+	/**
+	 * Whether the file system monitor told which paths were modified, the
+	 * directories still valid need not be examined.
+	 */
+	private boolean fsMonitorValid;
+
+	private UntrackedCache(DirCache cache, Instant indexTime) {
+		this.cache = cache;
+		this.indexTime = indexTime;
+	}
+
+	/**
+	 * Create an empty cache, not yet bound to a working tree.
+	 *
+	 * @param cache
+	 *            the index the cache belongs to.
+	 * @param indexTime
+	 *            modification time of the index file, null if unknown.
+	 */
+	static UntrackedCache create(DirCache cache, Instant indexTime) {
+		UntrackedCache uc = new UntrackedCache(cache, indexTime);
+		uc.reset(new byte[] { 0 });
+		return uc;
+	}
+
+	/**
+	 * Parse the content of an {@code UNTR} extension.
+	 *
+	 * @param cache
+	 *            the index the extension was read from.
+	 * @param raw
+	 *            content of the extension.
+	 * @param indexTime
+	 *            modification time of the index file.
+	 * @return the cache; null if the extension could not be parsed, like C
+	 *         Git a damaged cache is silently dropped.
+	 */
+	static UntrackedCache read(DirCache cache, byte[] raw, Instant indexTime) {
+		UntrackedCache uc = new UntrackedCache(cache, indexTime);
+		try {
+			uc.parse(new Parser(raw));
+			return uc;
+		} catch (IOException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	private void parse(Parser p) throws IOException {
+		ident = p.bytes(p.varint());
+		infoExcludeStat = p.stat();
+		excludesFileStat = p.stat();
+		dirFlags = p.int32();
+		infoExcludeId = p.objectId();
+		excludesFileId = p.objectId();
+		excludePerDir = p.string();
+
+		int cnt = p.varint();
+		if (cnt == 0) {
+			root = null;
+			return;
+		}
+		List<Directory> dirs = new ArrayList<>(cnt);
+		root = p.directory(null, dirs);
+		if (dirs.size() != cnt)
+			throw new IOException();
+
+		IntIterator valid = p.bitmap().intIterator();
+		IntIterator checkOnly = p.bitmap().intIterator();
+		IntIterator hasExcludeId = p.bitmap().intIterator();
+		while (checkOnly.hasNext())
+			dirs.get(checkOnly.next()).checkOnly = true;
+		while (valid.hasNext()) {
+			Directory d = dirs.get(valid.next());
+			d.valid = true;
+			d.stat = p.stat();
+		}
+		while (hasExcludeId.hasNext())
+			dirs.get(hasExcludeId.next()).excludeId = p.objectId();
+	}
+
+	/**
+	 * Format the cache as the content of an {@code UNTR} extension.
+	 *
+	 * @return content of the extension.
+	 */
+	synchronized byte[] toByteArray() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		writeVarint(out, ident.length);
+		out.write(ident, 0, ident.length);
+		writeStat(out, infoExcludeStat);
+		writeStat(out, excludesFileStat);
+		writeInt32(out, dirFlags);
+		writeObjectId(out, infoExcludeId);
+		writeObjectId(out, excludesFileId);
+		writeString(out, excludePerDir);
+
+		if (root == null) {
+			writeVarint(out, 0);
+			return out.toByteArray();
+		}
+
+		List<Directory> dirs = new ArrayList<>();
+		ByteArrayOutputStream names = new ByteArrayOutputStream();
+		writeDirectory(names, root, dirs);
+
+		EWAHCompressedBitmap valid = new EWAHCompressedBitmap();
+		EWAHCompressedBitmap checkOnly = new EWAHCompressedBitmap();
+		EWAHCompressedBitmap hasExcludeId = new EWAHCompressedBitmap();
+		ByteArrayOutputStream stats = new ByteArrayOutputStream();
+		ByteArrayOutputStream ids = new ByteArrayOutputStream();
+		for (int i = 0; i < dirs.size(); i++) {
+			Directory d = dirs.get(i);
+			if (d.valid) {
+				valid.set(i);
+				writeStat(stats, d.stat);
+				if (d.checkOnly)
+					checkOnly.set(i);
+			}
+			if (d.excludeId != null) {
+				hasExcludeId.set(i);
+				writeObjectId(ids, d.excludeId);
+			}
+		}
+
+		writeVarint(out, dirs.size());
+		writeAll(out, names);
+		writeBitmap(out, valid);
+		writeBitmap(out, checkOnly);
+		writeBitmap(out, hasExcludeId);
+		writeAll(out, stats);
+		writeAll(out, ids);
+		out.write(0);
+		return out.toByteArray();
+	}
+
+	private static void writeDirectory(ByteArrayOutputStream out,
+			Directory d, List<Directory> dirs) {
+		dirs.add(d);
+		String[] untracked = d.valid ? d.untracked : NO_NAMES;
+		writeVarint(out, untracked.length);
+		writeVarint(out, d.children.size());
+		writeString(out, d.name);
+		for (String name : untracked)
+			writeString(out, name);
+		for (Directory c : d.children)
+			writeDirectory(out, c, dirs);
+	}
+
+	/**
+	 * Whether the cache changed since it was read from the index.
+	 *
+	 * @return true if the cache changed and the index should be written to
+	 *         keep the changes.
+	 */
+	public synchronized boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Whether directories read from disk are recorded in the cache.
+	 *
+	 * @return true if the cache uses the layout recorded by JGit; false if
+	 *         modified directories are only invalidated.
+	 */
+	public synchronized boolean isRecording() {
+		return dirFlags == DIR_FLAGS_ALL;
+	}
+
+	/**
+	 * Check the cache still describes the working tree of a repository.
+	 * <p>
+	 * A cache recorded for another working tree location or another
+	 * operating system is discarded. If the global ignore rules of the
+	 * repository changed, all directories are invalidated.
+	 *
+	 * @param repo
+	 *            the repository the index belongs to.
+	 * @throws java.io.IOException
+	 *             the global ignore rules could not be read.
+	 */
+	public synchronized void prepare(Repository repo) throws IOException {
+		byte[] id = ident(repo.getWorkTree());
+		if (!Arrays.equals(id, ident)
+				|| !Constants.DOT_GIT_IGNORE.equals(excludePerDir))
+			reset(id);
+
+		FS fs = repo.getFS();
+		File infoExclude = fs.resolve(repo.getDirectory(),
+				Constants.INFO_EXCLUDE);
+		File excludesFile = excludesFile(repo);
+		ObjectId infoId = hash(infoExclude, null);
+		ObjectId excludesId = hash(excludesFile, null);
+		if (!infoId.equals(infoExcludeId)
+				|| !excludesId.equals(excludesFileId)) {
+			infoExcludeId = infoId;
+			excludesFileId = excludesId;
+			infoExcludeStat = statOrEmpty(infoExclude);
+			excludesFileStat = statOrEmpty(excludesFile);
+			if (root != null)
+				invalidateAll(root);
+			dirty = true;
+		}
+		if (root == null) {
+			root = new Directory(null, ""); //$NON-NLS-1$
+			dirty = true;
+		}
+	}
+
+	private void reset(byte[] id) {
+		ident = id;
+		dirFlags = DIR_FLAGS_ALL;
+		excludePerDir = Constants.DOT_GIT_IGNORE;
+		infoExcludeStat = NO_STAT;
+		excludesFileStat = NO_STAT;
+		infoExcludeId = ObjectId.zeroId();
+		excludesFileId = ObjectId.zeroId();
+		root = null;
+		dirty = true;
+	}
+
+	private static byte[] ident(File workTree) {
+		String location;
+		try {
+			location = workTree.toPath().toRealPath().toString();
+		} catch (IOException e) {
+			location = workTree.getAbsolutePath();
+		}
+		String system = SystemReader.getInstance()
+				.getProperty("os.name"); //$NON-NLS-1$
+		if (system.startsWith("Windows")) //$NON-NLS-1$
+			system = "Windows"; //$NON-NLS-1$
+		else if (system.startsWith("Mac")) //$NON-NLS-1$
+			system = "Darwin"; //$NON-NLS-1$
+		return Constants.encode("Location " + location + ", system " + system //$NON-NLS-1$ //$NON-NLS-2$
+				+ '\0');
+	}
+
+	private static File excludesFile(Repository repo) {
+		Path path = repo.getConfig().getPath(
+				ConfigConstants.CONFIG_CORE_SECTION, null,
+				ConfigConstants.CONFIG_KEY_EXCLUDESFILE, repo.getFS(), null,
+				null);
+		if (path != null)
+			return path.toFile();
+		// C Git falls back to the ignore file in its XDG directory.
+		String home = SystemReader.getInstance()
+				.getenv(Constants.XDG_CONFIG_HOME);
+		File dir = StringUtils.isEmptyOrNull(home)
+				? new File(repo.getFS().userHome(), ".config") //$NON-NLS-1$
+				: new File(home);
+		return new File(new File(dir, "git"), "ignore"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/**
+	 * Get the cache entry of the root of the working tree.
+	 *
+	 * @return the root directory; null if {@link #prepare(Repository)} was
+	 *         not yet called on an empty cache.
+	 */
+	public synchronized Directory getRoot() {
+		return root;
+	}
+
+	/**
+	 * Get the cache entry of a subdirectory.
+	 *
+	 * @param parent
+	 *            the directory containing the subdirectory.
+	 * @param name
+	 *            name of the subdirectory.
+	 * @return the subdirectory; if it is not yet known an entry which needs
+	 *         to be read from disk is returned.
+	 */
+	public synchronized Directory getChild(Directory parent, String name) {
+		int i = parent.find(name);
+		if (i >= 0)
+			return parent.children.get(i);
+		return new Directory(parent, name);
+	}
+
+	/**
+	 * List a directory from the cache.
+	 * <p>
+	 * If the directory or its {@code .gitignore} changed since it was
+	 * recorded null is returned. The caller then reads the directory from
+	 * disk and passes the result to
+	 * {@link #record(Directory, Collection, Collection)}.
+	 *
+	 * @param d
+	 *            the cache entry of the directory.
+	 * @param dir
+	 *            the directory in the working tree.
+	 * @return names of the tracked files, untracked files and subdirectories
+	 *         of the directory, or null if the directory has to be read.
+	 * @throws java.io.IOException
+	 *             the {@code .gitignore} of the directory could not be read.
+	 */
+	public String[] list(Directory d, File dir) throws IOException {
+		synchronized (this) {
+			if (fsMonitorValid && d.valid && !d.checkOnly)
+				return names(d);
+		}
+
+		// Read the file system without holding the lock, other threads
+		// listing other directories need not wait for it.
+		ObjectId id = hash(new File(dir, Constants.DOT_GIT_IGNORE),
+				d.path + Constants.DOT_GIT_IGNORE);
+		if (ObjectId.zeroId().equals(id))
+			id = null;
+		int[] st = stat(dir);
+
+		synchronized (this) {
+			if (id == null ? d.excludeId != null : !id.equals(d.excludeId)) {
+				// The ignore rules of the whole subtree changed.
+				invalidateAll(d);
+				d.excludeId = id;
+				dirty = true;
+			}
+			d.pendingStat = st;
+			if (!d.valid || d.checkOnly || st == null || !matches(d.stat, st)
+					|| isRacy(st)) {
+				invalidate(d);
+				return null;
+			}
+			return names(d);
+		}
+	}
+
+	private String[] names(Directory d) {
+		TreeSet<String> names = new TreeSet<>();
+		tracked(d, names);
+		for (String name : d.untracked) {
+			int n = name.length();
+			names.add(name.charAt(n - 1) == '/' ? name.substring(0, n - 1)
+					: name);
+		}
+		for (Directory c : d.children)
+			names.add(c.name);
+		return names.toArray(NO_NAMES);
+	}
+
+	/**
+	 * Record the content of a directory read from disk.
+	 * <p>
+	 * Must follow a call of {@link #list(Directory, File)} returning null for
+	 * the same directory. Ignored entries must not be passed.
+	 *
+	 * @param d
+	 *            the cache entry of the directory.
+	 * @param untracked
+	 *            the untracked files in the directory. Nested repositories
+	 *            are passed with a trailing '/'.
+	 * @param dirs
+	 *            the subdirectories of the directory that are tracked or not
+	 *            ignored.
+	 */
+	public synchronized void record(Directory d, Collection<String> untracked,
+			Collection<String> dirs) {
+		if (!isRecording() || d.pendingStat == null)
+			return;
+
+		String[] names = untracked.toArray(NO_NAMES);
+		Arrays.sort(names);
+		List<Directory> children = new ArrayList<>(dirs.size());
+		for (String name : new TreeSet<>(dirs)) {
+			int i = d.find(name);
+			children.add(i >= 0 ? d.children.get(i) : new Directory(d, name));
+		}
+
+		d.stat = d.pendingStat;
+		d.pendingStat = null;
+		d.untracked = names;
+		d.children = children;
+		d.checkOnly = false;
+		d.valid = true;
+		if (d.parent != null && d.parent.find(d.name) < 0)
+			d.parent.add(d);
+		dirty = true;
+	}
+
+	/**
+	 * Whether a subdirectory of a directory listed from the cache is known to
+	 * be unchanged.
+	 *
+	 * @param d
+	 *            the cache entry of the directory.
+	 * @param name
+	 *            name of the subdirectory.
+	 * @return true if the file system monitor reported no modification of
+	 *         the directory, and the subdirectory is still a directory.
+	 */
+	public synchronized boolean isUnchangedDirectory(Directory d,
+			String name) {
+		return fsMonitorValid && d.valid && d.find(name) >= 0;
+	}
+
+	/**
+	 * Whether a path in a directory is tracked by the index.
+	 *
+	 * @param d
+	 *            the cache entry of the directory.
+	 * @param name
+	 *            name of the path within the directory.
+	 * @param directory
+	 *            whether the path is a directory, and tracked if the index
+	 *            has an entry below it.
+	 * @return true if the path is tracked.
+	 */
+	public boolean isTracked(Directory d, String name, boolean directory) {
+		byte[] p = Constants.encode(d.path + name + (directory ? "/" : "")); //$NON-NLS-1$ //$NON-NLS-2$
+		int i = cache.findEntry(p, p.length);
+		if (!directory)
+			return i >= 0;
+		i = -(i + 1);
+		return i < cache.getEntryCount()
+				&& DirCacheTree.peq(p, cache.getEntry(i).path, p.length);
+	}
+
+	private void tracked(Directory d, TreeSet<String> names) {
+		byte[] p = Constants.encode(d.path);
+		int pLen = p.length;
+		int cnt = cache.getEntryCount();
+		int i = pLen == 0 ? 0 : -(cache.findEntry(p, pLen) + 1);
+		while (i < cnt) {
+			byte[] path = cache.getEntry(i).path;
+			if (path.length <= pLen || !DirCacheTree.peq(p, path, pLen))
+				break;
+			int end = RawParseUtils.next(path, pLen, '/');
+			if (end == path.length && path[end - 1] != '/') {
+				names.add(RawParseUtils.decode(UTF_8, path, pLen, end));
+				i++;
+				continue;
+			}
+
+			// Skip all entries of the subdirectory, they are sorted before
+			// the name with '0', the character after '/'.
+			names.add(RawParseUtils.decode(UTF_8, path, pLen, end - 1));
+			byte[] next = Arrays.copyOf(path, end);
+			next[end - 1] = '0';
+			int r = cache.findEntry(i, next, end);
+			i = r < 0 ? -(r + 1) : r;
+		}
+	}
+
+	/**
+	 * Invalidate the directories containing paths added to or removed from
+	 * the index.
+	 *
+	 * @param oldEntries
+	 *            entries before the change.
+	 * @param oldCnt
+	 *            number of entries before the change.
+	 * @param newEntries
+	 *            entries after the change.
+	 * @param newCnt
+	 *            number of entries after the change.
+	 */
+	synchronized void invalidate(DirCacheEntry[] oldEntries, int oldCnt,
+			DirCacheEntry[] newEntries, int newCnt) {
+		if (root == null)
+			return;
+		int i = 0, j = 0;
+		while (i < oldCnt || j < newCnt) {
+			int c;
+			if (i == oldCnt)
+				c = 1;
+			else if (j == newCnt)
+				c = -1;
+			else
+				c = DirCache.cmp(oldEntries[i], newEntries[j]);
+			if (c < 0)
+				invalidatePath(oldEntries[i++].path);
+			else if (c > 0)
+				invalidatePath(newEntries[j++].path);
+			else {
+				i++;
+				j++;
+			}
+		}
+	}
+
+	/**
+	 * Invalidate the directories containing paths reported as modified by the
+	 * file system monitor.
+	 *
+	 * @param paths
+	 *            the modified paths; null if everything may have been
+	 *            modified, directories then have to be examined again.
+	 */
+	synchronized void applyFsMonitor(Collection<String> paths) {
+		fsMonitorValid = paths != null;
+		if (paths == null || root == null)
+			return;
+		for (String p : paths) {
+			invalidatePath(Constants.encode(p));
+			// The path may be a directory, or the ignore rules of one.
+			Directory d = lookup(p);
+			if (d == null && p.endsWith(Constants.DOT_GIT_IGNORE)) {
+				int n = p.length() - Constants.DOT_GIT_IGNORE.length();
+				if (n == 0)
+					d = root;
+				else if (p.charAt(n - 1) == '/')
+					d = lookup(p.substring(0, n - 1));
+			}
+			if (d != null)
+				invalidateAll(d);
+		}
+	}
+
+	private Directory lookup(String path) {
+		Directory d = root;
+		for (String name : path.split("/")) { //$NON-NLS-1$
+			int i = d.find(name);
+			if (i < 0)
+				return null;
+			d = d.children.get(i);
+		}
+		return d;
+	}
+
+	private void invalidatePath(byte[] path) {
+		Directory d = root;
+		int ptr = 0;
+		for (;;) {
+			invalidate(d);
+			int end = RawParseUtils.next(path, ptr, '/');
+			if (end == path.length && path[end - 1] != '/')
+				return;
+			int i = d.find(RawParseUtils.decode(UTF_8, path, ptr, end - 1));
+			if (i < 0)
+				return;
+			d = d.children.get(i);
+			ptr = end;
+		}
+	}
+
+	private void invalidate(Directory d) {
+		if (d.valid || d.untracked.length > 0) {
+			d.valid = false;
+			d.checkOnly = false;
+			d.untracked = NO_NAMES;
+			dirty = true;
+		}
+	}
+
+	private void invalidateAll(Directory d) {
+		invalidate(d);
+		for (Directory c : d.children)
+			invalidateAll(c);
+	}
+
+	private boolean isRacy(int[] st) {
+		// Like files, a directory modified in the same tick as the index
+		// was written may have changed after it was recorded.
+		if (indexTime == null)
+			return true;
+		Instant mtime = Instant.ofEpochSecond(st[2] & 0xffffffffL, st[3]);
+		return !mtime.isBefore(indexTime);
+	}
+
+	private static boolean matches(int[] a, int[] b) {
+		// mtime, inode and size; C Git also checks ctime and ownership.
+		return a[2] == b[2] && a[3] == b[3] && a[5] == b[5] && a[8] == b[8];
+	}
+
+	private static int[] stat(File f) {
+		Path p = f.toPath();
+		try {
+			if (UNIX_ATTRIBUTES) {
+				Map<String, Object> a = Files.readAttributes(p, UNIX_STAT,
+						LinkOption.NOFOLLOW_LINKS);
+				Instant ctime = ((FileTime) a.get("ctime")).toInstant(); //$NON-NLS-1$
+				Instant mtime = ((FileTime) a.get("lastModifiedTime")) //$NON-NLS-1$
+						.toInstant();
+				return new int[] { (int) ctime.getEpochSecond(),
+						ctime.getNano(), (int) mtime.getEpochSecond(),
+						mtime.getNano(), (int) toLong(a.get("dev")), //$NON-NLS-1$
+						(int) toLong(a.get("ino")), //$NON-NLS-1$
+						(int) toLong(a.get("uid")), //$NON-NLS-1$
+						(int) toLong(a.get("gid")), //$NON-NLS-1$
+						(int) toLong(a.get("size")) }; //$NON-NLS-1$
+			}
+			BasicFileAttributes a = Files.readAttributes(p,
+					BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+			Instant ctime = a.creationTime().toInstant();
+			Instant mtime = a.lastModifiedTime().toInstant();
+			return new int[] { (int) ctime.getEpochSecond(), ctime.getNano(),
+					(int) mtime.getEpochSecond(), mtime.getNano(), 0, 0, 0, 0,
+					(int) a.size() };
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static long toLong(Object v) {
+		return ((Number) v).longValue();
+	}
+
+	private static int[] statOrEmpty(File f) {
+		int[] st = stat(f);
+		return st != null ? st : NO_STAT;
+	}
+
+	private ObjectId hash(File f, String path) throws IOException {
+		if (!f.isFile())
+			return ObjectId.zeroId();
+		byte[] data = IO.readFully(f);
+		try (ObjectInserter.Formatter fmt = new ObjectInserter.Formatter()) {
+			if (data.length == 0)
+				return fmt.idFor(Constants.OBJ_BLOB, data);
+			// Like C Git, use the id of a tracked file if it is unmodified.
+			// Otherwise hash the content with the line feed C Git appends
+			// before parsing.
+			if (path != null) {
+				DirCacheEntry e = cache.getEntry(path);
+				if (e != null && e.getStage() == DirCacheEntry.STAGE_0) {
+					ObjectId id = fmt.idFor(Constants.OBJ_BLOB, data);
+					if (id.equals(e.getObjectId()))
+						return id;
+				}
+			}
+			byte[] buf = Arrays.copyOf(data, data.length + 1);
+			buf[data.length] = '\n';
+			return fmt.idFor(Constants.OBJ_BLOB, buf);
+		}
+	}
+
+	private static void writeVarint(ByteArrayOutputStream out, int value) {
+		// The offset encoding of C Git's varint.h, as used by OFS_DELTA.
+		byte[] buf = new byte[5];
+		int n = buf.length - 1;
+		long v = value & 0xffffffffL;
+		buf[n] = (byte) (v & 0x7f);
+		while ((v >>>= 7) != 0)
+			buf[--n] = (byte) (0x80 | (--v & 0x7f));
+		out.write(buf, n, buf.length - n);
+	}
+
+	private static void writeAll(ByteArrayOutputStream out,
+			ByteArrayOutputStream data) {
+		byte[] b = data.toByteArray();
+		out.write(b, 0, b.length);
+	}
+
+	private static void writeInt32(ByteArrayOutputStream out, int v) {
+		byte[] buf = new byte[4];
+		NB.encodeInt32(buf, 0, v);
+		out.write(buf, 0, 4);
+	}
+
+	private static void writeStat(ByteArrayOutputStream out, int[] st) {
+		for (int v : st)
+			writeInt32(out, v);
+	}
+
+	private static void writeObjectId(ByteArrayOutputStream out,
+			ObjectId id) {
+		byte[] buf = new byte[Constants.OBJECT_ID_LENGTH];
+		id.copyRawTo(buf, 0);
+		out.write(buf, 0, buf.length);
+	}
+
+	private static void writeString(ByteArrayOutputStream out, String s) {
+		byte[] b = s.getBytes(UTF_8);
+		out.write(b, 0, b.length);
+		out.write(0);
+	}
+
+	private static void writeBitmap(ByteArrayOutputStream out,
+			EWAHCompressedBitmap bitmap) {
+		try {
+			bitmap.serialize(new DataOutputStream(out));
+		} catch (IOException e) {
+			// Cannot happen writing to memory.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/** Cache entry of a directory of the working tree. */
+	public static final class Directory {
+		final Directory parent;
+
+		final String name;
+
+		/** Path of the directory with a trailing '/', empty for the root. */
+		final String path;
+
+		boolean valid;
+
+		boolean checkOnly;
+
+		int[] stat = NO_STAT;
+
+		/** Stat data taken before the directory was last listed. */
+		int[] pendingStat;
+
+		/** Hash of the directory's .gitignore, null if it has none. */
+		ObjectId excludeId;
+
+		String[] untracked = NO_NAMES;
+
+		/** Subdirectories, sorted by name. */
+		List<Directory> children = Collections.emptyList();
+
+		Directory(Directory parent, String name) {
+			this.parent = parent;
+			this.name = name;
+			this.path = parent == null ? "" : parent.path + name + '/'; //$NON-NLS-1$
+		}
+
+		int find(String n) {
+			int lo = 0;
+			int hi = children.size();
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				int c = compare(children.get(mid).name, n);
+				if (c < 0)
+					lo = mid + 1;
+				else if (c > 0)
+					hi = mid;
+				else
+					return mid;
+			}
+			return -(lo + 1);
+		}
+
+		void add(Directory c) {
+			if (children.isEmpty())
+				children = new ArrayList<>();
+			children.add(-(find(c.name) + 1), c);
+		}
+
+		private static int compare(String a, String b) {
+			// C Git keeps subdirectories sorted by strcmp().
+			byte[] x = a.getBytes(UTF_8);
+			byte[] y = b.getBytes(UTF_8);
+			return DirCache.cmp(x, x.length, y, y.length);
+		}
+	}
+
+	private static final class Parser {
+		private final byte[] buf;
+
+		private int ptr;
+
+		Parser(byte[] buf) {
+			this.buf = buf;
+		}
+
+		int varint() throws IOException {
+			int c = u8();
+			long v = c & 0x7f;
+			while ((c & 0x80) != 0) {
+				c = u8();
+				v = ((v + 1) << 7) | (c & 0x7f);
+				if (Integer.MAX_VALUE < v)
+					throw new IOException();
+			}
+			return (int) v;
+		}
+
+		private int u8() throws IOException {
+			if (ptr >= buf.length)
+				throw new IOException();
+			return buf[ptr++] & 0xff;
+		}
+
+		int int32() throws IOException {
+			need(4);
+			int v = NB.decodeInt32(buf, ptr);
+			ptr += 4;
+			return v;
+		}
+
+		byte[] bytes(int n) throws IOException {
+			need(n);
+			byte[] b = Arrays.copyOfRange(buf, ptr, ptr + n);
+			ptr += n;
+			return b;
+		}
+
+		int[] stat() throws IOException {
+			int[] st = new int[STAT_SIZE / 4];
+			for (int i = 0; i < st.length; i++)
+				st[i] = int32();
+			return st;
+		}
+
+		ObjectId objectId() throws IOException {
+			need(Constants.OBJECT_ID_LENGTH);
+			ObjectId id = ObjectId.fromRaw(buf, ptr);
+			ptr += Constants.OBJECT_ID_LENGTH;
+			return id;
+		}
+
+		String string() throws IOException {
+			int end = ptr;
+			while (end < buf.length && buf[end] != 0)
+				end++;
+			if (end == buf.length)
+				throw new IOException();
+			String s = RawParseUtils.decode(UTF_8, buf, ptr, end);
+			ptr = end + 1;
+			return s;
+		}
+
+		Directory directory(Directory parent, List<Directory> dirs)
+				throws IOException {
+			int untrackedCnt = varint();
+			int dirCnt = varint();
+			Directory d = new Directory(parent, string());
+			dirs.add(d);
+			String[] untracked = new String[untrackedCnt];
+			for (int i = 0; i < untrackedCnt; i++)
+				untracked[i] = string();
+			d.untracked = untracked;
+			if (dirCnt > 0) {
+				d.children = new ArrayList<>(dirCnt);
+				for (int i = 0; i < dirCnt; i++)
+					d.children.add(directory(d, dirs));
+			}
+			return d;
+		}
+
+		EWAHCompressedBitmap bitmap() throws IOException {
+			need(8);
+			int words = NB.decodeInt32(buf, ptr + 4);
+			int len = 12 + 8 * words;
+			need(len);
+			EWAHCompressedBitmap bitmap = new EWAHCompressedBitmap();
+			bitmap.deserialize(new DataInputStream(
+					new ByteArrayInputStream(buf, ptr, len)));
+			ptr += len;
+			return bitmap;
+		}
+
+		private void need(int n) throws IOException {
+			if (n < 0 || buf.length - ptr < n)
+				throw new IOException();
+		}
+	}
+}
@@ -273,11 +273,15 @@ public static JGitText get() {
 	/***/ public String dirCacheFileIsNotLocked;
 	/***/ public String dirCacheIsNotLocked;
 	/***/ public String DIRCChecksumMismatch;
+	/***/ public String DIRCCorruptEntryOffsetTable;
 	/***/ public String DIRCCorruptLength;
 	/***/ public String DIRCCorruptLengthFirst;
+	/***/ public String DIRCCorruptLinkExtension;
 	/***/ public String DIRCExtensionIsTooLargeAt;
 	/***/ public String DIRCExtensionNotSupportedByThisVersion;
 	/***/ public String DIRCHasTooManyEntries;
+	/***/ public String DIRCSharedIndexChecksumMismatch;
+	/***/ public String DIRCSparseIndexWithoutRepository;
 	/***/ public String DIRCUnrecognizedExtendedFlags;
 	/***/ public String downloadCancelled;
 	/***/ public String downloadCancelledDuringIndexing;
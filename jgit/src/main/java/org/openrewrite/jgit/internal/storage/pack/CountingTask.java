@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.internal.storage.pack;
+
+import static org.openrewrite.jgit.lib.Constants.OBJ_BLOB;
+import static org.openrewrite.jgit.lib.Constants.OBJ_TREE;
+
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openrewrite.jgit.errors.CorruptObjectException;
+import org.openrewrite.jgit.internal.JGitText;
+import org.openrewrite.jgit.lib.AnyObjectId;
+import org.openrewrite.jgit.lib.FileMode;
+import org.openrewrite.jgit.lib.MutableObjectId;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectReader;
+import org.openrewrite.jgit.lib.ThreadSafeProgressMonitor;
+import org.openrewrite.jgit.treewalk.CanonicalTreeParser;
+import org.openrewrite.jgit.util.BlockList;
+
+/**
+ * Enumerates the trees and blobs reachable from a set of root trees.
+ * <p>
+ * Each task claims root trees from a shared {@link Block} and walks them with
+ * its own {@link ObjectReader}. Objects are recorded in a set shared by all
+ * tasks of the block, so every object is enumerated by exactly one task.
+ */
+final class CountingTask implements Callable<Object> {
+	static final class Block {
+		final List<CountingTask> tasks;
+		final ObjectReader templateReader;
+		final ObjectReuseAsIs reuseSupport;
+		final ThreadSafeProgressMonitor pm;
+		final AnyObjectId[] roots;
+		final Set<ObjectId> seen;
+
+		private final AtomicInteger nextRoot;
+
+		Block(int threads, ObjectReader reader, ObjectReuseAsIs reuseSupport,
+				ThreadSafeProgressMonitor pm, AnyObjectId[] roots) {
+			this.tasks = new ArrayList<>(threads);
+			this.templateReader = reader;
+			this.reuseSupport = reuseSupport;
+			this.pm = pm;
+			this.roots = roots;
+			this.seen = ConcurrentHashMap.newKeySet(roots.length * 4);
+			this.nextRoot = new AtomicInteger();
+
+			int n = Math.min(threads, roots.length);
+			for (int i = 0; i < n; i++) {
+				tasks.add(new CountingTask(this));
+			}
+		}
+
+		AnyObjectId next() {
+			int i = nextRoot.getAndIncrement();
+			return i < roots.length ? roots[i] : null;
+		}
+
+		boolean contains(AnyObjectId id) {
+			return seen.contains(id);
+		}
+
+		long treesTraversed() {
+			long cnt = 0;
+			for (CountingTask task : tasks) {
+				cnt += task.trees.size();
+			}
+			return cnt;
+		}
+	}
+
+	private final Block block;
+
+	final BlockList<ObjectToPack> trees;
+
+	final BlockList<ObjectToPack> blobs;
+
+	private final MutableObjectId idBuffer;
+
+	private ObjectReader or;
+
+	CountingTask(Block b) {
+		this.block = b;
+		this.trees = new BlockList<>();
+		this.blobs = new BlockList<>();
+		this.idBuffer = new MutableObjectId();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object call() throws Exception {
+		or = block.templateReader.newReader();
+		try {
+			AnyObjectId root;
+			while ((root = block.next()) != null) {
+				ObjectId id = root.copy();
+				if (block.seen.add(id)) {
+					add(id, OBJ_TREE, 0);
+					CanonicalTreeParser p = new CanonicalTreeParser();
+					p.reset(or, id);
+					walk(p, id);
+				}
+			}
+		} finally {
+			block.pm.endWorker();
+			or.close();
+			or = null;
+		}
+		return null;
+	}
+
+	private void walk(CanonicalTreeParser p, ObjectId treeId)
+			throws IOException {
+		for (; !p.eof(); p.next(1)) {
+			int mode = p.getEntryRawMode();
+			switch (mode & FileMode.TYPE_MASK) {
+			case FileMode.TYPE_FILE:
+			case FileMode.TYPE_SYMLINK:
+				ObjectId blob = claim(p);
+				if (blob != null) {
+					add(blob, OBJ_BLOB, p.getEntryPathHashCode());
+				}
+				continue;
+
+			case FileMode.TYPE_TREE:
+				ObjectId tree = claim(p);
+				if (tree != null) {
+					add(tree, OBJ_TREE, p.getEntryPathHashCode());
+					walk(p.createSubtreeIterator0(or, tree), tree);
+				}
+				continue;
+
+			case FileMode.TYPE_GITLINK:
+				continue;
+
+			default:
+				throw new CorruptObjectException(MessageFormat.format(
+						JGitText.get().corruptObjectInvalidMode3,
+						String.format("%o", Integer.valueOf(mode)), //$NON-NLS-1$
+						p.getEntryObjectId().name(),
+						p.getEntryPathString(), treeId.name()));
+			}
+		}
+	}
+
+	private ObjectId claim(CanonicalTreeParser p) {
+		p.getEntryObjectId(idBuffer);
+		if (block.seen.contains(idBuffer)) {
+			return null;
+		}
+		ObjectId id = idBuffer.toObjectId();
+		return block.seen.add(id) ? id : null;
+	}
+
+	private void add(ObjectId id, int type, int pathHashCode) {
+		ObjectToPack otp;
+		if (block.reuseSupport != null)
+			otp = block.reuseSupport.newObjectToPack(id, type);
+		else
+			otp = new ObjectToPack(id, type);
+		otp.setPathHash(pathHashCode);
+		if (type == OBJ_TREE)
+			trees.add(otp);
+		else
+			blobs.add(otp);
+		block.pm.update(1);
+	}
+}
@@ -39,21 +39,22 @@ boolean canCache(int length, ObjectToPack src, ObjectToPack res) {
 				return false;
 		}
 
-		if (length < entryLimit) {
+		if (isWorthCaching(length, src, res)) {
 			used += length;
 			return true;
 		}
+		return false;
+	}
+
+	boolean isWorthCaching(int length, ObjectToPack src, ObjectToPack res) {
+		if (length < entryLimit)
+			return true;
 
 		// If the combined source files are multiple megabytes but the delta
 		// is on the order of a kilobyte or two, this was likely costly to
 		// construct. Cache it anyway, even though its over the limit.
 		//
-		if (length >> 10 < (src.getWeight() >> 20) + (res.getWeight() >> 21)) {
-			used += length;
-			return true;
-		}
-
-		return false;
+		return length >> 10 < (src.getWeight() >> 20) + (res.getWeight() >> 21);
 	}
 
 	void credit(int reservedSize) {
@@ -74,7 +75,7 @@ Ref cache(byte[] data, int actLen, int reservedSize) {
 			used -= reservedSize;
 			used += data.length;
 		}
-		return new Ref(data, queue);
+		return new SoftRef(data, queue);
 	}
 
 	byte[] resize(byte[] data, int actLen) {
@@ -87,17 +88,31 @@ byte[] resize(byte[] data, int actLen) {
 	}
 
 	private void checkForGarbageCollectedObjects() {
-		Ref r;
-		while ((r = (Ref) queue.poll()) != null)
+		SoftRef r;
+		while ((r = (SoftRef) queue.poll()) != null)
 			used -= r.cost;
 	}
 
-	static class Ref extends SoftReference<byte[]> {
+	interface Ref {
+		/** @return the deflated delta, null if it is no longer cached. */
+		byte[] get();
+
+		/** Discard the delta and return its space to the cache. */
+		void release();
+	}
+
+	static class SoftRef extends SoftReference<byte[]> implements Ref {
 		final int cost;
 
-		Ref(byte[] array, ReferenceQueue<byte[]> queue) {
+		SoftRef(byte[] array, ReferenceQueue<byte[]> queue) {
 			super(array, queue);
 			cost = array.length;
 		}
+
+		@Override
+		public void release() {
+			clear();
+			enqueue();
+		}
 	}
 }
@@ -86,6 +86,9 @@ public static long estimateIndexSize(int sourceLength) {
 	 */
 	private final long[] entries;
 
+	/** Number of valid positions in {@link #entries}, including index 0. */
+	private final int entryEnd;
+
 	/** Mask to make block hashes into an array index for {@link #table}. */
 	private final int tableMask;
 
@@ -98,23 +101,53 @@ public static long estimateIndexSize(int sourceLength) {
 	 *            be modified by the caller.
 	 */
 	public DeltaIndex(byte[] sourceBuffer) {
-		src = sourceBuffer;
+		this(sourceBuffer, new DeltaIndexScanner());
+	}
 
-		DeltaIndexScanner scan = new DeltaIndexScanner(src, src.length);
+	/**
+	 * Construct an index from the source file, reusing a scanner.
+	 * <p>
+	 * The scanner's scratch space and recycled tables are used to build the
+	 * index. Once the index is no longer needed its tables can be handed back
+	 * with {@link #recycle(DeltaIndexScanner)}.
+	 *
+	 * @param sourceBuffer
+	 *            the source file's raw contents. The buffer will be held by the
+	 *            index instance to facilitate matching, and therefore must not
+	 *            be modified by the caller.
+	 * @param scan
+	 *            scanner owned by the calling thread.
+	 */
+	DeltaIndex(byte[] sourceBuffer, DeltaIndexScanner scan) {
+		src = sourceBuffer;
+		scan.scan(src, src.length);
 
 		// Reuse the same table the scanner made. We will replace the
 		// values at each position, but we want the same-length array.
 		//
-		table = scan.table;
+		table = scan.takeTable();
 		tableMask = scan.tableMask;
 
 		// Because entry index 0 means there are no entries for the
 		// slot in the table, we have to allocate one extra position.
 		//
-		entries = new long[1 + countEntries(scan)];
+		entryEnd = 1 + countEntries(scan);
+		entries = scan.newEntries(entryEnd);
 		copyEntries(scan);
 	}
 
+	/**
+	 * Return this index's tables to a scanner for reuse.
+	 * <p>
+	 * The index must not be used after this method has been called.
+	 *
+	 * @param scan
+	 *            scanner that will reuse the tables.
+	 */
+	void recycle(DeltaIndexScanner scan) {
+		scan.recycle(table, entries);
+	}
+
 	private int countEntries(DeltaIndexScanner scan) {
 		// Figure out exactly how many entries we need. As we do the
 		// enumeration truncate any delta chains longer than what we
@@ -189,11 +222,11 @@ private static long sizeOf(byte[] b) {
 		return sizeOfArray(1, b.length);
 	}
 
-	private static long sizeOf(int[] b) {
+	static long sizeOf(int[] b) {
 		return sizeOfArray(4, b.length);
 	}
 
-	private static long sizeOf(long[] b) {
+	static long sizeOf(long[] b) {
 		return sizeOfArray(8, b.length);
 	}
 
@@ -310,7 +343,7 @@ public boolean encode(OutputStream out, byte[] res, int deltaSizeLimit)
 					}
 				} else if ((keyOf(ent) & tableMask) != tableIdx)
 					break;
-			} while (bestLen < 4096 && entryIdx < entries.length);
+			} while (bestLen < 4096 && entryIdx < entryEnd);
 
 			if (bestLen < BLKSZ) {
 				// All of the locations were false positives, or the copy
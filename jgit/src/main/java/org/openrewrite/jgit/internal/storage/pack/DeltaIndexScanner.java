@@ -10,25 +10,60 @@
 
 package org.openrewrite.jgit.internal.storage.pack;
 
+import java.util.Arrays;
+
 /**
  * Supports {@link DeltaIndex} by performing a partial scan of the content.
+ * <p>
+ * A scanner can be reused to build many indexes. The temporary chain arrays
+ * are kept between scans, and the tables of indexes handed back through
+ * {@link #recycle(int[], long[])} are reused by later indexes of a similar
+ * size, so a {@link DeltaWindow} building an index for every object it
+ * considers only allocates when its objects grow.
  */
 class DeltaIndexScanner {
-	final int[] table;
+	private static final int[] EMPTY_TABLE = {};
+
+	private static final long[] EMPTY_ENTRIES = {};
+
+	int[] table;
 
 	// To save memory the buckets for hash chains are stored in correlated
 	// arrays. This permits us to get 3 values per entry, without paying
 	// the penalty for an object header on each entry.
 
-	final long[] entries;
+	long[] entries;
 
-	final int[] next;
+	int[] next;
 
-	final int tableMask;
+	int tableMask;
 
 	private int entryCnt;
 
+	/** Recycled tables, indexed by the log2 of their length. */
+	private final int[][] freeTables;
+
+	/**
+	 * Recycled entry arrays, indexed by the log2 of their length rounded up.
+	 */
+	private final long[][] freeEntries;
+
 	DeltaIndexScanner(byte[] raw, int len) {
+		this();
+		scan(raw, len);
+	}
+
+	DeltaIndexScanner() {
+		table = EMPTY_TABLE;
+		entries = EMPTY_ENTRIES;
+		next = EMPTY_TABLE;
+		freeTables = new int[32][];
+		freeEntries = new long[32][];
+	}
+
+	void scan(byte[] raw, int len) {
+		entryCnt = 0;
+
 		// Clip the length so it falls on a block boundary. We won't
 		// bother to scan the final partial block.
 		//
@@ -36,27 +71,28 @@ class DeltaIndexScanner {
 
 		final int worstCaseBlockCnt = len / DeltaIndex.BLKSZ;
 		if (worstCaseBlockCnt < 1) {
-			table = new int[] {};
+			table = EMPTY_TABLE;
 			tableMask = 0;
 
-			entries = new long[] {};
-			next = new int[] {};
-
 		} else {
-			table = new int[tableSize(worstCaseBlockCnt)];
+			table = newTable(tableSize(worstCaseBlockCnt));
 			tableMask = table.length - 1;
 
 			// As we insert blocks we preincrement so that 0 is never a
 			// valid entry. Therefore we have to allocate one extra space.
+			// Every slot up to entryCnt is written before it is read, so
+			// arrays left over from an earlier scan need no clearing.
 			//
-			entries = new long[1 + worstCaseBlockCnt];
-			next = new int[entries.length];
+			if (entries.length < 1 + worstCaseBlockCnt) {
+				entries = new long[1 + worstCaseBlockCnt];
+				next = new int[entries.length];
+			}
 
-			scan(raw, len);
+			scanBlocks(raw, len);
 		}
 	}
 
-	private void scan(byte[] raw, int end) {
+	private void scanBlocks(byte[] raw, int end) {
 		// We scan the input backwards, and always insert onto the
 		// front of the chain. This ensures that chains will have lower
 		// offsets at the front of the chain, allowing us to prefer the
@@ -87,6 +123,97 @@ private void scan(byte[] raw, int end) {
 		} while (0 <= ptr);
 	}
 
+	/**
+	 * Hand the current table over to the index built from this scan.
+	 *
+	 * @return the table filled by the last scan. The scanner no longer
+	 *         references it.
+	 */
+	int[] takeTable() {
+		int[] t = table;
+		table = EMPTY_TABLE;
+		return t;
+	}
+
+	/**
+	 * Allocate an entry array for an index.
+	 *
+	 * @param cnt
+	 *            number of entries required.
+	 * @return an array of at least {@code cnt} entries, possibly holding
+	 *         stale values from an earlier index.
+	 */
+	long[] newEntries(int cnt) {
+		int b = bucket(cnt);
+		long[] e = freeEntries[b];
+		if (e != null && cnt <= e.length) {
+			freeEntries[b] = null;
+			return e;
+		}
+		return new long[cnt];
+	}
+
+	/**
+	 * Return the arrays of an index which is no longer used.
+	 *
+	 * @param t
+	 *            the index table, as obtained from {@link #takeTable()}.
+	 * @param e
+	 *            the index entries, as obtained from {@link #newEntries(int)}.
+	 */
+	void recycle(int[] t, long[] e) {
+		if (0 < t.length)
+			freeTables[Integer.numberOfTrailingZeros(t.length)] = t;
+		if (0 < e.length)
+			freeEntries[bucket(e.length)] = e;
+	}
+
+	/**
+	 * Get an estimate of the memory held by the scanner between scans.
+	 *
+	 * @return approximate number of bytes of the chain arrays and of the
+	 *         recycled tables kept for later indexes.
+	 */
+	long getRetainedSize() {
+		long sz = DeltaIndex.sizeOf(table);
+		if (0 < entries.length)
+			sz += DeltaIndex.sizeOf(entries) + DeltaIndex.sizeOf(next);
+		for (int[] t : freeTables) {
+			if (t != null)
+				sz += DeltaIndex.sizeOf(t);
+		}
+		for (long[] e : freeEntries) {
+			if (e != null)
+				sz += DeltaIndex.sizeOf(e);
+		}
+		return sz;
+	}
+
+	/**
+	 * Drop the chain arrays and the recycled tables, so that the memory can
+	 * be reclaimed. Later scans allocate again.
+	 */
+	void trim() {
+		entries = EMPTY_ENTRIES;
+		next = EMPTY_TABLE;
+		Arrays.fill(freeTables, null);
+		Arrays.fill(freeEntries, null);
+	}
+
+	private int[] newTable(int size) {
+		int b = Integer.numberOfTrailingZeros(size);
+		int[] t = freeTables[b];
+		if (t == null)
+			return new int[size];
+		freeTables[b] = null;
+		Arrays.fill(t, 0);
+		return t;
+	}
+
+	private static int bucket(int len) {
+		return 32 - Integer.numberOfLeadingZeros(len - 1);
+	}
+
 	private static int tableSize(int worstCaseBlockCnt) {
 		int shift = 32 - Integer.numberOfLeadingZeros(worstCaseBlockCnt);
 		int sz = 1 << (shift - 1);
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.internal.storage.pack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import org.openrewrite.jgit.lib.ObjectReader;
+import org.openrewrite.jgit.lib.ThreadSafeProgressMonitor;
+import org.openrewrite.jgit.storage.pack.PackConfig;
+
+/**
+ * Searches a range of the sorted delta search list on a
+ * {@link java.util.concurrent.ForkJoinPool}.
+ * <p>
+ * Ranges heavier than the block's grain are split near their weighted middle,
+ * on a path boundary, and both halves are forked. Leaves are searched with a
+ * {@link DeltaWindow} of their own. Because the grain leaves several leaves
+ * per thread, idle threads steal the pending halves of busy ones instead of
+ * waiting for the slowest of a fixed set of slices.
+ */
+final class DeltaSearchTask extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+
+	/** Number of leaves to aim for on each thread. */
+	private static final int LEAVES_PER_THREAD = 8;
+
+	static final class Block {
+		final PackConfig config;
+		final ObjectReader templateReader;
+		final DeltaCache dc;
+		final ThreadSafeProgressMonitor pm;
+		final ObjectToPack[] list;
+		final int cnt;
+
+		/** Sum of the adjusted weights of all objects before an index. */
+		final long[] weights;
+
+		/** Ranges weighing at most this much are not split further. */
+		final long grain;
+
+		/** Memory limit of each window, 0 if unlimited. */
+		final long memoryPerThread;
+
+		final long bytesPerUnit;
+
+		final List<Throwable> errors;
+
+		Block(int threads, PackConfig config, ObjectReader reader,
+				DeltaCache dc, ThreadSafeProgressMonitor pm,
+				ObjectToPack[] list, int cnt) {
+			this.config = config;
+			this.templateReader = reader;
+			this.dc = dc;
+			this.pm = pm;
+			this.list = list;
+			this.cnt = cnt;
+			this.errors = Collections.synchronizedList(new ArrayList<>());
+
+			weights = new long[cnt + 1];
+			for (int i = 0; i < cnt; i++)
+				weights[i + 1] = weights[i] + DeltaTask.getAdjustedWeight(list[i]);
+
+			long totalWeight = weights[cnt];
+			grain = Math.max(totalWeight / (threads * LEAVES_PER_THREAD), 1);
+
+			// Each thread searches one window at a time, so the limit is
+			// shared evenly between the threads.
+			long limit = config.getDeltaSearchMemoryLimit();
+			memoryPerThread = 0 < limit ? Math.max(limit / threads, 1) : 0;
+
+			long bpu = 1;
+			while (DeltaTask.MAX_METER <= (totalWeight / bpu))
+				bpu <<= 10;
+			bytesPerUnit = bpu;
+		}
+
+		int cost() {
+			long totalWeight = weights[cnt];
+			int d = (int) (totalWeight / bytesPerUnit);
+			if (totalWeight % bytesPerUnit != 0)
+				d++;
+			return d;
+		}
+
+		DeltaSearchTask newRootTask() {
+			return new DeltaSearchTask(this, 0, cnt, true);
+		}
+	}
+
+	private final transient Block block;
+
+	private final int beginIndex;
+
+	private final int endIndex;
+
+	private final boolean root;
+
+	private DeltaSearchTask(Block b, int begin, int end, boolean root) {
+		this.block = b;
+		this.beginIndex = begin;
+		this.endIndex = end;
+		this.root = root;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void compute() {
+		try {
+			if (!block.errors.isEmpty())
+				return;
+
+			int split = -1;
+			if (block.grain < weight(beginIndex, endIndex))
+				split = split();
+			if (split < 0) {
+				search();
+				return;
+			}
+			invokeAll(new DeltaSearchTask(block, beginIndex, split, false),
+					new DeltaSearchTask(block, split, endIndex, false));
+		} finally {
+			if (root)
+				block.pm.endWorker();
+		}
+	}
+
+	private long weight(int begin, int end) {
+		return block.weights[end] - block.weights[begin];
+	}
+
+	private int split() {
+		// Find the first object past the weighted middle of the range.
+		long[] w = block.weights;
+		long target = w[beginIndex] + (weight(beginIndex, endIndex) >>> 1);
+		int lo = beginIndex + 1;
+		int hi = endIndex - 1;
+		while (lo < hi) {
+			int m = (lo + hi) >>> 1;
+			if (w[m] < target)
+				lo = m + 1;
+			else
+				hi = m;
+		}
+
+		// Objects of the same path are the best delta candidates for each
+		// other, keep them in the same window. Split on the path boundary
+		// closest to the middle.
+		ObjectToPack[] list = block.list;
+		int after = -1;
+		for (int n = lo; n < endIndex; n++) {
+			if (list[n - 1].getPathHash() != list[n].getPathHash()) {
+				after = n;
+				break;
+			}
+		}
+		int before = -1;
+		for (int p = lo - 1; beginIndex < p; p--) {
+			if (list[p - 1].getPathHash() != list[p].getPathHash()) {
+				before = p;
+				break;
+			}
+		}
+		if (after < 0)
+			return before;
+		if (before < 0)
+			return after;
+		return target - w[before] <= w[after] - target ? before : after;
+	}
+
+	private void search() {
+		ObjectReader or = block.templateReader.newReader();
+		try {
+			DeltaWindow dw = new DeltaWindow(block.config, block.dc, or,
+					block.pm, block.bytesPerUnit, block.list, beginIndex,
+					endIndex, block.memoryPerThread);
+			dw.search();
+		} catch (Throwable err) {
+			block.errors.add(err);
+		} finally {
+			or.close();
+		}
+	}
+}
@@ -47,6 +47,9 @@ final class DeltaWindow {
 	/** Amount of memory we have loaded right now. */
 	private long loaded;
 
+	/** Part of {@link #loaded} held by {@link #scanner}. */
+	private long scannerSize;
+
 	// The object we are currently considering needs a lot of state:
 
 	/** Window entry of the object we are currently considering. */
@@ -60,9 +63,20 @@ final class DeltaWindow {
 	/** Used to compress cached deltas. */
 	private Deflater deflater;
 
+	/** Builds indexes, reusing the tables of indexes dropped from the window. */
+	private final DeltaIndexScanner scanner;
+
 	DeltaWindow(PackConfig pc, DeltaCache dc, ObjectReader or,
 			ProgressMonitor pm, long bpu,
 			ObjectToPack[] in, int beginIndex, int endIndex) {
+		this(pc, dc, or, pm, bpu, in, beginIndex, endIndex,
+				Math.max(0, pc.getDeltaSearchMemoryLimit()));
+	}
+
+	DeltaWindow(PackConfig pc, DeltaCache dc, ObjectReader or,
+			ProgressMonitor pm, long bpu,
+			ObjectToPack[] in, int beginIndex, int endIndex,
+			long memoryLimit) {
 		config = pc;
 		deltaCache = dc;
 		reader = or;
@@ -72,9 +86,10 @@ final class DeltaWindow {
 		cur = beginIndex;
 		end = endIndex;
 
-		maxMemory = Math.max(0, config.getDeltaSearchMemoryLimit());
+		maxMemory = memoryLimit;
 		maxDepth = config.getMaxDeltaDepth();
 		res = DeltaWindowEntry.createWindow(config.getDeltaSearchWindowSize());
+		scanner = new DeltaIndexScanner();
 	}
 
 	synchronized DeltaTask.Slice remaining() {
@@ -122,10 +137,13 @@ void search() throws IOException {
 				if (maxMemory != 0) {
 					clear(res);
 					final long need = estimateSize(next);
+					if (maxMemory < loaded + need)
+						trimScanner();
 					DeltaWindowEntry n = res.next;
 					for (; maxMemory < loaded + need && n != res; n = n.next)
-						clear(n);
+						evict(n);
 				}
+				recycleIndex(res);
 				res.set(next);
 				clearWindowOnTypeSwitch();
 
@@ -176,9 +194,18 @@ private void clear(DeltaWindowEntry ent) {
 			loaded -= ent.index.getIndexSize();
 		else if (ent.buffer != null)
 			loaded -= ent.buffer.length;
+		recycleIndex(ent);
 		ent.set(null);
 	}
 
+	private void recycleIndex(DeltaWindowEntry ent) {
+		if (ent.index != null) {
+			ent.index.recycle(scanner);
+			ent.index = null;
+			updateScannerSize();
+		}
+	}
+
 	private void searchInWindow() throws IOException {
 		// Loop through the window backwards, considering every entry.
 		// This lets us look at the bigger objects that came before.
@@ -247,6 +274,19 @@ private boolean delta(DeltaWindowEntry src)
 		if (res.size() - src.size() > msz)
 			return NEXT_SRC;
 
+		byte[] resBuf;
+		try {
+			resBuf = buffer(res);
+		} catch (LargeObjectException tooBig) {
+			// If its too big, move on to another item.
+			return NEXT_RES;
+		}
+
+		// Making room for the result may have evicted the source. Load the
+		// result first, so the source index is never dropped while in use.
+		if (src.empty())
+			return NEXT_SRC;
+
 		DeltaIndex srcIndex;
 		try {
 			srcIndex = index(src);
@@ -259,14 +299,6 @@ private boolean delta(DeltaWindowEntry src)
 			throw notAvailable;
 		}
 
-		byte[] resBuf;
-		try {
-			resBuf = buffer(res);
-		} catch (LargeObjectException tooBig) {
-			// If its too big, move on to another item.
-			return NEXT_RES;
-		}
-
 		try {
 			OutputStream delta = msz <= (8 << 10)
 				? new ArrayStream(msz)
@@ -354,7 +386,7 @@ private DeltaIndex index(DeltaWindowEntry ent)
 			checkLoadable(ent, estimateIndexSize(ent));
 
 			try {
-				idx = new DeltaIndex(buffer(ent));
+				idx = new DeltaIndex(buffer(ent), scanner);
 			} catch (OutOfMemoryError noMemory) {
 				LargeObjectException.OutOfMemory e;
 				e = new LargeObjectException.OutOfMemory(noMemory);
@@ -363,6 +395,7 @@ private DeltaIndex index(DeltaWindowEntry ent)
 			}
 			if (maxMemory != 0)
 				loaded += idx.getIndexSize() - idx.getSourceSize();
+			updateScannerSize();
 			ent.index = idx;
 		}
 		return idx;
@@ -382,13 +415,40 @@ private byte[] buffer(DeltaWindowEntry ent) throws MissingObjectException,
 		return buf;
 	}
 
+	/**
+	 * Clear an entry, without keeping the tables of its index for reuse.
+	 */
+	private void evict(DeltaWindowEntry ent) {
+		clear(ent);
+		trimScanner();
+	}
+
+	private void trimScanner() {
+		scanner.trim();
+		updateScannerSize();
+	}
+
+	/**
+	 * Account for the memory the scanner keeps between indexes, which grows
+	 * with the largest objects of the window and with recycled tables.
+	 */
+	private void updateScannerSize() {
+		if (maxMemory == 0)
+			return;
+		long sz = scanner.getRetainedSize();
+		loaded += sz - scannerSize;
+		scannerSize = sz;
+	}
+
 	private void checkLoadable(DeltaWindowEntry ent, long need) {
 		if (maxMemory == 0)
 			return;
 
+		if (maxMemory < loaded + need)
+			trimScanner();
 		DeltaWindowEntry n = res.next;
 		for (; maxMemory < loaded + need; n = n.next) {
-			clear(n);
+			evict(n);
 			if (n == ent)
 				throw new LargeObjectException.ExceedsLimit(
 						maxMemory, loaded + need);
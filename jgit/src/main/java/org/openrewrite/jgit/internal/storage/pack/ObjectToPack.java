@@ -131,8 +131,7 @@ final void clearDeltaBase() {
 		this.deltaBase = null;
 
 		if (cachedDelta != null) {
-			cachedDelta.clear();
-			cachedDelta.enqueue();
+			cachedDelta.release();
 			cachedDelta = null;
 		}
 	}
@@ -0,0 +1,315 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.internal.storage.pack;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openrewrite.jgit.storage.pack.PackConfig;
+
+/**
+ * Delta cache storing deflated deltas outside of the Java heap.
+ * <p>
+ * Deltas are copied into fixed size slots carved out of direct buffer slabs.
+ * Slot sizes are powers of two, each size forms a tier with its own free list.
+ * Slabs are allocated on demand until {@link PackConfig#getDeltaCacheSize()}
+ * is reached. Once the budget is exhausted, a slab without deltas is handed
+ * to the tier running out of slots; failing that the least recently used
+ * delta of all tiers is evicted. If its slot has another size, all deltas of
+ * its slab are evicted and the slab moves to the tier of the new delta.
+ * Unlike the heap based {@link DeltaCache} no delta is ever lost to the
+ * garbage collector, and the cache never grows beyond its budget.
+ * <p>
+ * All methods are thread safe.
+ */
+class OffHeapDeltaCache extends DeltaCache {
+	private static final int SLAB_SHIFT = 20;
+
+	private static final int SLAB_SIZE = 1 << SLAB_SHIFT;
+
+	private static final int MIN_SLOT_SHIFT = 6;
+
+	private static final int TIERS = SLAB_SHIFT - MIN_SLOT_SHIFT + 1;
+
+	private final ReentrantLock lock;
+
+	private final long maxSlabs;
+
+	private final List<Slab> slabs;
+
+	private final Tier[] tiers;
+
+	/** Least recently used delta, the next one to be evicted. */
+	private OffHeapRef head;
+
+	/** Most recently used delta. */
+	private OffHeapRef tail;
+
+	OffHeapDeltaCache(PackConfig pc) {
+		super(pc);
+		long size = pc.getDeltaCacheSize();
+		if (size <= 0)
+			size = PackConfig.DEFAULT_DELTA_CACHE_SIZE;
+		lock = new ReentrantLock();
+		// Slot numbers of the smallest tier must fit into an int.
+		maxSlabs = Math.min(Math.max(size >> SLAB_SHIFT, 1),
+				Integer.MAX_VALUE >> (SLAB_SHIFT - MIN_SLOT_SHIFT));
+		slabs = new ArrayList<>();
+		tiers = new Tier[TIERS];
+		for (int i = 0; i < TIERS; i++)
+			tiers[i] = new Tier(MIN_SLOT_SHIFT + i);
+	}
+
+	@Override
+	boolean canCache(int length, ObjectToPack src, ObjectToPack res) {
+		// Any delta fitting into a slot can be stored, if necessary by
+		// evicting others. Larger ones would be deflated for nothing.
+		return length <= SLAB_SIZE && isWorthCaching(length, src, res);
+	}
+
+	@Override
+	void credit(int reservedSize) {
+		// Space is only taken once the deflated delta is stored.
+	}
+
+	@Override
+	Ref cache(byte[] data, int actLen, int reservedSize) {
+		if (SLAB_SIZE < actLen)
+			return null;
+
+		Tier tier = tiers[tierOf(actLen)];
+		lock.lock();
+		try {
+			int slot = allocate(tier);
+			OffHeapRef r = new OffHeapRef(tier, slot, actLen);
+			buffer(tier, slot).put(data, 0, actLen);
+			slabOf(tier, slot).add(r);
+			link(r);
+			return r;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static int tierOf(int length) {
+		if (length <= 1 << MIN_SLOT_SHIFT)
+			return 0;
+		return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_SLOT_SHIFT;
+	}
+
+	private int allocate(Tier tier) {
+		if (tier.freeCnt == 0) {
+			if (slabs.size() < maxSlabs) {
+				Slab s = new Slab(slabs.size());
+				slabs.add(s);
+				assign(s, tier);
+			} else {
+				Slab s = findEmptySlab();
+				if (s == null) {
+					// Every slab holds a delta, so there is one to evict.
+					OffHeapRef victim = head;
+					if (victim.tier == tier) {
+						free(victim);
+					} else {
+						s = slabOf(victim.tier, victim.slot);
+						while (s.refs != null)
+							free(s.refs);
+					}
+				}
+				if (s != null)
+					assign(s, tier);
+			}
+		}
+		return tier.free[--tier.freeCnt];
+	}
+
+	private Slab findEmptySlab() {
+		for (Slab s : slabs) {
+			if (s.live == 0)
+				return s;
+		}
+		return null;
+	}
+
+	private static void assign(Slab s, Tier tier) {
+		if (s.tier != null)
+			s.tier.removeSlab(s.index);
+		s.tier = tier;
+		int slotsPerSlab = SLAB_SIZE >>> tier.slotShift;
+		int first = s.index * slotsPerSlab;
+		for (int i = slotsPerSlab - 1; 0 <= i; i--)
+			tier.push(first + i);
+	}
+
+	private void free(OffHeapRef r) {
+		r.evicted = true;
+		unlink(r);
+		slabOf(r.tier, r.slot).remove(r);
+		r.tier.push(r.slot);
+	}
+
+	private Slab slabOf(Tier tier, int slot) {
+		return slabs.get(slot >>> (SLAB_SHIFT - tier.slotShift));
+	}
+
+	private ByteBuffer buffer(Tier tier, int slot) {
+		int slotsPerSlab = SLAB_SIZE >>> tier.slotShift;
+		ByteBuffer b = slabOf(tier, slot).buf.duplicate();
+		b.position((slot % slotsPerSlab) << tier.slotShift);
+		return b;
+	}
+
+	private void link(OffHeapRef r) {
+		r.prev = tail;
+		if (tail != null)
+			tail.next = r;
+		else
+			head = r;
+		tail = r;
+	}
+
+	private void unlink(OffHeapRef r) {
+		if (r.prev != null)
+			r.prev.next = r.next;
+		else
+			head = r.next;
+		if (r.next != null)
+			r.next.prev = r.prev;
+		else
+			tail = r.prev;
+		r.prev = null;
+		r.next = null;
+	}
+
+	private final class OffHeapRef implements Ref {
+		final Tier tier;
+
+		final int slot;
+
+		final int length;
+
+		/** Less recently used delta. */
+		OffHeapRef prev;
+
+		/** More recently used delta. */
+		OffHeapRef next;
+
+		OffHeapRef slabPrev;
+
+		OffHeapRef slabNext;
+
+		boolean evicted;
+
+		OffHeapRef(Tier tier, int slot, int length) {
+			this.tier = tier;
+			this.slot = slot;
+			this.length = length;
+		}
+
+		@Override
+		public byte[] get() {
+			lock.lock();
+			try {
+				if (evicted)
+					return null;
+				unlink(this);
+				link(this);
+				byte[] data = new byte[length];
+				buffer(tier, slot).get(data);
+				return data;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public void release() {
+			lock.lock();
+			try {
+				if (!evicted)
+					free(this);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	private static final class Slab {
+		final int index;
+
+		final ByteBuffer buf;
+
+		/** Tier the slots of the slab currently belong to. */
+		Tier tier;
+
+		/** Deltas stored in the slab. */
+		OffHeapRef refs;
+
+		int live;
+
+		Slab(int index) {
+			this.index = index;
+			this.buf = ByteBuffer.allocateDirect(SLAB_SIZE);
+		}
+
+		void add(OffHeapRef r) {
+			r.slabNext = refs;
+			if (refs != null)
+				refs.slabPrev = r;
+			refs = r;
+			live++;
+		}
+
+		void remove(OffHeapRef r) {
+			if (r.slabPrev != null)
+				r.slabPrev.slabNext = r.slabNext;
+			else
+				refs = r.slabNext;
+			if (r.slabNext != null)
+				r.slabNext.slabPrev = r.slabPrev;
+			r.slabPrev = null;
+			r.slabNext = null;
+			live--;
+		}
+	}
+
+	private static final class Tier {
+		final int slotShift;
+
+		int[] free;
+
+		int freeCnt;
+
+		Tier(int slotShift) {
+			this.slotShift = slotShift;
+			this.free = new int[16];
+		}
+
+		void push(int slot) {
+			if (freeCnt == free.length)
+				free = Arrays.copyOf(free, free.length * 2);
+			free[freeCnt++] = slot;
+		}
+
+		void removeSlab(int slab) {
+			int shift = SLAB_SHIFT - slotShift;
+			int n = 0;
+			for (int i = 0; i < freeCnt; i++) {
+				if (free[i] >>> shift != slab)
+					free[n++] = free[i];
+			}
+			freeCnt = n;
+		}
+	}
+}
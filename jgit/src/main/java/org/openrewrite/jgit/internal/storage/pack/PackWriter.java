@@ -37,13 +37,19 @@
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedOutputStream;
 import java.util.zip.Deflater;
@@ -87,6 +93,7 @@
 import org.openrewrite.jgit.revwalk.RevSort;
 import org.openrewrite.jgit.revwalk.RevTag;
 import org.openrewrite.jgit.revwalk.RevTree;
+import org.openrewrite.jgit.revwalk.filter.ObjectFilter;
 import org.openrewrite.jgit.storage.pack.PackConfig;
 import org.openrewrite.jgit.storage.pack.PackStatistics;
 import org.openrewrite.jgit.transport.FilterSpec;
@@ -1219,8 +1226,25 @@ public void writePack(ProgressMonitor compressMonitor,
 
 		if (needSearchForReuse)
 			searchForReuse(compressMonitor);
-		if (config.isDeltaCompress())
-			searchForDeltas(compressMonitor);
+
+		ExecutorService deltaSearchPool = null;
+		BackgroundDeltaSearch deltaSearch = null;
+		List<ObjectToPack> settled = null;
+		if (config.isDeltaCompress()) {
+			if (config.isStreamingWrite()) {
+				settled = findSettledObjects();
+				Executor executor = backgroundDeltaSearchExecutor();
+				if (executor == null) {
+					deltaSearchPool = Executors.newSingleThreadExecutor();
+					executor = deltaSearchPool;
+				}
+				BackgroundDeltaSearch search = new BackgroundDeltaSearch();
+				executor.execute(search);
+				deltaSearch = search;
+			} else {
+				searchForDeltas(compressMonitor, reader);
+			}
+		}
 
 		crc32 = new CRC32();
 		final PackOutputStream out = new PackOutputStream(
@@ -1267,7 +1291,7 @@ public void writePack(ProgressMonitor compressMonitor,
 			out.writeFileHeader(PACK_VERSION_GENERATED, objCnt);
 			out.flush();
 
-			writeObjects(out);
+			writeObjects(out, settled, deltaSearch);
 			if (!edgeObjects.isEmpty() || !cachedPacks.isEmpty()) {
 				for (PackStatistics.ObjectType.Accumulator typeStat : stats.objectTypes) {
 					if (typeStat == null)
@@ -1287,6 +1311,12 @@ public void writePack(ProgressMonitor compressMonitor,
 			writeChecksum(out);
 			out.flush();
 		} finally {
+			// The search updates the objects and the delta cache; it must
+			// be over before the caller can see them again.
+			if (deltaSearch != null)
+				deltaSearch.stop();
+			if (deltaSearchPool != null)
+				deltaSearchPool.shutdown();
 			stats.timeWriting = System.currentTimeMillis() - writeStart;
 			stats.depth = depth;
 
@@ -1412,7 +1442,7 @@ private void cutDeltaChains(BlockList<ObjectToPack> list)
 		}
 	}
 
-	private void searchForDeltas(ProgressMonitor monitor)
+	private void searchForDeltas(ProgressMonitor monitor, ObjectReader or)
 			throws MissingObjectException, IncorrectObjectTypeException,
 			IOException {
 		// Commits and annotated tags tend to have too many differences to
@@ -1448,7 +1478,7 @@ private void searchForDeltas(ProgressMonitor monitor)
 		//
 		final long sizingStart = System.currentTimeMillis();
 		beginPhase(PackingPhase.GETTING_SIZES, monitor, cnt);
-		AsyncObjectSizeQueue<ObjectToPack> sizeQueue = reader.getObjectSize(
+		AsyncObjectSizeQueue<ObjectToPack> sizeQueue = or.getObjectSize(
 				Arrays.<ObjectToPack> asList(list).subList(0, cnt), false);
 		try {
 			final long limit = Math.min(
@@ -1538,7 +1568,7 @@ private void searchForDeltas(ProgressMonitor monitor)
 			return;
 
 		final long searchStart = System.currentTimeMillis();
-		searchForDeltas(monitor, list, cnt);
+		searchForDeltas(monitor, or, list, cnt);
 		stats.deltaSearchNonEdgeObjects = nonEdgeCnt;
 		stats.timeCompressing = System.currentTimeMillis() - searchStart;
 
@@ -1571,20 +1601,149 @@ private void reselectNonDelta(ObjectToPack otp) throws IOException {
 	}
 
 	private void searchForDeltas(final ProgressMonitor monitor,
-			final ObjectToPack[] list, final int cnt)
+			final ObjectReader or, final ObjectToPack[] list, final int cnt)
 			throws MissingObjectException, IncorrectObjectTypeException,
 			LargeObjectException, IOException {
-		int threads = config.getThreads();
-		if (threads == 0)
-			threads = Runtime.getRuntime().availableProcessors();
+		int threads = getThreads();
 		if (threads <= 1 || cnt <= config.getDeltaSearchWindowSize())
-			singleThreadDeltaSearch(monitor, list, cnt);
+			singleThreadDeltaSearch(monitor, or, list, cnt);
+		else if (config.isDeltaWorkStealing())
+			workStealingDeltaSearch(monitor, or, list, cnt, threads);
 		else
-			parallelDeltaSearch(monitor, list, cnt, threads);
+			parallelDeltaSearch(monitor, or, list, cnt, threads);
+	}
+
+	private List<ObjectToPack> findSettledObjects() {
+		settleReusedDeltaChains(objectsLists[OBJ_TREE]);
+		settleReusedDeltaChains(objectsLists[OBJ_BLOB]);
+
+		// Objects the delta search will not look at can be written before
+		// it completes. Record them now, as the search updates the state
+		// of all other objects concurrently with the writing.
+		List<ObjectToPack> settled = new BlockList<>();
+		for (ObjectToPack otp : objectsLists[OBJ_TREE]) {
+			if (isSettled(otp))
+				settled.add(otp);
+		}
+		for (ObjectToPack otp : objectsLists[OBJ_BLOB]) {
+			if (isSettled(otp))
+				settled.add(otp);
+		}
+		return settled;
+	}
+
+	/**
+	 * Get the executor to search for deltas on while the pack is written.
+	 *
+	 * @return the executor of the configuration; null if there is none, or
+	 *         if it is a fork join pool with a single thread, which the
+	 *         search would block waiting for the tasks it submits to the
+	 *         same pool.
+	 */
+	@Nullable
+	private Executor backgroundDeltaSearchExecutor() {
+		Executor executor = config.getExecutor();
+		if (executor instanceof ForkJoinPool
+				&& ((ForkJoinPool) executor).getParallelism() < 2)
+			return null;
+		return executor;
+	}
+
+	/** Delta search running while the pack stream is written. */
+	private final class BackgroundDeltaSearch extends FutureTask<Void> {
+		private final AtomicBoolean started = new AtomicBoolean();
+
+		private final CountDownLatch done = new CountDownLatch(1);
+
+		BackgroundDeltaSearch() {
+			// The pack stream is written concurrently, so compression
+			// progress cannot be reported on the same channel.
+			super(() -> {
+				try (ObjectReader or = reader.newReader()) {
+					searchForDeltas(NullProgressMonitor.INSTANCE, or);
+				}
+				return null;
+			});
+		}
+
+		@Override
+		public void run() {
+			if (!started.compareAndSet(false, true))
+				return;
+			try {
+				super.run();
+			} finally {
+				done.countDown();
+			}
+		}
+
+		/**
+		 * Cancel the search, and wait until it no longer runs.
+		 */
+		void stop() {
+			cancel(true);
+			if (started.compareAndSet(false, true)) {
+				// Never started, and now never will.
+				return;
+			}
+			boolean interrupted = false;
+			for (;;) {
+				try {
+					done.await();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void settleReusedDeltaChains(List<ObjectToPack> list) {
+		// Keep the base of every reused delta chain as it is, so that writing
+		// a reused delta never writes an object the delta search may still
+		// turn into a delta of its own.
+		int limit = list.size();
+		for (ObjectToPack otp : list) {
+			ObjectToPack b = otp.getDeltaBase();
+			for (int d = 0; b != null && d < limit; d++) {
+				if (!b.isDeltaRepresentation()) {
+					b.setDoNotDelta();
+					break;
+				}
+				b = b.getDeltaBase();
+			}
+		}
+	}
+
+	private static boolean isSettled(ObjectToPack otp) {
+		return otp.isDoNotDelta() || otp.isDeltaRepresentation();
+	}
+
+	private static void awaitDeltaSearch(Future<?> deltaSearch)
+			throws IOException {
+		try {
+			deltaSearch.get();
+		} catch (InterruptedException ie) {
+			deltaSearch.cancel(true);
+			throw new IOException(
+					JGitText.get().packingCancelledDuringObjectsWriting, ie);
+		} catch (ExecutionException failed) {
+			rethrow(failed.getCause());
+		}
+	}
+
+	private DeltaCache newDeltaCache(boolean threadSafe) {
+		if (config.isDeltaCacheOffHeap())
+			return new OffHeapDeltaCache(config);
+		if (threadSafe)
+			return new ThreadSafeDeltaCache(config);
+		return new DeltaCache(config);
 	}
 
 	private void singleThreadDeltaSearch(ProgressMonitor monitor,
-			ObjectToPack[] list, int cnt) throws IOException {
+			ObjectReader or, ObjectToPack[] list, int cnt) throws IOException {
 		long totalWeight = 0;
 		for (int i = 0; i < cnt; i++) {
 			ObjectToPack o = list[i];
@@ -1599,37 +1758,83 @@ private void singleThreadDeltaSearch(ProgressMonitor monitor,
 			cost++;
 
 		beginPhase(PackingPhase.COMPRESSING, monitor, cost);
-		new DeltaWindow(config, new DeltaCache(config), reader,
+		new DeltaWindow(config, newDeltaCache(false), or,
 				monitor, bytesPerUnit,
 				list, 0, cnt).search();
 		endPhase(monitor);
 	}
 
-	@SuppressWarnings("Finally")
 	private void parallelDeltaSearch(ProgressMonitor monitor,
-			ObjectToPack[] list, int cnt, int threads) throws IOException {
-		DeltaCache dc = new ThreadSafeDeltaCache(config);
+			ObjectReader or, ObjectToPack[] list, int cnt, int threads)
+			throws IOException {
+		DeltaCache dc = newDeltaCache(true);
 		ThreadSafeProgressMonitor pm = new ThreadSafeProgressMonitor(monitor);
 		DeltaTask.Block taskBlock = new DeltaTask.Block(threads, config,
-				reader, dc, pm,
+				or, dc, pm,
 				list, 0, cnt);
 		taskBlock.partitionTasks();
 		beginPhase(PackingPhase.COMPRESSING, monitor, taskBlock.cost());
-		pm.startWorkers(taskBlock.tasks.size());
+		runParallel(pm, taskBlock.tasks, threads);
+		endPhase(monitor);
+	}
+
+	private void workStealingDeltaSearch(ProgressMonitor monitor,
+			ObjectReader or, ObjectToPack[] list, int cnt, int threads)
+			throws IOException {
+		Executor executor = config.getExecutor();
+		ForkJoinPool pool;
+		if (executor instanceof ForkJoinPool) {
+			pool = (ForkJoinPool) executor;
+			threads = pool.getParallelism();
+		} else {
+			pool = new ForkJoinPool(threads);
+		}
+
+		DeltaCache dc = newDeltaCache(true);
+		ThreadSafeProgressMonitor pm = new ThreadSafeProgressMonitor(monitor);
+		DeltaSearchTask.Block block = new DeltaSearchTask.Block(threads,
+				config, or, dc, pm, list, cnt);
+		beginPhase(PackingPhase.COMPRESSING, monitor, block.cost());
+		try {
+			pm.startWorkers(1);
+			ForkJoinTask<?> task = pool.submit(block.newRootTask());
+			try {
+				pm.waitForCompletion();
+			} catch (InterruptedException ie) {
+				task.cancel(true);
+				throw new IOException(
+						JGitText.get().packingCancelledDuringObjectsWriting,
+						ie);
+			}
+		} finally {
+			if (pool != executor)
+				pool.shutdown();
+		}
+
+		if (!block.errors.isEmpty())
+			rethrow(block.errors.get(0));
+		endPhase(monitor);
+	}
+
+	@SuppressWarnings("Finally")
+	private void runParallel(ThreadSafeProgressMonitor pm,
+			List<? extends Callable<?>> tasks, int threads)
+			throws IOException {
+		pm.startWorkers(tasks.size());
 
 		Executor executor = config.getExecutor();
 		final List<Throwable> errors =
 				Collections.synchronizedList(new ArrayList<>(threads));
 		if (executor instanceof ExecutorService) {
 			// Caller supplied us a service, use it directly.
-			runTasks((ExecutorService) executor, pm, taskBlock, errors);
+			runTasks((ExecutorService) executor, pm, tasks, errors);
 		} else if (executor == null) {
 			// Caller didn't give us a way to run the tasks, spawn up a
 			// temporary thread pool and make sure it tears down cleanly.
 			ExecutorService pool = Executors.newFixedThreadPool(threads);
 			Throwable e1 = null;
 			try {
-				runTasks(pool, pm, taskBlock, errors);
+				runTasks(pool, pm, tasks, errors);
 			} catch (Exception e) {
 				e1 = e;
 			} finally {
@@ -1652,15 +1857,19 @@ private void parallelDeltaSearch(ProgressMonitor monitor,
 			// The caller gave us an executor, but it might not do
 			// asynchronous execution.  Wrap everything and hope it
 			// can schedule these for us.
-			for (DeltaTask task : taskBlock.tasks) {
-				executor.execute(() -> {
+			List<FutureTask<?>> futures = new ArrayList<>(tasks.size());
+			for (Callable<?> task : tasks) {
+				FutureTask<?> f = new FutureTask<>(() -> {
 					try {
 						task.call();
 					} catch (Throwable failure) {
 						errors.add(failure);
 					}
-				});
+				}, null);
+				executor.execute(f);
+				futures.add(f);
 			}
+			helpRun(futures);
 			try {
 				pm.waitForCompletion();
 			} catch (InterruptedException ie) {
@@ -1674,28 +1883,37 @@ private void parallelDeltaSearch(ProgressMonitor monitor,
 		}
 
 		// If any task threw an error, try to report it back as
-		// though we weren't using a threaded search algorithm.
+		// though we weren't using a threaded algorithm.
 		//
-		if (!errors.isEmpty()) {
-			Throwable err = errors.get(0);
-			if (err instanceof Error)
-				throw (Error) err;
-			if (err instanceof RuntimeException)
-				throw (RuntimeException) err;
-			if (err instanceof IOException)
-				throw (IOException) err;
+		if (!errors.isEmpty())
+			rethrow(errors.get(0));
+	}
 
-			throw new IOException(err.getMessage(), err);
-		}
-		endPhase(monitor);
+	private static void rethrow(Throwable err) throws IOException {
+		if (err instanceof Error)
+			throw (Error) err;
+		if (err instanceof RuntimeException)
+			throw (RuntimeException) err;
+		if (err instanceof IOException)
+			throw (IOException) err;
+
+		throw new IOException(err.getMessage(), err);
 	}
 
 	private static void runTasks(ExecutorService pool,
 			ThreadSafeProgressMonitor pm,
-			DeltaTask.Block tb, List<Throwable> errors) throws IOException {
-		List<Future<?>> futures = new ArrayList<>(tb.tasks.size());
-		for (DeltaTask task : tb.tasks)
-			futures.add(pool.submit(task));
+			List<? extends Callable<?>> tasks, List<Throwable> errors)
+			throws IOException {
+		// Wrap the tasks here rather than using submit: the futures of some
+		// executors, like those of a ForkJoinPool, do not guard against
+		// running twice.
+		List<FutureTask<?>> futures = new ArrayList<>(tasks.size());
+		for (Callable<?> task : tasks) {
+			FutureTask<?> f = new FutureTask<>(task);
+			pool.execute(f);
+			futures.add(f);
+		}
+		helpRun(futures);
 
 		try {
 			pm.waitForCompletion();
@@ -1714,9 +1932,36 @@ private static void runTasks(ExecutorService pool,
 		}
 	}
 
-	private void writeObjects(PackOutputStream out) throws IOException {
+	/**
+	 * Run the tasks the executor did not start yet on the current thread.
+	 * <p>
+	 * The current thread waits for the tasks anyway. If it is itself a
+	 * thread of the executor, like the background delta search, the tasks
+	 * would otherwise never run once all threads of the executor wait.
+	 * {@link FutureTask#run()} does nothing for a task already started by
+	 * the executor.
+	 */
+	private static void helpRun(List<FutureTask<?>> futures) {
+		for (FutureTask<?> f : futures)
+			f.run();
+	}
+
+	private void writeObjects(PackOutputStream out,
+			@Nullable List<ObjectToPack> settled,
+			@Nullable Future<?> deltaSearch) throws IOException {
 		writeObjects(out, objectsLists[OBJ_COMMIT]);
 		writeObjects(out, objectsLists[OBJ_TAG]);
+		if (deltaSearch != null) {
+			// Trees and blobs not taking part in the delta search keep
+			// their representation, write them while the search runs.
+			for (ObjectToPack otp : settled) {
+				typeStats = stats.objectTypes[otp.getType()];
+				long beginOffset = out.length();
+				writeObject(out, otp);
+				typeStats.bytes += out.length() - beginOffset;
+			}
+			awaitDeltaSearch(deltaSearch);
+		}
 		writeObjects(out, objectsLists[OBJ_TREE]);
 		writeObjects(out, objectsLists[OBJ_BLOB]);
 	}
@@ -1835,6 +2080,7 @@ private void writeDeltaObjectDeflate(PackOutputStream out,
 		DeltaCache.Ref ref = otp.popCachedDelta();
 		if (ref != null) {
 			byte[] zbuf = ref.get();
+			ref.release();
 			if (zbuf != null) {
 				out.writeHeader(otp, otp.getCachedSize());
 				out.write(zbuf);
@@ -2078,6 +2324,10 @@ private void findObjectsToPack(@NonNull ProgressMonitor countingMonitor,
 				}
 			}
 		}
+		CountingTask.Block counted = null;
+		if (canCountInParallel(walker, have)) {
+			counted = countTreesInParallel(countingMonitor, commits);
+		}
 		commits = null;
 
 		if (thin && !baseTrees.isEmpty()) {
@@ -2106,6 +2356,12 @@ private void findObjectsToPack(@NonNull ProgressMonitor countingMonitor,
 					continue;
 				if (exclude(o))
 					continue;
+				if (counted != null && counted.contains(o)) {
+					// Already enumerated by a counting task.
+					if (o.getType() == OBJ_TREE)
+						walker.skipTree();
+					continue;
+				}
 				if (!depthSkip(o, walker)) {
 					filterAndAddObject(o, o.getType(), walker.getPathHashCode(),
 									   want);
@@ -2121,6 +2377,54 @@ private void findObjectsToPack(@NonNull ProgressMonitor countingMonitor,
 		stats.bitmapIndexMisses = -1;
 	}
 
+	private boolean canCountInParallel(ObjectWalk walker,
+			Set<? extends ObjectId> have) {
+		// Only a walk without uninteresting objects can be split by tree,
+		// as no task has to know what another task has excluded.
+		return config.isParallelCounting()
+				&& getThreads() > 1
+				&& have.isEmpty()
+				&& !thin
+				&& !shallowPack
+				&& excludeInPacks == null
+				&& filterSpec.isNoOp()
+				&& walker.getObjectFilter() == ObjectFilter.ALL;
+	}
+
+	private int getThreads() {
+		int threads = config.getThreads();
+		if (threads == 0)
+			threads = Runtime.getRuntime().availableProcessors();
+		return threads;
+	}
+
+	private CountingTask.Block countTreesInParallel(ProgressMonitor monitor,
+			List<RevCommit> commits) throws IOException {
+		List<RevTree> roots = new ArrayList<>(commits.size());
+		for (RevCommit cmit : commits) {
+			roots.add(cmit.getTree());
+		}
+
+		int threads = getThreads();
+		ThreadSafeProgressMonitor pm = new ThreadSafeProgressMonitor(monitor);
+		CountingTask.Block taskBlock = new CountingTask.Block(threads, reader,
+				reuseSupport, pm, roots.toArray(new AnyObjectId[0]));
+		runParallel(pm, taskBlock.tasks, threads);
+
+		for (CountingTask task : taskBlock.tasks) {
+			for (ObjectToPack otp : task.trees) {
+				objectsLists[OBJ_TREE].add(otp);
+				objectsMap.add(otp);
+			}
+			for (ObjectToPack otp : task.blobs) {
+				objectsLists[OBJ_BLOB].add(otp);
+				objectsMap.add(otp);
+			}
+		}
+		stats.treesTraversed += taskBlock.treesTraversed();
+		return taskBlock;
+	}
+
 	private void findObjectsToPackUsingBitmaps(
 			BitmapWalker bitmapWalker, Set<? extends ObjectId> want,
 			Set<? extends ObjectId> have)
@@ -13,6 +13,8 @@
 
 import java.io.IOException;
 
+import org.openrewrite.jgit.annotations.Nullable;
+import org.openrewrite.jgit.revwalk.MergeBaseCache;
 import org.openrewrite.jgit.revwalk.RevCommit;
 import org.openrewrite.jgit.revwalk.RevWalk;
 import org.openrewrite.jgit.revwalk.RevWalkUtils;
@@ -36,6 +38,28 @@ public class BranchTrackingStatus {
 	 */
 	public static BranchTrackingStatus of(Repository repository, String branchName)
 			throws IOException {
+		return of(repository, branchName, null);
+	}
+
+	/**
+	 * Compute the tracking status for the <code>branchName</code> in
+	 * <code>repository</code>, reusing merge bases and counts computed
+	 * before.
+	 *
+	 * @param repository
+	 *            the git repository to compute the status from
+	 * @param branchName
+	 *            the local branch
+	 * @param cache
+	 *            cache of merge bases and ahead/behind counts of the
+	 *            repository; null to compute them from scratch
+	 * @return the tracking status, or null if it is not known
+	 * @throws java.io.IOException
+	 * @since 5.14
+	 */
+	public static BranchTrackingStatus of(Repository repository,
+			String branchName, @Nullable MergeBaseCache cache)
+			throws IOException {
 
 		String shortBranchName = Repository.shortenRefName(branchName);
 		String fullBranchName = Constants.R_HEADS + shortBranchName;
@@ -54,6 +78,13 @@ public static BranchTrackingStatus of(Repository repository, String branchName)
 		if (local == null)
 			return null;
 
+		if (cache != null) {
+			MergeBaseCache.Result r = cache.get(local.getObjectId(),
+					tracking.getObjectId());
+			return new BranchTrackingStatus(trackingBranch,
+					r.getAheadCount(), r.getBehindCount());
+		}
+
 		try (RevWalk walk = new RevWalk(repository)) {
 
 			RevCommit localCommit = walk.parseCommit(local.getObjectId());
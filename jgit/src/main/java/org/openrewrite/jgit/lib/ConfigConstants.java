@@ -758,4 +758,144 @@ public final class ConfigConstants {
 	 */
 	public static final String CONFIG_KEY_SEARCH_FOR_REUSE_TIMEOUT = "searchforreusetimeout";
 
+	/**
+	 * The "pack.parallelCounting" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_PARALLEL_COUNTING = "parallelcounting";
+
+	/**
+	 * The "pack.streamingWrite" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_STREAMING_WRITE = "streamingwrite";
+
+	/**
+	 * The "pack.deltaCacheOffHeap" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_DELTA_CACHE_OFF_HEAP = "deltacacheoffheap";
+
+	/**
+	 * The "pack.deltaWorkStealing" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_DELTA_WORK_STEALING = "deltaworkstealing";
+
+	/**
+	 * The "core.untrackedCache" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_UNTRACKED_CACHE = "untrackedcache";
+
+	/**
+	 * The "core.fsmonitor" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_FSMONITOR = "fsmonitor";
+
+	/**
+	 * The "core.splitIndex" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_SPLIT_INDEX = "splitindex";
+
+	/**
+	 * The "splitIndex" section
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_SPLIT_INDEX_SECTION = "splitIndex";
+
+	/**
+	 * The "splitIndex.maxPercentChange" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_MAX_PERCENT_CHANGE = "maxpercentchange";
+
+	/**
+	 * The "splitIndex.sharedIndexExpire" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_SHARED_INDEX_EXPIRE = "sharedindexexpire";
+
+	/**
+	 * The "index.recordEndOfIndexEntries" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_RECORD_END_OF_INDEX_ENTRIES = "recordendofindexentries";
+
+	/**
+	 * The "index.recordOffsetTable" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_RECORD_OFFSET_TABLE = "recordoffsettable";
+
+	/**
+	 * The "index.skipHash" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_SKIP_HASH = "skiphash";
+
+	/**
+	 * The "checkout" section
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_CHECKOUT_SECTION = "checkout";
+
+	/**
+	 * The "checkout.workers" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_WORKERS = "workers";
+
+	/**
+	 * The "checkout.thresholdForParallelism" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_THRESHOLD_FOR_PARALLELISM = "thresholdforparallelism";
+
+	/**
+	 * The "core.sparseCheckout" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_SPARSE_CHECKOUT = "sparsecheckout";
+
+	/**
+	 * The "core.sparseCheckoutCone" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_SPARSE_CHECKOUT_CONE = "sparsecheckoutcone";
+
+	/**
+	 * The "index.sparse" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_SPARSE = "sparse";
+
+	/**
+	 * The "extensions.worktreeConfig" key
+	 *
+	 * @since 5.14
+	 */
+	public static final String CONFIG_KEY_WORKTREE_CONFIG = "worktreeconfig";
+
 }
@@ -292,6 +292,13 @@ public final class Constants {
 	 */
 	public static final String INFO_ATTRIBUTES = "info/attributes";
 
+	/**
+	 * Sparse-checkout-file
+	 *
+	 * @since 5.14
+	 */
+	public static final String INFO_SPARSE_CHECKOUT = "info/sparse-checkout";
+
 	/**
 	 * The system property that contains the system user name
 	 *
@@ -18,6 +18,7 @@
 import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
 
 import org.openrewrite.jgit.lib.Config.SectionParser;
+import org.openrewrite.jgit.util.StringUtils;
 
 /**
  * This class keeps git repository core parameters.
@@ -126,6 +127,8 @@ public enum LogRefUpdates {
 
 	private final String attributesfile;
 
+	private final boolean fsMonitor;
+
 	/**
 	 * Options for symlink handling
 	 *
@@ -167,6 +170,10 @@ private CoreConfig(Config rc) {
 				ConfigConstants.CONFIG_KEY_EXCLUDESFILE);
 		attributesfile = rc.getString(ConfigConstants.CONFIG_CORE_SECTION,
 				null, ConfigConstants.CONFIG_KEY_ATTRIBUTESFILE);
+		// C Git also accepts the path of a hook, hooks are not supported.
+		fsMonitor = Boolean.TRUE.equals(StringUtils.toBooleanOrNull(
+				rc.getString(ConfigConstants.CONFIG_CORE_SECTION, null,
+						ConfigConstants.CONFIG_KEY_FSMONITOR)));
 	}
 
 	/**
@@ -219,4 +226,15 @@ public String getExcludesFile() {
 	public String getAttributesFile() {
 		return attributesfile;
 	}
+
+	/**
+	 * Whether the working tree is examined with the help of the
+	 * {@link FileSystemMonitor}
+	 *
+	 * @return whether {@code core.fsmonitor} is {@code true}
+	 * @since 5.14
+	 */
+	public boolean isFsMonitor() {
+		return fsMonitor;
+	}
 }
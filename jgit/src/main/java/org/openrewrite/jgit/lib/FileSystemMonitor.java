@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.lib;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.openrewrite.jgit.annotations.NonNull;
+import org.openrewrite.jgit.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the paths of a working tree modified since a point in time.
+ * <p>
+ * Commands comparing the index with the working tree use a monitor to
+ * examine only the paths that may have changed since they last ran. Points in
+ * time are identified by opaque tokens. A token returned by
+ * {@link #query(Repository, String)} is stored in the {@code FSMN} extension
+ * of the index and passed to the next query.
+ * <p>
+ * Monitors are used if {@code core.fsmonitor} is {@code true}. If no
+ * implementation is registered with the {@link ServiceLoader} or set with
+ * {@link #setDefault(FileSystemMonitor)}, working trees are watched by a
+ * {@link java.nio.file.WatchService} of the running JVM.
+ *
+ * @since 5.14
+ */
+public abstract class FileSystemMonitor {
+	private static final Logger LOG = LoggerFactory
+			.getLogger(FileSystemMonitor.class);
+
+	private static volatile FileSystemMonitor defaultMonitor = loadMonitor();
+
+	private static FileSystemMonitor loadMonitor() {
+		try {
+			ServiceLoader<FileSystemMonitor> loader = ServiceLoader
+					.load(FileSystemMonitor.class);
+			Iterator<FileSystemMonitor> iter = loader.iterator();
+			if (iter.hasNext()) {
+				return iter.next();
+			}
+		} catch (ServiceConfigurationError e) {
+			LOG.error(e.getMessage(), e);
+		}
+		return null;
+	}
+
+	/**
+	 * Get the default monitor.
+	 *
+	 * @return the default monitor; the monitor based on
+	 *         {@link java.nio.file.WatchService} if none was set.
+	 */
+	@NonNull
+	public static FileSystemMonitor getDefault() {
+		FileSystemMonitor m = defaultMonitor;
+		if (m == null) {
+			synchronized (FileSystemMonitor.class) {
+				if (defaultMonitor == null)
+					defaultMonitor = new WatchServiceFileSystemMonitor();
+				m = defaultMonitor;
+			}
+		}
+		return m;
+	}
+
+	/**
+	 * Set the default monitor.
+	 *
+	 * @param monitor
+	 *            the new default monitor, may be <code>null</code> to select
+	 *            the monitor based on {@link java.nio.file.WatchService}.
+	 */
+	public static void setDefault(FileSystemMonitor monitor) {
+		FileSystemMonitor.defaultMonitor = monitor;
+	}
+
+	/**
+	 * Get the paths of the working tree of a repository modified since a
+	 * token was returned.
+	 * <p>
+	 * Paths are relative to the working tree and use '/' as separator. A
+	 * reported path stands for the file or symbolic link of that name and,
+	 * if it is a directory, for everything below it. A monitor unable to tell
+	 * what changed, for example because it does not know the token, reports
+	 * everything as modified.
+	 *
+	 * @param repo
+	 *            the repository with a working tree.
+	 * @param token
+	 *            token returned by an earlier query, null to only obtain a
+	 *            token.
+	 * @return the new token and the modified paths.
+	 * @throws java.io.IOException
+	 *             the working tree could not be watched.
+	 */
+	@NonNull
+	public abstract Changes query(Repository repo, @Nullable String token)
+			throws IOException;
+
+	/** The paths modified since a token was returned. */
+	public static class Changes {
+		private final String token;
+
+		private final Collection<String> paths;
+
+		/**
+		 * Create the result of a query.
+		 *
+		 * @param token
+		 *            token identifying the current point in time. Changes
+		 *            made after the query started must be reported by the
+		 *            next query passing this token.
+		 * @param paths
+		 *            the modified paths; null if everything may have been
+		 *            modified.
+		 */
+		public Changes(@NonNull String token,
+				@Nullable Collection<String> paths) {
+			this.token = token;
+			this.paths = paths;
+		}
+
+		/**
+		 * Get the token to pass to the next query.
+		 *
+		 * @return the token to pass to the next query.
+		 */
+		@NonNull
+		public String getToken() {
+			return token;
+		}
+
+		/**
+		 * Get the modified paths.
+		 *
+		 * @return the modified paths; null if everything may have been
+		 *         modified.
+		 */
+		@Nullable
+		public Collection<String> getPaths() {
+			return paths;
+		}
+	}
+}
@@ -16,6 +16,7 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.DirectoryIteratorException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
@@ -25,17 +26,24 @@
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
 
 import org.openrewrite.jgit.dircache.DirCache;
 import org.openrewrite.jgit.dircache.DirCacheEntry;
 import org.openrewrite.jgit.dircache.DirCacheIterator;
+import org.openrewrite.jgit.dircache.DirCacheTree;
+import org.openrewrite.jgit.dircache.UntrackedCache;
 import org.openrewrite.jgit.errors.ConfigInvalidException;
 import org.openrewrite.jgit.errors.IncorrectObjectTypeException;
 import org.openrewrite.jgit.errors.MissingObjectException;
 import org.openrewrite.jgit.errors.StopWalkException;
 import org.openrewrite.jgit.internal.JGitText;
+import org.openrewrite.jgit.lib.internal.ParallelTasks;
 import org.openrewrite.jgit.revwalk.RevWalk;
 import org.openrewrite.jgit.submodule.SubmoduleWalk;
 import org.openrewrite.jgit.submodule.SubmoduleWalk.IgnoreSubmoduleMode;
@@ -47,8 +55,12 @@
 import org.openrewrite.jgit.treewalk.WorkingTreeIterator;
 import org.openrewrite.jgit.treewalk.filter.AndTreeFilter;
 import org.openrewrite.jgit.treewalk.filter.IndexDiffFilter;
+import org.openrewrite.jgit.treewalk.filter.PathFilterGroup;
 import org.openrewrite.jgit.treewalk.filter.SkipWorkTreeFilter;
 import org.openrewrite.jgit.treewalk.filter.TreeFilter;
+import org.openrewrite.jgit.util.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Compares the index, a tree, and the working directory Ignored files are not
@@ -65,6 +77,7 @@
  * </ul>
  */
 public class IndexDiff {
+	private static final Logger LOG = LoggerFactory.getLogger(IndexDiff.class);
 
 	/**
 	 * Represents the state of the index for a certain path regarding the stages
@@ -216,6 +229,9 @@ public TreeFilter clone() {
 
 	private static final int WORKDIR = 2;
 
+	/** Number of groups of top level entries to create for each thread. */
+	private static final int PARTS_PER_THREAD = 4;
+
 	private final Repository repository;
 
 	private final AnyObjectId tree;
@@ -246,8 +262,22 @@ public TreeFilter clone() {
 
 	private DirCache dirCache;
 
+	private UntrackedCache untrackedCache;
+
+	/** Whether the file system monitor data of {@link #dirCache} is used. */
+	private boolean fsMonitor;
+
+	/** Whether the file system monitor told which paths were modified. */
+	private boolean fsMonitorValid;
+
 	private IndexDiffFilter indexDiffFilter;
 
+	private Set<String> untrackedFolders;
+
+	private int parallelism = 1;
+
+	private boolean collectIgnored = true;
+
 	private Map<String, IndexDiff> submoduleIndexDiffs = new HashMap<>();
 
 	private IgnoreSubmoduleMode ignoreSubmoduleMode = null;
@@ -295,6 +325,31 @@ public IndexDiff(Repository repository, ObjectId objectId,
 		this.initialWorkingTreeIterator = workingTreeIterator;
 	}
 
+	/**
+	 * Create the diff of a group of top level entries of a parallel diff.
+	 *
+	 * @param parent
+	 *            the diff being computed in parallel.
+	 * @param workingTreeIterator
+	 *            iterator for the working directory of this group.
+	 * @param scope
+	 *            filter selecting the top level entries of this group.
+	 */
+	private IndexDiff(IndexDiff parent, WorkingTreeIterator workingTreeIterator,
+			TreeFilter scope) {
+		this.repository = parent.repository;
+		this.tree = parent.tree;
+		this.initialWorkingTreeIterator = workingTreeIterator;
+		this.dirCache = parent.dirCache;
+		this.untrackedCache = parent.untrackedCache;
+		this.fsMonitorValid = parent.fsMonitorValid;
+		this.ignoreSubmoduleMode = parent.ignoreSubmoduleMode;
+		if (parent.filter != null)
+			this.filter = AndTreeFilter.create(parent.filter.clone(), scope);
+		else
+			this.filter = scope;
+	}
+
 	/**
 	 * Defines how modifications in submodules are treated
 	 *
@@ -342,6 +397,41 @@ public void setFilter(TreeFilter filter) {
 		this.filter = filter;
 	}
 
+	/**
+	 * Set the number of threads comparing the index and working directory.
+	 * <p>
+	 * With more than one thread the top level entries of the repository are
+	 * split into groups holding about the same number of index entries, and
+	 * the groups are compared concurrently. The working directory of each
+	 * group is read by an iterator obtained from the
+	 * {@link WorkingTreeIteratorFactory}, not by the iterator passed to the
+	 * constructor. The default is 1, comparing everything on the calling
+	 * thread.
+	 *
+	 * @param threads
+	 *            number of threads to use.
+	 * @since 5.14
+	 */
+	public void setParallelism(int threads) {
+		this.parallelism = threads;
+	}
+
+	/**
+	 * Set whether the ignored files are collected.
+	 * <p>
+	 * The untracked cache of the index does not remember ignored files. Like
+	 * C Git, the cache is therefore only used if ignored files are not
+	 * collected. {@link #getIgnoredNotInIndex()} is then empty. The default
+	 * is true.
+	 *
+	 * @param collect
+	 *            whether to collect the ignored files.
+	 * @since 5.14
+	 */
+	public void setCollectIgnored(boolean collect) {
+		this.collectIgnored = collect;
+	}
+
 	/**
 	 * Run the diff operation. Until this is called, all lists will be empty.
 	 * Use {@link #diff(ProgressMonitor, int, int, String)} if a progress
@@ -442,7 +532,220 @@ public boolean diff(ProgressMonitor monitor, int estWorkTreeSize,
 			int estIndexSize, String title, RepositoryBuilderFactory factory)
 			throws IOException {
 		dirCache = repository.readDirCache();
+		untrackedCache = untrackedCache();
+		String fsMonitorToken = dirCache.getFsMonitorToken();
+		refreshFsMonitor();
+
+		int total = 0;
+		if (monitor != null) {
+			// Get the maximum size of the work tree and index
+			// and add some (quite arbitrary)
+			if (estIndexSize == 0)
+				estIndexSize = dirCache.getEntryCount();
+			total = Math.max(estIndexSize * 10 / 9, estWorkTreeSize * 10 / 9);
+			monitor.beginTask(title, total);
+		}
+
+		fileModes.clear();
+		if (parallelism > 1)
+			walkParallel(monitor, total);
+		else
+			walk(monitor, total);
+		if (!collectIgnored)
+			ignored = new HashSet<>();
+		boolean fsMonitorChanged = fsMonitor
+				&& (markFsMonitorValid() || !Objects.equals(fsMonitorToken,
+						dirCache.getFsMonitorToken()));
+		if (fsMonitorChanged
+				|| (untrackedCache != null && untrackedCache.isDirty()))
+			writeIndex();
+
+		if (ignoreSubmoduleMode != IgnoreSubmoduleMode.ALL) {
+			try (SubmoduleWalk smw = new SubmoduleWalk(repository)) {
+				smw.setTree(new DirCacheIterator(dirCache));
+				smw.setBuilderFactory(factory);
+				while (smw.next()) {
+					IgnoreSubmoduleMode localIgnoreSubmoduleMode = ignoreSubmoduleMode;
+					try {
+						if (localIgnoreSubmoduleMode == null)
+							localIgnoreSubmoduleMode = smw.getModulesIgnore();
+						if (IgnoreSubmoduleMode.ALL
+								.equals(localIgnoreSubmoduleMode))
+							continue;
+					} catch (ConfigInvalidException e) {
+						throw new IOException(MessageFormat.format(
+								JGitText.get().invalidIgnoreParamSubmodule,
+								smw.getPath()), e);
+					}
+					try (Repository subRepo = smw.getRepository()) {
+						String subRepoPath = smw.getPath();
+						if (subRepo != null) {
+							ObjectId subHead = subRepo.resolve("HEAD"); //$NON-NLS-1$
+							if (subHead != null
+									&& !subHead.equals(smw.getObjectId())) {
+								modified.add(subRepoPath);
+								recordFileMode(subRepoPath, FileMode.GITLINK);
+							} else if (localIgnoreSubmoduleMode != IgnoreSubmoduleMode.DIRTY) {
+								IndexDiff smid = submoduleIndexDiffs
+										.get(smw.getPath());
+								if (smid == null) {
+									smid = new IndexDiff(subRepo,
+											smw.getObjectId(),
+											wTreeIt.getWorkingTreeIterator(
+													subRepo));
+									submoduleIndexDiffs.put(subRepoPath, smid);
+								}
+								if (smid.diff(factory)) {
+									if (localIgnoreSubmoduleMode == IgnoreSubmoduleMode.UNTRACKED
+											&& smid.getAdded().isEmpty()
+											&& smid.getChanged().isEmpty()
+											&& smid.getConflicting().isEmpty()
+											&& smid.getMissing().isEmpty()
+											&& smid.getModified().isEmpty()
+											&& smid.getRemoved().isEmpty()) {
+										continue;
+									}
+									modified.add(subRepoPath);
+									recordFileMode(subRepoPath,
+											FileMode.GITLINK);
+								}
+							}
+						} else if (missingSubmodules.remove(subRepoPath)) {
+							// If the directory is there and empty but the
+							// submodule repository in .git/modules doesn't
+							// exist yet it isn't "missing".
+							File gitDir = new File(
+									new File(repository.getDirectory(),
+											Constants.MODULES),
+									subRepoPath);
+							if (!gitDir.isDirectory()) {
+								File dir = SubmoduleWalk.getSubmoduleDirectory(
+										repository, subRepoPath);
+								if (dir.isDirectory() && !hasFiles(dir)) {
+									missing.remove(subRepoPath);
+								}
+							}
+						}
+					}
+				}
+			}
+
+		}
+
+		// consume the remaining work
+		if (monitor != null) {
+			monitor.endTask();
+		}
+
+		if (added.isEmpty() && changed.isEmpty() && removed.isEmpty()
+				&& missing.isEmpty() && modified.isEmpty()
+				&& untracked.isEmpty()) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get the untracked cache to use, as configured by
+	 * {@code core.untrackedCache}: {@code true} creates the cache if the
+	 * index has none, {@code false} ignores it, and {@code keep}, the default,
+	 * uses it if the index has one. The cache is only used with the default
+	 * working tree iterator, and if ignored files are not collected.
+	 */
+	private UntrackedCache untrackedCache() throws IOException {
+		if (collectIgnored
+				|| initialWorkingTreeIterator.getClass() != FileTreeIterator.class)
+			return null;
+		Boolean use = StringUtils.toBooleanOrNull(repository.getConfig()
+				.getString(ConfigConstants.CONFIG_CORE_SECTION, null,
+						ConfigConstants.CONFIG_KEY_UNTRACKED_CACHE));
+		if (use != null && !use.booleanValue())
+			return null;
+		UntrackedCache uc = dirCache.getUntrackedCache(use != null);
+		if (uc != null)
+			uc.prepare(repository);
+		return uc;
+	}
+
+	/**
+	 * Query the file system monitor if {@code core.fsmonitor} is
+	 * {@code true}. Like the untracked cache the monitor is only used with the
+	 * default working tree iterator.
+	 */
+	private void refreshFsMonitor() throws IOException {
+		fsMonitor = false;
+		fsMonitorValid = false;
+		if (initialWorkingTreeIterator.getClass() != FileTreeIterator.class)
+			return;
+		if (!repository.getConfig().get(CoreConfig.KEY).isFsMonitor())
+			return;
+		fsMonitor = true;
+		fsMonitorValid = dirCache.refreshFsMonitor(repository,
+				FileSystemMonitor.getDefault());
+	}
 
+	/**
+	 * Mark the entries found to be unmodified as valid. Entries outside of
+	 * the filter were not compared, all entries are left alone if a filter
+	 * is set.
+	 *
+	 * @return whether an entry changed.
+	 */
+	private boolean markFsMonitorValid() {
+		if (filter != null)
+			return false;
+		boolean examine = !modified.isEmpty() || !missing.isEmpty();
+		boolean changed = false;
+		for (int i = 0; i < dirCache.getEntryCount(); i++) {
+			DirCacheEntry e = dirCache.getEntry(i);
+			boolean valid = e.getStage() == DirCacheEntry.STAGE_0
+					&& !e.isAssumeValid() && !e.isSkipWorkTree()
+					&& (e.getRawMode()
+							& FileMode.TYPE_MASK) != FileMode.TYPE_GITLINK;
+			if (valid && examine) {
+				String path = e.getPathString();
+				valid = !modified.contains(path) && !missing.contains(path);
+			}
+			if (valid != e.isFsMonitorValid()) {
+				e.setFsMonitorValid(valid);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Store the updated untracked cache and file system monitor data, if the
+	 * index can be locked and did not change since it was read. Like C Git
+	 * this is done opportunistically, failures are only logged. Extensions
+	 * of the index not understood by JGit are written back unchanged.
+	 */
+	private void writeIndex() {
+		try {
+			if (!dirCache.lock())
+				return;
+			try {
+				if (!dirCache.isOutdated()) {
+					dirCache.write();
+					dirCache.commit();
+				}
+			} finally {
+				dirCache.unlock();
+			}
+		} catch (IOException e) {
+			// The cache is rebuilt by the next diff.
+			LOG.warn(e.getMessage(), e);
+		}
+	}
+
+	private void walk(ProgressMonitor monitor, int total) throws IOException {
+		if (initialWorkingTreeIterator.getClass() == FileTreeIterator.class) {
+			FileTreeIterator it = (FileTreeIterator) initialWorkingTreeIterator;
+			if (fsMonitorValid)
+				it.setFsMonitorIndex(dirCache);
+			if (untrackedCache != null)
+				it.setUntrackedCache(untrackedCache);
+		}
 		try (TreeWalk treeWalk = new TreeWalk(repository)) {
 			treeWalk.setOperationType(OperationType.CHECKIN_OP);
 			treeWalk.setRecursive(true);
@@ -456,16 +759,8 @@ public boolean diff(ProgressMonitor monitor, int estWorkTreeSize,
 			initialWorkingTreeIterator.setDirCacheIterator(treeWalk, 1);
 			Collection<TreeFilter> filters = new ArrayList<>(4);
 
-			if (monitor != null) {
-				// Get the maximum size of the work tree and index
-				// and add some (quite arbitrary)
-				if (estIndexSize == 0)
-					estIndexSize = dirCache.getEntryCount();
-				int total = Math.max(estIndexSize * 10 / 9,
-						estWorkTreeSize * 10 / 9);
-				monitor.beginTask(title, total);
+			if (monitor != null)
 				filters.add(new ProgressReportingFilter(monitor, total));
-			}
 
 			if (filter != null)
 				filters.add(filter);
@@ -473,7 +768,6 @@ public boolean diff(ProgressMonitor monitor, int estWorkTreeSize,
 			indexDiffFilter = new IndexDiffFilter(INDEX, WORKDIR);
 			filters.add(indexDiffFilter);
 			treeWalk.setFilter(AndTreeFilter.create(filters));
-			fileModes.clear();
 			while (treeWalk.next()) {
 				AbstractTreeIterator treeIterator = treeWalk.getTree(TREE,
 						AbstractTreeIterator.class);
@@ -564,91 +858,140 @@ public boolean diff(ProgressMonitor monitor, int estWorkTreeSize,
 				}
 			}
 		}
+		ignored = indexDiffFilter.getIgnoredPaths();
+		untrackedFolders = new HashSet<>(indexDiffFilter.getUntrackedFolders());
+	}
 
-		if (ignoreSubmoduleMode != IgnoreSubmoduleMode.ALL) {
-			try (SubmoduleWalk smw = new SubmoduleWalk(repository)) {
-				smw.setTree(new DirCacheIterator(dirCache));
-				smw.setBuilderFactory(factory);
-				while (smw.next()) {
-					IgnoreSubmoduleMode localIgnoreSubmoduleMode = ignoreSubmoduleMode;
-					try {
-						if (localIgnoreSubmoduleMode == null)
-							localIgnoreSubmoduleMode = smw.getModulesIgnore();
-						if (IgnoreSubmoduleMode.ALL
-								.equals(localIgnoreSubmoduleMode))
-							continue;
-					} catch (ConfigInvalidException e) {
-						throw new IOException(MessageFormat.format(
-								JGitText.get().invalidIgnoreParamSubmodule,
-								smw.getPath()), e);
-					}
-					try (Repository subRepo = smw.getRepository()) {
-						String subRepoPath = smw.getPath();
-						if (subRepo != null) {
-							ObjectId subHead = subRepo.resolve("HEAD"); //$NON-NLS-1$
-							if (subHead != null
-									&& !subHead.equals(smw.getObjectId())) {
-								modified.add(subRepoPath);
-								recordFileMode(subRepoPath, FileMode.GITLINK);
-							} else if (localIgnoreSubmoduleMode != IgnoreSubmoduleMode.DIRTY) {
-								IndexDiff smid = submoduleIndexDiffs
-										.get(smw.getPath());
-								if (smid == null) {
-									smid = new IndexDiff(subRepo,
-											smw.getObjectId(),
-											wTreeIt.getWorkingTreeIterator(
-													subRepo));
-									submoduleIndexDiffs.put(subRepoPath, smid);
-								}
-								if (smid.diff(factory)) {
-									if (localIgnoreSubmoduleMode == IgnoreSubmoduleMode.UNTRACKED
-											&& smid.getAdded().isEmpty()
-											&& smid.getChanged().isEmpty()
-											&& smid.getConflicting().isEmpty()
-											&& smid.getMissing().isEmpty()
-											&& smid.getModified().isEmpty()
-											&& smid.getRemoved().isEmpty()) {
-										continue;
-									}
-									modified.add(subRepoPath);
-									recordFileMode(subRepoPath,
-											FileMode.GITLINK);
-								}
-							}
-						} else if (missingSubmodules.remove(subRepoPath)) {
-							// If the directory is there and empty but the
-							// submodule repository in .git/modules doesn't
-							// exist yet it isn't "missing".
-							File gitDir = new File(
-									new File(repository.getDirectory(),
-											Constants.MODULES),
-									subRepoPath);
-							if (!gitDir.isDirectory()) {
-								File dir = SubmoduleWalk.getSubmoduleDirectory(
-										repository, subRepoPath);
-								if (dir.isDirectory() && !hasFiles(dir)) {
-									missing.remove(subRepoPath);
-								}
-							}
-						}
-					}
-				}
+	private void walkParallel(ProgressMonitor monitor, int total)
+			throws IOException {
+		List<TreeFilter> parts = partition(parallelism * PARTS_PER_THREAD);
+		if (parts.size() < 2) {
+			walk(monitor, total);
+			return;
+		}
+
+		ThreadSafeProgressMonitor pm = null;
+		if (monitor != null)
+			pm = new ThreadSafeProgressMonitor(monitor);
+		List<IndexDiff> diffs = new ArrayList<>(parts.size());
+		for (TreeFilter part : parts)
+			diffs.add(new IndexDiff(this,
+					wTreeIt.getWorkingTreeIterator(repository), part));
+
+		Executor pool = ParallelTasks.limit(ParallelTasks.getExecutor(),
+				Math.min(parallelism, diffs.size()));
+		List<Future<?>> futures = new ArrayList<>(diffs.size());
+		boolean ok = false;
+		try {
+			if (pm != null)
+				pm.startWorkers(diffs.size());
+			for (IndexDiff d : diffs) {
+				ThreadSafeProgressMonitor m = pm;
+				futures.add(ParallelTasks.submit(pool,
+						() -> walkPart(d, m, total)));
+			}
+			if (pm != null) {
+				ParallelTasks.help(futures);
+				pm.waitForCompletion();
 			}
+			ParallelTasks.getAll(futures);
+			ok = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} finally {
+			if (!ok)
+				ParallelTasks.cancel(futures);
+		}
+
+		ignored = new HashSet<>();
+		untrackedFolders = new HashSet<>();
+		for (IndexDiff d : diffs)
+			merge(d);
+	}
 
+	private static Void walkPart(IndexDiff d, ThreadSafeProgressMonitor pm,
+			int total) throws IOException {
+		try {
+			d.walk(pm, total);
+		} finally {
+			if (pm != null)
+				pm.endWorker();
 		}
+		return null;
+	}
 
-		// consume the remaining work
-		if (monitor != null) {
-			monitor.endTask();
+	private List<TreeFilter> partition(int maxParts) throws IOException {
+		// Weigh every top level directory by its number of index entries,
+		// any other top level entry counts as a single entry.
+		Map<String, Integer> spans = new HashMap<>();
+		DirCacheTree root = dirCache.getCacheTree(true);
+		for (int i = 0; i < root.getChildCount(); i++) {
+			DirCacheTree child = root.getChild(i);
+			spans.put(child.getNameString(),
+					Integer.valueOf(child.getEntrySpan()));
 		}
 
-		ignored = indexDiffFilter.getIgnoredPaths();
-		if (added.isEmpty() && changed.isEmpty() && removed.isEmpty()
-				&& missing.isEmpty() && modified.isEmpty()
-				&& untracked.isEmpty()) {
-			return false;
+		List<String> names = new ArrayList<>();
+		try (TreeWalk treeWalk = new TreeWalk(repository)) {
+			treeWalk.setOperationType(OperationType.CHECKIN_OP);
+			if (tree != null)
+				treeWalk.addTree(tree);
+			else
+				treeWalk.addTree(new EmptyTreeIterator());
+			treeWalk.addTree(new DirCacheIterator(dirCache));
+			treeWalk.addTree(wTreeIt.getWorkingTreeIterator(repository));
+			while (treeWalk.next())
+				names.add(treeWalk.getPathString());
 		}
-		return true;
+
+		// Place the heaviest entries first, each into the lightest group.
+		Collections.sort(names, (a, b) -> Integer.compare(weight(spans, b),
+				weight(spans, a)));
+		int cnt = Math.min(maxParts, names.size());
+		List<List<String>> groups = new ArrayList<>(cnt);
+		long[] load = new long[cnt];
+		for (int i = 0; i < cnt; i++)
+			groups.add(new ArrayList<>());
+		for (String name : names) {
+			int min = 0;
+			for (int i = 1; i < cnt; i++) {
+				if (load[i] < load[min])
+					min = i;
+			}
+			groups.get(min).add(name);
+			load[min] += weight(spans, name);
+		}
+
+		List<TreeFilter> parts = new ArrayList<>(cnt);
+		for (List<String> group : groups)
+			parts.add(PathFilterGroup.createFromStrings(group));
+		return parts;
+	}
+
+	private static int weight(Map<String, Integer> spans, String name) {
+		Integer span = spans.get(name);
+		return span != null ? span.intValue() : 1;
+	}
+
+	private void merge(IndexDiff part) {
+		added.addAll(part.added);
+		changed.addAll(part.changed);
+		removed.addAll(part.removed);
+		missing.addAll(part.missing);
+		missingSubmodules.addAll(part.missingSubmodules);
+		modified.addAll(part.modified);
+		untracked.addAll(part.untracked);
+		conflicts.putAll(part.conflicts);
+		for (Map.Entry<FileMode, Set<String>> e : part.fileModes.entrySet()) {
+			Set<String> values = fileModes.get(e.getKey());
+			if (values == null)
+				fileModes.put(e.getKey(), e.getValue());
+			else
+				values.addAll(e.getValue());
+		}
+		ignored.addAll(part.ignored);
+		untrackedFolders.addAll(part.untrackedFolders);
 	}
 
 	private boolean hasFiles(File directory) {
@@ -801,8 +1144,8 @@ public Set<String> getAssumeUnchanged() {
 	 * @return list of folders containing only untracked files/folders
 	 */
 	public Set<String> getUntrackedFolders() {
-		return ((indexDiffFilter == null) ? Collections.<String> emptySet()
-				: new HashSet<>(indexDiffFilter.getUntrackedFolders()));
+		return ((untrackedFolders == null) ? Collections.<String> emptySet()
+				: new HashSet<>(untrackedFolders));
 	}
 
 	/**
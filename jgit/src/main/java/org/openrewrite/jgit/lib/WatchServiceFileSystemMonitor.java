@@ -0,0 +1,341 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.lib;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openrewrite.jgit.util.LRUMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Monitor watching working trees with a {@link WatchService}.
+ * <p>
+ * The first query of a working tree registers all its directories and starts
+ * a thread journaling the events of the watch service. Tokens are positions
+ * in the journal, they are only known to the JVM which returned them. Before
+ * answering a query a cookie file is created in the repository and the
+ * monitor waits until the event of the cookie arrived, so that all
+ * modifications made before the query are reported.
+ * <p>
+ * If the watch service overflows, or the working tree cannot be watched,
+ * everything is reported as modified. A watch service not delivering the
+ * cookie in time, like the polling implementation of some platforms, is
+ * closed, and the working tree is only watched again by a query a minute
+ * later. At most {@value #MAX_WATCHERS} working trees are watched; the
+ * watcher of the working tree queried least recently is closed when another
+ * one is needed.
+ */
+class WatchServiceFileSystemMonitor extends FileSystemMonitor {
+	private static final Logger LOG = LoggerFactory
+			.getLogger(WatchServiceFileSystemMonitor.class);
+
+	/** Directory of the repository cookie files are created in. */
+	private static final String COOKIE_DIR = "fsmonitor--jgit"; //$NON-NLS-1$
+
+	/** Time to wait for the event of a cookie file. */
+	private static final long FLUSH_TIMEOUT_MILLIS = 2000;
+
+	/** Maximum number of modifications journaled for a working tree. */
+	private static final int MAX_JOURNAL = 100_000;
+
+	/**
+	 * Maximum number of working trees watched at once; the least recently
+	 * queried ones are no longer watched.
+	 */
+	private static final int MAX_WATCHERS = 32;
+
+	/** Time after which a working tree which could not be watched is retried. */
+	private static final long RETRY_MILLIS = 60_000;
+
+	private static class WatcherMap extends LRUMap<Path, Watcher> {
+		private static final long serialVersionUID = 1L;
+
+		WatcherMap() {
+			super(16, MAX_WATCHERS);
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Path, Watcher> eldest) {
+			if (!super.removeEldestEntry(eldest))
+				return false;
+			eldest.getValue().close();
+			return true;
+		}
+	}
+
+	private final Map<Path, Watcher> watchers = new WatcherMap();
+
+	@Override
+	public Changes query(Repository repo, String token) throws IOException {
+		Path workTree = repo.getWorkTree().toPath().toRealPath();
+		Watcher w;
+		synchronized (watchers) {
+			w = watchers.get(workTree);
+			if (w == null || w.canRetry()) {
+				w = new Watcher(workTree,
+						new File(repo.getDirectory(), COOKIE_DIR).toPath());
+				watchers.put(workTree, w);
+			}
+		}
+		return w.query(token);
+	}
+
+	private static final class Watcher implements Runnable {
+		private final Path workTree;
+
+		private final Path cookies;
+
+		/** Prefix of the tokens and cookie names of this watcher. */
+		private final String id;
+
+		private final Map<WatchKey, Path> dirs = new ConcurrentHashMap<>();
+
+		private WatchService ws;
+
+		private WatchKey cookieKey;
+
+		/** Number of journaled events, including the lost ones. */
+		private long seq;
+
+		/** Value of {@link #seq} before the first event in the journal. */
+		private long base;
+
+		private final List<String> journal = new ArrayList<>();
+
+		private int nextCookie;
+
+		private int lastCookie;
+
+		private boolean broken;
+
+		/** Time {@link #broken} was set at. */
+		private long brokenAt;
+
+		Watcher(Path workTree, Path cookies) {
+			this.workTree = workTree;
+			this.cookies = cookies;
+			this.id = "jgit:" //$NON-NLS-1$
+					+ Long.toHexString(ThreadLocalRandom.current().nextLong())
+					+ ':';
+			try {
+				ws = workTree.getFileSystem().newWatchService();
+				Files.createDirectories(cookies);
+				cookieKey = cookies.register(ws, ENTRY_CREATE);
+				register(workTree);
+			} catch (IOException e) {
+				LOG.warn(e.getMessage(), e);
+				close();
+				return;
+			}
+			Thread t = new Thread(this, "JGit-FileSystemMonitor"); //$NON-NLS-1$
+			t.setDaemon(true);
+			t.start();
+		}
+
+		Changes query(String token) throws IOException {
+			boolean flushed = flush();
+			synchronized (this) {
+				Collection<String> paths = null;
+				if (flushed && token != null && token.startsWith(id)) {
+					long t = parse(token.substring(id.length()));
+					if (base <= t && t <= seq)
+						paths = new HashSet<>(journal
+								.subList((int) (t - base), journal.size()));
+				}
+				return new Changes(id + seq, paths);
+			}
+		}
+
+		private static long parse(String s) {
+			try {
+				return Long.parseLong(s);
+			} catch (NumberFormatException e) {
+				return -1;
+			}
+		}
+
+		/** Wait until the events of all modifications made so far arrived. */
+		private boolean flush() throws IOException {
+			int cookie;
+			synchronized (this) {
+				if (broken)
+					return false;
+				cookie = ++nextCookie;
+			}
+			Path f = cookies.resolve(id.replace(':', '-') + cookie);
+			try {
+				Files.deleteIfExists(f);
+				Files.createFile(f);
+			} catch (IOException e) {
+				LOG.warn(e.getMessage(), e);
+				close();
+				return false;
+			}
+			try {
+				synchronized (this) {
+					long deadline = System.nanoTime() + TimeUnit.MILLISECONDS
+							.toNanos(FLUSH_TIMEOUT_MILLIS);
+					while (lastCookie < cookie && !broken) {
+						long wait = deadline - System.nanoTime();
+						if (wait <= 0) {
+							LOG.warn("Events of {} arrive too late, not watching it any further", //$NON-NLS-1$
+									workTree);
+							close();
+							break;
+						}
+						TimeUnit.NANOSECONDS.timedWait(this, wait);
+					}
+					return !broken;
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			} finally {
+				Files.deleteIfExists(f);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (;;) {
+					WatchKey key = ws.take();
+					Path dir = dirs.get(key);
+					for (WatchEvent<?> ev : key.pollEvents()) {
+						if (ev.kind() == OVERFLOW) {
+							overflow();
+						} else if (key == cookieKey) {
+							cookie(((Path) ev.context()).toString());
+						} else if (dir != null) {
+							Path p = dir.resolve((Path) ev.context());
+							if (ev.kind() == ENTRY_CREATE && Files.isDirectory(p,
+									LinkOption.NOFOLLOW_LINKS))
+								register(p);
+							modified(p);
+						}
+					}
+					if (!key.reset())
+						dirs.remove(key);
+				}
+			} catch (InterruptedException | ClosedWatchServiceException e) {
+				// Closed because it is not used any further.
+			} catch (IOException | RuntimeException e) {
+				LOG.warn(e.getMessage(), e);
+			}
+			close();
+		}
+
+		private void register(Path top) throws IOException {
+			Files.walkFileTree(top, new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path d,
+						BasicFileAttributes attrs) throws IOException {
+					if (!d.equals(workTree) && Constants.DOT_GIT
+							.equals(d.getFileName().toString()))
+						return FileVisitResult.SKIP_SUBTREE;
+					try {
+						dirs.put(d.register(ws, ENTRY_CREATE, ENTRY_DELETE,
+								ENTRY_MODIFY), d);
+					} catch (NoSuchFileException e) {
+						return FileVisitResult.SKIP_SUBTREE;
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path file,
+						IOException e) {
+					// Deleted while the tree is walked.
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+
+		private synchronized void modified(Path p) {
+			if (journal.size() == MAX_JOURNAL)
+				overflow();
+			StringBuilder path = new StringBuilder();
+			for (Path name : workTree.relativize(p)) {
+				if (path.length() > 0)
+					path.append('/');
+				path.append(name.toString());
+			}
+			journal.add(path.toString());
+			seq++;
+		}
+
+		private synchronized void overflow() {
+			// Tokens taken before the lost events are no longer known.
+			journal.clear();
+			base = ++seq;
+		}
+
+		private synchronized void cookie(String name) {
+			String prefix = id.replace(':', '-');
+			if (name.startsWith(prefix)) {
+				int n = (int) parse(name.substring(prefix.length()));
+				if (lastCookie < n) {
+					lastCookie = n;
+					notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Whether the watcher stopped watching long enough ago to try to
+		 * watch the working tree again.
+		 */
+		synchronized boolean canRetry() {
+			return broken
+					&& System.currentTimeMillis() - brokenAt >= RETRY_MILLIS;
+		}
+
+		synchronized void close() {
+			if (!broken)
+				brokenAt = System.currentTimeMillis();
+			broken = true;
+			notifyAll();
+			if (ws != null) {
+				try {
+					ws.close();
+				} catch (IOException e) {
+					// Ignore, the service is no longer used.
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.lib.internal;
+
+import java.util.ArrayDeque;
+
+import org.openrewrite.jgit.lib.ObjectReader;
+
+/**
+ * Readers for the tasks of an operation spread over several threads.
+ * <p>
+ * Readers are created from the reader of the operation with
+ * {@link ObjectReader#newReader()} when needed, and reused by later tasks
+ * once released. Such a reader may not see every object the reader of the
+ * operation sees, like those of an inserter not yet flushed.
+ *
+ * @since 5.14
+ */
+public class ObjectReaderPool implements AutoCloseable {
+	private final ObjectReader reader;
+
+	private final ArrayDeque<ObjectReader> idle = new ArrayDeque<>();
+
+	private boolean closed;
+
+	/**
+	 * Create a pool.
+	 *
+	 * @param reader
+	 *            reader of the operation the readers are created from.
+	 */
+	public ObjectReaderPool(ObjectReader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Get a reader for the current task.
+	 *
+	 * @return a reader, to be passed to {@link #release(ObjectReader)} once
+	 *         the task is done with it.
+	 */
+	public ObjectReader acquire() {
+		synchronized (this) {
+			ObjectReader or = idle.poll();
+			if (or != null)
+				return or;
+		}
+		return reader.newReader();
+	}
+
+	/**
+	 * Return a reader obtained from {@link #acquire()}.
+	 *
+	 * @param or
+	 *            the reader; closed if the pool was closed meanwhile.
+	 */
+	public void release(ObjectReader or) {
+		synchronized (this) {
+			if (!closed) {
+				idle.push(or);
+				return;
+			}
+		}
+		or.close();
+	}
+
+	/**
+	 * Close the idle readers. Readers still in use are closed when they are
+	 * released.
+	 */
+	@Override
+	public void close() {
+		ObjectReader[] toClose;
+		synchronized (this) {
+			closed = true;
+			toClose = idle.toArray(new ObjectReader[0]);
+			idle.clear();
+		}
+		for (ObjectReader or : toClose)
+			or.close();
+	}
+}
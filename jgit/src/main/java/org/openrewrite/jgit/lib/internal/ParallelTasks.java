@@ -0,0 +1,275 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.lib.internal;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks of an operation spreading its work over several threads.
+ * <p>
+ * Tasks are run on an executor given by the caller of the operation, or on
+ * a pool of daemon threads shared by all operations, whose idle threads end
+ * after a minute. {@link #limit(Executor, int)} bounds the number of tasks
+ * of an operation running at the same time. Waiting for a task with
+ * {@link #get(Future)} runs it on the waiting thread if the executor did not
+ * start it yet, so that an operation completes even if all threads of the
+ * executor are busy, or waiting themselves.
+ *
+ * @since 5.14
+ */
+public class ParallelTasks {
+	private static class Shared {
+		static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(0,
+				Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), new ThreadFactory() {
+					private final ThreadFactory baseFactory = Executors
+							.defaultThreadFactory();
+
+					private final AtomicInteger cnt = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable taskBody) {
+						Thread thr = baseFactory.newThread(taskBody);
+						thr.setName("JGit-Worker-" + cnt.incrementAndGet()); //$NON-NLS-1$
+						thr.setContextClassLoader(null);
+						thr.setDaemon(true);
+						return thr;
+					}
+				});
+	}
+
+	private ParallelTasks() {
+		// Static utility methods only.
+	}
+
+	/**
+	 * Get the executor shared by operations not given one by their caller.
+	 *
+	 * @return the shared executor.
+	 */
+	public static Executor getExecutor() {
+		return Shared.EXECUTOR;
+	}
+
+	/**
+	 * Limit the number of tasks running at the same time.
+	 *
+	 * @param executor
+	 *            executor to run the tasks on.
+	 * @param threads
+	 *            maximum number of tasks given to {@code executor} at the
+	 *            same time; further tasks wait in a queue.
+	 * @return executor running tasks on {@code executor}.
+	 */
+	public static Executor limit(Executor executor, int threads) {
+		return new LimitedExecutor(executor, Math.max(threads, 1));
+	}
+
+	/**
+	 * Start a task.
+	 *
+	 * @param executor
+	 *            executor to run the task on.
+	 * @param task
+	 *            the task.
+	 * @return the result of the task, to be taken with {@link #get(Future)}.
+	 */
+	public static <T> Future<T> submit(Executor executor, Callable<T> task) {
+		FutureTask<T> f = new FutureTask<>(task);
+		executor.execute(f);
+		return f;
+	}
+
+	/**
+	 * Run the tasks not yet started by their executor on the current thread.
+	 * <p>
+	 * A thread about to wait for tasks in some other way, like for a
+	 * progress monitor, calls this first so that the tasks cannot stall.
+	 *
+	 * @param futures
+	 *            tasks from {@link #submit(Executor, Callable)}.
+	 */
+	public static void help(Collection<? extends Future<?>> futures) {
+		for (Future<?> f : futures)
+			help(f);
+	}
+
+	private static void help(Future<?> f) {
+		// The run of a FutureTask does nothing once the task was started.
+		if (f instanceof FutureTask)
+			((FutureTask<?>) f).run();
+	}
+
+	/**
+	 * Wait for the result of a task, running it on the current thread if its
+	 * executor did not start it yet.
+	 *
+	 * @param f
+	 *            task from {@link #submit(Executor, Callable)}.
+	 * @return the result of the task.
+	 * @throws ExecutionException
+	 *             the task failed.
+	 * @throws InterruptedIOException
+	 *             the current thread was interrupted while waiting.
+	 */
+	public static <T> T await(Future<T> f)
+			throws ExecutionException, InterruptedIOException {
+		help(f);
+		try {
+			return f.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+
+	/**
+	 * Wait for the result of a task, like {@link #await(Future)}, throwing
+	 * the failure of the task as if it ran on the current thread.
+	 *
+	 * @param f
+	 *            task from {@link #submit(Executor, Callable)}.
+	 * @return the result of the task.
+	 * @throws IOException
+	 *             the task failed, or the current thread was interrupted.
+	 */
+	public static <T> T get(Future<T> f) throws IOException {
+		try {
+			return await(f);
+		} catch (ExecutionException e) {
+			throw rethrow(e);
+		}
+	}
+
+	/**
+	 * Wait for all tasks, like {@link #get(Future)}.
+	 *
+	 * @param futures
+	 *            tasks from {@link #submit(Executor, Callable)}.
+	 * @throws IOException
+	 *             a task failed, or the current thread was interrupted.
+	 */
+	public static void getAll(Collection<? extends Future<?>> futures)
+			throws IOException {
+		for (Future<?> f : futures)
+			get(f);
+	}
+
+	/**
+	 * Cancel tasks, interrupting those already running.
+	 *
+	 * @param futures
+	 *            tasks from {@link #submit(Executor, Callable)}.
+	 */
+	public static void cancel(Collection<? extends Future<?>> futures) {
+		for (Future<?> f : futures)
+			f.cancel(true);
+	}
+
+	/**
+	 * Throw the failure of a task as if the task ran on the current thread.
+	 *
+	 * @param e
+	 *            the failure.
+	 * @return the cause of the failure if it is an {@link IOException},
+	 *         otherwise an {@link IOException} caused by it, for the caller
+	 *         to throw. Errors and runtime exceptions are thrown directly.
+	 */
+	public static IOException rethrow(ExecutionException e) {
+		Throwable err = e.getCause();
+		if (err instanceof Error)
+			throw (Error) err;
+		if (err instanceof RuntimeException)
+			throw (RuntimeException) err;
+		if (err instanceof IOException)
+			return (IOException) err;
+		return new IOException(err.getMessage(), err);
+	}
+
+	private static final class LimitedExecutor implements Executor {
+		private final Executor executor;
+
+		private final int limit;
+
+		private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+
+		private int running;
+
+		LimitedExecutor(Executor executor, int limit) {
+			this.executor = executor;
+			this.limit = limit;
+		}
+
+		@Override
+		public void execute(Runnable task) {
+			synchronized (this) {
+				if (running == limit) {
+					queue.add(task);
+					return;
+				}
+				running++;
+			}
+			try {
+				executor.execute(() -> runAll(task));
+			} catch (RuntimeException | Error e) {
+				synchronized (this) {
+					running--;
+				}
+				throw e;
+			}
+		}
+
+		/** Run a task, then the queued tasks, on one thread. */
+		private void runAll(Runnable task) {
+			Runnable r = task;
+			boolean ok = false;
+			try {
+				while (r != null) {
+					r.run();
+					r = next();
+					// A task cancelled while running may have left the
+					// thread interrupted, which must not fail the next one.
+					if (r != null)
+						Thread.interrupted();
+				}
+				ok = true;
+			} finally {
+				if (!ok) {
+					// Pass the thread's turn on to the next task.
+					Runnable n = next();
+					if (n != null)
+						executor.execute(() -> runAll(n));
+				}
+			}
+		}
+
+		private synchronized Runnable next() {
+			Runnable r = queue.poll();
+			if (r == null)
+				running--;
+			return r;
+		}
+	}
+}
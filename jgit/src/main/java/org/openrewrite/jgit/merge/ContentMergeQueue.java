@@ -0,0 +1,259 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.merge;
+
+import static org.openrewrite.jgit.lib.Constants.OBJ_BLOB;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+import org.openrewrite.jgit.diff.DiffAlgorithm;
+import org.openrewrite.jgit.diff.RawText;
+import org.openrewrite.jgit.diff.RawTextComparator;
+import org.openrewrite.jgit.errors.BinaryBlobException;
+import org.openrewrite.jgit.lib.FileMode;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectReader;
+import org.openrewrite.jgit.lib.internal.ObjectReaderPool;
+import org.openrewrite.jgit.lib.internal.ParallelTasks;
+import org.openrewrite.jgit.storage.pack.PackConfig;
+import org.openrewrite.jgit.treewalk.AbstractTreeIterator;
+import org.openrewrite.jgit.treewalk.TreeWalk;
+import org.openrewrite.jgit.treewalk.filter.TreeFilter;
+import org.openrewrite.jgit.util.Paths;
+
+/**
+ * Content merges of a three way merge, computed by other threads ahead of
+ * the walk that merges the trees.
+ * <p>
+ * A walk of its own over the base, ours and theirs trees finds the files
+ * changed on both sides, and their texts are loaded and merged by tasks
+ * running on other threads. The merger takes the results in the order of its walk with
+ * {@link #take(byte[], ObjectId, ObjectId, ObjectId)}, and still does
+ * everything else, like inserting the merged content and updating the index,
+ * by itself. Only a few merges per thread are computed ahead, so the results
+ * waiting to be taken are bounded.
+ * <p>
+ * Texts are loaded without applying filters, so the queue must not be used
+ * if LFS is available.
+ */
+class ContentMergeQueue implements AutoCloseable {
+	private static final int T_BASE = 0;
+
+	private static final int T_OURS = 1;
+
+	private static final int T_THEIRS = 2;
+
+	private static class Pending {
+		final byte[] path;
+
+		final ObjectId base;
+
+		final ObjectId ours;
+
+		final ObjectId theirs;
+
+		final Future<MergeResult<RawText>> result;
+
+		Pending(byte[] path, ObjectId base, ObjectId ours, ObjectId theirs,
+				Future<MergeResult<RawText>> result) {
+			this.path = path;
+			this.base = base;
+			this.ours = ours;
+			this.theirs = theirs;
+			this.result = result;
+		}
+	}
+
+	private final DiffAlgorithm diffAlgorithm;
+
+	private final ContentMergeStrategy strategy;
+
+	private final TreeWalk walk;
+
+	private final int limit;
+
+	private final Executor pool;
+
+	private final ObjectReaderPool readers;
+
+	private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+	private boolean walkDone;
+
+	/**
+	 * Start merging the contents of files changed on both sides.
+	 *
+	 * @param reader
+	 *            reader to walk the trees with, and to create the readers of
+	 *            the tasks from.
+	 * @param base
+	 *            the base tree, not yet walked by anyone else.
+	 * @param ours
+	 *            the ours tree, not yet walked by anyone else.
+	 * @param theirs
+	 *            the theirs tree, not yet walked by anyone else.
+	 * @param diffAlgorithm
+	 *            algorithm the texts are merged with.
+	 * @param strategy
+	 *            strategy for conflicting content.
+	 * @param threads
+	 *            number of tasks merging texts at the same time.
+	 */
+	ContentMergeQueue(ObjectReader reader, AbstractTreeIterator base,
+			AbstractTreeIterator ours, AbstractTreeIterator theirs,
+			DiffAlgorithm diffAlgorithm, ContentMergeStrategy strategy,
+			int threads) {
+		this.diffAlgorithm = diffAlgorithm;
+		this.strategy = strategy;
+		walk = new TreeWalk(reader);
+		walk.addTree(base);
+		walk.addTree(ours);
+		walk.addTree(theirs);
+		walk.setRecursive(true);
+		walk.setFilter(TreeFilter.ANY_DIFF);
+		limit = 4 * threads;
+		pool = ParallelTasks.limit(ParallelTasks.getExecutor(), threads);
+		readers = new ObjectReaderPool(reader);
+	}
+
+	/**
+	 * Get the result of merging the contents of a file.
+	 * <p>
+	 * Results computed for files before the given path, which the merger did
+	 * not need, are discarded.
+	 *
+	 * @param path
+	 *            path of the file.
+	 * @param base
+	 *            id of the base content; zero id if there is none.
+	 * @param ours
+	 *            id of our content.
+	 * @param theirs
+	 *            id of their content.
+	 * @return the result; null if it was not computed ahead, or the contents
+	 *         could not be read by the worker, so the caller has to merge the
+	 *         contents itself.
+	 * @throws BinaryBlobException
+	 *             one of the contents is binary.
+	 * @throws IOException
+	 *             the merger was interrupted.
+	 */
+	MergeResult<RawText> take(byte[] path, ObjectId base, ObjectId ours,
+			ObjectId theirs) throws BinaryBlobException, IOException {
+		for (;;) {
+			fill();
+			Pending p = pending.peek();
+			if (p == null)
+				return null;
+			int cmp = Paths.compare(p.path, 0, p.path.length,
+					FileMode.TYPE_FILE, path, 0, path.length,
+					FileMode.TYPE_FILE);
+			if (cmp > 0)
+				return null;
+			pending.poll();
+			if (cmp == 0 && p.base.equals(base) && p.ours.equals(ours)
+					&& p.theirs.equals(theirs))
+				return get(p.result);
+			p.result.cancel(true);
+		}
+	}
+
+	/** Submit merges until enough are computed ahead of the merger. */
+	private void fill() throws IOException {
+		while (!walkDone && pending.size() < limit) {
+			if (!walk.next()) {
+				walkDone = true;
+				return;
+			}
+			if (!isContentMerge())
+				continue;
+			ObjectId base = walk.getObjectId(T_BASE);
+			ObjectId ours = walk.getObjectId(T_OURS);
+			ObjectId theirs = walk.getObjectId(T_THEIRS);
+			pending.add(new Pending(walk.getRawPath(), base, ours, theirs,
+					ParallelTasks.submit(pool,
+							() -> merge(base, ours, theirs))));
+		}
+	}
+
+	/**
+	 * Whether the current entry of the walk is a file changed in different
+	 * ways on both sides, which {@link ResolveMerger} merges by content.
+	 */
+	private boolean isContentMerge() {
+		int modeB = walk.getRawMode(T_BASE);
+		int modeO = walk.getRawMode(T_OURS);
+		int modeT = walk.getRawMode(T_THEIRS);
+		if (!isFile(modeO) || !isFile(modeT)
+				|| FileMode.GITLINK.equals(modeB))
+			return false;
+		if (walk.idEqual(T_OURS, T_THEIRS))
+			return false;
+		if (modeB == modeT && walk.idEqual(T_BASE, T_THEIRS))
+			return false;
+		return !(modeB == modeO && walk.idEqual(T_BASE, T_OURS));
+	}
+
+	private static boolean isFile(int mode) {
+		return mode != 0 && !FileMode.TREE.equals(mode)
+				&& !FileMode.GITLINK.equals(mode);
+	}
+
+	private MergeResult<RawText> merge(ObjectId base, ObjectId ours,
+			ObjectId theirs) throws IOException, BinaryBlobException {
+		ObjectReader or = readers.acquire();
+		try {
+			MergeAlgorithm algorithm = new MergeAlgorithm(diffAlgorithm);
+			algorithm.setContentMergeStrategy(strategy);
+			return algorithm.merge(RawTextComparator.DEFAULT, load(or, base),
+					load(or, ours), load(or, theirs));
+		} finally {
+			readers.release(or);
+		}
+	}
+
+	private static RawText load(ObjectReader or, ObjectId id)
+			throws IOException, BinaryBlobException {
+		if (id.equals(ObjectId.zeroId()))
+			return new RawText(new byte[] {});
+		return RawText.load(or.open(id, OBJ_BLOB),
+				PackConfig.DEFAULT_BIG_FILE_THRESHOLD);
+	}
+
+	private static MergeResult<RawText> get(Future<MergeResult<RawText>> f)
+			throws BinaryBlobException, IOException {
+		try {
+			return ParallelTasks.await(f);
+		} catch (ExecutionException e) {
+			Throwable err = e.getCause();
+			if (err instanceof BinaryBlobException)
+				throw (BinaryBlobException) err;
+			if (err instanceof IOException)
+				// The reader of the task may not see objects the merger's
+				// reader sees, like those of an inserter not yet flushed.
+				// Let the merger merge the contents itself.
+				return null;
+			throw ParallelTasks.rethrow(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		for (Pending p : pending)
+			p.result.cancel(true);
+		pending.clear();
+		readers.close();
+	}
+}
@@ -53,6 +53,15 @@ public MergeAlgorithm(DiffAlgorithm diff) {
 		this.diffAlg = diff;
 	}
 
+	/**
+	 * Get the diff algorithm used by this merge.
+	 *
+	 * @return the diff algorithm.
+	 */
+	DiffAlgorithm getDiffAlgorithm() {
+		return diffAlg;
+	}
+
 	/**
 	 * Retrieves the {@link ContentMergeStrategy}.
 	 *
@@ -49,6 +49,13 @@ public abstract class MergeStrategy {
 	 */
 	public static final ThreeWayMergeStrategy RECURSIVE = new StrategyRecursive();
 
+	/**
+	 * Recursive strategy which follows renames and takes unchanged subtrees
+	 * as a whole when merging in-core.
+	 * @since 5.14
+	 */
+	public static final ThreeWayMergeStrategy ORT = new StrategyOrt();
+
 	private static final HashMap<String, MergeStrategy> STRATEGIES = new HashMap<>();
 
 	static {
@@ -57,6 +64,7 @@ public abstract class MergeStrategy {
 		register(SIMPLE_TWO_WAY_IN_CORE);
 		register(RESOLVE);
 		register(RECURSIVE);
+		register(ORT);
 	}
 
 	/**
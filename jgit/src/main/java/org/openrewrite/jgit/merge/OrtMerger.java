@@ -0,0 +1,334 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.merge;
+
+import static org.openrewrite.jgit.diff.DiffEntry.ChangeType.ADD;
+import static org.openrewrite.jgit.diff.DiffEntry.ChangeType.DELETE;
+import static org.openrewrite.jgit.diff.DiffEntry.ChangeType.MODIFY;
+import static org.openrewrite.jgit.diff.DiffEntry.ChangeType.RENAME;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.openrewrite.jgit.attributes.Attributes;
+import org.openrewrite.jgit.diff.DiffConfig;
+import org.openrewrite.jgit.diff.DiffEntry;
+import org.openrewrite.jgit.diff.RenameDetector;
+import org.openrewrite.jgit.dircache.DirCache;
+import org.openrewrite.jgit.dircache.DirCacheBuildIterator;
+import org.openrewrite.jgit.dircache.DirCacheEditor;
+import org.openrewrite.jgit.dircache.DirCacheEditor.DeletePath;
+import org.openrewrite.jgit.dircache.DirCacheEditor.PathEdit;
+import org.openrewrite.jgit.dircache.DirCacheEntry;
+import org.openrewrite.jgit.errors.DirCacheNameConflictException;
+import org.openrewrite.jgit.lib.AnyObjectId;
+import org.openrewrite.jgit.lib.Config;
+import org.openrewrite.jgit.lib.FileMode;
+import org.openrewrite.jgit.lib.NullProgressMonitor;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectInserter;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.lib.TreeFormatter;
+import org.openrewrite.jgit.revwalk.RevCommit;
+import org.openrewrite.jgit.revwalk.RevTree;
+import org.openrewrite.jgit.treewalk.AbstractTreeIterator;
+import org.openrewrite.jgit.treewalk.CanonicalTreeParser;
+import org.openrewrite.jgit.treewalk.EmptyTreeIterator;
+import org.openrewrite.jgit.treewalk.TreeWalk;
+import org.openrewrite.jgit.treewalk.WorkingTreeIterator;
+import org.openrewrite.jgit.treewalk.filter.TreeFilter;
+
+/**
+ * A recursive merger modelled on the "ort" strategy of git.
+ * <p>
+ * When merging in-core without a working tree this merger differs from
+ * {@link RecursiveMerger} in two ways:
+ * <ul>
+ * <li>Subtrees which are equal on both sides, or changed on one side only,
+ * are taken as a whole, without walking or merging their entries.</li>
+ * <li>Renames are detected between the base and each side. If one side
+ * renamed a file the other side modified, the modified file is merged with
+ * the renamed one at the new path, instead of conflicting as a modification
+ * of a deleted file. Files renamed to the same path on both sides are merged
+ * with their base. Other combinations are merged path by path, as by
+ * {@link RecursiveMerger}.</li>
+ * </ul>
+ * Virtual merge bases are kept for the lifetime of the merger, so pairs of
+ * bases met again while merging criss-cross histories are merged only once.
+ * <p>
+ * Merges updating a working tree behave as those of {@link RecursiveMerger}.
+ *
+ * @since 5.14
+ */
+public class OrtMerger extends RecursiveMerger {
+	private static class BasePair {
+		final ObjectId a;
+
+		final ObjectId b;
+
+		BasePair(AnyObjectId a, AnyObjectId b) {
+			// Merge bases do not depend on the order of the commits.
+			if (a.compareTo(b) <= 0) {
+				this.a = a.copy();
+				this.b = b.copy();
+			} else {
+				this.a = b.copy();
+				this.b = a.copy();
+			}
+		}
+
+		@Override
+		public int hashCode() {
+			return a.hashCode() * 31 + b.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof BasePair))
+				return false;
+			BasePair p = (BasePair) o;
+			return a.equals(p.a) && b.equals(p.b);
+		}
+	}
+
+	private final DiffConfig diffConfig;
+
+	private final Map<BasePair, RevCommit> baseCommits = new HashMap<>();
+
+	/**
+	 * Create a merger updating the index and working tree of a repository,
+	 * unless it merges in-core.
+	 *
+	 * @param local
+	 *            the {@link org.openrewrite.jgit.lib.Repository}.
+	 * @param inCore
+	 *            whether to merge without touching the index and working
+	 *            tree.
+	 */
+	protected OrtMerger(Repository local, boolean inCore) {
+		super(local, inCore);
+		diffConfig = local.getConfig().get(DiffConfig.KEY);
+	}
+
+	/**
+	 * Create a merger merging in-core.
+	 *
+	 * @param inserter
+	 *            an {@link org.openrewrite.jgit.lib.ObjectInserter} object.
+	 * @param config
+	 *            the repository configuration
+	 */
+	protected OrtMerger(ObjectInserter inserter, Config config) {
+		super(inserter, config);
+		diffConfig = config.get(DiffConfig.KEY);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected RevCommit getBaseCommit(RevCommit a, RevCommit b, int callDepth)
+			throws IOException {
+		BasePair key = new BasePair(a, b);
+		if (baseCommits.containsKey(key))
+			return baseCommits.get(key);
+		RevCommit base = super.getBaseCommit(a, b, callDepth);
+		baseCommits.put(key, base);
+		return base;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected boolean mergeTrees(AbstractTreeIterator baseTree,
+			RevTree headTree, RevTree mergeTree, boolean ignoreConflicts)
+			throws IOException {
+		if (inCore && workingTreeIterator == null) {
+			ObjectId[] trees = applyRenames(baseTree, headTree, mergeTree);
+			if (trees != null)
+				return super.mergeTrees(openTree(trees[0]),
+						walk.parseTree(trees[1]), walk.parseTree(trees[2]),
+						ignoreConflicts);
+		}
+		return super.mergeTrees(baseTree, headTree, mergeTree,
+				ignoreConflicts);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected boolean processEntry(CanonicalTreeParser base,
+			CanonicalTreeParser ours, CanonicalTreeParser theirs,
+			DirCacheBuildIterator index, WorkingTreeIterator work,
+			boolean ignoreConflicts, Attributes attributes)
+			throws IOException {
+		if (inCore && work == null && tw.isSubtree()) {
+			int modeB = tw.getRawMode(T_BASE);
+			int modeO = tw.getRawMode(T_OURS);
+			int modeT = tw.getRawMode(T_THEIRS);
+			if (isTreeOrMissing(modeB) && isTreeOrMissing(modeO)
+					&& isTreeOrMissing(modeT)) {
+				int side = -1;
+				if (modeO == modeT && tw.idEqual(T_OURS, T_THEIRS))
+					side = T_OURS;
+				else if (modeB == modeT && tw.idEqual(T_BASE, T_THEIRS))
+					side = T_OURS;
+				else if (modeB == modeO && tw.idEqual(T_BASE, T_OURS))
+					side = T_THEIRS;
+				if (side >= 0) {
+					// Take the whole subtree of that side, which may be
+					// missing if it was deleted.
+					if (tw.getRawMode(side) != 0)
+						builder.addTree(tw.getRawPath(),
+								DirCacheEntry.STAGE_0, reader,
+								tw.getObjectId(side));
+					enterSubtree = false;
+					return true;
+				}
+			}
+		}
+		return super.processEntry(base, ours, theirs, index, work,
+				ignoreConflicts, attributes);
+	}
+
+	private static boolean isTreeOrMissing(int mode) {
+		return mode == 0 || FileMode.TREE.equals(mode);
+	}
+
+	/**
+	 * Move files renamed on one side to their new path in the base and the
+	 * other side, so that merging the trees path by path merges them.
+	 *
+	 * @return the new base, ours and theirs trees; null if no file has to be
+	 *         moved.
+	 */
+	private ObjectId[] applyRenames(AbstractTreeIterator baseTree,
+			RevTree headTree, RevTree mergeTree) throws IOException {
+		if (baseTree instanceof EmptyTreeIterator)
+			return null;
+		TreeFormatter fmt = formatTree(baseTree);
+		if (fmt == null)
+			return null;
+		ObjectId base = fmt.computeId(getObjectInserter());
+		if (!reader.has(base))
+			return null;
+
+		List<DiffEntry> ours = detectRenames(base, headTree);
+		List<DiffEntry> theirs = detectRenames(base, mergeTree);
+		Map<String, String> baseMoves = new LinkedHashMap<>();
+		Map<String, String> ourMoves = new LinkedHashMap<>();
+		Map<String, String> theirMoves = new LinkedHashMap<>();
+		collectMoves(theirs, ours, baseMoves, ourMoves);
+		collectMoves(ours, theirs, baseMoves, theirMoves);
+		if (baseMoves.isEmpty())
+			return null;
+
+		ObjectId[] trees = { move(base, baseMoves), move(headTree, ourMoves),
+				move(mergeTree, theirMoves) };
+		for (ObjectId t : trees) {
+			if (t == null)
+				// A new path is in the way of a file or a directory of a
+				// tree; leave the conflict to the merge by paths.
+				return null;
+		}
+		return trees;
+	}
+
+	private List<DiffEntry> detectRenames(ObjectId base, RevTree side)
+			throws IOException {
+		TreeWalk diffWalk = new TreeWalk(reader);
+		diffWalk.addTree(base);
+		diffWalk.addTree(side);
+		diffWalk.setRecursive(true);
+		diffWalk.setFilter(TreeFilter.ANY_DIFF);
+		RenameDetector rd = new RenameDetector(reader, diffConfig);
+		rd.addAll(DiffEntry.scan(diffWalk));
+		return rd.compute(reader, NullProgressMonitor.INSTANCE);
+	}
+
+	/**
+	 * Find the files renamed on one side and modified on the other side.
+	 *
+	 * @param renamed
+	 *            changes of the side which may have renamed files.
+	 * @param other
+	 *            changes of the other side.
+	 * @param baseMoves
+	 *            receives the moves to apply to the base.
+	 * @param otherMoves
+	 *            receives the moves to apply to the other side.
+	 */
+	private static void collectMoves(List<DiffEntry> renamed,
+			List<DiffEntry> other, Map<String, String> baseMoves,
+			Map<String, String> otherMoves) {
+		Map<String, DiffEntry> byOldPath = new HashMap<>();
+		Set<String> newPaths = new HashSet<>();
+		for (DiffEntry e : other) {
+			if (e.getChangeType() != ADD)
+				byOldPath.put(e.getOldPath(), e);
+			if (e.getChangeType() != DELETE)
+				newPaths.add(e.getNewPath());
+		}
+		for (DiffEntry r : renamed) {
+			if (r.getChangeType() != RENAME)
+				continue;
+			DiffEntry e = byOldPath.get(r.getOldPath());
+			if (e == null)
+				// Not changed on the other side, merging by path is right.
+				continue;
+			if (e.getChangeType() == RENAME) {
+				if (e.getNewPath().equals(r.getNewPath()))
+					baseMoves.put(r.getOldPath(), r.getNewPath());
+			} else if (e.getChangeType() == MODIFY
+					&& !newPaths.contains(r.getNewPath())) {
+				baseMoves.put(r.getOldPath(), r.getNewPath());
+				otherMoves.put(r.getOldPath(), r.getNewPath());
+			}
+		}
+	}
+
+	/**
+	 * Move files of a tree to new paths.
+	 *
+	 * @return the new tree; null if a new path is already used by another
+	 *         file or directory of the tree.
+	 */
+	private ObjectId move(AnyObjectId tree, Map<String, String> moves)
+			throws IOException {
+		if (moves.isEmpty())
+			return tree.copy();
+		DirCache dc = DirCache.read(reader, tree);
+		int entries = dc.getEntryCount();
+		DirCacheEditor editor = dc.editor();
+		for (Map.Entry<String, String> m : moves.entrySet()) {
+			DirCacheEntry src = dc.getEntry(m.getKey());
+			editor.add(new DeletePath(m.getKey()));
+			editor.add(new PathEdit(m.getValue()) {
+				@Override
+				public void apply(DirCacheEntry ent) {
+					ent.setFileMode(src.getFileMode());
+					ent.setObjectId(src.getObjectId());
+				}
+			});
+		}
+		try {
+			editor.finish();
+		} catch (DirCacheNameConflictException e) {
+			return null;
+		}
+		// The editor replaces files and directories in the way of a new
+		// path; each move must delete one entry and add one.
+		if (dc.getEntryCount() != entries)
+			return null;
+		return dc.writeTree(getObjectInserter());
+	}
+}
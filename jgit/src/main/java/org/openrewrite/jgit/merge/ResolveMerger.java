@@ -64,12 +64,14 @@
 import org.openrewrite.jgit.lib.ObjectId;
 import org.openrewrite.jgit.lib.ObjectInserter;
 import org.openrewrite.jgit.lib.ObjectLoader;
+import org.openrewrite.jgit.lib.TreeFormatter;
 import org.openrewrite.jgit.lib.Repository;
 import org.openrewrite.jgit.revwalk.RevTree;
 import org.openrewrite.jgit.storage.pack.PackConfig;
 import org.openrewrite.jgit.submodule.SubmoduleConflict;
 import org.openrewrite.jgit.treewalk.AbstractTreeIterator;
 import org.openrewrite.jgit.treewalk.CanonicalTreeParser;
+import org.openrewrite.jgit.treewalk.EmptyTreeIterator;
 import org.openrewrite.jgit.treewalk.NameConflictTreeWalk;
 import org.openrewrite.jgit.treewalk.TreeWalk;
 import org.openrewrite.jgit.treewalk.TreeWalk.OperationType;
@@ -281,6 +283,11 @@ public enum MergeFailureReason {
 	@NonNull
 	private ContentMergeStrategy contentStrategy = ContentMergeStrategy.CONFLICT;
 
+	private int threads = 1;
+
+	/** Content merges computed ahead of {@link #tw}; null if none are. */
+	private ContentMergeQueue contentMerges;
+
 	/**
 	 * Keeps {@link CheckoutMetadata} for {@link #checkout()} and
 	 * {@link #cleanUp()}.
@@ -353,6 +360,7 @@ protected ResolveMerger(Repository local) {
 	protected ResolveMerger(ObjectInserter inserter, Config config) {
 		super(inserter);
 		mergeAlgorithm = getMergeAlgorithm(config);
+		inCoreLimit = getInCoreLimit(config);
 		commitNames = defaultCommitNames();
 		inCore = true;
 		implicitDirCache = false;
@@ -382,6 +390,35 @@ public void setContentMergeStrategy(ContentMergeStrategy strategy) {
 				: strategy;
 	}
 
+	/**
+	 * Get the number of threads merging the contents of files.
+	 *
+	 * @return number of threads; 0 means the number of processors.
+	 * @since 5.14
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Set the number of threads merging the contents of files.
+	 * <p>
+	 * With more than one thread the texts of files changed on both sides are
+	 * loaded and merged by other threads, a few files ahead of the walk over
+	 * the trees. Merged contents are still inserted, and the index and working
+	 * tree updated, in the order of the walk by the calling thread, so the
+	 * outcome of the merge does not depend on this setting. Contents are
+	 * always merged by the calling thread when LFS is available.
+	 *
+	 * @param threads
+	 *            number of threads; 0 means the number of processors, 1 (the
+	 *            default) disables the use of other threads.
+	 * @since 5.14
+	 */
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	protected boolean mergeImpl() throws IOException {
@@ -956,6 +993,14 @@ private MergeResult<RawText> contentMerge(CanonicalTreeParser base,
 			CanonicalTreeParser ours, CanonicalTreeParser theirs,
 			Attributes attributes, ContentMergeStrategy strategy)
 			throws BinaryBlobException, IOException {
+		if (contentMerges != null && ours != null && theirs != null
+				&& strategy == getContentMergeStrategy()) {
+			MergeResult<RawText> r = contentMerges.take(tw.getRawPath(),
+					base == null ? ObjectId.zeroId() : base.getEntryObjectId(),
+					ours.getEntryObjectId(), theirs.getEntryObjectId());
+			if (r != null)
+				return r;
+		}
 		RawText baseText = base == null ? RawText.EMPTY_TEXT
 				: getRawText(base.getEntryObjectId(), attributes);
 		RawText ourText = ours == null ? RawText.EMPTY_TEXT
@@ -1345,6 +1390,7 @@ protected boolean mergeTrees(AbstractTreeIterator baseTree,
 
 		builder = dircache.builder();
 		DirCacheBuildIterator buildIt = new DirCacheBuildIterator(builder);
+		contentMerges = newContentMergeQueue(baseTree, headTree, mergeTree);
 
 		tw = new NameConflictTreeWalk(db, reader);
 		tw.addTree(baseTree);
@@ -1358,8 +1404,15 @@ protected boolean mergeTrees(AbstractTreeIterator baseTree,
 			tw.setFilter(TreeFilter.ANY_DIFF);
 		}
 
-		if (!mergeTreeWalk(tw, ignoreConflicts)) {
-			return false;
+		try {
+			if (!mergeTreeWalk(tw, ignoreConflicts)) {
+				return false;
+			}
+		} finally {
+			if (contentMerges != null) {
+				contentMerges.close();
+				contentMerges = null;
+			}
 		}
 
 		if (!inCore) {
@@ -1391,6 +1444,64 @@ protected boolean mergeTrees(AbstractTreeIterator baseTree,
 		return false;
 	}
 
+	private ContentMergeQueue newContentMergeQueue(
+			AbstractTreeIterator baseTree, RevTree headTree,
+			RevTree mergeTree) throws IOException {
+		int n = threads > 0 ? threads
+				: Runtime.getRuntime().availableProcessors();
+		if (n <= 1 || LfsFactory.getInstance().isAvailable())
+			return null;
+		AbstractTreeIterator base = copyOf(baseTree);
+		if (base == null)
+			return null;
+		return new ContentMergeQueue(reader, base, openTree(headTree),
+				openTree(mergeTree), mergeAlgorithm.getDiffAlgorithm(),
+				getContentMergeStrategy(), n);
+	}
+
+	/**
+	 * Create an iterator over the same tree as an iterator which has not been
+	 * advanced yet.
+	 *
+	 * @return the new iterator; null if the tree cannot be copied.
+	 */
+	private static AbstractTreeIterator copyOf(AbstractTreeIterator t)
+			throws IOException {
+		if (t instanceof EmptyTreeIterator)
+			return new EmptyTreeIterator();
+		TreeFormatter fmt = formatTree(t);
+		if (fmt == null)
+			return null;
+		CanonicalTreeParser p = new CanonicalTreeParser();
+		p.reset(fmt.toByteArray());
+		return p;
+	}
+
+	/**
+	 * Format the entries of an iterator over a root tree, which has not been
+	 * advanced yet, as a tree. The iterator is rewound afterwards.
+	 *
+	 * @param t
+	 *            the iterator.
+	 * @return the tree; null if the iterator is not one over a root tree.
+	 * @throws IOException
+	 *             a tree cannot be read.
+	 */
+	static TreeFormatter formatTree(AbstractTreeIterator t)
+			throws IOException {
+		if (!(t instanceof CanonicalTreeParser) || t.getNameOffset() != 0
+				|| !t.first())
+			return null;
+		TreeFormatter fmt = new TreeFormatter();
+		for (; !t.eof(); t.next(1)) {
+			fmt.append(t.getEntryPathBuffer(), t.getNameOffset(),
+					t.getNameLength(), t.getEntryFileMode(),
+					t.getEntryObjectId());
+		}
+		t.reset();
+		return fmt;
+	}
+
 	/**
 	 * Process the given TreeWalk's entries.
 	 *
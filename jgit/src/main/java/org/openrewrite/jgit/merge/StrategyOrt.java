@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.merge;
+
+import org.openrewrite.jgit.lib.Config;
+import org.openrewrite.jgit.lib.ObjectInserter;
+import org.openrewrite.jgit.lib.Repository;
+
+/**
+ * A recursive merge strategy which follows renames and takes unchanged
+ * subtrees as a whole when merging in-core.
+ *
+ * @see OrtMerger
+ * @since 5.14
+ */
+public class StrategyOrt extends StrategyRecursive {
+
+	/** {@inheritDoc} */
+	@Override
+	public ThreeWayMerger newMerger(Repository db) {
+		return new OrtMerger(db, false);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ThreeWayMerger newMerger(Repository db, boolean inCore) {
+		return new OrtMerger(db, inCore);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ThreeWayMerger newMerger(ObjectInserter inserter, Config config) {
+		return new OrtMerger(inserter, config);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getName() {
+		return "ort"; //$NON-NLS-1$
+	}
+}
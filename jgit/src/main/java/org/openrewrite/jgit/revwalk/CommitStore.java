@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+package org.openrewrite.jgit.revwalk;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.openrewrite.jgit.errors.IncorrectObjectTypeException;
+import org.openrewrite.jgit.errors.MissingObjectException;
+import org.openrewrite.jgit.lib.AnyObjectId;
+import org.openrewrite.jgit.lib.Constants;
+import org.openrewrite.jgit.lib.MutableObjectId;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectReader;
+import org.openrewrite.jgit.util.RawParseUtils;
+
+/**
+ * Commits reachable from a set of start points, stored in columns of
+ * primitive arrays.
+ * <p>
+ * A {@link org.openrewrite.jgit.revwalk.RevWalk} keeps a
+ * {@link org.openrewrite.jgit.revwalk.RevCommit} with its tree, its parent
+ * array and usually its message buffer for every commit it has seen, which
+ * makes walking the entire history of a large repository expensive in heap.
+ * This store instead records only the id, tree, parents and commit time of
+ * each commit, in arrays indexed by an int position assigned when the commit
+ * is first discovered. Parents are referenced by their positions.
+ * <p>
+ * {@code RevCommit} instances are only created on request by
+ * {@link #getCommit(RevWalk, int)}, which allocates the commit in a revision
+ * pool chosen by the caller with its headers already parsed from the store.
+ * Disposing that pool releases them again.
+ * <p>
+ * Commits listed as shallow by the repository have no parents.
+ * <p>
+ * This class is not thread-safe. If loading commits fails the store should be
+ * discarded, as commits discovered but not yet parsed are left behind.
+ *
+ * @since 5.14
+ */
+public class CommitStore {
+	private static final int INITIAL_SIZE = 1024;
+
+	private final ObjectReader reader;
+
+	private final MutableObjectId idBuffer = new MutableObjectId();
+
+	private Set<ObjectId> shallow;
+
+	private int size;
+
+	/** The five words of the id of each commit. */
+	private int[] ids;
+
+	/** The five words of the id of the tree of each commit. */
+	private int[] trees;
+
+	private int[] commitTimes;
+
+	/**
+	 * Offset of the parents of each commit in {@link #parentData}; -1 until
+	 * the commit is parsed.
+	 */
+	private int[] parentOffsets;
+
+	/** For each commit the number of its parents followed by their positions. */
+	private int[] parentData;
+
+	private int parentDataSize;
+
+	/** Open addressing hash table of the positions plus one, 0 if empty. */
+	private int[] table;
+
+	/** Positions of discovered commits still to be parsed. */
+	private int[] pending;
+
+	/**
+	 * Create an empty store.
+	 *
+	 * @param reader
+	 *            the reader the commits are loaded from. The reader is not
+	 *            closed by the store.
+	 */
+	public CommitStore(ObjectReader reader) {
+		this.reader = reader;
+		ids = new int[5 * INITIAL_SIZE];
+		trees = new int[5 * INITIAL_SIZE];
+		commitTimes = new int[INITIAL_SIZE];
+		parentOffsets = new int[INITIAL_SIZE];
+		parentData = new int[2 * INITIAL_SIZE];
+		table = new int[2 * INITIAL_SIZE];
+		pending = new int[INITIAL_SIZE];
+	}
+
+	/**
+	 * Load a commit and all of its ancestors not yet in the store.
+	 *
+	 * @param start
+	 *            id of the commit.
+	 * @return position of the commit.
+	 * @throws org.openrewrite.jgit.errors.MissingObjectException
+	 *             the commit or one of its ancestors is not in the repository.
+	 * @throws org.openrewrite.jgit.errors.IncorrectObjectTypeException
+	 *             the object or one of the parents listed by a commit is not
+	 *             a commit.
+	 * @throws java.io.IOException
+	 *             a pack file or loose object could not be read.
+	 */
+	public int add(AnyObjectId start) throws MissingObjectException,
+			IncorrectObjectTypeException, IOException {
+		if (shallow == null)
+			shallow = reader.getShallowCommits();
+		int pos = lookup(start);
+		if (parentOffsets[pos] >= 0)
+			return pos;
+		int top = 0;
+		pending[top++] = pos;
+		while (top > 0) {
+			int p = pending[--top];
+			top = parse(p, top);
+		}
+		return pos;
+	}
+
+	/**
+	 * Parse a commit, pushing its parents not seen before onto
+	 * {@link #pending}.
+	 *
+	 * @return the new number of pending commits.
+	 */
+	private int parse(int pos, int top) throws IOException {
+		idBuffer.fromRaw(ids, 5 * pos);
+		boolean noParents = !shallow.isEmpty() && shallow.contains(idBuffer);
+		byte[] raw = reader.open(idBuffer, Constants.OBJ_COMMIT)
+				.getCachedBytes();
+
+		idBuffer.fromString(raw, 5);
+		idBuffer.copyRawTo(trees, 5 * pos);
+
+		int cntAt = reserveParentData(1);
+		int cnt = 0;
+		int ptr = 46;
+		while (raw[ptr] == 'p') {
+			if (!noParents) {
+				idBuffer.fromString(raw, ptr + 7);
+				int oldSize = size;
+				int parent = lookup(idBuffer);
+				if (size != oldSize) {
+					if (top == pending.length)
+						pending = Arrays.copyOf(pending, 2 * top);
+					pending[top++] = parent;
+				}
+				int at = reserveParentData(1);
+				parentData[at] = parent;
+				cnt++;
+			}
+			ptr += 48;
+		}
+		parentData[cntAt] = cnt;
+		parentOffsets[pos] = cntAt;
+
+		ptr = RawParseUtils.committer(raw, ptr);
+		if (ptr > 0) {
+			ptr = RawParseUtils.nextLF(raw, ptr, '>');
+			commitTimes[pos] = RawParseUtils.parseBase10(raw, ptr, null);
+		}
+		return top;
+	}
+
+	private int reserveParentData(int n) {
+		int at = parentDataSize;
+		if (at + n > parentData.length)
+			parentData = Arrays.copyOf(parentData,
+					Math.max(2 * parentData.length, at + n));
+		parentDataSize += n;
+		return at;
+	}
+
+	/**
+	 * Find the position of a commit, adding it unparsed if it is not yet in
+	 * the store.
+	 */
+	private int lookup(AnyObjectId id) {
+		int slot = find(id);
+		if (slot >= 0)
+			return slot;
+		slot = ~slot;
+
+		if (size == commitTimes.length) {
+			int n = 2 * size;
+			ids = Arrays.copyOf(ids, 5 * n);
+			trees = Arrays.copyOf(trees, 5 * n);
+			commitTimes = Arrays.copyOf(commitTimes, n);
+			parentOffsets = Arrays.copyOf(parentOffsets, n);
+		}
+		int pos = size++;
+		id.copyRawTo(ids, 5 * pos);
+		parentOffsets[pos] = -1;
+		table[slot] = pos + 1;
+		if (2 * size > table.length)
+			rehash();
+		return pos;
+	}
+
+	/**
+	 * Find a commit in {@link #table}.
+	 *
+	 * @return the position of the commit, or the ones' complement of the
+	 *         empty slot for it if it is not in the store.
+	 */
+	private int find(AnyObjectId id) {
+		int mask = table.length - 1;
+		for (int i = id.hashCode() & mask;; i = (i + 1) & mask) {
+			int pos = table[i] - 1;
+			if (pos < 0)
+				return ~i;
+			if (id.compareTo(ids, 5 * pos) == 0)
+				return pos;
+		}
+	}
+
+	private void rehash() {
+		table = new int[2 * table.length];
+		int mask = table.length - 1;
+		for (int pos = 0; pos < size; pos++) {
+			int i = ids[5 * pos + 1] & mask;
+			while (table[i] != 0)
+				i = (i + 1) & mask;
+			table[i] = pos + 1;
+		}
+	}
+
+	/**
+	 * Get the number of commits in the store.
+	 *
+	 * @return the number of commits; their positions are 0 through
+	 *         {@code size() - 1}.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Find the position of a commit.
+	 *
+	 * @param id
+	 *            id of the commit.
+	 * @return position of the commit; -1 if it has not been loaded.
+	 */
+	public int indexOf(AnyObjectId id) {
+		int pos = find(id);
+		return pos >= 0 && parentOffsets[pos] >= 0 ? pos : -1;
+	}
+
+	/**
+	 * Get the id of a commit.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return id of the commit.
+	 */
+	public ObjectId getId(int pos) {
+		return ObjectId.fromRaw(ids, 5 * check(pos));
+	}
+
+	/**
+	 * Get the id of the tree of a commit.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return id of the tree.
+	 */
+	public ObjectId getTree(int pos) {
+		return ObjectId.fromRaw(trees, 5 * check(pos));
+	}
+
+	/**
+	 * Get the time from the "committer " line of a commit.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return commit time, like {@link RevCommit#getCommitTime()}.
+	 */
+	public int getCommitTime(int pos) {
+		return commitTimes[check(pos)];
+	}
+
+	/**
+	 * Get the number of parents of a commit.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @return number of parents; 0 for root and shallow commits.
+	 */
+	public int getParentCount(int pos) {
+		return parentData[parentOffsets[check(pos)]];
+	}
+
+	/**
+	 * Get a parent of a commit.
+	 *
+	 * @param pos
+	 *            position of the commit.
+	 * @param nth
+	 *            parent index to obtain. Must be in the range 0 through
+	 *            {@link #getParentCount(int)}-1.
+	 * @return position of the parent.
+	 * @throws java.lang.ArrayIndexOutOfBoundsException
+	 *             an invalid parent index was specified.
+	 */
+	public int getParent(int pos, int nth) {
+		int off = parentOffsets[check(pos)];
+		if (nth < 0 || nth >= parentData[off])
+			throw new ArrayIndexOutOfBoundsException(nth);
+		return parentData[off + 1 + nth];
+	}
+
+	/**
+	 * Get a commit as {@link RevCommit}.
+	 * <p>
+	 * The commit is allocated in the revision pool of {@code walk} if it is
+	 * not already there, with its tree, parents and commit time taken from
+	 * this store instead of being parsed again. Its parents are allocated
+	 * unparsed; their headers are loaded by calling this method for them, or
+	 * by the walk as usual. Like for a walk not retaining bodies the message
+	 * of the commit is only available after
+	 * {@link RevWalk#parseBody(RevObject)}.
+	 *
+	 * @param walk
+	 *            the revision pool to allocate the commit within.
+	 * @param pos
+	 *            position of the commit.
+	 * @return the commit.
+	 */
+	public RevCommit getCommit(RevWalk walk, int pos) {
+		idBuffer.fromRaw(ids, 5 * check(pos));
+		RevCommit c = walk.lookupCommit(idBuffer);
+		if ((c.flags & RevObject.PARSED) != 0)
+			return c;
+
+		int off = parentOffsets[pos];
+		int cnt = parentData[off];
+		RevCommit[] parents = cnt == 0 ? RevCommit.NO_PARENTS
+				: new RevCommit[cnt];
+		for (int i = 0; i < cnt; i++) {
+			idBuffer.fromRaw(ids, 5 * parentData[off + 1 + i]);
+			parents[i] = walk.lookupCommit(idBuffer);
+		}
+		idBuffer.fromRaw(trees, 5 * pos);
+		c.setHeaders(walk.lookupTree(idBuffer), parents, commitTimes[pos]);
+		return c;
+	}
+
+	private int check(int pos) {
+		if (pos < 0 || pos >= size || parentOffsets[pos] < 0)
+			throw new ArrayIndexOutOfBoundsException(pos);
+		return pos;
+	}
+}
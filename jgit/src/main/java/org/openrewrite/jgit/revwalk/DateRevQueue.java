@@ -139,6 +139,20 @@ public RevCommit peek() {
 		return head != null ? head.commit : null;
 	}
 
+	/**
+	 * Peek at the next commits, without removing them.
+	 *
+	 * @param buf
+	 *            receives the next commits.
+	 * @return number of commits stored in {@code buf}.
+	 */
+	int peek(RevCommit[] buf) {
+		int n = 0;
+		for (Entry q = head; q != null && n < buf.length; q = q.next)
+			buf[n++] = q.commit;
+		return n;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public void clear() {
@@ -13,6 +13,7 @@
 import java.io.IOException;
 
 import org.openrewrite.jgit.diff.DiffConfig;
+import org.openrewrite.jgit.diff.SimilarityIndexCache;
 import org.openrewrite.jgit.errors.IncorrectObjectTypeException;
 import org.openrewrite.jgit.errors.MissingObjectException;
 import org.openrewrite.jgit.treewalk.TreeWalk;
@@ -62,6 +63,9 @@ public static FollowFilter create(String path, DiffConfig cfg) {
 
 	private RenameCallback renameCallback;
 
+	/** Indexes of blobs, kept for rename detection at later commits. */
+	SimilarityIndexCache similarityIndexCache;
+
 	FollowFilter(PathFilter path, DiffConfig cfg) {
 		this.path = path;
 		this.cfg = cfg;
@@ -94,7 +98,9 @@ public boolean shouldBeRecursive() {
 	/** {@inheritDoc} */
 	@Override
 	public TreeFilter clone() {
-		return new FollowFilter(path.clone(), cfg);
+		FollowFilter f = new FollowFilter(path.clone(), cfg);
+		f.similarityIndexCache = similarityIndexCache;
+		return f;
 	}
 
 	/** {@inheritDoc} */
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.revwalk;
+
+import java.io.IOException;
+
+import org.openrewrite.jgit.errors.IncorrectObjectTypeException;
+import org.openrewrite.jgit.errors.MissingObjectException;
+
+/**
+ * Sorts commits in topological order while the history is still walked.
+ * <p>
+ * Unlike {@link TopoSortGenerator} this generator does not drain its source
+ * before producing the first commit. The source must produce commits by
+ * descending commit time. A commit is only considered for output once the
+ * source has produced a commit older than it, or has finished. If no commit
+ * is older than one of its parents all children of the commit have been
+ * counted by then, and the output is the same as that of
+ * {@link TopoSortGenerator}.
+ */
+class IncrementalTopoSortGenerator extends Generator {
+	private static final int TOPO_DELAY = RevWalk.TOPO_DELAY;
+
+	private final Generator source;
+
+	private final FIFORevQueue pending;
+
+	private final int outputType;
+
+	/** Commit time of the commit last taken from {@link #source}. */
+	private int lastCommitTime;
+
+	private boolean sourceDone;
+
+	/**
+	 * Create a new sorter.
+	 *
+	 * @param s
+	 *            generator to pull commits out of, sorted by descending commit
+	 *            time.
+	 */
+	IncrementalTopoSortGenerator(Generator s) {
+		super(s.firstParent);
+		source = s;
+		pending = new FIFORevQueue(firstParent);
+		outputType = s.outputType() | SORT_TOPO;
+		s.shareFreeList(pending);
+	}
+
+	@Override
+	int outputType() {
+		return outputType;
+	}
+
+	@Override
+	void shareFreeList(BlockRevQueue q) {
+		q.shareFreeList(pending);
+	}
+
+	@Override
+	RevCommit next() throws MissingObjectException,
+			IncorrectObjectTypeException, IOException {
+		for (;;) {
+			final RevCommit c = pending.next();
+			if (c == null) {
+				if (!pull())
+					return null;
+				continue;
+			}
+
+			// Children of the commit are not older than it. Read on until
+			// all of them have been counted in its inDegree.
+			//
+			while (!sourceDone && lastCommitTime >= c.commitTime)
+				pull();
+
+			if (c.inDegree > 0) {
+				// At least one of our children is missing. We delay
+				// production until all of our children are output.
+				//
+				c.flags |= TOPO_DELAY;
+				continue;
+			}
+
+			// All of our children have already produced,
+			// so it is OK for us to produce now as well.
+			//
+			for (RevCommit p : c.parents) {
+				if (--p.inDegree == 0 && (p.flags & TOPO_DELAY) != 0) {
+					// This parent tried to come before us, but we are
+					// his last child. unpop the parent so it goes right
+					// behind this child.
+					//
+					p.flags &= ~TOPO_DELAY;
+					pending.unpop(p);
+				}
+				if (firstParent) {
+					break;
+				}
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * Take the next commit from the source, counting it as child of its
+	 * parents.
+	 *
+	 * @return false if the source has no more commits.
+	 */
+	private boolean pull() throws MissingObjectException,
+			IncorrectObjectTypeException, IOException {
+		if (sourceDone)
+			return false;
+		final RevCommit c = source.next();
+		if (c == null) {
+			sourceDone = true;
+			return false;
+		}
+		for (RevCommit p : c.parents) {
+			p.inDegree++;
+			if (firstParent) {
+				break;
+			}
+		}
+		lastCommitTime = c.commitTime;
+		pending.add(c);
+		return true;
+	}
+}
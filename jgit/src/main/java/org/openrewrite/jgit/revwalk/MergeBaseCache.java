@@ -0,0 +1,352 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.revwalk;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.openrewrite.jgit.annotations.Nullable;
+import org.openrewrite.jgit.lib.AnyObjectId;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.revwalk.filter.RevFilter;
+import org.openrewrite.jgit.util.LRUMap;
+
+/**
+ * Merge bases and ahead/behind counts of pairs of commits of a repository,
+ * kept for asking the same questions again.
+ * <p>
+ * Results are kept for the least recently used pairs of commits. When a pair
+ * is not known, but one of its commits was asked about together with an
+ * ancestor of the other commit, the known result is updated by walking only
+ * the commits the branch advanced by: if none of them is reachable from the
+ * commit that stayed, the merge bases are unchanged and the new commits are
+ * added to the ahead count. Otherwise, and if the branch was rewound or
+ * rewritten, the result is computed from scratch.
+ * <p>
+ * Instances can be shared by several threads.
+ *
+ * @since 5.14
+ */
+public class MergeBaseCache {
+	/** Maximum number of commits walked to update a known result. */
+	private static final int MAX_ADVANCE = 1000;
+
+	/**
+	 * Merge bases and ahead/behind counts of a pair of commits.
+	 */
+	public static final class Result {
+		private final List<ObjectId> mergeBases;
+
+		private final int aheadCount;
+
+		private final int behindCount;
+
+		Result(List<ObjectId> mergeBases, int aheadCount, int behindCount) {
+			this.mergeBases = mergeBases;
+			this.aheadCount = aheadCount;
+			this.behindCount = behindCount;
+		}
+
+		/**
+		 * Get the merge bases
+		 *
+		 * @return the best common ancestors of the commits, as found by
+		 *         {@link RevFilter#MERGE_BASE}; empty if the commits have no
+		 *         common history.
+		 */
+		public List<ObjectId> getMergeBases() {
+			return mergeBases;
+		}
+
+		/**
+		 * Get the first merge base
+		 *
+		 * @return the first of {@link #getMergeBases()}; null if the commits
+		 *         have no common history.
+		 */
+		@Nullable
+		public ObjectId getMergeBase() {
+			return mergeBases.isEmpty() ? null : mergeBases.get(0);
+		}
+
+		/**
+		 * Get number of commits reachable from the first commit, but not
+		 * from the second commit
+		 *
+		 * @return number of commits the first commit is ahead of the second
+		 *         commit
+		 */
+		public int getAheadCount() {
+			return aheadCount;
+		}
+
+		/**
+		 * Get number of commits reachable from the second commit, but not
+		 * from the first commit
+		 *
+		 * @return number of commits the first commit is behind the second
+		 *         commit
+		 */
+		public int getBehindCount() {
+			return behindCount;
+		}
+	}
+
+	/** A known pair, with its commits in id order. */
+	private static final class Entry {
+		final ObjectId first;
+
+		final ObjectId second;
+
+		final List<ObjectId> mergeBases;
+
+		/** Commits reachable from {@link #first} only. */
+		final int onlyFirst;
+
+		/** Commits reachable from {@link #second} only. */
+		final int onlySecond;
+
+		Entry(AnyObjectId a, AnyObjectId b, List<ObjectId> mergeBases,
+				int onlyA, int onlyB) {
+			this.mergeBases = mergeBases;
+			if (a.compareTo(b) <= 0) {
+				first = a.copy();
+				second = b.copy();
+				onlyFirst = onlyA;
+				onlySecond = onlyB;
+			} else {
+				first = b.copy();
+				second = a.copy();
+				onlyFirst = onlyB;
+				onlySecond = onlyA;
+			}
+		}
+
+		Key key() {
+			return new Key(first, second);
+		}
+
+		ObjectId other(AnyObjectId id) {
+			return first.equals(id) ? second : first;
+		}
+
+		int only(AnyObjectId id) {
+			return first.equals(id) ? onlyFirst : onlySecond;
+		}
+
+		Result result(AnyObjectId a) {
+			return new Result(mergeBases, only(a), only(other(a)));
+		}
+	}
+
+	private static final class Key {
+		private final ObjectId first;
+
+		private final ObjectId second;
+
+		Key(ObjectId first, ObjectId second) {
+			this.first = first;
+			this.second = second;
+		}
+
+		static Key of(AnyObjectId a, AnyObjectId b) {
+			if (a.compareTo(b) <= 0)
+				return new Key(a.copy(), b.copy());
+			return new Key(b.copy(), a.copy());
+		}
+
+		@Override
+		public int hashCode() {
+			return first.hashCode() * 31 + second.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			Key k = (Key) obj;
+			return first.equals(k.first) && second.equals(k.second);
+		}
+	}
+
+	private final Repository repo;
+
+	private final Map<Key, Entry> entries;
+
+	/** The most recently stored entry of each commit. */
+	private final Map<ObjectId, Entry> latest;
+
+	/**
+	 * Create an empty cache.
+	 *
+	 * @param repo
+	 *            the repository the commits are read from.
+	 * @param limit
+	 *            maximum number of pairs of commits to keep.
+	 */
+	public MergeBaseCache(Repository repo, int limit) {
+		this.repo = repo;
+		entries = new LRUMap<>(16, limit);
+		latest = new LRUMap<>(16, 2 * limit);
+	}
+
+	/**
+	 * Get the merge bases and ahead/behind counts of two commits.
+	 *
+	 * @param a
+	 *            the first commit, whose ahead and behind counts are
+	 *            returned.
+	 * @param b
+	 *            the second commit.
+	 * @return the merge bases of the commits, and the numbers of commits
+	 *         reachable from one of them only.
+	 * @throws org.openrewrite.jgit.errors.MissingObjectException
+	 *             a commit is missing.
+	 * @throws org.openrewrite.jgit.errors.IncorrectObjectTypeException
+	 *             an id is not the id of a commit.
+	 * @throws java.io.IOException
+	 *             the commits cannot be read.
+	 */
+	public Result get(AnyObjectId a, AnyObjectId b) throws IOException {
+		Key key = Key.of(a, b);
+		Entry e;
+		Entry knownA;
+		Entry knownB;
+		synchronized (this) {
+			e = entries.get(key);
+			knownA = latest.get(a);
+			knownB = latest.get(b);
+		}
+		if (e != null)
+			return e.result(a);
+
+		// Walk without holding the lock; two threads computing the same
+		// pair store equal results.
+		try (RevWalk walk = new RevWalk(repo)) {
+			if (knownB != null)
+				e = advance(walk, knownB, b, a);
+			if (e == null && knownA != null)
+				e = advance(walk, knownA, a, b);
+			if (e == null)
+				e = compute(walk, a, b);
+		}
+		synchronized (this) {
+			entries.put(e.key(), e);
+			latest.put(e.first, e);
+			latest.put(e.second, e);
+		}
+		return e.result(a);
+	}
+
+	/**
+	 * Get the merge bases of two commits.
+	 *
+	 * @param a
+	 *            the first commit.
+	 * @param b
+	 *            the second commit.
+	 * @return the best common ancestors of the commits; empty if the commits
+	 *         have no common history.
+	 * @throws java.io.IOException
+	 *             the commits cannot be read.
+	 */
+	public List<ObjectId> getMergeBases(AnyObjectId a, AnyObjectId b)
+			throws IOException {
+		return get(a, b).getMergeBases();
+	}
+
+	/** Remove all results from the cache. */
+	public synchronized void clear() {
+		entries.clear();
+		latest.clear();
+	}
+
+	/**
+	 * Update a known result for a pair of commits of which one advanced.
+	 *
+	 * @param walk
+	 *            walk to use.
+	 * @param known
+	 *            the known result.
+	 * @param stay
+	 *            the commit of the known result which did not change.
+	 * @param tip
+	 *            the new commit for the other commit of the known result.
+	 * @return the result for {@code stay} and {@code tip}; null if it cannot
+	 *         be derived from the known result.
+	 */
+	private static Entry advance(RevWalk walk, Entry known, AnyObjectId stay,
+			AnyObjectId tip) throws IOException {
+		RevCommit old = walk.parseCommit(known.other(stay));
+		RevCommit other = walk.parseCommit(stay);
+		RevCommit start = walk.parseCommit(tip);
+		if (start == old)
+			return known;
+
+		walk.reset();
+		walk.markStart(start);
+		walk.markUninteresting(old);
+		int added = 0;
+		boolean fastForward = false;
+		for (RevCommit c; (c = walk.next()) != null;) {
+			if (++added > MAX_ADVANCE)
+				return null;
+			for (RevCommit p : c.getParents()) {
+				if (p == old)
+					fastForward = true;
+			}
+		}
+		if (!fastForward)
+			return null;
+
+		// If a new commit is reachable from the other commit, the merge
+		// bases moved too.
+		walk.reset();
+		walk.markStart(start);
+		walk.markUninteresting(old);
+		walk.markUninteresting(other);
+		int notMerged = 0;
+		while (walk.next() != null)
+			notMerged++;
+		if (notMerged != added)
+			return null;
+		return new Entry(tip, stay, known.mergeBases,
+				known.only(old) + added, known.only(stay));
+	}
+
+	private static Entry compute(RevWalk walk, AnyObjectId a, AnyObjectId b)
+			throws IOException {
+		RevCommit ca = walk.parseCommit(a);
+		RevCommit cb = walk.parseCommit(b);
+		if (ca == cb)
+			return new Entry(a, b, Collections.singletonList(ca.copy()), 0,
+					0);
+
+		walk.reset();
+		walk.setRevFilter(RevFilter.MERGE_BASE);
+		walk.markStart(ca);
+		walk.markStart(cb);
+		List<ObjectId> bases = new ArrayList<>(1);
+		for (RevCommit c; (c = walk.next()) != null;)
+			bases.add(c.copy());
+
+		walk.reset();
+		walk.setRevFilter(RevFilter.ALL);
+		int onlyA = RevWalkUtils.count(walk, ca, cb);
+		int onlyB = RevWalkUtils.count(walk, cb, ca);
+		return new Entry(a, b, Collections.unmodifiableList(bases), onlyA,
+				onlyB);
+	}
+}
@@ -12,6 +12,9 @@
 package org.openrewrite.jgit.revwalk;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.openrewrite.jgit.errors.IncorrectObjectTypeException;
 import org.openrewrite.jgit.errors.MissingObjectException;
@@ -45,6 +48,9 @@ class PendingGenerator extends Generator {
 	 */
 	static final int OVER_SCAN = 5 + 1;
 
+	/** Maximum number of parents parsed in one batch. */
+	private static final int PARSE_BATCH = 64;
+
 	/** A commit near the end of time, to initialize {@link #last} with. */
 	private static final RevCommit INIT_LAST;
 
@@ -74,6 +80,11 @@ class PendingGenerator extends Generator {
 
 	boolean canDispose;
 
+	/** Queued commits whose parents are parsed in the same batch. */
+	private final RevCommit[] lookahead = new RevCommit[PARSE_BATCH];
+
+	private final List<RevCommit> batch = new ArrayList<>();
+
 	PendingGenerator(final RevWalk w, final DateRevQueue p,
 			final RevFilter f, final int out) {
 		super(w.isFirstParent());
@@ -108,6 +119,7 @@ RevCommit next() throws MissingObjectException,
 					produce = filter.include(walker, c);
 				}
 
+				parseParents(c);
 				for (int i = 0; i < c.parents.length; i++) {
 					RevCommit p = c.parents[i];
 					// If the commit is uninteresting, don't try to prune
@@ -154,4 +166,38 @@ else if (canDispose)
 			return null;
 		}
 	}
+
+	/**
+	 * Parse the parents of a commit about to be enqueued.
+	 * <p>
+	 * If a parent is not yet parsed, the parents of the next commits in the
+	 * queue are parsed together with it. A reader which loads objects
+	 * asynchronously, like that of a DFS repository, can then load them in
+	 * one batch instead of one round trip per commit.
+	 */
+	private void parseParents(RevCommit c) throws IOException {
+		addUnparsedParents(c);
+		if (batch.isEmpty())
+			return;
+		int n = pending.peek(lookahead);
+		for (int i = 0; i < n && batch.size() < PARSE_BATCH; i++)
+			addUnparsedParents(lookahead[i]);
+		Arrays.fill(lookahead, 0, n, null);
+		try {
+			if (batch.size() > 1)
+				walker.parseHeaders(batch);
+		} finally {
+			batch.clear();
+		}
+	}
+
+	private void addUnparsedParents(RevCommit c) {
+		for (int i = 0; i < c.parents.length; i++) {
+			if (firstParent && i > 0 && (c.flags & UNINTERESTING) == 0)
+				break;
+			RevCommit p = c.parents[i];
+			if ((p.flags & (SEEN | PARSED)) == 0 && !batch.contains(p))
+				batch.add(p);
+		}
+	}
 }
@@ -197,6 +197,18 @@ void parseCanonical(RevWalk walk, byte[] raw) throws IOException {
 		flags |= PARSED;
 	}
 
+	/**
+	 * Mark the headers parsed, taking them from a {@link CommitStore}.
+	 * Parents already set, like those of shallow commits, are kept.
+	 */
+	void setHeaders(RevTree t, RevCommit[] pList, int time) {
+		tree = t;
+		if (parents == null)
+			parents = pList;
+		commitTime = time;
+		flags |= PARSED;
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public final int getType() {
@@ -182,6 +182,8 @@ public class RevWalk implements Iterable<RevCommit>, AutoCloseable {
 
 	private boolean firstParent;
 
+	private boolean incrementalTopoSort;
+
 	boolean shallowCommitsInitialized;
 
 	private enum GetMergedIntoStrategy {
@@ -799,6 +801,43 @@ public void setRetainBody(boolean retain) {
 		retainBody = retain;
 	}
 
+	/**
+	 * Whether {@link org.openrewrite.jgit.revwalk.RevSort#TOPO} produces
+	 * commits while the history is still walked.
+	 *
+	 * @return true if the topological sort is incremental.
+	 * @since 5.14
+	 */
+	public boolean isIncrementalTopoSort() {
+		return incrementalTopoSort;
+	}
+
+	/**
+	 * Set whether {@link org.openrewrite.jgit.revwalk.RevSort#TOPO} produces
+	 * commits while the history is still walked.
+	 * <p>
+	 * By default the topological sort reads all commits of the walk before
+	 * producing the first one. If enabled, a commit is produced once all
+	 * commits at least as new as it have been read and its children have
+	 * been produced, so the first commits of a long history are available
+	 * early.
+	 * <p>
+	 * The order is only topological if no commit has a commit time older
+	 * than that of one of its parents, as there are no generation numbers to
+	 * prove that all children of a commit have been read. Commits are still
+	 * produced exactly once if this does not hold.
+	 * <p>
+	 * Has no effect if the walk is not sorted by commit time, e.g. for a
+	 * {@link org.openrewrite.jgit.revwalk.DepthWalk}.
+	 *
+	 * @param incremental
+	 *            true to produce commits while walking.
+	 * @since 5.14
+	 */
+	public void setIncrementalTopoSort(boolean incremental) {
+		incrementalTopoSort = incremental;
+	}
+
 	/**
 	 * @return whether only first-parent links should be followed when walking.
 	 *
@@ -1213,6 +1252,42 @@ public void release() {
 		};
 	}
 
+	/**
+	 * Parse the headers of commits through one asynchronous request of the
+	 * reader, allowing it to load them in a batch.
+	 * <p>
+	 * Commits which cannot be loaded as commits are left unparsed, to report
+	 * the error once a caller needs them.
+	 *
+	 * @param commits
+	 *            commits to parse. The list must not be modified until the
+	 *            method returns.
+	 * @throws java.io.IOException
+	 *             a pack file or loose object could not be read.
+	 */
+	void parseHeaders(List<RevCommit> commits) throws IOException {
+		AsyncObjectLoaderQueue<RevCommit> q = reader.open(commits, false);
+		try {
+			while (q.next()) {
+				RevCommit c = q.getCurrent();
+				if ((c.flags & PARSED) != 0)
+					continue;
+				ObjectLoader ldr;
+				try {
+					ldr = q.open();
+				} catch (MissingObjectException notFound) {
+					continue;
+				}
+				if (ldr.getType() == Constants.OBJ_COMMIT)
+					c.parseCanonical(this, getCachedBytes(c, ldr));
+			}
+		} catch (MissingObjectException notFound) {
+			// Parsed again one by one when needed.
+		} finally {
+			q.release();
+		}
+	}
+
 	/**
 	 * Ensure the object's critical headers have been parsed.
 	 * <p>
@@ -142,7 +142,11 @@ RevCommit next() throws MissingObjectException,
 
 		if (walker.hasRevSort(RevSort.TOPO)
 				&& (g.outputType() & SORT_TOPO) == 0) {
-			g = new TopoSortGenerator(g);
+			if (w.isIncrementalTopoSort()
+					&& (g.outputType() & SORT_COMMIT_TIME_DESC) != 0)
+				g = new IncrementalTopoSortGenerator(g);
+			else
+				g = new TopoSortGenerator(g);
 		} else if (walker.hasRevSort(RevSort.TOPO_KEEP_BRANCH_TOGETHER)
 				&& (g.outputType() & SORT_TOPO) == 0) {
 			g = new TopoNonIntermixSortGenerator(g);
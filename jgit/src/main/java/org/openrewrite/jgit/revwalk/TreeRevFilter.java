@@ -17,6 +17,7 @@
 import org.openrewrite.jgit.diff.DiffEntry;
 import org.openrewrite.jgit.diff.DiffEntry.ChangeType;
 import org.openrewrite.jgit.diff.RenameDetector;
+import org.openrewrite.jgit.diff.SimilarityIndexCache;
 import org.openrewrite.jgit.errors.CorruptObjectException;
 import org.openrewrite.jgit.errors.IncorrectObjectTypeException;
 import org.openrewrite.jgit.errors.MissingObjectException;
@@ -253,14 +254,20 @@ private void updateFollowFilter(ObjectId[] trees, DiffConfig cfg)
 		tw.reset(trees);
 
 		List<DiffEntry> files = DiffEntry.scan(tw);
+		if (oldFilter.similarityIndexCache == null)
+			oldFilter.similarityIndexCache = new SimilarityIndexCache(
+					SimilarityIndexCache.DEFAULT_LIMIT);
 		RenameDetector rd = new RenameDetector(tw.getObjectReader(), cfg);
+		rd.setSimilarityIndexCache(oldFilter.similarityIndexCache);
 		rd.addAll(files);
 		files = rd.compute();
 
 		TreeFilter newFilter = oldFilter;
 		for (DiffEntry ent : files) {
 			if (isRename(ent) && ent.getNewPath().equals(oldFilter.getPath())) {
-				newFilter = FollowFilter.create(ent.getOldPath(), cfg);
+				FollowFilter f = FollowFilter.create(ent.getOldPath(), cfg);
+				f.similarityIndexCache = oldFilter.similarityIndexCache;
+				newFilter = f;
 				RenameCallback callback = oldFilter.getRenameCallback();
 				if (callback != null) {
 					callback.renamed(ent);
@@ -22,15 +22,19 @@
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_COMPRESSION;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_CUT_DELTACHAINS;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_DELTA_CACHE_LIMIT;
+import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_DELTA_CACHE_OFF_HEAP;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_DELTA_CACHE_SIZE;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_DELTA_COMPRESSION;
+import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_DELTA_WORK_STEALING;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_DEPTH;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_INDEXVERSION;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_MIN_SIZE_PREVENT_RACYPACK;
+import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_PARALLEL_COUNTING;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_REUSE_DELTAS;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_REUSE_OBJECTS;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_SEARCH_FOR_REUSE_TIMEOUT;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_SINGLE_PACK;
+import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_STREAMING_WRITE;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_THREADS;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_WAIT_PREVENT_RACYPACK;
 import static org.openrewrite.jgit.lib.ConfigConstants.CONFIG_KEY_WINDOW;
@@ -235,6 +239,42 @@ public class PackConfig {
 	public static final Duration DEFAULT_SEARCH_FOR_REUSE_TIMEOUT = Duration
 			.ofSeconds(Integer.MAX_VALUE);
 
+	/**
+	 * Default setting for enumerating objects with multiple threads:
+	 * {@value}
+	 *
+	 * @see #setParallelCounting(boolean)
+	 * @since 5.14
+	 */
+	public static final boolean DEFAULT_PARALLEL_COUNTING = false;
+
+	/**
+	 * Default setting for writing objects while searching for deltas:
+	 * {@value}
+	 *
+	 * @see #setStreamingWrite(boolean)
+	 * @since 5.14
+	 */
+	public static final boolean DEFAULT_STREAMING_WRITE = false;
+
+	/**
+	 * Default setting for keeping cached deltas outside of the Java heap:
+	 * {@value}
+	 *
+	 * @see #setDeltaCacheOffHeap(boolean)
+	 * @since 5.14
+	 */
+	public static final boolean DEFAULT_DELTA_CACHE_OFF_HEAP = false;
+
+	/**
+	 * Default setting for scheduling the parallel delta search on a
+	 * work-stealing pool: {@value}
+	 *
+	 * @see #setDeltaWorkStealing(boolean)
+	 * @since 5.14
+	 */
+	public static final boolean DEFAULT_DELTA_WORK_STEALING = false;
+
 	private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
 
 	private boolean reuseDeltas = DEFAULT_REUSE_DELTAS;
@@ -259,6 +299,8 @@ public class PackConfig {
 
 	private int deltaCacheLimit = DEFAULT_DELTA_CACHE_LIMIT;
 
+	private boolean deltaCacheOffHeap = DEFAULT_DELTA_CACHE_OFF_HEAP;
+
 	private int bigFileThreshold = DEFAULT_BIG_FILE_THRESHOLD;
 
 	private boolean waitPreventRacyPack = DEFAULT_WAIT_PREVENT_RACY_PACK;
@@ -267,6 +309,8 @@ public class PackConfig {
 
 	private int threads;
 
+	private boolean deltaWorkStealing = DEFAULT_DELTA_WORK_STEALING;
+
 	private Executor executor;
 
 	private int indexVersion = DEFAULT_INDEX_VERSION;
@@ -291,6 +335,10 @@ public class PackConfig {
 
 	private boolean singlePack;
 
+	private boolean parallelCounting = DEFAULT_PARALLEL_COUNTING;
+
+	private boolean streamingWrite = DEFAULT_STREAMING_WRITE;
+
 	/**
 	 * Create a default configuration.
 	 */
@@ -342,10 +390,12 @@ public PackConfig(PackConfig cfg) {
 		this.deltaSearchMemoryLimit = cfg.deltaSearchMemoryLimit;
 		this.deltaCacheSize = cfg.deltaCacheSize;
 		this.deltaCacheLimit = cfg.deltaCacheLimit;
+		this.deltaCacheOffHeap = cfg.deltaCacheOffHeap;
 		this.bigFileThreshold = cfg.bigFileThreshold;
 		this.waitPreventRacyPack = cfg.waitPreventRacyPack;
 		this.minSizePreventRacyPack = cfg.minSizePreventRacyPack;
 		this.threads = cfg.threads;
+		this.deltaWorkStealing = cfg.deltaWorkStealing;
 		this.executor = cfg.executor;
 		this.indexVersion = cfg.indexVersion;
 		this.buildBitmaps = cfg.buildBitmaps;
@@ -358,6 +408,8 @@ public PackConfig(PackConfig cfg) {
 		this.cutDeltaChains = cfg.cutDeltaChains;
 		this.singlePack = cfg.singlePack;
 		this.searchForReuseTimeout = cfg.searchForReuseTimeout;
+		this.parallelCounting = cfg.parallelCounting;
+		this.streamingWrite = cfg.streamingWrite;
 	}
 
 	/**
@@ -741,6 +793,38 @@ public void setDeltaCacheLimit(int size) {
 		deltaCacheLimit = size;
 	}
 
+	/**
+	 * Whether cached deltas are kept outside of the Java heap.
+	 *
+	 * Default setting: {@value #DEFAULT_DELTA_CACHE_OFF_HEAP}
+	 *
+	 * @return true if the delta cache stores deltas in direct buffers.
+	 * @since 5.14
+	 */
+	public boolean isDeltaCacheOffHeap() {
+		return deltaCacheOffHeap;
+	}
+
+	/**
+	 * Set whether cached deltas are kept outside of the Java heap.
+	 *
+	 * By default cached deltas are held through soft references, so the
+	 * garbage collector may discard them under memory pressure and they then
+	 * have to be computed again while writing. When enabled, deltas are copied
+	 * into direct buffers that are allocated up to {@link #getDeltaCacheSize()}
+	 * bytes. Once that budget is used up, the oldest cached delta of a similar
+	 * size is evicted to make room for a new one.
+	 *
+	 * Default setting: {@value #DEFAULT_DELTA_CACHE_OFF_HEAP}
+	 *
+	 * @param offHeap
+	 *            true to store cached deltas outside of the Java heap.
+	 * @since 5.14
+	 */
+	public void setDeltaCacheOffHeap(boolean offHeap) {
+		deltaCacheOffHeap = offHeap;
+	}
+
 	/**
 	 * Get the maximum file size that will be delta compressed.
 	 *
@@ -920,6 +1004,40 @@ public void setExecutor(Executor executor) {
 		this.executor = executor;
 	}
 
+	/**
+	 * Whether the parallel delta search runs on a work-stealing pool.
+	 *
+	 * Default setting: {@value #DEFAULT_DELTA_WORK_STEALING}
+	 *
+	 * @return true if the delta search is scheduled on a
+	 *         {@link java.util.concurrent.ForkJoinPool}.
+	 * @since 5.14
+	 */
+	public boolean isDeltaWorkStealing() {
+		return deltaWorkStealing;
+	}
+
+	/**
+	 * Set whether the parallel delta search runs on a work-stealing pool.
+	 *
+	 * By default the objects to search are split into one set of slices per
+	 * thread before the search starts. When enabled, the search list is split
+	 * recursively by object size into many smaller ranges, which idle threads
+	 * steal from busy ones, and the {@link #getDeltaSearchMemoryLimit()} is
+	 * divided evenly between the threads. If {@link #getExecutor()} is a
+	 * {@link java.util.concurrent.ForkJoinPool} it is used, otherwise a
+	 * temporary pool of {@link #getThreads()} threads is created.
+	 *
+	 * Default setting: {@value #DEFAULT_DELTA_WORK_STEALING}
+	 *
+	 * @param workStealing
+	 *            true to schedule the delta search on a work-stealing pool.
+	 * @since 5.14
+	 */
+	public void setDeltaWorkStealing(boolean workStealing) {
+		deltaWorkStealing = workStealing;
+	}
+
 	/**
 	 * Get the pack index file format version this instance creates.
 	 *
@@ -1157,6 +1275,76 @@ public void setSearchForReuseTimeout(Duration timeout) {
 		searchForReuseTimeout = timeout;
 	}
 
+	/**
+	 * Whether objects are enumerated by multiple threads.
+	 *
+	 * Default setting: {@value #DEFAULT_PARALLEL_COUNTING}
+	 *
+	 * @return true if the "counting objects" phase may walk trees with
+	 *         multiple threads.
+	 * @since 5.14
+	 */
+	public boolean isParallelCounting() {
+		return parallelCounting;
+	}
+
+	/**
+	 * Enable walking the trees of the selected commits with multiple threads.
+	 *
+	 * When enabled and {@link #getThreads()} allows more than one thread, the
+	 * trees of the commits to be packed are split across worker threads that
+	 * share a single set of already seen objects. Only packs without
+	 * uninteresting objects, such as those served for a clone, are counted
+	 * this way; all other packs use the single threaded object walk. Objects
+	 * discovered by different threads are not in the exact order the single
+	 * threaded walk would produce, which may slightly change the layout of
+	 * the resulting pack.
+	 *
+	 * Default setting: {@value #DEFAULT_PARALLEL_COUNTING}
+	 *
+	 * @param parallel
+	 *            true to enumerate objects with multiple threads.
+	 * @since 5.14
+	 */
+	public void setParallelCounting(boolean parallel) {
+		parallelCounting = parallel;
+	}
+
+	/**
+	 * Whether objects are written while the delta search is still running.
+	 *
+	 * Default setting: {@value #DEFAULT_STREAMING_WRITE}
+	 *
+	 * @return true if the writer starts the pack stream before the delta
+	 *         search has completed.
+	 * @since 5.14
+	 */
+	public boolean isStreamingWrite() {
+		return streamingWrite;
+	}
+
+	/**
+	 * Enable writing objects while the delta search is still running.
+	 *
+	 * When enabled, the delta search runs in the background and the pack
+	 * stream starts as soon as suitable representations for existing objects
+	 * have been selected. Commits, annotated tags and all trees and blobs whose
+	 * representation the delta search cannot change are written first, the
+	 * remaining objects follow once the search completes. To keep reused delta
+	 * chains writable, their bases are not considered for new deltas, which
+	 * may produce a slightly larger pack. No progress is reported for the
+	 * compression phase in this mode.
+	 *
+	 * Default setting: {@value #DEFAULT_STREAMING_WRITE}
+	 *
+	 * @param streaming
+	 *            true to write objects while searching for deltas.
+	 * @since 5.14
+	 */
+	public void setStreamingWrite(boolean streaming) {
+		streamingWrite = streaming;
+	}
+
 	/**
 	 * Update properties by setting fields from the configuration.
 	 *
@@ -1177,6 +1365,8 @@ public void fromConfig(Config rc) {
 				CONFIG_KEY_DELTA_CACHE_SIZE, getDeltaCacheSize()));
 		setDeltaCacheLimit(rc.getInt(CONFIG_PACK_SECTION,
 				CONFIG_KEY_DELTA_CACHE_LIMIT, getDeltaCacheLimit()));
+		setDeltaCacheOffHeap(rc.getBoolean(CONFIG_PACK_SECTION,
+				CONFIG_KEY_DELTA_CACHE_OFF_HEAP, isDeltaCacheOffHeap()));
 		setCompressionLevel(rc.getInt(CONFIG_PACK_SECTION,
 				CONFIG_KEY_COMPRESSION, rc.getInt(CONFIG_CORE_SECTION,
 						CONFIG_KEY_COMPRESSION, getCompressionLevel())));
@@ -1187,6 +1377,8 @@ public void fromConfig(Config rc) {
 				CONFIG_KEY_BIGFILE_THRESHOLD, getBigFileThreshold()));
 		setThreads(rc.getInt(CONFIG_PACK_SECTION, CONFIG_KEY_THREADS,
 				getThreads()));
+		setDeltaWorkStealing(rc.getBoolean(CONFIG_PACK_SECTION,
+				CONFIG_KEY_DELTA_WORK_STEALING, isDeltaWorkStealing()));
 
 		// These variables aren't standardized
 		setReuseDeltas(rc.getBoolean(CONFIG_PACK_SECTION,
@@ -1229,6 +1421,10 @@ public void fromConfig(Config rc) {
 		setMinSizePreventRacyPack(rc.getLong(CONFIG_PACK_SECTION,
 				CONFIG_KEY_MIN_SIZE_PREVENT_RACYPACK,
 				getMinSizePreventRacyPack()));
+		setParallelCounting(rc.getBoolean(CONFIG_PACK_SECTION,
+				CONFIG_KEY_PARALLEL_COUNTING, isParallelCounting()));
+		setStreamingWrite(rc.getBoolean(CONFIG_PACK_SECTION,
+				CONFIG_KEY_STREAMING_WRITE, isStreamingWrite()));
 	}
 
 	/** {@inheritDoc} */
@@ -1241,10 +1437,12 @@ public String toString() {
 				.append(getDeltaSearchMemoryLimit());
 		b.append(", deltaCacheSize=").append(getDeltaCacheSize()); //$NON-NLS-1$
 		b.append(", deltaCacheLimit=").append(getDeltaCacheLimit()); //$NON-NLS-1$
+		b.append(", deltaCacheOffHeap=").append(isDeltaCacheOffHeap()); //$NON-NLS-1$
 		b.append(", compressionLevel=").append(getCompressionLevel()); //$NON-NLS-1$
 		b.append(", indexVersion=").append(getIndexVersion()); //$NON-NLS-1$
 		b.append(", bigFileThreshold=").append(getBigFileThreshold()); //$NON-NLS-1$
 		b.append(", threads=").append(getThreads()); //$NON-NLS-1$
+		b.append(", deltaWorkStealing=").append(isDeltaWorkStealing()); //$NON-NLS-1$
 		b.append(", reuseDeltas=").append(isReuseDeltas()); //$NON-NLS-1$
 		b.append(", reuseObjects=").append(isReuseObjects()); //$NON-NLS-1$
 		b.append(", deltaCompress=").append(isDeltaCompress()); //$NON-NLS-1$
@@ -1264,6 +1462,8 @@ public String toString() {
 		b.append(", searchForReuseTimeout") //$NON-NLS-1$
 				.append(getSearchForReuseTimeout());
 		b.append(", singlePack=").append(getSinglePack()); //$NON-NLS-1$
+		b.append(", parallelCounting=").append(isParallelCounting()); //$NON-NLS-1$
+		b.append(", streamingWrite=").append(isStreamingWrite()); //$NON-NLS-1$
 		return b.toString();
 	}
 }
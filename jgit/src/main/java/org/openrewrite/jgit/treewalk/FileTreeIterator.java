@@ -21,8 +21,14 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import org.openrewrite.jgit.dircache.DirCache;
+import org.openrewrite.jgit.dircache.DirCacheEntry;
 import org.openrewrite.jgit.dircache.DirCacheIterator;
+import org.openrewrite.jgit.dircache.UntrackedCache;
 import org.openrewrite.jgit.errors.IncorrectObjectTypeException;
 import org.openrewrite.jgit.lib.Constants;
 import org.openrewrite.jgit.lib.FileMode;
@@ -60,6 +66,18 @@ public class FileTreeIterator extends WorkingTreeIterator {
 	 */
 	protected final FileModeStrategy fileModeStrategy;
 
+	/** Untracked cache used to list directories; null if not used. */
+	private UntrackedCache untrackedCache;
+
+	/** Entry of {@link #directory} in {@link #untrackedCache}. */
+	private UntrackedCache.Directory untrackedDir;
+
+	/** Whether {@link #directory} was read from disk, not from the cache. */
+	private boolean listed;
+
+	/** Index whose file system monitor data is used; null if not used. */
+	private DirCache fsMonitorIndex;
+
 	/**
 	 * Create a new iterator to traverse the work tree and its children.
 	 *
@@ -172,7 +190,74 @@ protected FileTreeIterator(final WorkingTreeIterator p, final File root,
 		directory = root;
 		this.fs = fs;
 		this.fileModeStrategy = fileModeStrategy;
+		if (p instanceof FileTreeIterator) {
+			FileTreeIterator ftp = (FileTreeIterator) p;
+			fsMonitorIndex = ftp.fsMonitorIndex;
+			if (ftp.untrackedDir != null) {
+				untrackedCache = ftp.untrackedCache;
+				untrackedDir = untrackedCache.getChild(ftp.untrackedDir,
+						root.getName());
+			}
+		}
+		init(entries());
+		recordUntracked();
+	}
+
+	/**
+	 * Use an untracked cache to list unchanged directories.
+	 * <p>
+	 * Directories which did not change since they were recorded in the cache
+	 * are not read. Their entries are the tracked paths of the index, and the
+	 * untracked files and subdirectories remembered by the cache. Ignored
+	 * files in such directories are not returned by the iterator. Directories
+	 * that have to be read are recorded in the cache.
+	 * <p>
+	 * Must be called on the root iterator of the working tree, before the
+	 * iterator is added to a {@link TreeWalk}. The cache must have been
+	 * prepared with
+	 * {@link UntrackedCache#prepare(org.openrewrite.jgit.lib.Repository)}.
+	 *
+	 * @param cache
+	 *            the untracked cache of the index; null to read all
+	 *            directories.
+	 * @since 5.14
+	 */
+	public void setUntrackedCache(UntrackedCache cache) {
+		untrackedCache = cache;
+		untrackedDir = cache != null ? cache.getRoot() : null;
+		if (untrackedDir != null)
+			reload();
+	}
+
+	/**
+	 * Use the file system monitor data of an index to avoid examining
+	 * unchanged files.
+	 * <p>
+	 * Files whose index entries are marked valid by the file system monitor
+	 * are not examined, their attributes are taken from the index.
+	 * Subdirectories the untracked cache knows to be unchanged are not
+	 * examined either. Other directories are read without reading the
+	 * attributes of the valid files in them.
+	 * <p>
+	 * Must be called on the root iterator of the working tree, before the
+	 * iterator is added to a {@link TreeWalk}. The index must have been
+	 * refreshed with
+	 * {@link DirCache#refreshFsMonitor(Repository, org.openrewrite.jgit.lib.FileSystemMonitor)}.
+	 *
+	 * @param index
+	 *            the index of the working tree; null to examine all files.
+	 * @since 5.14
+	 */
+	public void setFsMonitorIndex(DirCache index) {
+		fsMonitorIndex = index;
+		reload();
+	}
+
+	private void reload() {
 		init(entries());
+		if (repository != null)
+			initRootIterator(repository);
+		recordUntracked();
 	}
 
 	/** {@inheritDoc} */
@@ -209,9 +294,105 @@ protected AbstractTreeIterator enterSubtree() {
 	}
 
 	private Entry[] entries() {
+		listed = true;
+		if (untrackedDir != null) {
+			try {
+				String[] names = untrackedCache.list(untrackedDir, directory);
+				if (names != null) {
+					listed = false;
+					return entries(names);
+				}
+			} catch (IOException e) {
+				// Read the directory and leave it out of the cache.
+				untrackedDir = null;
+			}
+		}
+		if (fsMonitorIndex != null) {
+			String[] names = directory.list();
+			return names != null ? entries(names) : new Entry[0];
+		}
 		return fs.list(directory, fileModeStrategy);
 	}
 
+	private Entry[] entries(String[] names) {
+		List<Entry> r = new ArrayList<>(names.length);
+		for (String name : names) {
+			File f = new File(directory, name);
+			Entry e = unchangedEntry(f, name);
+			if (e != null) {
+				r.add(e);
+				continue;
+			}
+			FS.Attributes attributes = fs.getAttributes(f);
+			// Tracked files may have been deleted.
+			if (attributes.exists())
+				r.add(new FileEntry(f, fs, attributes, fileModeStrategy));
+		}
+		return r.toArray(new Entry[0]);
+	}
+
+	/**
+	 * Create the entry of a path known to be unchanged without looking at
+	 * it; null if the path has to be examined.
+	 */
+	private Entry unchangedEntry(File f, String name) {
+		if (fsMonitorIndex != null) {
+			byte[] n = Constants.encode(name);
+			byte[] p = Arrays.copyOf(path, pathOffset + n.length);
+			System.arraycopy(n, 0, p, pathOffset, n.length);
+			int i = fsMonitorIndex.findEntry(p, p.length);
+			if (i >= 0) {
+				DirCacheEntry e = fsMonitorIndex.getEntry(i);
+				if (!isUnchanged(e))
+					return null;
+				return new FileEntry(fs, new IndexAttributes(f, fs, e),
+						e.getFileMode());
+			}
+		}
+		if (!listed && untrackedCache.isUnchangedDirectory(untrackedDir, name))
+			return new FileEntry(fs, new IndexAttributes(f, fs, null),
+					FileMode.TREE);
+		return null;
+	}
+
+	private static boolean isUnchanged(DirCacheEntry e) {
+		if (!e.isFsMonitorValid() || e.getStage() != DirCacheEntry.STAGE_0
+				|| e.isSmudged())
+			return false;
+		// Gitlinks are examined, they may have been turned into trees.
+		int type = e.getRawMode() & FileMode.TYPE_MASK;
+		return type == FileMode.TYPE_FILE || type == FileMode.TYPE_SYMLINK;
+	}
+
+	private void recordUntracked() {
+		if (!listed || untrackedDir == null || !untrackedCache.isRecording())
+			return;
+		List<String> untracked = new ArrayList<>();
+		List<String> dirs = new ArrayList<>();
+		try {
+			for (; !eof(); next(1)) {
+				String name = current().getName();
+				FileMode m = getEntryFileMode();
+				if (FileMode.TREE.equals(m)) {
+					if (untrackedCache.isTracked(untrackedDir, name, true)
+							|| !isEntryIgnored())
+						dirs.add(name);
+				} else if (!untrackedCache.isTracked(untrackedDir, name, false)
+						&& !isEntryIgnored()) {
+					// Like C Git, nested repositories are listed as
+					// untracked directories.
+					untracked.add(FileMode.GITLINK.equals(m) ? name + '/'
+							: name);
+				}
+			}
+			untrackedCache.record(untrackedDir, untracked, dirs);
+		} catch (IOException e) {
+			// Leave the directory invalid in the cache.
+		} finally {
+			reset();
+		}
+	}
+
 	/**
 	 * An interface representing the methods used to determine the FileMode for
 	 * a FileEntry.
@@ -357,6 +538,12 @@ public FileEntry(File f, FS fs, FS.Attributes attributes,
 			mode = fileModeStrategy.getMode(f, attributes);
 		}
 
+		private FileEntry(FS fs, FS.Attributes attributes, FileMode mode) {
+			this.fs = fs;
+			this.attributes = attributes;
+			this.mode = mode;
+		}
+
 		@Override
 		public FileMode getMode() {
 			return mode;
@@ -405,6 +592,57 @@ public File getFile() {
 		}
 	}
 
+	/** Attributes of a path taken from the index instead of the file. */
+	private static final class IndexAttributes extends FS.Attributes {
+		private final FileMode mode;
+
+		private final Instant lastModified;
+
+		IndexAttributes(File f, FS fs, DirCacheEntry e) {
+			super(f, fs);
+			if (e != null) {
+				mode = e.getFileMode();
+				lastModified = e.getLastModifiedInstant();
+				length = e.getLength() & 0xffffffffL;
+			} else {
+				mode = FileMode.TREE;
+				lastModified = Instant.EPOCH;
+				length = 0;
+			}
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return mode == FileMode.TREE;
+		}
+
+		@Override
+		public boolean isExecutable() {
+			return mode == FileMode.EXECUTABLE_FILE;
+		}
+
+		@Override
+		public boolean isSymbolicLink() {
+			return mode == FileMode.SYMLINK;
+		}
+
+		@Override
+		public boolean isRegularFile() {
+			return mode == FileMode.REGULAR_FILE
+					|| mode == FileMode.EXECUTABLE_FILE;
+		}
+
+		@Override
+		public Instant getLastModifiedInstant() {
+			return lastModified;
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+	}
+
 	/**
 	 * <p>Getter for the field <code>directory</code>.</p>
 	 *
@@ -2455,7 +2455,11 @@ public File getFile() {
 			return file;
 		}
 
-		boolean exists() {
+		/**
+		 * @return true if the file existed when the attributes were read
+		 * @since 5.14
+		 */
+		public boolean exists() {
 			return exists;
 		}
 	}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.dircache;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.jgit.api.Git;
+import org.openrewrite.jgit.api.Status;
+import org.openrewrite.jgit.lib.ConfigConstants;
+import org.openrewrite.jgit.lib.StoredConfig;
+
+class UntrackedCacheIgnoredTest {
+	@TempDir
+	File dir;
+
+	@Test
+	void ignoredFilesOfCachedDirectory() throws Exception {
+		try (Git git = Git.init().setDirectory(dir).call()) {
+			StoredConfig cfg = git.getRepository().getConfig();
+			cfg.setBoolean(ConfigConstants.CONFIG_CORE_SECTION, null,
+					ConfigConstants.CONFIG_KEY_UNTRACKED_CACHE, true);
+			cfg.save();
+
+			File sub = new File(dir, "sub");
+			sub.mkdir();
+			write(new File(dir, ".gitignore"), "*.log\n");
+			write(new File(sub, "a.txt"), "a\n");
+			write(new File(sub, "b.log"), "b\n");
+			git.add().addFilepattern(".").call();
+			git.commit().setMessage("initial").call();
+			// Directories modified as late as the index are not cached.
+			FileTime old = FileTime.from(
+					Instant.now().minus(1, ChronoUnit.HOURS));
+			Files.setLastModifiedTime(dir.toPath(), old);
+			Files.setLastModifiedTime(sub.toPath(), old);
+
+			// Record the directory, then list it from the cache.
+			for (int i = 0; i < 2; i++) {
+				Status s = git.status().setCollectIgnored(false).call();
+				assertTrue(s.isClean());
+				assertTrue(s.getIgnoredNotInIndex().isEmpty());
+			}
+			DirCache dc = git.getRepository().readDirCache();
+			UntrackedCache uc = dc.getUntrackedCache(false);
+			assertTrue(uc != null && uc.getRoot() != null);
+
+			Status s = git.status().call();
+			assertEquals(Collections.singleton("sub/b.log"),
+					s.getIgnoredNotInIndex());
+
+			Set<String> cleaned = git.clean().setIgnore(false).call();
+			assertEquals(Collections.singleton("sub/b.log"), cleaned);
+			assertFalse(new File(sub, "b.log").exists());
+		}
+	}
+
+	private static void write(File f, String content) throws Exception {
+		Files.write(f.toPath(), content.getBytes(UTF_8));
+	}
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2026, The JGit Authors and others
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Distribution License v. 1.0 which is available at
+ * https://www.eclipse.org/org/documents/edl-v10.php.
+ *
+ * SPDX-License-Identifier: BSD-3-Clause
+ */
+
+package org.openrewrite.jgit.internal.storage.pack;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.jgit.api.Git;
+import org.openrewrite.jgit.lib.NullProgressMonitor;
+import org.openrewrite.jgit.lib.ObjectId;
+import org.openrewrite.jgit.lib.ObjectInserter;
+import org.openrewrite.jgit.lib.ProgressMonitor;
+import org.openrewrite.jgit.lib.Repository;
+import org.openrewrite.jgit.revwalk.ObjectWalk;
+import org.openrewrite.jgit.revwalk.RevCommit;
+import org.openrewrite.jgit.storage.file.FileRepositoryBuilder;
+import org.openrewrite.jgit.storage.pack.PackConfig;
+import org.openrewrite.jgit.transport.PackParser;
+
+class PackWriterExecutorTest {
+	@TempDir
+	File dir;
+
+	@Test
+	void writePackOnForkJoinPool() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try (Git git = Git.init().setDirectory(new File(dir, "src")).call()) {
+			Set<ObjectId> want = new HashSet<>();
+			want.add(commitFiles(git));
+			Repository repo = git.getRepository();
+			// Tasks running twice race each other, repeat to catch it.
+			int n = 0;
+			for (int round = 0; round < 10; round++) {
+				for (int mode = 0; mode < 4; mode++) {
+					boolean workStealing = (mode & 1) != 0;
+					boolean streaming = (mode & 2) != 0;
+					PackConfig pc = new PackConfig(repo);
+					pc.setThreads(4);
+					pc.setExecutor(pool);
+					pc.setDeltaWorkStealing(workStealing);
+					pc.setStreamingWrite(streaming);
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					WorkMonitor pm = new WorkMonitor();
+					long cnt;
+					try (PackWriter pw = new PackWriter(pc,
+							repo.newObjectReader())) {
+						pw.preparePack(pm, want, PackWriter.NONE);
+						pw.writePack(pm, pm, out);
+						cnt = pw.getObjectCount();
+					}
+					assertEquals(cnt, countObjects(new File(dir, "dst" + n++),
+							out.toByteArray(), want));
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Fails if a task reports more work than it announced, as a task run
+	 * twice does.
+	 */
+	private static class WorkMonitor implements ProgressMonitor {
+		private String title;
+
+		private int total;
+
+		private int done;
+
+		@Override
+		public void start(int totalTasks) {
+			// Not needed.
+		}
+
+		@Override
+		public synchronized void beginTask(String t, int totalWork) {
+			title = t;
+			total = totalWork;
+			done = 0;
+		}
+
+		@Override
+		public synchronized void update(int completed) {
+			done += completed;
+			if (total != UNKNOWN)
+				assertTrue(done <= total, title + ": " + done + " of " + total);
+		}
+
+		@Override
+		public void endTask() {
+			// Not needed.
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return false;
+		}
+	}
+
+	/** Commit similar files several times, so that deltas are searched. */
+	private static ObjectId commitFiles(Git git) throws Exception {
+		File work = git.getRepository().getWorkTree();
+		RevCommit c = null;
+		for (int rev = 0; rev < 4; rev++) {
+			for (int f = 0; f < 40; f++) {
+				StringBuilder b = new StringBuilder();
+				for (int line = 0; line < 200; line++)
+					b.append("file ").append(f).append(" line ").append(line)
+							.append(line % 50 == rev ? " changed" : "")
+							.append('\n');
+				Files.write(new File(work, "f" + f + ".txt").toPath(),
+						b.toString().getBytes(UTF_8));
+			}
+			git.add().addFilepattern(".").call();
+			c = git.commit().setMessage("rev " + rev).call();
+		}
+		return c;
+	}
+
+	/** Index the pack into a new repository and walk all its objects. */
+	private static long countObjects(File gitDir, byte[] pack,
+			Set<ObjectId> want) throws IOException {
+		try (Repository dst = new FileRepositoryBuilder().setGitDir(gitDir)
+				.build()) {
+			dst.create(true);
+			try (ObjectInserter ins = dst.newObjectInserter()) {
+				PackParser p = ins
+						.newPackParser(new ByteArrayInputStream(pack));
+				p.parse(NullProgressMonitor.INSTANCE);
+				ins.flush();
+			}
+			long cnt = 0;
+			try (ObjectWalk ow = new ObjectWalk(dst)) {
+				for (ObjectId id : want)
+					ow.markStart(ow.parseAny(id));
+				while (ow.next() != null)
+					cnt++;
+				while (ow.nextObject() != null)
+					cnt++;
+			}
+			return cnt;
+		}
+	}
+}